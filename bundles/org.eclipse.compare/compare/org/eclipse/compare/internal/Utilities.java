@@ -26,6 +26,7 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -104,6 +105,10 @@ import org.eclipse.ui.texteditor.IDocumentProvider;
 public class Utilities {
 	private static final IPath ICONS_PATH= new Path("$nl$/icons/full/"); //$NON-NLS-1$
 
+	private static final int CONTENT_BUFFER_SIZE= 32 * 1024;
+	private static final ThreadLocal<byte[][]> CONTENT_BUFFERS= ThreadLocal
+			.withInitial(() -> new byte[][] { new byte[CONTENT_BUFFER_SIZE], new byte[CONTENT_BUFFER_SIZE] });
+
 	public static IWorkbenchPartSite findSite(Control c) {
 		while (c != null && !c.isDisposed()) {
 			Object data= c.getData();
@@ -696,6 +701,33 @@ public class Utilities {
 		return Utilities.readString(sa, encoding);
 	}
 
+	/**
+	 * Returns whether the two streams have identical byte contents. The
+	 * streams are read in blocks into buffers that are reused by the calling
+	 * thread and are not closed.
+	 *
+	 * @param is1 the first stream
+	 * @param is2 the second stream
+	 * @return <code>true</code> if the contents are identical
+	 * @throws IOException if either stream could not be read
+	 */
+	public static boolean contentsEqual(InputStream is1, InputStream is2) throws IOException {
+		byte[][] buffers= CONTENT_BUFFERS.get();
+		byte[] b1= buffers[0];
+		byte[] b2= buffers[1];
+		while (true) {
+			int n1= is1.readNBytes(b1, 0, b1.length);
+			int n2= is2.readNBytes(b2, 0, b2.length);
+			if (n1 != n2)
+				return false;
+			if (Arrays.mismatch(b1, 0, n1, b2, 0, n2) != -1)
+				return false;
+			// readNBytes only returns less than requested at the end of the stream
+			if (n1 < b1.length)
+				return true;
+		}
+	}
+
 	public static void close(InputStream is) {
 		if (is != null) {
 			try {
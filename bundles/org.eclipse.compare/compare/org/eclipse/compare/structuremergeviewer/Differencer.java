@@ -467,15 +467,7 @@ public class Differencer {
 			if (is1 == null || is2 == null)	// only one has contents
 				return false;
 
-			while (true) {
-				int c1= is1.read();
-				int c2= is2.read();
-				if (c1 == -1 && c2 == -1)
-					return true;
-				if (c1 != c2)
-					break;
-
-			}
+			return Utilities.contentsEqual(is1, is2);
 		} catch (IOException ex) {
 			// NeedWork
 		} finally {
@@ -17,8 +17,11 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.internal.net.AbstractProxyProvider;
 import org.eclipse.core.internal.net.Activator;
@@ -27,8 +30,10 @@ import org.eclipse.core.internal.net.ProxyData;
 import org.eclipse.core.internal.net.StringUtil;
 import org.eclipse.core.net.proxy.IProxyData;
 
+import com.sun.jna.Callback;
 import com.sun.jna.Library;
 import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
 import com.sun.jna.Pointer;
 import com.sun.jna.ptr.PointerByReference;
 
@@ -54,6 +59,35 @@ public class ProxyProvider extends AbstractProxyProvider {
 
 	private static boolean isGnomeLibLoaded = false;
 
+	/**
+	 * The number of milliseconds for which the system proxy configuration is
+	 * cached, 0 to read it on every call. The cache is also cleared when
+	 * GSettings reports a change, which requires a running GLib main loop.
+	 */
+	private static final String CACHE_TTL = Activator.ID + ".linux.cacheTTL"; //$NON-NLS-1$
+
+	private static final long DEFAULT_CACHE_TTL = 10000;
+
+	private static final long cacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong(CACHE_TTL, DEFAULT_CACHE_TTL).longValue());
+
+	private static volatile SystemProxySettings cachedSettings;
+
+	// Referenced for as long as the signal handlers are connected
+	private static SettingsChangedCallback settingsChangedCallback;
+
+	/*
+	 * The system proxy configuration as read at one point in time. The proxy of a
+	 * protocol is read when it is first requested.
+	 */
+	private static final class SystemProxySettings {
+		private static final ProxyData NO_PROXY = new ProxyData("none"); //$NON-NLS-1$
+
+		final long timestamp = System.nanoTime();
+		final Map<String, ProxyData> proxies = new ConcurrentHashMap<>();
+		volatile String[] nonProxiedHosts;
+		volatile String autoConfigUrl; // empty if there is no proxy auto-config script
+	}
+
 	static {
 		// Load the GSettings JNI library if org.eclipse.core.net.enableGnome is specified
 		String value = System.getProperty(ENABLE_GNOME);
@@ -68,7 +102,7 @@ public class ProxyProvider extends AbstractProxyProvider {
 
 	@Override
 	public IProxyData[] select(URI uri) {
-		String[] nonProxyHosts = getNonProxiedHosts();
+		String[] nonProxyHosts = getCachedNonProxiedHosts();
 		if (nonProxyHosts != null) {
 			String host = uri.getHost();
 			for (String nonProxyHost : nonProxyHosts) {
@@ -80,7 +114,13 @@ public class ProxyProvider extends AbstractProxyProvider {
 		IProxyData[] proxies = new IProxyData[0];
 		if (uri.getScheme() != null) {
 			ProxyData pd = getSystemProxyInfo(uri.getScheme());
-			proxies = pd != null ? new IProxyData[] { pd } : new IProxyData[0];
+			if (pd != null) {
+				proxies = new IProxyData[] { pd };
+			} else {
+				String autoConfigUrl = getCachedAutoConfigUrl();
+				if (autoConfigUrl.length() > 0)
+					proxies = selectWithPacScript(autoConfigUrl, uri);
+			}
 		} else {
 			proxies = getProxyData();
 		}
@@ -113,6 +153,20 @@ public class ProxyProvider extends AbstractProxyProvider {
 
 	@Override
 	public String[] getNonProxiedHosts() {
+		return getCachedNonProxiedHosts().clone();
+	}
+
+	private String[] getCachedNonProxiedHosts() {
+		SystemProxySettings settings = getCachedSettings();
+		String[] npHosts = settings.nonProxiedHosts;
+		if (npHosts == null) {
+			npHosts = readNonProxiedHosts();
+			settings.nonProxiedHosts = npHosts;
+		}
+		return npHosts;
+	}
+
+	private String[] readNonProxiedHosts() {
 		String[] npHosts;
 
 		if (Policy.DEBUG_SYSTEM_PROVIDERS)
@@ -151,8 +205,61 @@ public class ProxyProvider extends AbstractProxyProvider {
 		return new String[0];
 	}
 
+	private String getCachedAutoConfigUrl() {
+		SystemProxySettings settings = getCachedSettings();
+		String url = settings.autoConfigUrl;
+		if (url == null) {
+			url = ""; //$NON-NLS-1$
+			if (isGnomeLibLoaded) {
+				try {
+					String read = getGSettingsAutoConfigUrl();
+					if (read != null) {
+						if (Policy.DEBUG_SYSTEM_PROVIDERS)
+							Policy.debug("Got Gnome autoconfig-url: " + read); //$NON-NLS-1$
+						url = read;
+					}
+				} catch (UnsatisfiedLinkError e) {
+					// The library should be loaded, so this is a real exception
+					Activator.logError(
+							"Problem during accessing Gnome library", e); //$NON-NLS-1$
+				}
+			}
+			settings.autoConfigUrl = url;
+		}
+		return url;
+	}
+
 	// Returns null if something wrong or there is no proxy for the protocol
 	protected ProxyData getSystemProxyInfo(String protocol) {
+		// protocol schemes are ISO 8859 (ASCII)
+		String key = protocol.toLowerCase(Locale.ENGLISH);
+		ProxyData pd = getCachedSettings().proxies.computeIfAbsent(key, k -> {
+			ProxyData read = readSystemProxyInfo(k);
+			return read != null ? read : SystemProxySettings.NO_PROXY;
+		});
+		if (pd == SystemProxySettings.NO_PROXY)
+			return null;
+		// callers may modify the result
+		ProxyData copy = new ProxyData(pd.getType(), pd.getHost(), pd.getPort(), false, pd.getSource());
+		copy.setUserid(pd.getUserId());
+		copy.setPassword(pd.getPassword());
+		return copy;
+	}
+
+	private static SystemProxySettings getCachedSettings() {
+		SystemProxySettings settings = cachedSettings;
+		if (settings == null || System.nanoTime() - settings.timestamp >= cacheTtlNanos) {
+			settings = new SystemProxySettings();
+			cachedSettings = settings;
+		}
+		return settings;
+	}
+
+	private static void clearCachedSettings() {
+		cachedSettings = null;
+	}
+
+	private ProxyData readSystemProxyInfo(String protocol) {
 		ProxyData pd = null;
 		String envName = null;
 
@@ -160,9 +267,6 @@ public class ProxyProvider extends AbstractProxyProvider {
 			Policy.debug("Getting proxies for: " + protocol); //$NON-NLS-1$
 
 		try {
-			// protocol schemes are ISO 8859 (ASCII)
-			protocol = protocol.toLowerCase(Locale.ENGLISH);
-
 			// First try the environment variable which is a URL
 			envName = protocol + "_proxy"; //$NON-NLS-1$
 			String proxyEnv = getEnv(envName);
@@ -268,6 +372,12 @@ public class ProxyProvider extends AbstractProxyProvider {
 		PointerByReference g_settings_get_strv(Pointer Settings, String key);
 		void g_strfreev(PointerByReference p);
 		void g_free(Pointer p);
+		NativeLong g_signal_connect_data(Pointer instance, String detailedSignal, Callback handler, Pointer data,
+				Pointer destroyData, int connectFlags);
+	}
+
+	private interface SettingsChangedCallback extends Callback {
+		void invoke(Pointer settings, Pointer key, Pointer userData);
 	}
 
 	private static void initializeSettings() {
@@ -279,6 +389,7 @@ public class ProxyProvider extends AbstractProxyProvider {
 			socksProxySettings = fLibGio.g_settings_new ("org.gnome.system.proxy.socks"); //$NON-NLS-1$
 			ftpProxySettings = fLibGio.g_settings_new ("org.gnome.system.proxy.ftp"); //$NON-NLS-1$
 			isGnomeLibLoaded= true;
+			connectSettingsChanged();
 			if (Policy.DEBUG_SYSTEM_PROVIDERS)
 				Policy.debug("Loaded " + //$NON-NLS-1$
 						System.mapLibraryName(LIBRARY_NAME) + " library"); //$NON-NLS-1$
@@ -290,6 +401,27 @@ public class ProxyProvider extends AbstractProxyProvider {
 		}
 	}
 
+	private static void connectSettingsChanged() {
+		settingsChangedCallback = new SettingsChangedCallback() {
+			@Override
+			public void invoke(Pointer settings, Pointer key, Pointer userData) {
+				clearCachedSettings();
+			}
+		};
+		try {
+			for (Pointer settings : new Pointer[] { proxySettings, httpProxySettings, httpsProxySettings,
+					socksProxySettings, ftpProxySettings }) {
+				if (settings != Pointer.NULL)
+					fLibGio.g_signal_connect_data(settings, "changed", settingsChangedCallback, Pointer.NULL, //$NON-NLS-1$
+							Pointer.NULL, 0);
+			}
+		} catch (UnsatisfiedLinkError e) {
+			// The cached configuration expires after the TTL
+			if (Policy.DEBUG_SYSTEM_PROVIDERS)
+				Policy.debug("Could not listen to GSettings changes"); //$NON-NLS-1$
+		}
+	}
+
 	protected static ProxyData getGSettingsProxyInfo(String protocol) {
 
 		if (protocol == null) {
@@ -301,7 +433,7 @@ public class ProxyProvider extends AbstractProxyProvider {
 		}
 
 		// Everything else applies only if the system proxy mode is manual
-		// Auto-configuration is not supported
+		// Auto-configuration is handled by select(URI)
 		Pointer mode = fLibGio.g_settings_get_string(proxySettings, "mode"); //$NON-NLS-1$
 		if (!mode.getString(0).equalsIgnoreCase("manual")) { //$NON-NLS-1$
 			fLibGio.g_free(mode);
@@ -361,6 +493,26 @@ public class ProxyProvider extends AbstractProxyProvider {
 		return proxyData;
 	}
 
+	protected static String getGSettingsAutoConfigUrl() {
+
+		if (proxySettings == Pointer.NULL) {
+			initializeSettings();
+		}
+
+		// The script applies only if the system proxy mode is auto
+		Pointer mode = fLibGio.g_settings_get_string(proxySettings, "mode"); //$NON-NLS-1$
+		if (!mode.getString(0).equalsIgnoreCase("auto")) { //$NON-NLS-1$
+			fLibGio.g_free(mode);
+			return null;
+		}
+		fLibGio.g_free(mode);
+
+		Pointer url = fLibGio.g_settings_get_string(proxySettings, "autoconfig-url"); //$NON-NLS-1$
+		String result = url.getString(0);
+		fLibGio.g_free(url);
+		return result.length() > 0 ? result : null;
+	}
+
 	protected static String[] getGSettingsNonProxyHosts() {
 		if (proxySettings == Pointer.NULL) {
 			initializeSettings();
@@ -35,5 +35,20 @@ public abstract class AbstractProxyProvider {
 
 	protected abstract IProxyData[] getProxyData();
 
+	/**
+	 * Returns the proxies to use with the given URI according to the proxy
+	 * auto-config (PAC) script at the given location. The results are cached
+	 * per scheme and host by a provider that is shared by all callers.
+	 *
+	 * @param script
+	 *            the location of the script, a URL or the path of a file
+	 * @param uri
+	 *            the URI that a connection is required to
+	 * @return an array of proxies for the given URI
+	 */
+	protected IProxyData[] selectWithPacScript(String script, URI uri) {
+		return PacProxyProvider.getProvider(script).select(uri);
+	}
+
 	protected abstract String[] getNonProxiedHosts();
 }
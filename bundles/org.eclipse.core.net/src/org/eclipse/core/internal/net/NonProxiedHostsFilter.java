@@ -0,0 +1,296 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.net;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.text.StringMatcher;
+
+/**
+ * The compiled form of a list of non-proxied host filters. Each filter is
+ * matched against the end of a host name, ignoring case, like
+ * {@link StringUtil#hostMatchesFilter(String, String)}. Filters without
+ * wildcards other than leading ones are looked up in a hash set of host names
+ * and a trie of reversed host name suffixes, filters in CIDR notation such as
+ * <code>10.0.0.0/8</code> are matched against IP address literals, and the
+ * remaining filters are matched by precompiled {@link StringMatcher}s.
+ * <p>
+ * The decisions for the hosts that are requested are remembered, so a new
+ * instance must be created whenever the filters or the proxy settings
+ * change. Instances may be shared between threads.
+ * </p>
+ */
+final class NonProxiedHostsFilter {
+
+	private static final int MAX_CACHED_DECISIONS = 10000;
+
+	/*
+	 * A node of a trie of folded characters that is walked from the end of a host
+	 * name. A terminal node ends a suffix.
+	 */
+	private static final class SuffixNode {
+		private char[] chars = new char[0];
+		private SuffixNode[] children = new SuffixNode[0];
+		private boolean terminal;
+
+		void insert(String suffix) {
+			SuffixNode node = this;
+			for (int i = suffix.length() - 1; i >= 0; i--) {
+				node = node.getOrCreateChild(suffix.charAt(i));
+			}
+			node.terminal = true;
+		}
+
+		boolean matches(String host) {
+			SuffixNode node = this;
+			for (int i = host.length() - 1; ; i--) {
+				if (node.terminal)
+					return true;
+				if (i < 0)
+					return false;
+				node = node.getChild(host.charAt(i));
+				if (node == null)
+					return false;
+			}
+		}
+
+		private SuffixNode getChild(char c) {
+			for (int i = 0; i < chars.length; i++) {
+				if (chars[i] == c)
+					return children[i];
+			}
+			return null;
+		}
+
+		private SuffixNode getOrCreateChild(char c) {
+			SuffixNode child = getChild(c);
+			if (child == null) {
+				int length = chars.length;
+				char[] newChars = new char[length + 1];
+				SuffixNode[] newChildren = new SuffixNode[length + 1];
+				System.arraycopy(chars, 0, newChars, 0, length);
+				System.arraycopy(children, 0, newChildren, 0, length);
+				newChars[length] = c;
+				newChildren[length] = child = new SuffixNode();
+				chars = newChars;
+				children = newChildren;
+			}
+			return child;
+		}
+	}
+
+	/*
+	 * A range of IP addresses given by a network address and a prefix length
+	 */
+	private static final class AddressRange {
+		private final byte[] network;
+		private final int prefixLength;
+
+		AddressRange(byte[] network, int prefixLength) {
+			this.network = network;
+			this.prefixLength = prefixLength;
+		}
+
+		boolean contains(byte[] address) {
+			if (address.length != network.length)
+				return false;
+			int bytes = prefixLength / 8;
+			for (int i = 0; i < bytes; i++) {
+				if (address[i] != network[i])
+					return false;
+			}
+			int bits = prefixLength % 8;
+			if (bits == 0)
+				return true;
+			int mask = (0xFF << (8 - bits)) & 0xFF;
+			return (address[bytes] & mask) == (network[bytes] & mask);
+		}
+	}
+
+	private final Set<String> hosts = new HashSet<>();
+	private final SuffixNode suffixes = new SuffixNode();
+	private final List<AddressRange> ranges = new ArrayList<>();
+	private final List<StringMatcher> matchers = new ArrayList<>();
+	private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+	/**
+	 * Compile the given filters.
+	 * @param filters the non-proxied host filters
+	 */
+	NonProxiedHostsFilter(String[] filters) {
+		for (String filter : filters) {
+			add(filter);
+		}
+	}
+
+	private void add(String filter) {
+		int slash = filter.indexOf('/');
+		if (slash != -1) {
+			AddressRange range = parseRange(filter, slash);
+			if (range != null) {
+				ranges.add(range);
+				return;
+			}
+		}
+		// leading stars are redundant as every filter is matched against the end of the host
+		int start = 0;
+		while (start < filter.length() && filter.charAt(start) == '*') {
+			start++;
+		}
+		String literal = fold(filter.substring(start));
+		if (literal.indexOf('*') != -1 || literal.indexOf('?') != -1 || literal.indexOf('\\') != -1) {
+			matchers.add(new StringMatcher("*" + filter, true, false)); //$NON-NLS-1$
+		} else {
+			// most hosts that match a filter are the host or domain named by it
+			hosts.add(literal);
+			suffixes.insert(literal);
+		}
+	}
+
+	/**
+	 * Return whether requests for the given host, as passed to
+	 * {@link ProxyManager#getProxyDataForHost(String)}, bypass the proxies.
+	 * This is the case if the host matches one of the filters or cannot be
+	 * parsed.
+	 * @param host the host, optionally prefixed by a scheme
+	 * @return whether requests for the host bypass the proxies
+	 */
+	boolean isFiltered(String host) {
+		Boolean decision = decisions.get(host);
+		if (decision == null) {
+			URI uri = ProxyManager.tryGetURI(host);
+			String hostName = uri == null ? null : uri.getHost();
+			decision = Boolean.valueOf(uri == null || (hostName != null && matches(hostName)));
+			if (decisions.size() >= MAX_CACHED_DECISIONS) {
+				// the hosts of a session rarely exceed the limit so start over
+				decisions.clear();
+			}
+			decisions.put(host, decision);
+		}
+		return decision.booleanValue();
+	}
+
+	/**
+	 * Return whether the given host matches one of the filters.
+	 * @param host the host name or IP address literal
+	 * @return whether the host matches one of the filters
+	 */
+	boolean matches(String host) {
+		String folded = fold(host);
+		if (hosts.contains(folded) || suffixes.matches(folded))
+			return true;
+		if (!ranges.isEmpty()) {
+			byte[] address = parseAddress(host);
+			if (address != null) {
+				for (AddressRange range : ranges) {
+					if (range.contains(address))
+						return true;
+				}
+			}
+		}
+		for (StringMatcher matcher : matchers) {
+			if (matcher.match(host))
+				return true;
+		}
+		return false;
+	}
+
+	private static AddressRange parseRange(String filter, int slash) {
+		byte[] network = parseAddress(filter.substring(0, slash));
+		if (network == null)
+			return null;
+		int prefixLength;
+		try {
+			prefixLength = Integer.parseInt(filter.substring(slash + 1));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		if (prefixLength < 0 || prefixLength > network.length * 8)
+			return null;
+		return new AddressRange(network, prefixLength);
+	}
+
+	/*
+	 * Parse an IP address literal without looking up host names. Only text that
+	 * consists of the characters of a literal is passed to InetAddress, which
+	 * resolves anything else as a host name.
+	 */
+	private static byte[] parseAddress(String text) {
+		if (text.startsWith("[") && text.endsWith("]")) //$NON-NLS-1$ //$NON-NLS-2$
+			text = text.substring(1, text.length() - 1);
+		if (!isIPv4Literal(text) && !isIPv6Literal(text))
+			return null;
+		try {
+			return InetAddress.getByName(text).getAddress();
+		} catch (UnknownHostException | SecurityException e) {
+			return null;
+		}
+	}
+
+	private static boolean isIPv4Literal(String text) {
+		int dots = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '.') {
+				dots++;
+			} else if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return dots == 3;
+	}
+
+	/*
+	 * Return whether the text only has the hex digits, colons and dots of an IPv6
+	 * literal, possibly with an IPv4 suffix. Zone ids are not supported.
+	 */
+	private static boolean isIPv6Literal(String text) {
+		int colons = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == ':') {
+				colons++;
+			} else if (c != '.' && (c < '0' || c > '9') && (c < 'a' || c > 'f') && (c < 'A' || c > 'F')) {
+				return false;
+			}
+		}
+		return colons >= 2;
+	}
+
+	/*
+	 * Fold the case of each character the same way that StringMatcher compares
+	 * characters when it ignores case
+	 */
+	private static String fold(String s) {
+		char[] folded = null;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			char f = Character.toLowerCase(Character.toUpperCase(c));
+			if (f != c) {
+				if (folded == null)
+					folded = s.toCharArray();
+				folded[i] = f;
+			}
+		}
+		return folded == null ? s : new String(folded);
+	}
+}
@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.net;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.script.ScriptException;
+
+import org.eclipse.core.net.proxy.IProxyData;
+
+/**
+ * Returns the proxies that a proxy auto-config (PAC) script selects. The
+ * results of the script are cached per scheme and host, and the script is
+ * loaded again, for the time given by the system property
+ * <code>org.eclipse.core.net.pac.cacheTTL</code> in milliseconds. A script
+ * that could not be loaded is not loaded again before that time either, and no
+ * proxies are used in the meantime. As a result
+ * applies to all URLs of a host, the script is called with the URL of the
+ * origin, without path and query, like browsers do for secure URLs.
+ */
+public class PacProxyProvider extends AbstractProxyProvider {
+
+	/**
+	 * The system property that gives the location of a PAC script, a URL or
+	 * the path of a file, to use instead of the system proxy configuration.
+	 */
+	public static final String PAC_SCRIPT = Activator.ID + ".pacScript"; //$NON-NLS-1$
+
+	private static final String CACHE_TTL = Activator.ID + ".pac.cacheTTL"; //$NON-NLS-1$
+	private static final long DEFAULT_CACHE_TTL = 5 * 60 * 1000;
+	private static final int MAX_CACHED_RESULTS = 10000;
+
+	private static final Map<String, PacProxyProvider> providers = new ConcurrentHashMap<>();
+	private static final AtomicBoolean unsupportedLogged = new AtomicBoolean();
+
+	/*
+	 * The proxies selected for a scheme and host until the given time
+	 */
+	private static final class CachedResult {
+		final ProxyData[] proxies;
+		final long expires;
+
+		CachedResult(ProxyData[] proxies, long expires) {
+			this.proxies = proxies;
+			this.expires = expires;
+		}
+	}
+
+	/*
+	 * The loaded script, or null if it could not be loaded, until the given time
+	 */
+	private static final class LoadedScript {
+		final PacScript script;
+		final long expires;
+
+		LoadedScript(PacScript script, long expires) {
+			this.script = script;
+			this.expires = expires;
+		}
+	}
+
+	private final String location;
+	private final long ttlNanos;
+	private final Map<String, CachedResult> results = new ConcurrentHashMap<>();
+	private final ReentrantLock loadLock = new ReentrantLock();
+	private volatile LoadedScript loaded;
+
+	/**
+	 * Return the shared provider for the script at the given location.
+	 * @param location a URL or the path of a file
+	 * @return the provider
+	 */
+	public static PacProxyProvider getProvider(String location) {
+		return providers.computeIfAbsent(location, PacProxyProvider::new);
+	}
+
+	/**
+	 * Create a provider for the script at the given location.
+	 * @param location a URL or the path of a file
+	 */
+	public PacProxyProvider(String location) {
+		this(location, Long.getLong(CACHE_TTL, DEFAULT_CACHE_TTL).longValue());
+	}
+
+	/**
+	 * Create a provider for the script at the given location.
+	 * @param location a URL or the path of a file
+	 * @param ttl the number of milliseconds for which results are cached
+	 */
+	public PacProxyProvider(String location, long ttl) {
+		this.location = location;
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+	}
+
+	@Override
+	public IProxyData[] select(URI uri) {
+		String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ENGLISH); //$NON-NLS-1$
+		String host = uri.getHost();
+		if (host == null)
+			return new IProxyData[0];
+		String key = scheme + "://" + host.toLowerCase(Locale.ENGLISH); //$NON-NLS-1$
+		long now = System.nanoTime();
+		CachedResult result = results.get(key);
+		if (result == null || now - result.expires >= 0) {
+			result = new CachedResult(evaluate(uri, scheme, host), now + ttlNanos);
+			if (results.size() >= MAX_CACHED_RESULTS)
+				results.clear();
+			results.put(key, result);
+		}
+		IProxyData[] proxies = new IProxyData[result.proxies.length];
+		for (int i = 0; i < proxies.length; i++) {
+			// callers may modify the proxy data they are given
+			ProxyData data = result.proxies[i];
+			proxies[i] = new ProxyData(data.getType(), data.getHost(), data.getPort(), false, data.getSource());
+		}
+		if (Policy.DEBUG) {
+			Policy.debug("PacProxyProvider#select result for [" + uri + "]"); //$NON-NLS-1$ //$NON-NLS-2$
+			for (IProxyData proxy : proxies) {
+				System.out.println("	" + proxy); //$NON-NLS-1$
+			}
+		}
+		return proxies;
+	}
+
+	private ProxyData[] evaluate(URI uri, String scheme, String host) {
+		PacScript script = getScript();
+		if (script == null)
+			return new ProxyData[0];
+		try {
+			// the result is shared by all URLs of the host, so only the origin
+			// is passed to the script
+			String url = scheme + "://" + host + "/"; //$NON-NLS-1$ //$NON-NLS-2$
+			return parseResult(script.findProxyForURL(url, host), scheme);
+		} catch (ScriptException e) {
+			Activator.logError("Problem during evaluating the proxy auto-config script " + location, e); //$NON-NLS-1$
+			return new ProxyData[0];
+		}
+	}
+
+	/*
+	 * Return the script, or null if it could not be loaded
+	 */
+	private PacScript getScript() {
+		LoadedScript current = loaded;
+		if (current == null || System.nanoTime() - current.expires >= 0) {
+			if (current != null && current.script != null) {
+				// keep using the expired script while another thread loads it again
+				if (!loadLock.tryLock())
+					return current.script;
+			} else {
+				loadLock.lock();
+			}
+			try {
+				current = loaded;
+				if (current == null || System.nanoTime() - current.expires >= 0) {
+					current = load();
+					loaded = current;
+				}
+			} finally {
+				loadLock.unlock();
+			}
+		}
+		return current.script;
+	}
+
+	private LoadedScript load() {
+		long now = System.nanoTime();
+		if (!PacScript.isSupported()) {
+			// the engine does not become available later, so this is only reported once
+			if (unsupportedLogged.compareAndSet(false, true))
+				Activator.logError("Proxy auto-config scripts are not supported as no JavaScript engine, Nashorn or GraalJS, is available. No proxies are used for the script " + location, null); //$NON-NLS-1$
+			return new LoadedScript(null, now + ttlNanos);
+		}
+		try {
+			return new LoadedScript(PacScript.load(location), now + ttlNanos);
+		} catch (IOException | ScriptException e) {
+			Activator.logError("Could not load the proxy auto-config script " + location, e); //$NON-NLS-1$
+			return new LoadedScript(null, now + ttlNanos);
+		}
+	}
+
+	/**
+	 * Clear the cached results and script.
+	 */
+	public void clearCache() {
+		results.clear();
+		loaded = null;
+	}
+
+	/**
+	 * Convert the result of <code>FindProxyForURL</code> to proxy data. The
+	 * proxies up to the first <code>DIRECT</code> entry are returned;
+	 * unknown entries are skipped.
+	 * @param result the result, such as <code>"PROXY proxy:8080; DIRECT"</code>
+	 * @param scheme the scheme of the URL
+	 * @return the proxies to use, or an empty array for a direct connection
+	 */
+	public static ProxyData[] parseResult(String result, String scheme) {
+		List<ProxyData> proxies = new ArrayList<>();
+		if (result != null) {
+			for (String entry : StringUtil.split(result, new String[] { ";" })) { //$NON-NLS-1$
+				entry = entry.trim();
+				int space = entry.indexOf(' ');
+				String keyword = (space == -1 ? entry : entry.substring(0, space)).toUpperCase(Locale.ENGLISH);
+				if ("DIRECT".equals(keyword)) //$NON-NLS-1$
+					break;
+				if (space == -1)
+					continue;
+				String type;
+				int defaultPort;
+				switch (keyword) {
+				case "PROXY": //$NON-NLS-1$
+				case "HTTP": //$NON-NLS-1$
+					type = "https".equals(scheme) ? IProxyData.HTTPS_PROXY_TYPE : IProxyData.HTTP_PROXY_TYPE; //$NON-NLS-1$
+					defaultPort = 80;
+					break;
+				case "HTTPS": //$NON-NLS-1$
+					type = IProxyData.HTTPS_PROXY_TYPE;
+					defaultPort = 443;
+					break;
+				case "SOCKS": //$NON-NLS-1$
+				case "SOCKS4": //$NON-NLS-1$
+				case "SOCKS5": //$NON-NLS-1$
+					type = IProxyData.SOCKS_PROXY_TYPE;
+					defaultPort = 1080;
+					break;
+				default:
+					continue;
+				}
+				String address = entry.substring(space + 1).trim();
+				String host = address;
+				int port = defaultPort;
+				int colon = address.lastIndexOf(':');
+				if (colon != -1 && address.indexOf(']', colon) == -1) {
+					host = address.substring(0, colon);
+					try {
+						port = Integer.parseInt(address.substring(colon + 1));
+					} catch (NumberFormatException e) {
+						continue;
+					}
+				}
+				if (host.length() == 0)
+					continue;
+				proxies.add(new ProxyData(type, host, port, false, "PAC")); //$NON-NLS-1$
+			}
+		}
+		return proxies.toArray(new ProxyData[proxies.size()]);
+	}
+
+	@Override
+	protected IProxyData[] getProxyData() {
+		// the proxies depend on the URL
+		return new IProxyData[0];
+	}
+
+	@Override
+	protected String[] getNonProxiedHosts() {
+		// the script decides which hosts are not proxied
+		return new String[0];
+	}
+}
@@ -0,0 +1,319 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.Proxy;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+/**
+ * A proxy auto-config (PAC) script. The script runs in a JavaScript engine
+ * without access to Java classes, Nashorn or GraalJS, whichever is available
+ * unless the system property <code>org.eclipse.core.net.pac.engine</code>
+ * names one of them; host names that it resolves with
+ * <code>dnsResolve</code> or <code>isInNet</code> are looked up by this class
+ * between runs of <code>FindProxyForURL</code>, so no Java object is exposed to
+ * the script. Evaluations are serialized as the engine is not thread safe.
+ */
+public class PacScript {
+
+	private static final String ENGINE = Activator.ID + ".pac.engine"; //$NON-NLS-1$
+	private static final String NASHORN = "nashorn"; //$NON-NLS-1$
+	private static final String GRAAL_JS = "graal.js"; //$NON-NLS-1$
+	// disable access to Java classes and non-standard syntax
+	private static final String[] NASHORN_OPTIONS = { "--no-java", "--no-syntax-extensions" }; //$NON-NLS-1$ //$NON-NLS-2$
+	// the engine of Java 11 to 14 warns that it is deprecated, older ones do not know the option
+	private static final String NO_DEPRECATION_WARNING = "--no-deprecation-warning"; //$NON-NLS-1$
+	private static final String UNRESOLVED_MARKER = "__pacUnresolved__:"; //$NON-NLS-1$
+	// the milliseconds to wait for connecting to and reading from the location of a script
+	private static final int TIMEOUT = 10000;
+
+	private static EngineFactory engineFactory;
+	private static ScriptException engineFailure;
+
+	private final ScriptEngine engine;
+
+	/*
+	 * Creates the engines that run the scripts without access to Java classes
+	 */
+	private static final class EngineFactory {
+		private final ScriptEngineFactory factory;
+		// the Nashorn method that creates an engine with options, or null
+		private final Method getScriptEngine;
+		private final String[] options;
+
+		EngineFactory(ScriptEngineFactory factory, Method getScriptEngine, String[] options) {
+			this.factory = factory;
+			this.getScriptEngine = getScriptEngine;
+			this.options = options;
+		}
+
+		ScriptEngine create() throws ScriptException {
+			if (getScriptEngine == null) {
+				// GraalJS denies scripts access to Java classes by default
+				return factory.getScriptEngine();
+			}
+			try {
+				return (ScriptEngine) getScriptEngine.invoke(factory, (Object) options.clone());
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				ScriptException se = new ScriptException("The JavaScript engine cannot run proxy auto-config scripts in a sandbox"); //$NON-NLS-1$
+				se.initCause(e);
+				throw se;
+			}
+		}
+	}
+
+	/**
+	 * Load the script at the given location.
+	 * @param location a URL or the path of a file
+	 * @return the script
+	 * @throws IOException if the script could not be read
+	 * @throws ScriptException if no sandboxed JavaScript engine is available or
+	 *         the script could not be evaluated
+	 */
+	public static PacScript load(String location) throws IOException, ScriptException {
+		return new PacScript(read(location));
+	}
+
+	/**
+	 * Return whether a JavaScript engine that can run PAC scripts is available.
+	 * @return whether PAC scripts are supported
+	 */
+	public static boolean isSupported() {
+		try {
+			getEngineFactory();
+			return true;
+		} catch (ScriptException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Create a script from the given source.
+	 * @param source the source of the script
+	 * @throws ScriptException if no sandboxed JavaScript engine is available or
+	 *         the script could not be evaluated
+	 */
+	public PacScript(String source) throws ScriptException {
+		engine = getEngineFactory().create();
+		try (Reader utils = new InputStreamReader(PacScript.class.getResourceAsStream("pacUtils.js"), //$NON-NLS-1$
+				StandardCharsets.UTF_8)) {
+			engine.eval(utils);
+		} catch (IOException e) {
+			throw new ScriptException(e);
+		}
+		engine.put("__pacMyIpAddress", getLocalAddress()); //$NON-NLS-1$
+		engine.eval(source);
+	}
+
+	/**
+	 * Evaluate <code>FindProxyForURL</code> for the given URL.
+	 * @param url the URL
+	 * @param host the host of the URL
+	 * @return the result of the script, such as <code>"PROXY proxy:8080; DIRECT"</code>
+	 * @throws ScriptException if the script failed
+	 */
+	public synchronized String findProxyForURL(String url, String host) throws ScriptException {
+		Set<String> resolvedHosts = new HashSet<>();
+		while (true) {
+			try {
+				Object result = ((Invocable) engine).invokeFunction("FindProxyForURL", url, host); //$NON-NLS-1$
+				return result == null ? null : result.toString();
+			} catch (NoSuchMethodException e) {
+				throw new ScriptException(e);
+			} catch (ScriptException e) {
+				// run the script again once the requested host has been resolved
+				String unresolved = getUnresolvedHost(e);
+				if (unresolved == null || !resolvedHosts.add(unresolved))
+					throw e;
+				resolve(unresolved);
+			}
+		}
+	}
+
+	/*
+	 * Resolve the host and make the address, or null, known to the script
+	 */
+	private void resolve(String host) throws ScriptException {
+		String address = null;
+		try {
+			// the predefined functions expect IPv4 addresses
+			for (InetAddress candidate : InetAddress.getAllByName(host)) {
+				if (address == null || candidate instanceof Inet4Address)
+					address = candidate.getHostAddress();
+				if (candidate instanceof Inet4Address)
+					break;
+			}
+		} catch (UnknownHostException | SecurityException e) {
+			// unresolvable
+		}
+		engine.put("__pacResolvedHost", host); //$NON-NLS-1$
+		engine.put("__pacResolvedAddress", address); //$NON-NLS-1$
+		engine.eval("__pacResolved[__pacResolvedHost] = __pacResolvedAddress;"); //$NON-NLS-1$
+	}
+
+	private static String getUnresolvedHost(ScriptException e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			String message = t.getMessage();
+			if (message != null) {
+				int start = message.indexOf(UNRESOLVED_MARKER);
+				if (start != -1) {
+					start += UNRESOLVED_MARKER.length();
+					int end = start;
+					while (end < message.length() && !Character.isWhitespace(message.charAt(end)))
+						end++;
+					return message.substring(start, end);
+				}
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Return the factory of the engines, which is looked up once
+	 */
+	private static synchronized EngineFactory getEngineFactory() throws ScriptException {
+		if (engineFactory == null && engineFailure == null) {
+			try {
+				engineFactory = findEngineFactory();
+			} catch (ScriptException e) {
+				engineFailure = e;
+			}
+		}
+		if (engineFailure != null) {
+			ScriptException e = new ScriptException(engineFailure.getMessage());
+			e.initCause(engineFailure);
+			throw e;
+		}
+		return engineFactory;
+	}
+
+	private static EngineFactory findEngineFactory() throws ScriptException {
+		String engine = System.getProperty(ENGINE);
+		String[] names = engine != null ? new String[] { engine } : new String[] { NASHORN, GRAAL_JS };
+		ScriptException failure = null;
+		for (String name : names) {
+			// the bootstrap class loader finds the engine of the JRE
+			ScriptEngineFactory candidate = findFactory(new ScriptEngineManager(null), name);
+			if (candidate == null)
+				candidate = findFactory(new ScriptEngineManager(PacScript.class.getClassLoader()), name);
+			if (candidate == null)
+				continue;
+			try {
+				return createEngineFactory(candidate);
+			} catch (ScriptException e) {
+				failure = e;
+			}
+		}
+		if (failure != null)
+			throw failure;
+		throw new ScriptException("No JavaScript engine is available for proxy auto-config scripts, Nashorn or GraalJS is required"); //$NON-NLS-1$
+	}
+
+	/*
+	 * Find the factory without creating an engine, which may warn about options that are not given
+	 */
+	private static ScriptEngineFactory findFactory(ScriptEngineManager manager, String name) {
+		for (ScriptEngineFactory factory : manager.getEngineFactories()) {
+			if (factory.getNames().contains(name))
+				return factory;
+		}
+		return null;
+	}
+
+	private static EngineFactory createEngineFactory(ScriptEngineFactory factory) throws ScriptException {
+		if (factory.getNames().contains(GRAAL_JS)) {
+			EngineFactory result = new EngineFactory(factory, null, null);
+			result.create();
+			return result;
+		}
+		Method method;
+		try {
+			method = factory.getClass().getMethod("getScriptEngine", String[].class); //$NON-NLS-1$
+		} catch (NoSuchMethodException e) {
+			ScriptException se = new ScriptException("The JavaScript engine " + factory.getEngineName() //$NON-NLS-1$
+					+ " cannot run proxy auto-config scripts in a sandbox"); //$NON-NLS-1$
+			se.initCause(e);
+			throw se;
+		}
+		String[] options = Arrays.copyOf(NASHORN_OPTIONS, NASHORN_OPTIONS.length + 1);
+		options[NASHORN_OPTIONS.length] = NO_DEPRECATION_WARNING;
+		try {
+			EngineFactory result = new EngineFactory(factory, method, options);
+			result.create();
+			return result;
+		} catch (ScriptException e) {
+			EngineFactory result = new EngineFactory(factory, method, NASHORN_OPTIONS);
+			result.create();
+			return result;
+		}
+	}
+
+	private static String getLocalAddress() {
+		try {
+			return InetAddress.getLocalHost().getHostAddress();
+		} catch (UnknownHostException | SecurityException e) {
+			return "127.0.0.1"; //$NON-NLS-1$
+		}
+	}
+
+	private static URLConnection openConnection(URL url) throws IOException {
+		URLConnection connection = url.openConnection(Proxy.NO_PROXY);
+		connection.setConnectTimeout(TIMEOUT);
+		connection.setReadTimeout(TIMEOUT);
+		return connection;
+	}
+
+	private static String read(String location) throws IOException {
+		URL url;
+		try {
+			url = new URL(location);
+		} catch (MalformedURLException e) {
+			url = null;
+		}
+		// the script must not be fetched through the proxies it configures
+		try (InputStream in = url != null ? openConnection(url).getInputStream()
+				: new FileInputStream(new File(location))) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int count;
+			while ((count = in.read(buffer)) != -1) {
+				out.write(buffer, 0, count);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
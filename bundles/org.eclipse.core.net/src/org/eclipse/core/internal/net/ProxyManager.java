@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.core.net.proxy.IProxyChangeEvent;
 import org.eclipse.core.net.proxy.IProxyChangeListener;
@@ -46,28 +48,102 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 	static final String PREF_ENABLED = "proxiesEnabled"; //$NON-NLS-1$
 	static final String PREF_OS = "systemProxiesEnabled"; //$NON-NLS-1$
 
-	private static IProxyService proxyManager;
+	private static volatile IProxyService proxyManager;
 
 	private AbstractProxyProvider nativeProxyProvider;
 
 	private PreferenceManager preferenceManager;
 
 	ListenerList<IProxyChangeListener> listeners = new ListenerList<>(ListenerList.IDENTITY);
-	private String[] nonProxiedHosts;
+	private final AtomicReference<ProxyConfiguration> configuration = new AtomicReference<>();
+	private final AtomicInteger configurationVersion = new AtomicInteger();
+	private volatile boolean migrated;
 	private final ProxyType[] proxies = new ProxyType[] {
 			new ProxyType(IProxyData.HTTP_PROXY_TYPE),
 			new ProxyType(IProxyData.HTTPS_PROXY_TYPE),
 			new ProxyType(IProxyData.SOCKS_PROXY_TYPE)
 		};
 
+	/*
+	 * An immutable snapshot of the proxy preferences. It is rebuilt on the next
+	 * query after the preferences change, so that queries neither lock nor read
+	 * the preferences.
+	 */
+	private static final class ProxyConfiguration {
+		final int version;
+		final boolean proxiesEnabled;
+		final boolean systemProxiesEnabled;
+		final String[] nonProxiedHosts;
+		final NonProxiedHostsFilter nonProxiedHostsFilter;
+		final ProxyData[] proxyData;
+		final ProxyData[] proxyDataWithHost;
+
+		ProxyConfiguration(PreferenceManager preferenceManager, ProxyType[] proxies, int version) {
+			this.version = version;
+			proxiesEnabled = preferenceManager.getBoolean(PreferenceManager.ROOT, PREF_ENABLED);
+			systemProxiesEnabled = preferenceManager.getBoolean(PreferenceManager.ROOT, PREF_OS);
+			nonProxiedHosts = ProxyType.convertPropertyStringToHosts(
+					preferenceManager.getString(PreferenceManager.ROOT, PREF_NON_PROXIED_HOSTS));
+			nonProxiedHostsFilter = new NonProxiedHostsFilter(nonProxiedHosts);
+			proxyData = new ProxyData[proxies.length];
+			int count = 0;
+			for (int i = 0; i < proxies.length; i++) {
+				proxyData[i] = (ProxyData) proxies[i].getProxyData(ProxyType.DO_NOT_VERIFY);
+				if (proxyData[i].getHost() != null)
+					count++;
+			}
+			proxyDataWithHost = new ProxyData[count];
+			count = 0;
+			for (ProxyData data : proxyData) {
+				if (data.getHost() != null)
+					proxyDataWithHost[count++] = data;
+			}
+		}
+
+		ProxyData getProxyData(String type) {
+			for (ProxyData data : proxyData) {
+				if (data.getType().equals(type))
+					return data;
+			}
+			return null;
+		}
+
+		/*
+		 * Callers may modify the proxy data they are given so only hand out copies
+		 */
+		static IProxyData[] copy(ProxyData[] data) {
+			IProxyData[] result = new IProxyData[data.length];
+			for (int i = 0; i < data.length; i++) {
+				result[i] = copy(data[i]);
+			}
+			return result;
+		}
+
+		static ProxyData copy(ProxyData data) {
+			ProxyData result = new ProxyData(data.getType(), data.getHost(), data.getPort(),
+					data.isRequiresAuthentication(), data.getSource());
+			if (data.getUserId() != null)
+				result.setUserid(data.getUserId());
+			result.setPassword(data.getPassword());
+			result.setDynamic(data.isDynamic());
+			return result;
+		}
+	}
+
 	private ProxyManager() {
-		try {
-			nativeProxyProvider = (AbstractProxyProvider) Class.forName(
-					"org.eclipse.core.net.ProxyProvider").getDeclaredConstructor().newInstance(); //$NON-NLS-1$
-		} catch (ClassNotFoundException e) {
-			// no class found
-		} catch (Exception e) {
-			Activator.logInfo("Problems occured during the proxy provider initialization.", e); //$NON-NLS-1$
+		String pacScript = System.getProperty(PacProxyProvider.PAC_SCRIPT);
+		if (pacScript != null && pacScript.length() > 0) {
+			// a configured proxy auto-config script replaces the system configuration
+			nativeProxyProvider = PacProxyProvider.getProvider(pacScript);
+		} else {
+			try {
+				nativeProxyProvider = (AbstractProxyProvider) Class.forName(
+						"org.eclipse.core.net.ProxyProvider").getDeclaredConstructor().newInstance(); //$NON-NLS-1$
+			} catch (ClassNotFoundException e) {
+				// no class found
+			} catch (Exception e) {
+				Activator.logInfo("Problems occured during the proxy provider initialization.", e); //$NON-NLS-1$
+			}
 		}
 		preferenceManager = Activator.getInstance().getPreferenceManager();
 	}
@@ -76,10 +152,16 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 	 * Return the proxy manager.
 	 * @return the proxy manager
 	 */
-	public synchronized static IProxyService getProxyManager() {
-		if (proxyManager == null)
-			proxyManager = new ProxyManager();
-		return proxyManager;
+	public static IProxyService getProxyManager() {
+		IProxyService manager = proxyManager;
+		if (manager == null) {
+			synchronized (ProxyManager.class) {
+				if (proxyManager == null)
+					proxyManager = new ProxyManager();
+				manager = proxyManager;
+			}
+		}
+		return manager;
 	}
 
 	@Override
@@ -93,6 +175,7 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 	}
 
 	private void fireChange(final IProxyChangeEvent event) {
+		invalidateConfiguration();
 		for (final IProxyChangeListener listener : listeners) {
 			SafeRunner.run(new ISafeRunnable() {
 				@Override
@@ -108,17 +191,11 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 	}
 
 	@Override
-	public synchronized String[] getNonProxiedHosts() {
-		checkMigrated();
-		if (nonProxiedHosts == null) {
-			String prop = preferenceManager.getString(PreferenceManager.ROOT, PREF_NON_PROXIED_HOSTS);
-			nonProxiedHosts = ProxyType.convertPropertyStringToHosts(prop);
-		}
+	public String[] getNonProxiedHosts() {
+		String[] nonProxiedHosts = getConfiguration().nonProxiedHosts;
 		if (nonProxiedHosts.length == 0)
 			return nonProxiedHosts;
-		String[] result = new String[nonProxiedHosts.length];
-		System.arraycopy(nonProxiedHosts, 0, result, 0, nonProxiedHosts.length );
-		return result;
+		return nonProxiedHosts.clone();
 	}
 
 	public String[] getNativeNonProxiedHosts() {
@@ -136,12 +213,12 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 			Assert.isNotNull(host);
 			Assert.isTrue(host.length() > 0);
 		}
-		String[] oldHosts = nonProxiedHosts;
+		String[] oldHosts = getNonProxiedHosts();
 		if (Arrays.equals(oldHosts, hosts)) {
 			return;
 		}
-		nonProxiedHosts = hosts;
-		preferenceManager.putString(PreferenceManager.ROOT, PREF_NON_PROXIED_HOSTS, ProxyType.convertHostsToPropertyString(nonProxiedHosts));
+		preferenceManager.putString(PreferenceManager.ROOT, PREF_NON_PROXIED_HOSTS, ProxyType.convertHostsToPropertyString(hosts));
+		invalidateConfiguration();
 		try {
 			preferenceManager.flush();
 		} catch (BackingStoreException e) {
@@ -157,13 +234,7 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 
 	@Override
 	public IProxyData[] getProxyData() {
-		checkMigrated();
-		IProxyData[] result = new IProxyData[proxies.length];
-		for (int i = 0; i < proxies.length; i++) {
-			ProxyType type = proxies[i];
-			result[i] = type.getProxyData(ProxyType.VERIFY_EQUAL);
-		}
-		return resolveType(result);
+		return resolveType(ProxyConfiguration.copy(getConfiguration().proxyData));
 	}
 
 	public IProxyData[] getNativeProxyData() {
@@ -183,6 +254,7 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 		IProxyData[] oldData = getProxyData();
 		String[] hosts = getNonProxiedHosts();
 		IProxyData[] changedProxies = internalSetProxyData(proxyDatas);
+		invalidateConfiguration();
 		if (changedProxies.length > 0) {
 			IProxyChangeEvent event = new ProxyChangeEvent(IProxyChangeEvent.PROXY_SERVICE_ENABLEMENT_CHANGE, hosts, hosts, oldData, changedProxies);
 			fireChange(event);
@@ -211,13 +283,13 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 
 	@Override
 	public boolean isProxiesEnabled() {
-		checkMigrated();
-		return internalIsProxiesEnabled()
-				&& (!isSystemProxiesEnabled() || (isSystemProxiesEnabled() && hasSystemProxies()));
+		ProxyConfiguration config = getConfiguration();
+		return config.proxiesEnabled
+				&& (!config.systemProxiesEnabled || hasSystemProxies());
 	}
 
 	private boolean internalIsProxiesEnabled() {
-		return preferenceManager.getBoolean(PreferenceManager.ROOT, PREF_ENABLED);
+		return getConfiguration().proxiesEnabled;
 	}
 
 	@Override
@@ -266,8 +338,8 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 
 	@Override
 	public IProxyData getProxyData(String type) {
-		checkMigrated();
-		return resolveType(internalGetProxyData(type, ProxyType.VERIFY_EQUAL));
+		ProxyData data = getConfiguration().getProxyData(type);
+		return data == null ? null : resolveType(ProxyConfiguration.copy(data));
 	}
 
 	private IProxyData internalGetProxyData(String type, int verifySystemProperties) {
@@ -281,28 +353,22 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 
 	@Override
 	public IProxyData[] getProxyDataForHost(String host) {
-		checkMigrated();
-		if (!internalIsProxiesEnabled()) {
-			return new IProxyData[0];
-		}
-		URI uri = tryGetURI(host);
-		if (uri == null) {
+		ProxyConfiguration config = getConfiguration();
+		if (!config.proxiesEnabled) {
 			return new IProxyData[0];
 		}
-		if (hasSystemProxies() && isSystemProxiesEnabled()) {
+		if (hasSystemProxies() && config.systemProxiesEnabled) {
+			URI uri = tryGetURI(host);
+			if (uri == null) {
+				return new IProxyData[0];
+			}
 			return resolveType(nativeProxyProvider.select(uri));
 		}
 
-		if (isHostFiltered(uri))
+		// also rejects hosts that are not valid URIs
+		if (config.nonProxiedHostsFilter.isFiltered(host))
 			return new IProxyData[0];
-		IProxyData[] data = getProxyData();
-		List<IProxyData> result = new ArrayList<>();
-		for (IProxyData proxyData : data) {
-			if (proxyData.getHost() != null)
-				result.add(proxyData);
-		}
-		IProxyData ret[] = result.toArray(new IProxyData[result.size()]);
-		return resolveType(ret);
+		return resolveType(ProxyConfiguration.copy(config.proxyDataWithHost));
 	}
 
 	public static URI tryGetURI(String host) {
@@ -317,25 +383,41 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 		}
 	}
 
-	private boolean isHostFiltered(URI uri) {
-		String host = uri.getHost();
-		if (host != null) {
-			String[] filters = getNonProxiedHosts();
-			for (String filter : filters) {
-				if (StringUtil.hostMatchesFilter(host, filter))
-					return true;
-			}
-		}
-		return false;
+	/*
+	 * Return the current configuration. The compiled non-proxied hosts of the
+	 * configuration also remember the decisions for the requested hosts.
+	 */
+	private ProxyConfiguration getConfiguration() {
+		checkMigrated();
+		int version = configurationVersion.get();
+		ProxyConfiguration config = configuration.get();
+		if (config != null && config.version == version)
+			return config;
+		// Reading the secure storage may block, so the configuration is built
+		// without holding a lock. Concurrent queries may build it more than once.
+		ProxyConfiguration built = new ProxyConfiguration(preferenceManager, proxies, version);
+		// A configuration built from later preferences is kept
+		configuration.accumulateAndGet(built,
+				(current, update) -> current != null && current.version >= update.version ? current : update);
+		return built;
+	}
+
+	/**
+	 * Discard the current configuration after the preferences have changed.
+	 */
+	void invalidateConfiguration() {
+		// a configuration that is being built from the old preferences is
+		// published with the old version and is rebuilt on the next query
+		configurationVersion.incrementAndGet();
 	}
 
 	@Override
 	public IProxyData getProxyDataForHost(String host, String type) {
-		checkMigrated();
-		if (!internalIsProxiesEnabled()) {
+		ProxyConfiguration config = getConfiguration();
+		if (!config.proxiesEnabled) {
 			return null;
 		}
-		if (hasSystemProxies() && isSystemProxiesEnabled())
+		if (hasSystemProxies() && config.systemProxiesEnabled)
 			try {
 				URI uri = new URI(type, "//" + host, null); //$NON-NLS-1$
 				IProxyData[] proxyDatas = nativeProxyProvider.select(uri);
@@ -379,21 +461,34 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 		}
 	}
 
-	private synchronized void checkMigrated() {
-		if (preferenceManager.isMigrated() || !Activator.getInstance().instanceLocationAvailable()) {
+	private void checkMigrated() {
+		if (migrated) {
 			return;
 		}
-		preferenceManager.migrate(proxies);
+		synchronized (this) {
+			if (preferenceManager.isMigrated()) {
+				migrated = true;
+				return;
+			}
+			if (!Activator.getInstance().instanceLocationAvailable()) {
+				return;
+			}
+			preferenceManager.migrate(proxies);
+			migrated = preferenceManager.isMigrated();
+			invalidateConfiguration();
+		}
 	}
 
 	void migrateInstanceScopePreferences(Preferences instance,
 			Preferences configuration, boolean isInitialize) {
 		preferenceManager.migrateInstanceScopePreferences(instance,
 				configuration, proxies, isInitialize);
+		invalidateConfiguration();
 	}
 
 	@Override
 	public void preferenceChange(PreferenceChangeEvent event) {
+		invalidateConfiguration();
 		if (event.getKey().equals(PREF_ENABLED) || event.getKey().equals(PREF_OS)) {
 			checkMigrated();
 			internalSetEnabled(preferenceManager.getBoolean(PreferenceManager.ROOT, PREF_ENABLED),
@@ -408,8 +503,7 @@ public class ProxyManager implements IProxyService, IPreferenceChangeListener {
 
 	@Override
 	public boolean isSystemProxiesEnabled() {
-		checkMigrated();
-		return preferenceManager.getBoolean(PreferenceManager.ROOT, PREF_OS);
+		return getConfiguration().systemProxiesEnabled;
 	}
 
 	@Override
@@ -604,17 +604,21 @@ public class ProxyType implements INodeChangeListener, IPreferenceChangeListener
 	@Override
 	public void added(NodeChangeEvent event) {
 		// Add a preference listener so we'll get changes to the fields of the node
-		if (event.getChild().name().equals(getName()))
+		if (event.getChild().name().equals(getName())) {
 			((IEclipsePreferences)event.getChild()).addPreferenceChangeListener(this);
+			((ProxyManager) ProxyManager.getProxyManager()).invalidateConfiguration();
+		}
 	}
 
 	@Override
 	public void removed(NodeChangeEvent event) {
-		// Nothing to do
+		if (event.getChild().name().equals(getName()))
+			((ProxyManager) ProxyManager.getProxyManager()).invalidateConfiguration();
 	}
 
 	@Override
 	public void preferenceChange(PreferenceChangeEvent event) {
+		((ProxyManager) ProxyManager.getProxyManager()).invalidateConfiguration();
 		if (updatingPreferences)
 			return;
 		updateSystemProperties(getProxyData(DO_NOT_VERIFY));
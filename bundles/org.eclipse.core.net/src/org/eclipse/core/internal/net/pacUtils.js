@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+// The predefined functions of proxy auto-config scripts. Host names are
+// resolved by the caller: __pacResolved holds the addresses that are known and
+// dnsResolve asks for the others by throwing, after which the script is run again.
+
+var __pacResolved = {};
+var __pacMyIpAddress = "127.0.0.1";
+
+function dnsResolve(host) {
+	if (!Object.prototype.hasOwnProperty.call(__pacResolved, host))
+		throw "__pacUnresolved__:" + host;
+	return __pacResolved[host];
+}
+
+function myIpAddress() {
+	return __pacMyIpAddress;
+}
+
+function isPlainHostName(host) {
+	return host.indexOf('.') < 0;
+}
+
+function dnsDomainIs(host, domain) {
+	return host.length >= domain.length
+		&& host.substring(host.length - domain.length) == domain;
+}
+
+function localHostOrDomainIs(host, hostdom) {
+	return host == hostdom || hostdom.lastIndexOf(host + '.', 0) == 0;
+}
+
+function isResolvable(host) {
+	return dnsResolve(host) != null;
+}
+
+function __pacConvertAddress(ipchars) {
+	var bytes = ipchars.split('.');
+	return ((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16)
+		| ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff);
+}
+
+function isInNet(ipaddr, pattern, maskstr) {
+	var test = /^(\d{1,4})\.(\d{1,4})\.(\d{1,4})\.(\d{1,4})$/.exec(ipaddr);
+	if (test == null) {
+		ipaddr = dnsResolve(ipaddr);
+		if (ipaddr == null)
+			return false;
+	} else if (test[1] > 255 || test[2] > 255 || test[3] > 255 || test[4] > 255) {
+		return false;
+	}
+	var host = __pacConvertAddress(ipaddr);
+	var pat = __pacConvertAddress(pattern);
+	var mask = __pacConvertAddress(maskstr);
+	return (host & mask) == (pat & mask);
+}
+
+function dnsDomainLevels(host) {
+	return host.split('.').length - 1;
+}
+
+function shExpMatch(url, pattern) {
+	pattern = pattern.replace(/\./g, '\\.');
+	pattern = pattern.replace(/\*/g, '.*');
+	pattern = pattern.replace(/\?/g, '.');
+	return new RegExp('^' + pattern + '$').test(url);
+}
+
+var __pacWeekdays = ["SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"];
+var __pacMonths = ["JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"];
+
+function weekdayRange() {
+	var argc = arguments.length;
+	var gmt = argc > 0 && arguments[argc - 1] == "GMT";
+	if (gmt)
+		argc--;
+	var now = new Date();
+	var day = gmt ? now.getUTCDay() : now.getDay();
+	var wd1 = __pacWeekdays.indexOf(arguments[0]);
+	var wd2 = argc == 2 ? __pacWeekdays.indexOf(arguments[1]) : wd1;
+	if (wd1 < 0 || wd2 < 0)
+		return false;
+	return wd1 <= wd2 ? (wd1 <= day && day <= wd2) : (wd1 <= day || day <= wd2);
+}
+
+function __pacDateField(tuple, arg) {
+	var month = __pacMonths.indexOf(arg);
+	if (month >= 0)
+		tuple[1] = month;
+	else if (Number(arg) > 31)
+		tuple[0] = Number(arg);
+	else
+		tuple[2] = Number(arg);
+}
+
+function dateRange() {
+	var argc = arguments.length;
+	var gmt = argc > 0 && arguments[argc - 1] == "GMT";
+	if (gmt)
+		argc--;
+	if (argc < 1 || (argc > 1 && argc % 2 != 0))
+		return false;
+	var now = new Date();
+	var current = [gmt ? now.getUTCFullYear() : now.getFullYear(),
+		gmt ? now.getUTCMonth() : now.getMonth(),
+		gmt ? now.getUTCDate() : now.getDate()];
+	// the arguments are one or two tuples of a day, a month and a year
+	var fields = argc == 1 ? 1 : argc / 2;
+	var from = [], to = [];
+	for (var i = 0; i < fields; i++) {
+		__pacDateField(from, arguments[i]);
+		__pacDateField(to, arguments[argc == 1 ? i : fields + i]);
+	}
+	var value = 0, low = 0, high = 0;
+	for (var k = 0; k < 3; k++) {
+		if (from[k] === undefined)
+			continue;
+		value = value * 10000 + current[k];
+		low = low * 10000 + from[k];
+		high = high * 10000 + (to[k] !== undefined ? to[k] : from[k]);
+	}
+	return low <= high ? (low <= value && value <= high) : (low <= value || value <= high);
+}
+
+function timeRange() {
+	var argc = arguments.length;
+	if (argc < 1)
+		return false;
+	var gmt = arguments[argc - 1] == "GMT";
+	if (gmt)
+		argc--;
+	var now = new Date();
+	var current = [gmt ? now.getUTCHours() : now.getHours(),
+		gmt ? now.getUTCMinutes() : now.getMinutes(),
+		gmt ? now.getUTCSeconds() : now.getSeconds()];
+	var fields = argc == 1 ? 1 : argc / 2;
+	var value = 0, low = 0, high = 0;
+	for (var i = 0; i < fields; i++) {
+		value = value * 60 + current[i];
+		low = low * 60 + Number(arguments[i]);
+		high = high * 60 + Number(argc == 1 ? arguments[0] : arguments[fields + i]);
+	}
+	if (argc == 1)
+		return value == low;
+	return low <= high ? (low <= value && value < high) : (low <= value || value < high);
+}
@@ -88,6 +88,52 @@ public interface IJSchService{
   public abstract void connect(Session session, int timeout,
       IProgressMonitor monitor) throws JSchException;
 
+  /**
+   * Return a connected session to the given location from a pool of sessions
+   * that are shared between the clients of this service. A session is created
+   * with {@link #createSession(IJSchLocation, UserInfo)} and connected with
+   * {@link #connect(Session, int, IProgressMonitor)} only if no pooled session
+   * for the same host, port, user and identities is available, so repeated
+   * operations against a server are authenticated once.
+   * <p>
+   * The same session may be given to several clients at once. Clients must
+   * only open and close their own {@link Channel}s on the session and must not
+   * disconnect it or change its settings. Each acquired session must be passed
+   * to {@link #releaseSession(Session)} once its channels are closed. Pooled
+   * sessions are kept alive while they are in use and are disconnected once
+   * they have not been used for a while. A pooled session whose server has
+   * gone away without closing the connection may still be returned, so opening
+   * a channel on it may fail.
+   * </p>
+   *
+   * @param location the location which corresponds to user@host:port
+   * @param uinfo an instance of {@link UserInfo} or <code>null</code> if
+   *        the internal UserInfo implementation should be used. It is only
+   *        used if a new session is connected.
+   * @param timeout
+   *          a timeout in milliseconds
+   * @param monitor
+   *          a progress monitor or <code>null</code> if progress and
+   *          cancelation is not desired
+   * @return the connected session
+   * @throws JSchException if an exception occurs connecting a new session
+   * @since 1.4
+   */
+  public abstract Session acquireSession(IJSchLocation location,
+      UserInfo uinfo, int timeout, IProgressMonitor monitor) throws JSchException;
+
+  /**
+   * Return a session that was acquired with
+   * {@link #acquireSession(IJSchLocation, UserInfo, int, IProgressMonitor)} to
+   * the pool. A session that is no longer connected is removed from the pool,
+   * so clients that detect a broken connection may disconnect the session
+   * before releasing it.
+   *
+   * @param session the session
+   * @since 1.4
+   */
+  public abstract void releaseSession(Session session);
+
   /**
    * Return the proxy that should be used to connect to the given host or <code>null</code>
    * if no proxy is specified for the host.
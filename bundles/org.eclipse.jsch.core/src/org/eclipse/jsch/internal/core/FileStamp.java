@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jsch.internal.core;
+
+import java.io.File;
+
+/**
+ * The modification time and length of a file when it was read, which tell
+ * whether the file has to be read again.
+ */
+final class FileStamp{
+
+  private final File file;
+  private final long lastModified;
+  private final long length;
+
+  /**
+   * Stamp the current state of the given file. A file that does not exist has
+   * a stamp too, which becomes stale once the file is created.
+   * 
+   * @param file the file
+   */
+  FileStamp(File file){
+    this.file=file;
+    this.lastModified=file.lastModified();
+    this.length=file.length();
+  }
+
+  File getFile(){
+    return file;
+  }
+
+  /**
+   * Return whether the file has not been changed since it was stamped.
+   * 
+   * @return whether the stamp is current
+   */
+  boolean isCurrent(){
+    return file.lastModified()==lastModified&&file.length()==length;
+  }
+}
@@ -17,6 +17,10 @@ package org.eclipse.jsch.internal.core;
 import java.io.FileNotFoundException;
 import java.util.Hashtable;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.net.proxy.IProxyService;
 import org.eclipse.core.runtime.*;
@@ -45,6 +49,18 @@ public class JSchCorePlugin extends Plugin{
 
   private String current_pkeys=""; //$NON-NLS-1$
 
+  // the number of milliseconds for which decrypted private keys are kept, 0 if
+  // they are kept until their files change
+  private static final long IDENTITY_CACHE_TTL=Long.getLong(
+      "org.eclipse.jsch.core.identityCacheTTL", 0).longValue(); //$NON-NLS-1$
+
+  private KnownHostsIndex knownHosts;
+  private final Map<String, FileStamp> privateKeyStamps=new HashMap<>();
+  private long privateKeysLoaded;
+  private boolean localIdentityRepository=true;
+  private IdentityRepository[] identityRepositories;
+  private IRegistryChangeListener registryChangeListener;
+
   public static final String PT_AUTHENTICATOR="authenticator"; //$NON-NLS-1$
   public static final String PT_IDENTITYREPOSITORY="identityrepository"; //$NON-NLS-1$
 
@@ -132,6 +148,8 @@ public class JSchCorePlugin extends Plugin{
         break;
     }
 
+    // private keys are only forgotten when they are held by JSch itself
+    localIdentityRepository=irepo==null;
     if(irepo!=null){
       jsch.setIdentityRepository(irepo);
     }
@@ -142,7 +160,18 @@ public class JSchCorePlugin extends Plugin{
 
   }
 
-  public IdentityRepository[] getPluggedInIdentityRepositries(){
+  public synchronized IdentityRepository[] getPluggedInIdentityRepositries(){
+    // the repositories are created once as they may connect to agents
+    if(identityRepositories==null)
+      identityRepositories=createPluggedInIdentityRepositories();
+    return identityRepositories.clone();
+  }
+
+  private synchronized void clearPluggedInIdentityRepositories(){
+    identityRepositories=null;
+  }
+
+  private IdentityRepository[] createPluggedInIdentityRepositories(){
 
     IExtension[] extensions=Platform.getExtensionRegistry().getExtensionPoint(
         JSchCorePlugin.ID, JSchCorePlugin.PT_IDENTITYREPOSITORY).getExtensions();
@@ -185,16 +214,17 @@ public class JSchCorePlugin extends Plugin{
     return repositories;
   }
 
-  public void loadKnownHosts(){
-    Preferences preferences=JSchCorePlugin.getPlugin().getPluginPreferences();
-    String ssh_home=preferences.getString(IConstants.KEY_SSH2HOME);
-
-    if(ssh_home.length()==0)
-      ssh_home=PreferenceInitializer.SSH_HOME_DEFAULT;
-
-    java.io.File file=new java.io.File(ssh_home, "known_hosts"); //$NON-NLS-1$
+  /**
+   * Read the known hosts file and index it for the lookups of sessions.
+   */
+  public synchronized void loadKnownHosts(){
+    java.io.File file=new java.io.File(Utils.getSSHHome(), "known_hosts"); //$NON-NLS-1$
+    FileStamp stamp=new FileStamp(file);
+    // Read the file into a repository of its own, so that sessions keep using
+    // the current one until it is replaced
+    JSch reader=new JSch();
     try{
-      getJSch().setKnownHosts(file.getPath());
+      reader.setKnownHosts(file.getPath());
     }
     catch(JSchException e){
       if (!(e.getCause() instanceof FileNotFoundException)) {
@@ -203,30 +233,107 @@ public class JSchCorePlugin extends Plugin{
                 .getAbsolutePath()), e);
       }
     }
+    knownHosts=new KnownHostsIndex(reader.getHostKeyRepository(), stamp);
+    getJSch().setHostKeyRepository(knownHosts);
     needToLoadKnownHosts=false;
   }
 
-  public boolean isNeedToLoadKnownHosts(){
-    return needToLoadKnownHosts;
+  /**
+   * Return whether the known hosts file has to be read, because the
+   * preferences or the file have changed since it was read.
+   * 
+   * @return whether the known hosts file has to be read
+   */
+  public synchronized boolean isNeedToLoadKnownHosts(){
+    return needToLoadKnownHosts||(knownHosts!=null&&!knownHosts.isCurrent());
   }
 
   public void setNeedToLoadKnownHosts(boolean needToLoadKnownHosts){
     this.needToLoadKnownHosts=needToLoadKnownHosts;
   }
 
-  public boolean isNeedToLoadKeys(){
-    return needToLoadKeys;
+  /**
+   * Return whether the private keys have to be loaded, because the
+   * preferences or a key file have changed since they were loaded or the
+   * decrypted keys have expired.
+   * 
+   * @return whether the private keys have to be loaded
+   */
+  public synchronized boolean isNeedToLoadKeys(){
+    if(needToLoadKeys)
+      return true;
+    if(!localIdentityRepository)
+      return false;
+    if(isIdentityCacheExpired())
+      return true;
+    for(FileStamp stamp : privateKeyStamps.values()){
+      if(!stamp.isCurrent())
+        return true;
+    }
+    return false;
   }
 
   public void setNeedToLoadKeys(boolean needToLoadKeys){
     this.needToLoadKeys=needToLoadKeys;
   }
 
-  public void loadPrivateKeys(){
+  /**
+   * Load the private keys that are not loaded yet. Keys whose files have
+   * changed, or all keys once the decrypted keys have expired, are removed
+   * from JSch and loaded again.
+   */
+  public synchronized void loadPrivateKeys(){
+    String ssh_home=Utils.getSSHHome();
+    if(localIdentityRepository)
+      removeStalePrivateKeys();
+    Map<String, FileStamp> stamps=new HashMap<>();
+    String pkeys=getPluginPreferences().getString(IConstants.KEY_PRIVATEKEY);
+    for(String p : pkeys.split(",")){ //$NON-NLS-1$
+      if(p.length()>0)
+        stamps.put(p, new FileStamp(Utils.getPrivateKeyFile(ssh_home, p)));
+    }
+    if(privateKeyStamps.isEmpty())
+      privateKeysLoaded=System.nanoTime();
     current_pkeys=Utils.loadPrivateKeys(getJSch(), current_pkeys);
+    Map<String, FileStamp> loaded=new HashMap<>();
+    for(String p : current_pkeys.split(",")){ //$NON-NLS-1$
+      FileStamp stamp=privateKeyStamps.containsKey(p) ? privateKeyStamps.get(p) : stamps.get(p);
+      if(stamp!=null)
+        loaded.put(p, stamp);
+    }
+    privateKeyStamps.clear();
+    privateKeyStamps.putAll(loaded);
     setNeedToLoadKeys(false);
   }
 
+  private boolean isIdentityCacheExpired(){
+    return IDENTITY_CACHE_TTL>0&&!privateKeyStamps.isEmpty()
+        &&System.nanoTime()-privateKeysLoaded>=TimeUnit.MILLISECONDS.toNanos(IDENTITY_CACHE_TTL);
+  }
+
+  private void removeStalePrivateKeys(){
+    boolean expired=isIdentityCacheExpired();
+    List<String> kept=new ArrayList<>();
+    for(String p : current_pkeys.split(",")){ //$NON-NLS-1$
+      FileStamp stamp=privateKeyStamps.get(p);
+      if(stamp!=null&&(expired||!stamp.isCurrent())){
+        try{
+          // this also clears the decrypted key
+          getJSch().removeIdentity(stamp.getFile().getPath());
+        }
+        catch(JSchException e){
+          JSchCorePlugin.log(IStatus.ERROR,
+              "An error occurred removing the SSH2 private key "+p, e); //$NON-NLS-1$
+        }
+        privateKeyStamps.remove(p);
+      }
+      else if(p.length()>0){
+        kept.add(p);
+      }
+    }
+    current_pkeys=String.join(",", kept); //$NON-NLS-1$
+  }
+
   /**
    * Return the {@link IProxyService} or <code>null</code> if the service is
    * not available.
@@ -243,6 +350,11 @@ public class JSchCorePlugin extends Plugin{
     tracker=new ServiceTracker<Object, Object>(getBundle().getBundleContext(),
         IProxyService.class.getName(), null);
     tracker.open();
+    registryChangeListener=event -> {
+      if(event.getExtensionDeltas(ID, PT_IDENTITYREPOSITORY).length>0)
+        clearPluggedInIdentityRepositories();
+    };
+    Platform.getExtensionRegistry().addRegistryChangeListener(registryChangeListener, ID);
     jschService=getBundle().getBundleContext().registerService(
         IJSchService.class.getName(), JSchProvider.getInstance(),
         new Hashtable<String, Object>());
@@ -253,5 +365,7 @@ public class JSchCorePlugin extends Plugin{
     super.stop(context);
     tracker.close();
     jschService.unregister();
+    Platform.getExtensionRegistry().removeRegistryChangeListener(registryChangeListener);
+    JSchProvider.shutdown();
   }
 }
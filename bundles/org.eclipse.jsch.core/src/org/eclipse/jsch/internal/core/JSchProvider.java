@@ -35,6 +35,8 @@ class JSchProvider implements IJSchService {
   
   private static JSchProvider instance;
 
+  private final SessionPool pool=new SessionPool(this);
+
   @Override
   public Session createSession(String host, int port, String username) throws JSchException {
 
@@ -73,6 +75,15 @@ class JSchProvider implements IJSchService {
   @Override
   public void connect(Session session, int timeout,
       IProgressMonitor monitor) throws JSchException{
+    connectSession(session, timeout, monitor);
+  }
+
+  /**
+   * Connect the session and return it or, if authentication was retried, the
+   * session that replaced it.
+   */
+  Session connectSession(Session session, int timeout,
+      IProgressMonitor monitor) throws JSchException{
     session.setSocketFactory(new ResponsiveSocketFactory(monitor, timeout));
     
     UserInfo ui=session.getUserInfo();
@@ -103,8 +114,7 @@ class JSchProvider implements IJSchService {
         session=Utils.createSession(getJSch(), user, host, port);
         session.setUserInfo(ui);
         session.setTimeout(timeout);
-        connect(session, timeout, monitor);
-        return;
+        return connectSession(session, timeout, monitor);
       }
       
       if(session.isConnected())
@@ -114,6 +124,18 @@ class JSchProvider implements IJSchService {
     
     if(ui!=null && (ui instanceof UserInfoImpl))
       ((UserInfoImpl)ui).connectionMade();
+    return session;
+  }
+
+  @Override
+  public Session acquireSession(IJSchLocation location, UserInfo uinfo,
+      int timeout, IProgressMonitor monitor) throws JSchException{
+    return pool.acquire(location, uinfo, timeout, monitor);
+  }
+
+  @Override
+  public void releaseSession(Session session){
+    pool.release(session);
   }
   
   @Override
@@ -127,6 +149,14 @@ class JSchProvider implements IJSchService {
     return instance;
   }
 
+  /**
+   * Disconnect the pooled sessions.
+   */
+  static void shutdown(){
+    if(instance!=null)
+      instance.pool.shutdown();
+  }
+
   @Override
   public void connect(Proxy proxy, String host, int port, int timeout,
       IProgressMonitor monitor) throws JSchException {
@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jsch.internal.core;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.jcraft.jsch.*;
+
+/**
+ * A {@link HostKeyRepository} that answers the lookups of sessions from an
+ * index of the known hosts file that JSch has read. JSch looks a host up by
+ * comparing it with every entry and computing the HMAC of every hashed entry,
+ * which is slow for files with tens of thousands of entries. The index maps
+ * the names of the plain entries, which are matched ignoring case, to their
+ * keys and the result of each lookup is cached, so that the hashed entries are
+ * only searched once per host.
+ * <p>
+ * Changes are made by the wrapped repository, which writes the file, and
+ * rebuild the index. The index also records the state of the file, so that it
+ * is read again only if it was changed by another program.
+ * </p>
+ * <p>
+ * JSch hashes the names of the hosts it adds, if <code>HashKnownHosts</code>
+ * is set, only for its own repository. This repository hashes them itself
+ * before they are added.
+ * </p>
+ */
+class KnownHostsIndex implements HostKeyRepository{
+
+  private static final String HASH_MAGIC="|1|"; //$NON-NLS-1$
+  private static final String HMAC_SHA1="HmacSHA1"; //$NON-NLS-1$
+  private static final String HASH_KNOWN_HOSTS="HashKnownHosts"; //$NON-NLS-1$
+  private static final int SALT_LENGTH=20;
+  private static final int MAX_CACHED_HOSTS=10000;
+  private static final HostKey[] NO_KEYS=new HostKey[0];
+
+  /*
+   * An entry whose host name is stored as the HMAC of the name
+   */
+  private static final class HashedEntry{
+    final byte[] salt;
+    final byte[] hash;
+    final HostKey key;
+
+    HashedEntry(byte[] salt, byte[] hash, HostKey key){
+      this.salt=salt;
+      this.hash=hash;
+      this.key=key;
+    }
+  }
+
+  /*
+   * The entries of the repository in the order of the file
+   */
+  private static final class Index{
+    final Map<String, List<HostKey>> plain=new HashMap<>();
+    final List<HashedEntry> hashed=new ArrayList<>();
+    final Map<String, HostKey[]> lookups=new ConcurrentHashMap<>();
+  }
+
+  private static final SecureRandom random=new SecureRandom();
+
+  private final HostKeyRepository repository;
+  private volatile FileStamp stamp;
+  private volatile Index index;
+
+  /**
+   * Index the given repository.
+   * 
+   * @param repository the repository that JSch has read from the file
+   * @param stamp the state of the file before it was read
+   */
+  KnownHostsIndex(HostKeyRepository repository, FileStamp stamp){
+    this.repository=repository;
+    this.stamp=stamp;
+  }
+
+  /**
+   * Return whether the file has not been changed since it was read, other
+   * than by this repository.
+   * 
+   * @return whether the repository is current
+   */
+  boolean isCurrent(){
+    return stamp.isCurrent();
+  }
+
+  @Override
+  public int check(String host, byte[] key){
+    int result=NOT_INCLUDED;
+    if(host==null)
+      return result;
+    HostKey hostkey;
+    try{
+      hostkey=new HostKey(host, HostKey.GUESS, key);
+    }
+    catch(JSchException e){
+      return result;
+    }
+    for(HostKey known : lookup(host)){
+      if(known.getType().equals(hostkey.getType())){
+        if(known.getKey().equals(hostkey.getKey()))
+          return OK;
+        result=CHANGED;
+      }
+    }
+    if(result==NOT_INCLUDED&&host.startsWith("[")&&host.indexOf("]:")>1) //$NON-NLS-1$ //$NON-NLS-2$
+      return check(host.substring(1, host.indexOf("]:")), key); //$NON-NLS-1$
+    return result;
+  }
+
+  @Override
+  public HostKey[] getHostKey(String host, String type){
+    if(host==null)
+      return repository.getHostKey(host, type);
+    List<HostKey> result=new ArrayList<>();
+    for(HostKey known : lookup(host)){
+      if(type==null||known.getType().equals(type))
+        result.add(known);
+    }
+    if(host.startsWith("[")&&host.indexOf("]:")>1) //$NON-NLS-1$ //$NON-NLS-2$
+      result.addAll(Arrays.asList(getHostKey(host.substring(1, host.indexOf("]:")), type))); //$NON-NLS-1$
+    return result.toArray(new HostKey[result.size()]);
+  }
+
+  @Override
+  public void add(HostKey hostkey, UserInfo ui){
+    if("yes".equals(JSch.getConfig(HASH_KNOWN_HOSTS))) //$NON-NLS-1$
+      hostkey=hash(hostkey);
+    synchronized(this){
+      repository.add(hostkey, ui);
+      changed();
+    }
+  }
+
+  @Override
+  public void remove(String host, String type){
+    synchronized(this){
+      repository.remove(host, type);
+      changed();
+    }
+  }
+
+  @Override
+  public void remove(String host, String type, byte[] key){
+    synchronized(this){
+      repository.remove(host, type, key);
+      changed();
+    }
+  }
+
+  @Override
+  public String getKnownHostsRepositoryID(){
+    return repository.getKnownHostsRepositoryID();
+  }
+
+  @Override
+  public HostKey[] getHostKey(){
+    return repository.getHostKey();
+  }
+
+  /*
+   * Return the given entry with its host name hashed, like JSch does when it
+   * adds a host to its own repository
+   */
+  private static HostKey hash(HostKey hostkey){
+    String host=hostkey.getHost();
+    if(host==null||host.startsWith(HASH_MAGIC)||host.indexOf(',')!=-1)
+      return hostkey;
+    try{
+      byte[] salt=new byte[SALT_LENGTH];
+      random.nextBytes(salt);
+      Mac mac=Mac.getInstance(HMAC_SHA1);
+      mac.init(new SecretKeySpec(salt, HMAC_SHA1));
+      byte[] hash=mac.doFinal(host.getBytes(StandardCharsets.UTF_8));
+      Base64.Encoder encoder=Base64.getEncoder();
+      String hashed=HASH_MAGIC+encoder.encodeToString(salt)+"|" //$NON-NLS-1$
+          +encoder.encodeToString(hash);
+      return new HostKey(hostkey.getMarker(), hashed, HostKey.GUESS,
+          Base64.getDecoder().decode(hostkey.getKey()), hostkey.getComment());
+    }
+    catch(GeneralSecurityException|JSchException|IllegalArgumentException e){
+      // keep the plain name, like JSch does without HMAC-SHA1
+      return hostkey;
+    }
+  }
+
+  /*
+   * The wrapped repository has written the file
+   */
+  private void changed(){
+    index=null;
+    stamp=new FileStamp(stamp.getFile());
+  }
+
+  /*
+   * Return the entries whose host names include the given one, like
+   * HostKey#isMatched
+   */
+  private HostKey[] lookup(String host){
+    Index current=getIndex();
+    HostKey[] result=current.lookups.get(host);
+    if(result==null){
+      List<HostKey> matches=new ArrayList<>();
+      List<HostKey> plain=current.plain.get(host.toLowerCase(Locale.ENGLISH));
+      if(plain!=null)
+        matches.addAll(plain);
+      if(!current.hashed.isEmpty()){
+        try{
+          Mac mac=Mac.getInstance(HMAC_SHA1);
+          byte[] name=host.getBytes(StandardCharsets.UTF_8);
+          for(HashedEntry entry : current.hashed){
+            mac.init(new SecretKeySpec(entry.salt, HMAC_SHA1));
+            if(Arrays.equals(mac.doFinal(name), entry.hash))
+              matches.add(entry.key);
+          }
+        }
+        catch(GeneralSecurityException e){
+          // without HMAC-SHA1 hashed entries cannot match, like in JSch
+        }
+      }
+      result=matches.isEmpty() ? NO_KEYS : matches.toArray(new HostKey[matches.size()]);
+      if(current.lookups.size()>=MAX_CACHED_HOSTS)
+        current.lookups.clear();
+      current.lookups.put(host, result);
+    }
+    return result;
+  }
+
+  private Index getIndex(){
+    Index current=index;
+    if(current==null){
+      synchronized(this){
+        current=index;
+        if(current==null){
+          current=buildIndex(repository.getHostKey());
+          index=current;
+        }
+      }
+    }
+    return current;
+  }
+
+  private static Index buildIndex(HostKey[] hostkeys){
+    Index result=new Index();
+    for(HostKey hostkey : hostkeys){
+      String hosts=hostkey.getHost();
+      if(hosts==null)
+        continue;
+      if(hosts.startsWith(HASH_MAGIC)){
+        HashedEntry entry=parseHashed(hosts, hostkey);
+        if(entry!=null)
+          result.hashed.add(entry);
+        continue;
+      }
+      for(String host : hosts.split(",")){ //$NON-NLS-1$
+        result.plain.computeIfAbsent(host.toLowerCase(Locale.ENGLISH), h -> new ArrayList<>(1))
+            .add(hostkey);
+      }
+    }
+    return result;
+  }
+
+  private static HashedEntry parseHashed(String host, HostKey hostkey){
+    int separator=host.indexOf('|', HASH_MAGIC.length());
+    if(separator==-1)
+      return null;
+    try{
+      Base64.Decoder decoder=Base64.getDecoder();
+      byte[] salt=decoder.decode(host.substring(HASH_MAGIC.length(), separator));
+      byte[] hash=decoder.decode(host.substring(separator+1));
+      return new HashedEntry(salt, hash, hostkey);
+    }
+    catch(IllegalArgumentException e){
+      // not a valid hashed entry, JSch does not match it either
+      return null;
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jsch.internal.core;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the periodic housekeeping of the plug-in, such as watching connection
+ * attempts for cancelation and evicting idle sessions, on a single daemon
+ * thread. The thread ends when no task has been run for a while.
+ */
+final class Scheduler{
+
+  private static final long KEEP_ALIVE=10; // Seconds
+
+  private static ScheduledThreadPoolExecutor executor;
+
+  private Scheduler(){
+    // not instantiated
+  }
+
+  /**
+   * Run the given task repeatedly with the given delay between the runs.
+   * The task must be short and must not block.
+   * 
+   * @param task the task
+   * @param delay the delay before the first run and between the runs
+   * @param unit the unit of the delay
+   * @return a future that cancels the task
+   */
+  static ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay,
+      TimeUnit unit){
+    return getExecutor().scheduleWithFixedDelay(task, delay, delay, unit);
+  }
+
+  private static synchronized ScheduledThreadPoolExecutor getExecutor(){
+    if(executor==null){
+      executor=new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread=new Thread(r, "JSch Scheduler"); //$NON-NLS-1$
+        thread.setDaemon(true);
+        return thread;
+      });
+      executor.setRemoveOnCancelPolicy(true);
+      executor.setKeepAliveTime(KEEP_ALIVE, TimeUnit.SECONDS);
+      executor.allowCoreThreadTimeOut(true);
+    }
+    return executor;
+  }
+}
@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jsch.internal.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Preferences;
+import org.eclipse.jsch.core.IJSchLocation;
+
+import com.jcraft.jsch.*;
+
+/**
+ * A pool of connected sessions that are shared by the clients of
+ * {@link JSchProvider#acquireSession(IJSchLocation, UserInfo, int, IProgressMonitor)}.
+ * Sessions are pooled by host, port, user and the identities that they
+ * authenticate with. A session is leased to up to
+ * <code>org.eclipse.jsch.core.pool.maxLeases</code> clients at once, which open
+ * their own channels on it, so that repeated operations against a server do
+ * not pay for a key exchange and authentication each time.
+ * <p>
+ * Pooled sessions send keep-alive messages every
+ * <code>org.eclipse.jsch.core.pool.keepAlive</code> milliseconds and are
+ * disconnected by JSch when the server does not answer them. A session is
+ * only leased again while it is connected, and is disconnected once it has not
+ * been leased for <code>org.eclipse.jsch.core.pool.idleTimeout</code>
+ * milliseconds.
+ * </p>
+ */
+class SessionPool{
+
+  private static final int MAX_LEASES=Integer.getInteger(JSchCorePlugin.ID
+      +".pool.maxLeases", 8).intValue(); //$NON-NLS-1$
+  private static final int KEEP_ALIVE=Integer.getInteger(JSchCorePlugin.ID
+      +".pool.keepAlive", 30000).intValue(); //$NON-NLS-1$
+  private static final long IDLE_TIMEOUT=Long.getLong(JSchCorePlugin.ID
+      +".pool.idleTimeout", 5 * 60 * 1000).longValue(); //$NON-NLS-1$
+  private static final int KEEP_ALIVE_COUNT_MAX=3;
+
+  /*
+   * The server and credentials that a session is authenticated for
+   */
+  private static final class Key{
+    final String host;
+    final int port;
+    final String user;
+    final String identity;
+
+    Key(String host, int port, String user, String identity){
+      this.host=host;
+      this.port=port;
+      this.user=user;
+      this.identity=identity;
+    }
+
+    @Override
+    public boolean equals(Object obj){
+      if(!(obj instanceof Key))
+        return false;
+      Key other=(Key)obj;
+      return port==other.port&&host.equalsIgnoreCase(other.host)
+          &&(user==null ? other.user==null : user.equals(other.user))
+          &&identity.equals(other.identity);
+    }
+
+    @Override
+    public int hashCode(){
+      return host.toLowerCase(Locale.ENGLISH).hashCode()*31+port;
+    }
+  }
+
+  /*
+   * A pooled session and the number of clients that it is leased to
+   */
+  private static final class Entry{
+    final Key key;
+    final Session session;
+    int leases;
+    long idleSince;
+
+    Entry(Key key, Session session){
+      this.key=key;
+      this.session=session;
+    }
+  }
+
+  private final JSchProvider provider;
+  private final int maxLeases;
+  private final long idleTimeout;
+  private final Map<Key, List<Entry>> entries=new HashMap<>();
+  private final Map<Session, Entry> sessions=new IdentityHashMap<>();
+  private ScheduledFuture<?> evictor;
+
+  SessionPool(JSchProvider provider){
+    this(provider, MAX_LEASES, IDLE_TIMEOUT);
+  }
+
+  SessionPool(JSchProvider provider, int maxLeases, long idleTimeout){
+    this.provider=provider;
+    this.maxLeases=maxLeases;
+    this.idleTimeout=idleTimeout;
+  }
+
+  Session acquire(IJSchLocation location, UserInfo uinfo, int timeout,
+      IProgressMonitor monitor) throws JSchException{
+    int port=location.getPort()==-1 ? IConstants.SSH_DEFAULT_PORT : location.getPort();
+    Key key=new Key(location.getHost(), port, location.getUsername(), getIdentity());
+    Entry entry;
+    while((entry=lease(key))!=null){
+      if(isReusable(entry.session))
+        return entry.session;
+      remove(entry);
+      disconnect(entry.session);
+    }
+
+    // Connect without holding the lock, authentication may prompt the user
+    Session session=connect(location, uinfo, timeout, monitor);
+    entry=new Entry(key, session);
+    entry.leases=1;
+    synchronized(this){
+      entries.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
+      sessions.put(session, entry);
+      if(evictor==null){
+        long period=Math.max(1000, idleTimeout/2);
+        evictor=Scheduler.scheduleWithFixedDelay(this::evictIdleSessions, period,
+            TimeUnit.MILLISECONDS);
+      }
+    }
+    return session;
+  }
+
+  /*
+   * Connect a new session that sends keep-alive messages
+   */
+  Session connect(IJSchLocation location, UserInfo uinfo, int timeout,
+      IProgressMonitor monitor) throws JSchException{
+    Session session=provider.createSession(location, uinfo);
+    session.setTimeout(timeout);
+    session=provider.connectSession(session, timeout, monitor);
+    try{
+      session.setServerAliveInterval(KEEP_ALIVE);
+      session.setServerAliveCountMax(KEEP_ALIVE_COUNT_MAX);
+    }
+    catch(JSchException e){
+      session.disconnect();
+      throw e;
+    }
+    return session;
+  }
+
+  void release(Session session){
+    boolean disconnect;
+    synchronized(this){
+      Entry entry=sessions.get(session);
+      if(entry==null){
+        // not pooled
+        disconnect=true;
+      }
+      else{
+        entry.leases--;
+        if(entry.leases==0)
+          entry.idleSince=System.nanoTime();
+        disconnect=!isConnected(session);
+        if(disconnect)
+          remove(entry);
+      }
+    }
+    if(disconnect)
+      disconnect(session);
+  }
+
+  /**
+   * Disconnect all sessions.
+   */
+  void shutdown(){
+    List<Session> disconnect;
+    synchronized(this){
+      disconnect=new ArrayList<>(sessions.keySet());
+      entries.clear();
+      sessions.clear();
+      cancelEvictor();
+    }
+    for(Session session : disconnect)
+      disconnect(session);
+  }
+
+  /*
+   * Lease the least leased session for the key that can take another lease
+   */
+  private synchronized Entry lease(Key key){
+    List<Entry> list=entries.get(key);
+    if(list==null)
+      return null;
+    Entry best=null;
+    for(Entry entry : list){
+      if(entry.leases<maxLeases&&(best==null||entry.leases<best.leases))
+        best=entry;
+    }
+    if(best!=null)
+      best.leases++;
+    return best;
+  }
+
+  private synchronized void remove(Entry entry){
+    List<Entry> list=entries.get(entry.key);
+    if(list!=null){
+      list.remove(entry);
+      if(list.isEmpty())
+        entries.remove(entry.key);
+    }
+    sessions.remove(entry.session);
+    if(sessions.isEmpty())
+      cancelEvictor();
+  }
+
+  /*
+   * Disconnect the sessions that are not leased and have been idle for too long
+   * or are no longer connected
+   */
+  void evictIdleSessions(){
+    List<Session> disconnect=new ArrayList<>();
+    synchronized(this){
+      long now=System.nanoTime();
+      for(Iterator<Entry> it=sessions.values().iterator(); it.hasNext();){
+        Entry entry=it.next();
+        if(entry.leases==0
+            &&(!isConnected(entry.session)
+            ||now-entry.idleSince>=TimeUnit.MILLISECONDS.toNanos(idleTimeout))){
+          it.remove();
+          List<Entry> list=entries.get(entry.key);
+          list.remove(entry);
+          if(list.isEmpty())
+            entries.remove(entry.key);
+          disconnect.add(entry.session);
+        }
+      }
+      if(sessions.isEmpty())
+        cancelEvictor();
+    }
+    for(Session session : disconnect)
+      disconnect(session);
+  }
+
+  private void cancelEvictor(){
+    if(evictor!=null){
+      evictor.cancel(false);
+      evictor=null;
+    }
+  }
+
+  boolean isConnected(Session session){
+    return session.isConnected();
+  }
+
+  /*
+   * A session is reused if it is still connected and a keep-alive message can
+   * be written, which fails once the connection has been closed or reset. This
+   * does not wait for an answer, so a half-open connection, whose server is gone
+   * without closing it, is not detected here. Such a session fails when the
+   * client opens a channel, and is disconnected once the keep-alive messages
+   * that it sends while pooled go unanswered.
+   */
+  boolean isReusable(Session session){
+    if(!isConnected(session))
+      return false;
+    try{
+      session.sendKeepAliveMsg();
+      return true;
+    }
+    catch(Exception e){
+      return false;
+    }
+  }
+
+  void disconnect(Session session){
+    session.disconnect();
+  }
+
+  /*
+   * The preferences that determine the identities that JSch authenticates with
+   */
+  private static String getIdentity(){
+    Preferences preferences=JSchCorePlugin.getPlugin().getPluginPreferences();
+    return Utils.getSelectedSSHAgent()+'\n'
+        +preferences.getString(IConstants.KEY_SSH2HOME)+'\n'
+        +preferences.getString(IConstants.KEY_PRIVATEKEY);
+  }
+}
@@ -78,23 +78,34 @@ public class Utils{
     return defaultValue;
   }
 
-  public static String loadPrivateKeys(JSch jsch, String current_pkeys){
+  public static String getSSHHome(){
     Preferences preferences=JSchCorePlugin.getPlugin().getPluginPreferences();
     String ssh_home=preferences.getString(IConstants.KEY_SSH2HOME);
-    String pkeys=preferences.getString(IConstants.KEY_PRIVATEKEY);
 
     if(ssh_home.length()==0)
       ssh_home=PreferenceInitializer.SSH_HOME_DEFAULT;
+    return ssh_home;
+  }
+
+  public static java.io.File getPrivateKeyFile(String ssh_home, String pkey){
+    java.io.File file=new java.io.File(pkey);
+    if(!file.isAbsolute()){
+      file=new java.io.File(ssh_home, pkey);
+    }
+    return file;
+  }
+
+  public static String loadPrivateKeys(JSch jsch, String current_pkeys){
+    Preferences preferences=JSchCorePlugin.getPlugin().getPluginPreferences();
+    String ssh_home=getSSHHome();
+    String pkeys=preferences.getString(IConstants.KEY_PRIVATEKEY);
 
     java.io.File file;
     String[] pkey=pkeys.split(","); //$NON-NLS-1$
     String[] _pkey=current_pkeys.split(","); //$NON-NLS-1$
     String result=""; //$NON-NLS-1$
     for(String p : pkey){
-      file=new java.io.File(p);
-      if(!file.isAbsolute()){
-        file=new java.io.File(ssh_home, p);
-      }
+      file=getPrivateKeyFile(ssh_home, p);
       if(file.exists()){
         boolean notyet=true;
         for(String _p : _pkey){
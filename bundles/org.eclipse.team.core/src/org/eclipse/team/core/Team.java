@@ -49,10 +49,10 @@ import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.core.importing.provisional.IBundleImporter;
 import org.eclipse.team.core.mapping.IStorageMerger;
 import org.eclipse.team.internal.core.FileContentManager;
+import org.eclipse.team.internal.core.IgnoreMatcher;
 import org.eclipse.team.internal.core.Messages;
 import org.eclipse.team.internal.core.Policy;
 import org.eclipse.team.internal.core.StorageMergerRegistry;
-import org.eclipse.team.internal.core.WildcardStringMatcher;
 import org.eclipse.team.internal.core.TeamPlugin;
 import org.eclipse.team.internal.core.TeamResourceChangeListener;
 import org.eclipse.team.internal.core.importing.BundleImporterExtension;
@@ -97,7 +97,7 @@ public final class Team {
 
 	// The ignore list that is read at startup from the persisted file
 	protected static SortedMap<String, Boolean> globalIgnore, pluginIgnore;
-	private static WildcardStringMatcher[] ignoreMatchers;
+	private static IgnoreMatcher ignoreMatcher;
 
 	private final static FileContentManager fFileContentManager;
 
@@ -155,17 +155,7 @@ public final class Team {
 	}
 
 	private static boolean matchesEnabledIgnore(IResource resource) {
-		WildcardStringMatcher[] matchers = getStringMatchers();
-		for (WildcardStringMatcher matcher : matchers) {
-			String resourceName = resource.getName();
-			if (matcher.isPathPattern()) {
-				resourceName = resource.getFullPath().toString();
-			}
-			if (matcher.match(resourceName)) {
-				return true;
-			}
-		}
-		return false;
+		return getIgnoreMatcher().match(resource);
 	}
 
 	/**
@@ -213,7 +203,7 @@ public final class Team {
 		if (globalIgnore == null) {
 			globalIgnore = new TreeMap<>();
 			pluginIgnore = new TreeMap<>();
-			ignoreMatchers = null;
+			ignoreMatcher = null;
 			try {
 				readIgnoreState();
 			} catch (TeamException e) {
@@ -247,19 +237,18 @@ public final class Team {
 		return result;
 	}
 
-	private synchronized static WildcardStringMatcher[] getStringMatchers() {
-		if (ignoreMatchers==null) {
+	private synchronized static IgnoreMatcher getIgnoreMatcher() {
+		if (ignoreMatcher==null) {
 			IIgnoreInfo[] ignorePatterns = getAllIgnores();
-			ArrayList<WildcardStringMatcher> matchers = new ArrayList<>(ignorePatterns.length);
+			ArrayList<String> patterns = new ArrayList<>(ignorePatterns.length);
 			for (IIgnoreInfo ignorePattern : ignorePatterns) {
 				if (ignorePattern.getEnabled()) {
-					matchers.add(new WildcardStringMatcher(ignorePattern.getPattern()));
+					patterns.add(ignorePattern.getPattern());
 				}
 			}
-			ignoreMatchers = new WildcardStringMatcher[matchers.size()];
-			ignoreMatchers = matchers.toArray(ignoreMatchers);
+			ignoreMatcher = new IgnoreMatcher(patterns);
 		}
-		return ignoreMatchers;
+		return ignoreMatcher;
 	}
 
 
@@ -291,7 +280,7 @@ public final class Team {
 	public static void setAllIgnores(String[] patterns, boolean[] enabled) {
 		initializeIgnores();
 		globalIgnore = new TreeMap<>();
-		ignoreMatchers = null;
+		ignoreMatcher = null;
 		for (int i = 0; i < patterns.length; i++) {
 			globalIgnore.put(patterns[i], Boolean.valueOf(enabled[i]));
 		}
@@ -38,6 +38,7 @@ import org.eclipse.team.core.diff.IThreeWayDiff;
 import org.eclipse.team.internal.core.Policy;
 import org.eclipse.team.internal.core.mapping.DiffChangeEvent;
 import org.eclipse.team.internal.core.mapping.PathTree;
+import org.eclipse.team.internal.core.metrics.TeamMetrics;
 import org.eclipse.team.internal.core.subscribers.DiffTreeStatistics;
 
 /**
@@ -243,6 +244,7 @@ public class DiffTree implements IDiffTree {
 
 		if(event.isEmpty() && ! event.isReset() && propertyChanges.isEmpty()) return;
 		Object[] listeners = this.listeners.getListeners();
+		final boolean measure = Policy.METRICS;
 		for (Object l : listeners) {
 			final IDiffChangeListener listener = (IDiffChangeListener) l;
 			SafeRunner.run(new ISafeRunnable() {
@@ -252,6 +254,7 @@ public class DiffTree implements IDiffTree {
 				}
 				@Override
 				public void run() throws Exception {
+					long start = measure ? System.nanoTime() : 0;
 					try {
 						lockedForModification = true;
 						if (!event.isEmpty() || event.isReset())
@@ -264,6 +267,8 @@ public class DiffTree implements IDiffTree {
 
 					} finally {
 						lockedForModification = false;
+						if (measure)
+							TeamMetrics.getDefault().recordListener(listener, System.nanoTime() - start);
 					}
 				}
 			});
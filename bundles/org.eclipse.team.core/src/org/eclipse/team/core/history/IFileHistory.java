@@ -13,6 +13,10 @@
  *******************************************************************************/
 package org.eclipse.team.core.history;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.eclipse.team.core.history.provider.FileHistory;
 
 /**
@@ -32,6 +36,57 @@ public interface IFileHistory {
 	 */
 	public abstract IFileRevision[] getFileRevisions();
 
+	/**
+	 * Returns the number of file revisions of this file. Histories that load
+	 * their revisions incrementally should override this method so that the
+	 * count can be obtained without creating all revisions.
+	 * @return the number of file revisions
+	 * @since 3.10
+	 */
+	public default int getFileRevisionCount() {
+		return getFileRevisions().length;
+	}
+
+	/**
+	 * Returns a page of the file revisions of this file, in the order of
+	 * {@link #getFileRevisions()}. Histories that load their revisions
+	 * incrementally should override this method so that only the revisions
+	 * of the page are created.
+	 * @param offset the index of the first revision of the page
+	 * @param count the maximum number of revisions of the page
+	 * @return the revisions of the page, which may be fewer than
+	 * <code>count</code> if the end of the history is reached
+	 * @throws IndexOutOfBoundsException if the offset or the count is negative
+	 * @since 3.10
+	 */
+	public default IFileRevision[] getFileRevisions(int offset, int count) {
+		IFileRevision[] revisions = getFileRevisions();
+		if (offset < 0 || count < 0)
+			throw new IndexOutOfBoundsException();
+		int start = Math.min(offset, revisions.length);
+		int end = (int) Math.min((long) start + count, revisions.length);
+		return Arrays.copyOfRange(revisions, start, end);
+	}
+
+	/**
+	 * Returns the file revisions of this file whose timestamp is at least
+	 * <code>fromTimestamp</code> and less than <code>toTimestamp</code>, in
+	 * the order of {@link #getFileRevisions()}.
+	 * @param fromTimestamp the inclusive lower bound of the timestamps
+	 * @param toTimestamp the exclusive upper bound of the timestamps
+	 * @return the revisions in the given time range or an empty array
+	 * @since 3.10
+	 */
+	public default IFileRevision[] getFileRevisionsBetween(long fromTimestamp, long toTimestamp) {
+		List<IFileRevision> result = new ArrayList<>();
+		for (IFileRevision revision : getFileRevisions()) {
+			long timestamp = revision.getTimestamp();
+			if (timestamp >= fromTimestamp && timestamp < toTimestamp)
+				result.add(revision);
+		}
+		return result.toArray(new IFileRevision[result.size()]);
+	}
+
 	/**
 	 * Returns the file revision that corresponds to the passed in content identifier.
 	 * @param id the content identifier that uniquely identifies a file revision.
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.core.history.provider;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.team.core.history.IFileHistory;
+import org.eclipse.team.core.history.IFileRevision;
+
+/**
+ * An index of the revisions of a file history by timestamp and content
+ * identifier. It can be used by {@link IFileHistory} implementations whose
+ * revisions are ordered by their timestamps to answer
+ * {@link IFileHistory#getContributors(IFileRevision)},
+ * {@link IFileHistory#getTargets(IFileRevision)} and
+ * {@link IFileHistory#getFileRevision(String)} without scanning all revisions.
+ * <p>
+ * The index is built once for a fixed array of revisions, so it should be
+ * recreated whenever the revisions of the history change.
+ * </p>
+ *
+ * @since 3.10
+ */
+public final class FileRevisionIndex {
+
+	private final IFileRevision[] revisions;
+	// the indices of the revisions sorted by timestamp, then by index
+	private final int[] order;
+	private final long[] timestamps;
+	private final Map<String, IFileRevision> byIdentifier;
+
+	/**
+	 * Create an index of the given revisions.
+	 * @param revisions the revisions of a file history
+	 */
+	public FileRevisionIndex(IFileRevision[] revisions) {
+		this.revisions = revisions;
+		Integer[] sorted = new Integer[revisions.length];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = Integer.valueOf(i);
+		}
+		// the sort is stable so revisions with the same timestamp stay in order
+		Arrays.sort(sorted, (i1, i2) -> Long.compare(revisions[i1].getTimestamp(), revisions[i2].getTimestamp()));
+		order = new int[sorted.length];
+		timestamps = new long[sorted.length];
+		for (int i = 0; i < sorted.length; i++) {
+			order[i] = sorted[i].intValue();
+			timestamps[i] = revisions[order[i]].getTimestamp();
+		}
+		byIdentifier = new HashMap<>(revisions.length * 2);
+		for (IFileRevision revision : revisions) {
+			String identifier = revision.getContentIdentifier();
+			if (identifier != null)
+				byIdentifier.putIfAbsent(identifier, revision);
+		}
+	}
+
+	/**
+	 * Return the revisions of this index.
+	 * @return the revisions of this index
+	 */
+	public IFileRevision[] getRevisions() {
+		return revisions;
+	}
+
+	/**
+	 * Return the first revision with the given content identifier.
+	 * @param contentIdentifier the content identifier
+	 * @return the first revision with the given content identifier or <code>null</code>
+	 */
+	public IFileRevision getRevision(String contentIdentifier) {
+		return byIdentifier.get(contentIdentifier);
+	}
+
+	/**
+	 * Return the revision with the largest timestamp that is smaller than the
+	 * timestamp of the given revision. Of several revisions with that
+	 * timestamp, the first is returned.
+	 * @param revision a revision
+	 * @return the immediate predecessor of the revision or <code>null</code>
+	 */
+	public IFileRevision getPredecessor(IFileRevision revision) {
+		int end = lowerBound(revision.getTimestamp());
+		if (end == 0)
+			return null;
+		return revisions[order[lowerBound(timestamps[end - 1])]];
+	}
+
+	/**
+	 * Return all revisions whose timestamp is larger than that of the given
+	 * revision, in the order of the revisions of this index.
+	 * @param revision a revision
+	 * @return the descendants of the revision
+	 */
+	public IFileRevision[] getDescendants(IFileRevision revision) {
+		return select(upperBound(revision.getTimestamp()), order.length);
+	}
+
+	/**
+	 * Return all revisions whose timestamp is at least
+	 * <code>fromTimestamp</code> and less than <code>toTimestamp</code>, in
+	 * the order of the revisions of this index.
+	 * @param fromTimestamp the inclusive lower bound of the timestamps
+	 * @param toTimestamp the exclusive upper bound of the timestamps
+	 * @return the revisions in the given time range
+	 */
+	public IFileRevision[] getRevisions(long fromTimestamp, long toTimestamp) {
+		int start = lowerBound(fromTimestamp);
+		int end = Math.max(start, lowerBound(toTimestamp));
+		return select(start, end);
+	}
+
+	private IFileRevision[] select(int start, int end) {
+		int[] indices = Arrays.copyOfRange(order, start, end);
+		Arrays.sort(indices);
+		IFileRevision[] result = new IFileRevision[indices.length];
+		for (int i = 0; i < indices.length; i++) {
+			result[i] = revisions[indices[i]];
+		}
+		return result;
+	}
+
+	/*
+	 * Return the position of the first timestamp that is not smaller than the given one
+	 */
+	private int lowerBound(long timestamp) {
+		int low = 0;
+		int high = timestamps.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (timestamps[mid] < timestamp)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/*
+	 * Return the position of the first timestamp that is larger than the given one
+	 */
+	private int upperBound(long timestamp) {
+		int low = 0;
+		int high = timestamps.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (timestamps[mid] <= timestamp)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+}
@@ -27,6 +27,9 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -40,8 +43,12 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobGroup;
 import org.eclipse.core.runtime.jobs.MultiRule;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.core.diff.IDiff;
@@ -72,6 +79,42 @@ import org.eclipse.team.internal.core.mapping.SyncInfoToDiffConverter;
  */
 public abstract class MergeContext extends SynchronizationContext implements IMergeContext {
 
+	private static final int MAX_MERGE_WORKERS = 8;
+
+	/*
+	 * The outcome of a three-way merge of the contents of a file whose result
+	 * has not yet been written to the file, or the exception that the merge failed with,
+	 * along with the modification stamp of the file that was merged.
+	 */
+	private static final class PreparedMerge {
+		private final IStatus status;
+		private final OutputStream output;
+		private final File tmpFile;
+		private final Exception failure;
+		private final long modificationStamp;
+
+		PreparedMerge(IStatus status, OutputStream output, File tmpFile, long modificationStamp) {
+			this.status = status;
+			this.output = output;
+			this.tmpFile = tmpFile;
+			this.failure = null;
+			this.modificationStamp = modificationStamp;
+		}
+
+		PreparedMerge(Exception failure, long modificationStamp) {
+			this.status = null;
+			this.output = null;
+			this.tmpFile = null;
+			this.failure = failure;
+			this.modificationStamp = modificationStamp;
+		}
+	}
+
+	/*
+	 * The merges that were prepared concurrently by merge(IDiff[], boolean, IProgressMonitor)
+	 */
+	private final Map<IDiff, PreparedMerge> preparedMerges = new ConcurrentHashMap<>();
+
 	/**
 	 * Create a merge context.
 	 *
@@ -101,26 +144,50 @@ public abstract class MergeContext extends SynchronizationContext implements IMe
 		}, getMergeRule(nodes), IResource.NONE, monitor);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The contents of the files with conflicting changes are merged by up to
+	 * {@link #getMergeWorkerCount()} jobs concurrently, which also fetch the
+	 * ancestor and remote contents. This happens before the merge rule is
+	 * acquired, so that the workers may use scheduling rules of their own. The
+	 * merged contents are then written to the files, and all other diffs are
+	 * merged, one after the other in the same workspace operation. Files that
+	 * were modified in the meantime are merged again.
+	 * </p>
+	 */
 	@Override
 	public IStatus merge(final IDiff[] deltas, final boolean force, IProgressMonitor monitor) throws CoreException {
 		final List<IFile> failedFiles = new ArrayList<>();
-		run(monitor1 -> {
-			try {
-				monitor1.beginTask(null, deltas.length * 100);
-				for (IDiff delta : deltas) {
-					IStatus s = merge(delta, force, Policy.subMonitorFor(monitor1, 100));
-					if (!s.isOK()) {
-						if (s.getCode() == IMergeStatus.CONFLICTS) {
-							failedFiles.addAll(Arrays.asList(((IMergeStatus)s).getConflictingFiles()));
-						} else {
-							throw new CoreException(s);
+		monitor = Policy.monitorFor(monitor);
+		try {
+			monitor.beginTask(null, deltas.length * 150);
+			prepareThreeWayMerges(deltas, force, Policy.subMonitorFor(monitor, deltas.length * 50));
+			run(monitor1 -> {
+				try {
+					monitor1.beginTask(null, deltas.length * 100);
+					for (IDiff delta : deltas) {
+						IStatus s = merge(delta, force, Policy.subMonitorFor(monitor1, 100));
+						if (!s.isOK()) {
+							if (s.getCode() == IMergeStatus.CONFLICTS) {
+								failedFiles.addAll(Arrays.asList(((IMergeStatus)s).getConflictingFiles()));
+							} else {
+								throw new CoreException(s);
+							}
 						}
 					}
+				} finally {
+					monitor1.done();
 				}
-			} finally {
-				monitor1.done();
+			}, getMergeRule(deltas), IWorkspace.AVOID_UPDATE, Policy.subMonitorFor(monitor, deltas.length * 100));
+		} finally {
+			// Discard the merges that were not used, e.g. by subclasses that merge differently
+			for (PreparedMerge prepared : preparedMerges.values()) {
+				disposeTempOutputStream(prepared.output, prepared.tmpFile);
 			}
-		}, getMergeRule(deltas), IWorkspace.AVOID_UPDATE, monitor);
+			preparedMerges.clear();
+			monitor.done();
+		}
 		if (failedFiles.isEmpty()) {
 			return Status.OK_STATUS;
 		} else {
@@ -128,6 +195,117 @@ public abstract class MergeContext extends SynchronizationContext implements IMe
 		}
 	}
 
+	/*
+	 * Merge the contents of the files of the diffs that merge(IDiff, boolean, IProgressMonitor)
+	 * passes to performThreeWayMerge concurrently and remember the results
+	 */
+	private void prepareThreeWayMerges(IDiff[] deltas, boolean force, IProgressMonitor monitor) {
+		final List<IThreeWayDiff> conflicts = new ArrayList<>();
+		if (!force && getMergeType() == THREE_WAY) {
+			for (IDiff delta : deltas) {
+				if (isContentConflict(delta))
+					conflicts.add((IThreeWayDiff) delta);
+			}
+		}
+		int workerCount = Math.min(Math.min(getMergeWorkerCount(), MAX_MERGE_WORKERS), conflicts.size());
+		if (workerCount <= 1 || Job.getJobManager().currentRule() != null) {
+			// The merges are performed one at a time by performThreeWayMerge, also when
+			// the caller owns a rule as workers that need a conflicting rule would block
+			monitor.done();
+			return;
+		}
+		final AtomicInteger next = new AtomicInteger();
+		JobGroup group = new JobGroup(Messages.MergeContext_7, workerCount, workerCount);
+		for (int w = 0; w < workerCount; w++) {
+			Job worker = new Job(Messages.MergeContext_7) {
+				@Override
+				protected IStatus run(IProgressMonitor workerMonitor) {
+					int i;
+					while ((i = next.getAndIncrement()) < conflicts.size()) {
+						if (workerMonitor.isCanceled())
+							return Status.CANCEL_STATUS;
+						IThreeWayDiff diff = conflicts.get(i);
+						long modificationStamp = getModificationStamp(diff);
+						try {
+							preparedMerges.put(diff, prepareThreeWayMerge(diff, new NullProgressMonitor()));
+						} catch (CoreException | RuntimeException e) {
+							// performThreeWayMerge fails with the exception as a serial merge would
+							preparedMerges.put(diff, new PreparedMerge(e, modificationStamp));
+						}
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			worker.setSystem(true);
+			worker.setJobGroup(group);
+			worker.schedule();
+		}
+		try {
+			group.join(0, monitor);
+		} catch (InterruptedException e) {
+			cancel(group);
+			throw new OperationCanceledException();
+		} catch (OperationCanceledException e) {
+			cancel(group);
+			throw e;
+		} finally {
+			monitor.done();
+		}
+		if (group.getResult() != null && group.getResult().getSeverity() == IStatus.CANCEL)
+			throw new OperationCanceledException();
+	}
+
+	/*
+	 * Cancel the workers and wait for the merges in progress, so that none
+	 * of them is remembered after the prepared merges have been discarded
+	 */
+	private static void cancel(JobGroup group) {
+		group.cancel();
+		try {
+			group.join(0, null);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*
+	 * Return whether merge(IDiff, boolean, IProgressMonitor) would perform a
+	 * three-way merge of the contents of the file of the diff
+	 */
+	private boolean isContentConflict(IDiff diff) {
+		if (!(diff instanceof IThreeWayDiff))
+			return false;
+		IThreeWayDiff twd = (IThreeWayDiff) diff;
+		if (twd.getDirection() != IThreeWayDiff.CONFLICTING || twd.getKind() != IDiff.CHANGE)
+			return false;
+		if (!(twd.getLocalChange() instanceof IResourceDiff) || !(twd.getRemoteChange() instanceof IResourceDiff))
+			return false;
+		IResource resource = getDiffTree().getResource(diff);
+		if (resource == null || resource.getType() != IResource.FILE || !resource.exists())
+			return false;
+		return ((IResourceDiff) twd.getRemoteChange()).getAfterState() != null;
+	}
+
+	private static long getModificationStamp(IThreeWayDiff diff) {
+		return ((IResourceDiff) diff.getLocalChange()).getResource().getModificationStamp();
+	}
+
+	/**
+	 * Return the maximum number of jobs that {@link #merge(IDiff[], boolean, IProgressMonitor)}
+	 * uses to merge the contents of files concurrently. By default, <code>1</code>
+	 * is returned, which disables concurrent merging. Subclasses that merge with
+	 * {@link #performThreeWayMerge(IThreeWayDiff, IProgressMonitor)} and adapt to an
+	 * {@link IStorageMerger} that can be used by several threads at once may
+	 * return a larger value, such as the number of available processors.
+	 * At most 8 jobs are used. The jobs run before the merge rule is acquired
+	 * and are not used if the thread that merges owns a scheduling rule.
+	 * @return the maximum number of workers
+	 * @since 3.10
+	 */
+	protected int getMergeWorkerCount() {
+		return 1;
+	}
+
 	@Override
 	public IStatus merge(IDiff diff, boolean ignoreLocalChanges, IProgressMonitor monitor) throws CoreException {
 		Policy.checkCanceled(monitor);
@@ -207,42 +385,80 @@ public abstract class MergeContext extends SynchronizationContext implements IMe
 		final IStatus[] result = new IStatus[] { Status.OK_STATUS };
 		run(monitor1 -> {
 			monitor1.beginTask(null, 100);
+			IFile file = (IFile)((IResourceDiff)diff.getLocalChange()).getResource();
+			PreparedMerge prepared = preparedMerges.remove(diff);
+			if (prepared != null && prepared.modificationStamp != file.getModificationStamp()) {
+				// The file was modified after it was merged
+				disposeTempOutputStream(prepared.output, prepared.tmpFile);
+				prepared = null;
+			}
+			if (prepared == null)
+				prepared = prepareThreeWayMerge(diff, Policy.subMonitorFor(monitor1, 90));
+			else
+				monitor1.worked(90);
+			if (prepared.failure instanceof CoreException)
+				throw (CoreException) prepared.failure;
+			if (prepared.failure != null)
+				throw (RuntimeException) prepared.failure;
+			try {
+				IStatus status = prepared.status;
+				if (status.isOK()) {
+					file.setContents(getTempInputStream(prepared.output, prepared.tmpFile), false, true, Policy.subMonitorFor(monitor1, 5));
+					markAsMerged(diff, false, Policy.subMonitorFor(monitor1, 5));
+				} else {
+					status = new MergeStatus(status.getPlugin(), status.getMessage(), new IFile[]{file});
+				}
+				result[0] = status;
+			} finally {
+				disposeTempOutputStream(prepared.output, prepared.tmpFile);
+			}
+			monitor1.done();
+		}, getMergeRule(diff), IWorkspace.AVOID_UPDATE, monitor);
+		return result[0];
+	}
+
+	/*
+	 * Merge the contents of the file of the given diff into a temporary file
+	 * without modifying the file
+	 */
+	private PreparedMerge prepareThreeWayMerge(IThreeWayDiff diff, IProgressMonitor monitor) throws CoreException {
+		try {
+			monitor.beginTask(null, 90);
 			IResourceDiff localDiff = (IResourceDiff)diff.getLocalChange();
 			IResourceDiff remoteDiff = (IResourceDiff)diff.getRemoteChange();
 			IStorageMerger merger = getAdapter(IStorageMerger.class);
 			if (merger == null)
 				merger = DelegatingStorageMerger.getInstance();
 			IFile file = (IFile)localDiff.getResource();
-			monitor1.subTask(NLS.bind(Messages.MergeContext_5, file.getFullPath().toString()));
+			long modificationStamp = file.getModificationStamp();
+			monitor.subTask(NLS.bind(Messages.MergeContext_5, file.getFullPath().toString()));
 			String osEncoding = file.getCharset();
 			IFileRevision ancestorState = localDiff.getBeforeState();
 			IFileRevision remoteState = remoteDiff.getAfterState();
 			IStorage ancestorStorage;
 			if (ancestorState != null)
-				ancestorStorage = ancestorState.getStorage(Policy.subMonitorFor(monitor1, 30));
+				ancestorStorage = ancestorState.getStorage(Policy.subMonitorFor(monitor, 30));
 			else
 				ancestorStorage = null;
-			IStorage remoteStorage = remoteState.getStorage(Policy.subMonitorFor(monitor1, 30));
-			OutputStream os = getTempOutputStream(file);
+			IStorage remoteStorage = remoteState.getStorage(Policy.subMonitorFor(monitor, 30));
+			File tmpFile = createTempFile();
+			OutputStream os = getTempOutputStream(tmpFile);
+			boolean prepared = false;
 			try {
-				IStatus status = merger.merge(os, osEncoding, ancestorStorage, file, remoteStorage, Policy.subMonitorFor(monitor1, 30));
-				if (status.isOK()) {
-					file.setContents(getTempInputStream(file, os), false, true, Policy.subMonitorFor(monitor1, 5));
-					markAsMerged(diff, false, Policy.subMonitorFor(monitor1, 5));
-				} else {
-					status = new MergeStatus(status.getPlugin(), status.getMessage(), new IFile[]{file});
-				}
-				result[0] = status;
+				IStatus status = merger.merge(os, osEncoding, ancestorStorage, file, remoteStorage, Policy.subMonitorFor(monitor, 30));
+				prepared = true;
+				return new PreparedMerge(status, os, tmpFile, modificationStamp);
 			} finally {
-				disposeTempOutputStream(file, os);
+				if (!prepared)
+					disposeTempOutputStream(os, tmpFile);
 			}
-			monitor1.done();
-		}, getMergeRule(diff), IWorkspace.AVOID_UPDATE, monitor);
-		return result[0];
+		} finally {
+			monitor.done();
+		}
 	}
 
-	private void disposeTempOutputStream(IFile file, OutputStream output) {
-		if (output instanceof ByteArrayOutputStream)
+	private void disposeTempOutputStream(OutputStream output, File tmpFile) {
+		if (output == null || output instanceof ByteArrayOutputStream)
 			return;
 		// We created a temporary file so we need to clean it up
 		try {
@@ -253,18 +469,13 @@ public abstract class MergeContext extends SynchronizationContext implements IMe
 		} catch (IOException e) {
 			// Ignore
 		}
-		File tmpFile = getTempFile(file);
 		if (tmpFile.exists())
 			tmpFile.delete();
 	}
 
-	private OutputStream getTempOutputStream(IFile file) throws CoreException {
-		File tmpFile = getTempFile(file);
-		if (tmpFile.exists())
-			tmpFile.delete();
-		File parent = tmpFile.getParentFile();
-		if (!parent.exists())
-			parent.mkdirs();
+	private OutputStream getTempOutputStream(File tmpFile) {
+		if (tmpFile == null)
+			return new ByteArrayOutputStream();
 		try {
 			return new BufferedOutputStream(new FileOutputStream(tmpFile));
 		} catch (FileNotFoundException e) {
@@ -273,7 +484,7 @@ public abstract class MergeContext extends SynchronizationContext implements IMe
 		}
 	}
 
-	private InputStream getTempInputStream(IFile file, OutputStream output) throws CoreException {
+	private InputStream getTempInputStream(OutputStream output, File tmpFile) throws CoreException {
 		if (output instanceof ByteArrayOutputStream) {
 			ByteArrayOutputStream baos = (ByteArrayOutputStream) output;
 			return new ByteArrayInputStream(baos.toByteArray());
@@ -286,7 +497,6 @@ public abstract class MergeContext extends SynchronizationContext implements IMe
 		} catch (IOException e) {
 			// Ignore
 		}
-		File tmpFile = getTempFile(file);
 		try {
 			return new BufferedInputStream(new FileInputStream(tmpFile));
 		} catch (FileNotFoundException e) {
@@ -294,8 +504,20 @@ public abstract class MergeContext extends SynchronizationContext implements IMe
 		}
 	}
 
-	private File getTempFile(IFile file) {
-		return TeamPlugin.getPlugin().getStateLocation().append(".tmp").append(file.getName() + ".tmp").toFile(); //$NON-NLS-1$ //$NON-NLS-2$
+	/*
+	 * Create a temporary file with a unique name, since several files with
+	 * the same name may be merged at once
+	 */
+	private File createTempFile() {
+		File parent = TeamPlugin.getPlugin().getStateLocation().append(".tmp").toFile(); //$NON-NLS-1$
+		if (!parent.exists())
+			parent.mkdirs();
+		try {
+			return File.createTempFile("merge", ".tmp", parent); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (IOException e) {
+			TeamPlugin.log(IStatus.ERROR, NLS.bind(Messages.MergeContext_8, new String[] { parent.getAbsolutePath(), e.getMessage() }), e);
+			return null;
+		}
 	}
 
 	private IFile getLocalFile(IDiff delta) {
@@ -13,9 +13,6 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.runtime.CoreException;
@@ -25,6 +22,8 @@ import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.team.core.TeamException;
+import org.eclipse.team.internal.core.metrics.EventPipelineMetrics;
+import org.eclipse.team.internal.core.metrics.TeamMetrics;
 
 /**
  * This class provides the infrastructure for processing/dispatching of events using a
@@ -42,7 +41,10 @@ import org.eclipse.team.core.TeamException;
  * The event handler has the following characteristics:
  * </p>
  * <ol>
- * <li>Incoming events are placed in an incoming queue.</li>
+ * <li>Incoming events are placed in an incoming queue. Events are processed in order of
+ * their priority (see <code>getPriority</code>). Subclasses may allow resource events
+ * that are covered by a queued event of the same type to be coalesced
+ * (see <code>isCoalescable</code>).</li>
  * <li>Each event is processed by calling the <code>processEvent</code> method
  * which is implemented by the subclass. The implementation may choose to process events
  * directly or queue events on an outgoing event queue</li>
@@ -50,7 +52,8 @@ import org.eclipse.team.core.TeamException;
  * to give the subclass a chance to dispatch the events in it's outgoing queue. The interval between
  * the first 3 dispatches will be the <code>shortDispatchDelay</code> and subsequent intervals will be
  * the <code>longDispatchDelay</code>. This is done to avoid constantly hammering the UI for long running
- * operations.<li>
+ * operations. When the queue is empty, the handler waits a short time for more events to arrive
+ * before dispatching. This wait is adapted to the measured rate at which events arrive.<li>
  * <li>Errors that occur during event processing or dispatch can be accumulated by calling the <code>handle</code>
  * method. Accumulated errors are used to form the status that is returned when the job completes.<li>
  * </ol>
@@ -64,8 +67,25 @@ public abstract class BackgroundEventHandler {
 	 */
 	public static final int RUNNABLE_EVENT = 1000;
 
+	/**
+	 * Priority constant for events that are processed before all others.
+	 * Events queued on the front of the queue have this priority.
+	 */
+	public static final int PRIORITY_HIGH = 0;
+
+	/**
+	 * Priority constant used for events by default.
+	 */
+	public static final int PRIORITY_NORMAL = 1;
+
+	/**
+	 * Priority constant for events that are only processed once no events
+	 * of a higher priority are waiting.
+	 */
+	public static final int PRIORITY_LOW = 2;
+
 	// Events that need to be processed
-	private List<Event> awaitingProcessing = new ArrayList<>();
+	private final BackgroundEventQueue awaitingProcessing = new BackgroundEventQueue();
 
 	// The job that runs when events need to be processed
 	private Job eventHandlerJob;
@@ -94,8 +114,17 @@ public abstract class BackgroundEventHandler {
 	// time to wait for messages to be queued
 	private static final long WAIT_DELAY = 100;
 
+	// minimum time to wait for messages to be queued when they arrive infrequently
+	private static final long MIN_WAIT_DELAY = 10;
+
 	private String jobName;
 
+	// the metrics shared by all handlers with the same job name, created when first needed
+	private volatile EventPipelineMetrics metrics;
+
+	// the number of events processed since the last dispatch
+	private int processedSinceDispatch;
+
 	/**
 	 * General event class. The type is specific to subclasses.
 	 */
@@ -305,11 +334,20 @@ public abstract class BackgroundEventHandler {
 		if (Policy.DEBUG_BACKGROUND_EVENTS) {
 			System.out.println("Event queued on " + getName() + ":" + event.toString()); //$NON-NLS-1$ //$NON-NLS-2$
 		}
-		if (front) {
-			awaitingProcessing.add(0, event);
-		} else {
-			awaitingProcessing.add(event);
+		int priority = front ? PRIORITY_HIGH : getPriority(event);
+		int coalesced = awaitingProcessing.getCoalescedCount();
+		boolean queued = awaitingProcessing.add(event, priority, front, isCoalescable(event));
+		if (Policy.METRICS)
+			getPipelineMetrics().eventsCoalesced(awaitingProcessing.getCoalescedCount() - coalesced);
+		if (!queued) {
+			// A queued event already covers this one so there is no need to wake the job
+			if (Policy.DEBUG_BACKGROUND_EVENTS) {
+				System.out.println("Event coalesced on " + getName() + ":" + event.toString()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			return;
 		}
+		if (Policy.METRICS)
+			getPipelineMetrics().eventQueued(awaitingProcessing.size());
 		if (!isShutdown() && eventHandlerJob != null) {
 			if(eventHandlerJob.getState() == Job.NONE) {
 				schedule();
@@ -319,6 +357,35 @@ public abstract class BackgroundEventHandler {
 		}
 	}
 
+	/**
+	 * Return the priority of the given event. Events of a higher priority are
+	 * processed before events of a lower priority. Events of the same priority
+	 * are processed in the order they were queued. Events queued on the front
+	 * of the queue always have {@link #PRIORITY_HIGH}. By default, all other
+	 * events have {@link #PRIORITY_NORMAL}. Subclasses may override.
+	 * @param event the event being queued
+	 * @return the priority of the event
+	 */
+	protected int getPriority(Event event) {
+		return PRIORITY_NORMAL;
+	}
+
+	/**
+	 * Return whether the given event may be coalesced with other queued events
+	 * of the same type. A coalescable event that is covered by a queued event
+	 * (i.e. the queued event is for the same resource or an ancestor and has a
+	 * sufficient depth) is not queued and a coalescable event supersedes any
+	 * queued events that it covers. Coalescing never reorders events of
+	 * different types. Only <code>ResourceEvent</code>s can be coalesced.
+	 * By default, no events are coalescable. Subclasses whose processing of
+	 * resource events is idempotent may override.
+	 * @param event the event being queued
+	 * @return whether the event may be coalesced
+	 */
+	protected boolean isCoalescable(Event event) {
+		return false;
+	}
+
 	/**
 	 * Return the name that is to be associated with the background job.
 	 * @return the job name
@@ -335,14 +402,20 @@ public abstract class BackgroundEventHandler {
 		if (isShutdown() || isQueueEmpty()) {
 			return null;
 		}
-		return awaitingProcessing.remove(0);
+		Event event = awaitingProcessing.poll();
+		if (event != null && Policy.METRICS) {
+			// events queued before metrics were enabled have no queued time
+			long queuedTime = awaitingProcessing.getQueuedTimeOfLastPoll();
+			getPipelineMetrics().eventDequeued(awaitingProcessing.size(), queuedTime == 0 ? 0 : System.nanoTime() - queuedTime);
+		}
+		return event;
 	}
 
 	protected synchronized Event peek() {
 		if (isShutdown() || isQueueEmpty()) {
 			return null;
 		}
-		return awaitingProcessing.get(0);
+		return awaitingProcessing.peek();
 	}
 
 	/**
@@ -380,7 +453,15 @@ public abstract class BackgroundEventHandler {
 			dispatchCount = 1;
 			while ((event = nextElement()) != null && ! isShutdown()) {
 				try {
-					processEvent(event, subMonitor);
+					boolean measure = Policy.METRICS;
+					long start = measure ? System.nanoTime() : 0;
+					try {
+						processEvent(event, subMonitor);
+					} finally {
+						if (measure)
+							getPipelineMetrics().eventProcessed(System.nanoTime() - start);
+						processedSinceDispatch++;
+					}
 					if (Policy.DEBUG_BACKGROUND_EVENTS) {
 						System.out.println("Event processed on " + getName() + ":" + event.toString()); //$NON-NLS-1$ //$NON-NLS-2$
 					}
@@ -405,9 +486,14 @@ public abstract class BackgroundEventHandler {
 	 * @throws TeamException
 	 */
 	protected final void dispatchEvents(IProgressMonitor monitor) throws TeamException {
+		boolean measure = Policy.METRICS;
+		long start = measure ? System.nanoTime() : 0;
 		if (doDispatchEvents(monitor)) {
 			// something was dispatched so adjust dispatch count.
 			dispatchCount++;
+			if (measure)
+				getPipelineMetrics().eventsDispatched(System.nanoTime() - start, processedSinceDispatch);
+			processedSinceDispatch = 0;
 		}
 		timeOfLastDispatch = System.currentTimeMillis();
 	}
@@ -460,10 +546,23 @@ public abstract class BackgroundEventHandler {
 
 	/**
 	 * Return the amount of time to wait for more events before dispatching.
+	 * The default is to wait for up to twice the measured average time between
+	 * event arrivals, bounded by 100 milliseconds. If events arrive less often
+	 * than that, waiting is unlikely to batch anything so only a minimal wait is used.
 	 * @return the amount of time to wait for more events before dispatching.
 	 */
 	protected long getDispatchWaitDelay() {
-		return WAIT_DELAY;
+		long interArrivalTime;
+		synchronized (this) {
+			interArrivalTime = awaitingProcessing.getAverageInterArrivalTime();
+		}
+		if (interArrivalTime < 0) {
+			return WAIT_DELAY;
+		}
+		if (interArrivalTime > WAIT_DELAY) {
+			return MIN_WAIT_DELAY;
+		}
+		return Math.max(MIN_WAIT_DELAY, Math.min(WAIT_DELAY, 2 * interArrivalTime));
 	}
 
 	/**
@@ -511,6 +610,19 @@ public abstract class BackgroundEventHandler {
 	 */
 	protected abstract void processEvent(Event event, IProgressMonitor monitor) throws CoreException;
 
+	/*
+	 * Return the metrics of this handler, which are shared by all handlers
+	 * that have the same job name. Only called when metrics are enabled.
+	 */
+	private EventPipelineMetrics getPipelineMetrics() {
+		EventPipelineMetrics result = metrics;
+		if (result == null) {
+			result = TeamMetrics.getDefault().getEventPipeline(jobName);
+			metrics = result;
+		}
+		return result;
+	}
+
 	/**
 	 * Return the job from which the <code>processedEvent</code> method is invoked.
 	 * @return Returns the background event handling job.
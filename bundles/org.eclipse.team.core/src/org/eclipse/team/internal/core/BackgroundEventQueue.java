@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.team.internal.core.BackgroundEventHandler.Event;
+import org.eclipse.team.internal.core.BackgroundEventHandler.ResourceEvent;
+
+/**
+ * The queue of events awaiting processing by a {@link BackgroundEventHandler}.
+ * <p>
+ * Events are kept in one lane per priority and lanes are drained in priority
+ * order. Within the lanes that allow it, resource events are coalesced: a
+ * queued event of the same type whose resource and depth cover an incoming
+ * event makes the incoming event redundant, and an incoming event supersedes
+ * any queued events it covers (e.g. a <code>DEPTH_INFINITE</code> event
+ * subsumes the events of its descendants). Coalescing only happens within the
+ * trailing run of events of the same type so that the relative order of
+ * events of different types is never altered.
+ * </p>
+ * <p>
+ * The queue also measures the rate at which events arrive so that the handler
+ * can adapt its dispatch intervals.
+ * </p>
+ * <p>
+ * This class is not thread safe. The handler synchronizes all access.
+ * </p>
+ */
+public final class BackgroundEventQueue {
+
+	// weight given to the most recent sample of the inter-arrival time
+	private static final double RATE_SMOOTHING = 0.2;
+
+	private static final class Entry {
+		final Event event;
+		// the coalescing key or null if the event cannot be coalesced
+		final String key;
+		final int segments;
+		final int depth;
+		// only measured when metrics are enabled
+		final long queuedTime = Policy.METRICS ? System.nanoTime() : 0;
+		boolean superseded;
+
+		Entry(Event event, IPath path, int depth) {
+			this.event = event;
+			this.key = path == null ? null : getKey(path);
+			this.segments = path == null ? 0 : path.segmentCount();
+			this.depth = depth;
+		}
+
+		boolean covers(Entry other) {
+			if (depth == IResource.DEPTH_INFINITE)
+				return true;
+			if (other.segments == segments)
+				return depth >= other.depth;
+			return depth == IResource.DEPTH_ONE && other.depth == IResource.DEPTH_ZERO
+					&& other.segments == segments + 1;
+		}
+	}
+
+	private final class Lane {
+		private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+		private final boolean coalescing;
+		// Index of the trailing run of coalescable events that share the same type
+		private final TreeMap<String, Entry> index = new TreeMap<>();
+		private int indexType;
+
+		Lane(boolean coalescing) {
+			this.coalescing = coalescing;
+		}
+
+		boolean add(Entry entry, boolean front) {
+			if (front) {
+				entries.addFirst(entry);
+				return true;
+			}
+			if (!coalescing || entry.key == null) {
+				// The event acts as a barrier for coalescing
+				index.clear();
+				entries.addLast(entry);
+				return true;
+			}
+			int type = entry.event.getType();
+			if (index.isEmpty() || indexType != type) {
+				index.clear();
+				indexType = type;
+			} else if (isCovered(entry)) {
+				return false;
+			} else {
+				supersedeCoveredBy(entry);
+			}
+			index.put(entry.key, entry);
+			entries.addLast(entry);
+			return true;
+		}
+
+		private boolean isCovered(Entry entry) {
+			Entry existing = index.get(entry.key);
+			if (existing != null && existing.covers(entry))
+				return true;
+			IPath path = entry.event.getResource().getFullPath();
+			for (int i = entry.segments - 1; i >= 0; i--) {
+				Entry ancestor = index.get(getKey(path.uptoSegment(i)));
+				if (ancestor != null && ancestor.covers(entry))
+					return true;
+			}
+			return false;
+		}
+
+		private void supersedeCoveredBy(Entry entry) {
+			Entry existing = index.remove(entry.key);
+			if (existing != null)
+				supersede(existing);
+			if (entry.depth == IResource.DEPTH_ZERO)
+				return;
+			Map<String, Entry> descendants = index.subMap(entry.key, false, entry.key + Character.MAX_VALUE, false);
+			for (Iterator<Entry> iter = descendants.values().iterator(); iter.hasNext();) {
+				Entry descendant = iter.next();
+				if (entry.covers(descendant)) {
+					supersede(descendant);
+					iter.remove();
+				}
+			}
+		}
+
+		Entry peek() {
+			Entry entry;
+			while ((entry = entries.peekFirst()) != null && entry.superseded) {
+				entries.removeFirst();
+			}
+			return entry;
+		}
+
+		Entry poll() {
+			Entry entry = peek();
+			if (entry != null) {
+				entries.removeFirst();
+				if (entry.key != null && index.get(entry.key) == entry)
+					index.remove(entry.key);
+			}
+			return entry;
+		}
+
+		void clear() {
+			entries.clear();
+			index.clear();
+		}
+	}
+
+	private final Lane[] lanes;
+	private int size;
+	private int coalescedCount;
+	private long queuedTimeOfLastPoll;
+
+	// time of the last arrival and the smoothed time between arrivals
+	private long timeOfLastArrival;
+	private double averageInterArrivalTime = -1;
+
+	/**
+	 * Create an empty queue.
+	 */
+	public BackgroundEventQueue() {
+		lanes = new Lane[] {
+				new Lane(false), // PRIORITY_HIGH
+				new Lane(true), // PRIORITY_NORMAL
+				new Lane(true) // PRIORITY_LOW
+		};
+	}
+
+	/**
+	 * Add the event to the queue.
+	 * @param event the event
+	 * @param priority the priority of the event (one of the <code>PRIORITY_</code>
+	 * constants of {@link BackgroundEventHandler})
+	 * @param front whether the event is to be placed at the front of its lane
+	 * @param coalesce whether the event may be coalesced with other queued events
+	 * @return <code>false</code> if the event was made redundant by an event that
+	 * is already queued and <code>true</code> if it was queued
+	 */
+	public boolean add(Event event, int priority, boolean front, boolean coalesce) {
+		recordArrival();
+		Entry entry;
+		if (coalesce && event instanceof ResourceEvent && event.getResource() != null) {
+			entry = new Entry(event, event.getResource().getFullPath(), ((ResourceEvent) event).getDepth());
+		} else {
+			entry = new Entry(event, null, IResource.DEPTH_ZERO);
+		}
+		if (!getLane(priority).add(entry, front)) {
+			coalescedCount++;
+			return false;
+		}
+		size++;
+		return true;
+	}
+
+	/**
+	 * Return the next event without removing it from the queue.
+	 * @return the next event or <code>null</code> if the queue is empty
+	 */
+	public Event peek() {
+		for (Lane lane : lanes) {
+			Entry entry = lane.peek();
+			if (entry != null)
+				return entry.event;
+		}
+		return null;
+	}
+
+	/**
+	 * Remove and return the next event.
+	 * @return the next event or <code>null</code> if the queue is empty
+	 */
+	public Event poll() {
+		for (Lane lane : lanes) {
+			Entry entry = lane.poll();
+			if (entry != null) {
+				size--;
+				queuedTimeOfLastPoll = entry.queuedTime;
+				return entry.event;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return whether no events are queued.
+	 * @return whether the queue is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Return the number of queued events, not counting superseded events.
+	 * @return the number of queued events
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Remove all events from the queue.
+	 */
+	public void clear() {
+		for (Lane lane : lanes) {
+			lane.clear();
+		}
+		size = 0;
+	}
+
+	/**
+	 * Return the number of events that were dropped or superseded by coalescing.
+	 * @return the number of coalesced events
+	 */
+	public int getCoalescedCount() {
+		return coalescedCount;
+	}
+
+	/**
+	 * Return the value of {@link System#nanoTime()} when the event that was
+	 * last removed from the queue was added. The time is only measured while
+	 * metrics are enabled.
+	 * @return the time the last polled event was queued or <code>0</code>
+	 */
+	public long getQueuedTimeOfLastPoll() {
+		return queuedTimeOfLastPoll;
+	}
+
+	/**
+	 * Return the smoothed time in milliseconds between the arrival of events
+	 * or <code>-1</code> if not enough events have arrived to tell.
+	 * @return the average time between event arrivals
+	 */
+	public long getAverageInterArrivalTime() {
+		return (long) averageInterArrivalTime;
+	}
+
+	private void recordArrival() {
+		long now = System.currentTimeMillis();
+		if (timeOfLastArrival != 0) {
+			long interval = now - timeOfLastArrival;
+			if (averageInterArrivalTime < 0) {
+				averageInterArrivalTime = interval;
+			} else {
+				averageInterArrivalTime += RATE_SMOOTHING * (interval - averageInterArrivalTime);
+			}
+		}
+		timeOfLastArrival = now;
+	}
+
+	private void supersede(Entry entry) {
+		entry.superseded = true;
+		size--;
+		coalescedCount++;
+	}
+
+	private Lane getLane(int priority) {
+		if (priority <= BackgroundEventHandler.PRIORITY_HIGH)
+			return lanes[0];
+		if (priority >= BackgroundEventHandler.PRIORITY_LOW)
+			return lanes[2];
+		return lanes[1];
+	}
+
+	private static String getKey(IPath path) {
+		String key = path.toString();
+		if (key.endsWith("/")) //$NON-NLS-1$
+			return key;
+		return key + '/';
+	}
+}
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+
+/**
+ * A cache of the digests of file contents that is persisted in the state
+ * location of the team plug-in so that repeated content comparisons do not
+ * have to read unchanged contents again.
+ * <p>
+ * Entries are keyed by a string that identifies the contents (e.g. the path
+ * of a local file or the path and content identifier of a remote revision).
+ * Each entry records a modification stamp, time stamp and size that must
+ * match for the digest to be valid; entries for immutable contents record
+ * <code>-1</code> for both stamps and the size of the contents, which is
+ * looked up without knowing it and so is not validated. The least recently
+ * used entries are evicted when the cache is full.
+ * </p>
+ */
+public class ContentDigestCache {
+
+	private static final String STATE_FILE = ".contentDigests"; //$NON-NLS-1$
+	private static final int MAGIC = 0x54434443; // "TCDC"
+	private static final int VERSION = 1;
+	private static final String ALGORITHM = "SHA-256"; //$NON-NLS-1$
+	private static final int MAX_ENTRIES = 100000;
+	// Keys are persisted with DataOutput#writeUTF which is limited to 64K bytes
+	private static final int MAX_KEY_LENGTH = 0xFFFF / 3;
+
+	private static ContentDigestCache instance;
+
+	private static final class Entry {
+		final long stamp;
+		final long timestamp;
+		final long size;
+		final byte[] digest;
+
+		Entry(long stamp, long timestamp, long size, byte[] digest) {
+			this.stamp = stamp;
+			this.timestamp = timestamp;
+			this.size = size;
+			this.digest = digest;
+		}
+	}
+
+	private final File file;
+	private final int maxEntries;
+	private final Map<String, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > maxEntries;
+		}
+	};
+	private boolean dirty;
+
+	/**
+	 * Return the shared cache, loading it from the state location if necessary.
+	 * @return the shared cache
+	 */
+	public static synchronized ContentDigestCache getDefault() {
+		if (instance == null) {
+			TeamPlugin plugin = TeamPlugin.getPlugin();
+			File stateFile = plugin == null ? null : plugin.getStateLocation().append(STATE_FILE).toFile();
+			instance = new ContentDigestCache(stateFile, MAX_ENTRIES);
+			instance.load();
+		}
+		return instance;
+	}
+
+	/**
+	 * Persist the shared cache if it was used and has changed.
+	 */
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			instance.save();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Create a cache that is persisted in the given file.
+	 * @param file the file or <code>null</code> if the cache is not persisted
+	 * @param maxEntries the number of entries above which the least recently
+	 * used entries are evicted
+	 */
+	public ContentDigestCache(File file, int maxEntries) {
+		this.file = file;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Return the digest recorded for the given key if it is still valid.
+	 * @param key the key that identifies the contents
+	 * @param stamp the current modification stamp of the contents
+	 * @param timestamp the current time stamp of the contents
+	 * @param size the current size of the contents or <code>-1</code> if it
+	 * is not known
+	 * @return the digest or <code>null</code>
+	 */
+	public synchronized byte[] getDigest(String key, long stamp, long timestamp, long size) {
+		Entry entry = entries.get(key);
+		if (entry == null)
+			return null;
+		if (entry.stamp != stamp || entry.timestamp != timestamp || (size != -1 && entry.size != size)) {
+			entries.remove(key);
+			dirty = true;
+			return null;
+		}
+		return entry.digest;
+	}
+
+	/**
+	 * Return the size recorded with the digest of the immutable contents
+	 * identified by the given key.
+	 * @param key the key that identifies the contents
+	 * @return the size or <code>-1</code> if it is not known
+	 */
+	public synchronized long getSize(String key) {
+		Entry entry = entries.get(key);
+		return entry == null ? -1 : entry.size;
+	}
+
+	/**
+	 * Record the digest of the contents identified by the given key.
+	 * @param key the key that identifies the contents
+	 * @param stamp the modification stamp of the contents when they were read
+	 * @param timestamp the time stamp of the contents when they were read
+	 * @param size the size of the contents when they were read
+	 * @param digest the digest of the contents
+	 */
+	public synchronized void putDigest(String key, long stamp, long timestamp, long size, byte[] digest) {
+		if (key.length() > MAX_KEY_LENGTH)
+			return;
+		entries.put(key, new Entry(stamp, timestamp, size, digest));
+		dirty = true;
+	}
+
+	/**
+	 * Create a message digest for the algorithm whose digests are cached.
+	 * @return a new message digest
+	 */
+	public static MessageDigest createMessageDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Read the entries that were saved in the file of this cache, if any.
+	 */
+	public synchronized void load() {
+		if (file == null || !file.exists())
+			return;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return;
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				long stamp = in.readLong();
+				long timestamp = in.readLong();
+				long size = in.readLong();
+				byte[] digest = new byte[in.readUnsignedByte()];
+				in.readFully(digest);
+				entries.put(key, new Entry(stamp, timestamp, size, digest));
+			}
+		} catch (IOException e) {
+			// The cache will be rebuilt as contents are compared
+			entries.clear();
+			TeamPlugin.log(IStatus.WARNING, e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Write the entries of this cache to its file if they have changed.
+	 */
+	public synchronized void save() {
+		if (file == null || !dirty)
+			return;
+		File temp = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(entries.size());
+				// Write the least recently used entries first so that the
+				// access order is restored when the cache is loaded
+				for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+					Entry entry = mapEntry.getValue();
+					out.writeUTF(mapEntry.getKey());
+					out.writeLong(entry.stamp);
+					out.writeLong(entry.timestamp);
+					out.writeLong(entry.size);
+					out.writeByte(entry.digest.length);
+					out.write(entry.digest);
+				}
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			dirty = false;
+		} catch (IOException e) {
+			TeamPlugin.log(IStatus.WARNING, e.getMessage(), e);
+			temp.delete();
+		}
+	}
+}
@@ -30,6 +30,8 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.content.IContentType;
 import org.eclipse.core.runtime.content.IContentTypeManager;
+import org.eclipse.core.runtime.content.IContentTypeManager.ContentTypeChangeEvent;
+import org.eclipse.core.runtime.content.IContentTypeManager.IContentTypeChangeListener;
 import org.eclipse.team.core.IFileContentManager;
 import org.eclipse.team.core.IStringMapping;
 import org.eclipse.team.core.Team;
@@ -42,6 +44,9 @@ public class FileContentManager implements IFileContentManager {
 	private static final String PREF_TEAM_EXTENSION_TYPES= "file_types"; //$NON-NLS-1$
 	private static final String PREF_TEAM_FILENAME_TYPES= "cvs_mode_for_file_without_extensions"; //$NON-NLS-1$
 
+	// The number of file names whose type is remembered before the cache is cleared
+	private static final int MAX_CACHED_TYPES= 10000;
+
 	private static class StringMapping implements IStringMapping {
 
 		private final String fString;
@@ -63,6 +68,39 @@ public class FileContentManager implements IFileContentManager {
 		}
 	}
 
+	/*
+	 * A bounded cache of resolved types. Clearing the cache starts a new
+	 * generation and a type that was resolved in an earlier generation is not
+	 * added, so a resolution that races with a change of the mappings cannot
+	 * leave a stale type behind.
+	 */
+	private static class TypeCache {
+
+		private final Map<String, Integer> fTypes= new HashMap<>();
+		private int fGeneration;
+
+		public synchronized Integer get(String key) {
+			return fTypes.get(key);
+		}
+
+		public synchronized int getGeneration() {
+			return fGeneration;
+		}
+
+		public synchronized void put(String key, Integer type, int generation) {
+			if (generation != fGeneration)
+				return;
+			if (fTypes.size() >= MAX_CACHED_TYPES)
+				fTypes.clear();
+			fTypes.put(key, type);
+		}
+
+		public synchronized void clear() {
+			fGeneration++;
+			fTypes.clear();
+		}
+	}
+
 	private static class UserExtensionMappings extends UserStringMappings {
 
 		public UserExtensionMappings(String key) {
@@ -137,10 +175,21 @@ public class FileContentManager implements IFileContentManager {
 	private PluginStringMappings fPluginExtensionMappings;//, fPluginNameMappings;
 	private IContentType textContentType;
 
+	/*
+	 * The resolved type of each file name. The type of a storage only depends on its name,
+	 * so the cache is valid until the mappings or the content types change.
+	 */
+	private final TypeCache fTypeCache= new TypeCache();
+	private final TypeCache fExtensionTypeCache= new TypeCache();
+	private boolean fListeningToContentTypes;
+
 	public FileContentManager() {
 		fUserExtensionMappings= new UserExtensionMappings(PREF_TEAM_EXTENSION_TYPES);
 		fUserNameMappings= new UserStringMappings(PREF_TEAM_FILENAME_TYPES);
 		fPluginExtensionMappings= new PluginStringMappings(TeamPlugin.FILE_TYPES_EXTENSION, "extension"); //$NON-NLS-1$
+		fUserExtensionMappings.addChangeListener(this::clearTypeCache);
+		fUserNameMappings.addChangeListener(this::clearTypeCache);
+		fPluginExtensionMappings.addChangeListener(this::clearTypeCache);
 	}
 
 	@Override
@@ -153,9 +202,17 @@ public class FileContentManager implements IFileContentManager {
 
 	@Override
 	public int getTypeForExtension(String extension) {
-		final int userType= fUserExtensionMappings.getType(extension);
-		final int pluginType= fPluginExtensionMappings.getType(extension);
-		return userType != Team.UNKNOWN ? userType : pluginType;
+		if (extension == null)
+			return Team.UNKNOWN;
+		Integer type= fExtensionTypeCache.get(extension);
+		if (type == null) {
+			final int generation= fExtensionTypeCache.getGeneration();
+			final int userType= fUserExtensionMappings.getType(extension);
+			final int pluginType= fPluginExtensionMappings.getType(extension);
+			type= Integer.valueOf(userType != Team.UNKNOWN ? userType : pluginType);
+			fExtensionTypeCache.put(extension, type, generation);
+		}
+		return type.intValue();
 	}
 
 	@Override
@@ -190,9 +247,22 @@ public class FileContentManager implements IFileContentManager {
 
 	@Override
 	public int getType(IStorage storage) {
+		final String name= storage.getName();
+		if (name == null)
+			return resolveType(null);
+		Integer type= fTypeCache.get(name);
+		if (type == null) {
+			listenToContentTypes();
+			final int generation= fTypeCache.getGeneration();
+			type= Integer.valueOf(resolveType(name));
+			fTypeCache.put(name, type, generation);
+		}
+		return type.intValue();
+	}
+
+	private int resolveType(String name) {
 		int type;
 
-		final String name= storage.getName();
 		if (name != null && (type= getTypeForName(name)) != Team.UNKNOWN)
 			return type;
 
@@ -211,6 +281,23 @@ public class FileContentManager implements IFileContentManager {
 		return Team.UNKNOWN;
 	}
 
+	private void clearTypeCache() {
+		fExtensionTypeCache.clear();
+		fTypeCache.clear();
+	}
+
+	private synchronized void listenToContentTypes() {
+		if (!fListeningToContentTypes) {
+			fListeningToContentTypes= true;
+			Platform.getContentTypeManager().addContentTypeChangeListener(new IContentTypeChangeListener() {
+				@Override
+				public void contentTypeChanged(ContentTypeChangeEvent event) {
+					clearTypeCache();
+				}
+			});
+		}
+	}
+
 	private IContentType getTextContentType() {
 		if (textContentType == null)
 			textContentType = Platform.getContentTypeManager().getContentType(IContentTypeManager.CT_TEXT);
@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Matches resources against a set of ignore patterns at once. The patterns
+ * have the same syntax and case-insensitive semantics as
+ * {@link WildcardStringMatcher}; patterns that contain a '/' are matched
+ * against the full path of a resource and all others against its name.
+ * <p>
+ * The patterns are compiled by kind: patterns without wildcards are looked up
+ * in a hash set, patterns of the form <code>*literal</code> and
+ * <code>literal*</code> are matched by walking a suffix and a prefix trie, and
+ * the remaining patterns are combined into a single automaton that is run over
+ * the text once. Patterns that escape wildcards or contain non-ASCII
+ * characters are rare and are left to {@link WildcardStringMatcher}; the
+ * case-insensitive comparison of non-ASCII characters cannot be reproduced by
+ * folding their case. Instances are immutable and may be shared between
+ * threads.
+ * </p>
+ */
+public final class IgnoreMatcher {
+
+	/*
+	 * The compiled patterns that are matched against one kind of text
+	 */
+	private static final class PatternSet {
+		private final Set<String> exact = new HashSet<>();
+		private final TrieNode prefixes = new TrieNode();
+		private final TrieNode suffixes = new TrieNode();
+		private final Automaton.Builder wildcards = new Automaton.Builder();
+		private final List<WildcardStringMatcher> others = new ArrayList<>();
+		private Automaton automaton;
+		private boolean empty = true;
+
+		void add(String pattern) {
+			empty = false;
+			if (pattern.indexOf('\\') != -1 || !isAscii(pattern)) {
+				others.add(new WildcardStringMatcher(pattern));
+				return;
+			}
+			String folded = fold(pattern);
+			int wildcardCount = 0;
+			for (int i = 0; i < folded.length(); i++) {
+				char c = folded.charAt(i);
+				if (c == '?') {
+					wildcardCount = Integer.MAX_VALUE;
+					break;
+				}
+				if (c == '*') wildcardCount++;
+			}
+			if (wildcardCount == 0) {
+				exact.add(folded);
+			} else if (wildcardCount == 1 && folded.charAt(0) == '*') {
+				suffixes.insert(folded, folded.length() - 1, 0, -1);
+			} else if (wildcardCount == 1 && folded.charAt(folded.length() - 1) == '*') {
+				prefixes.insert(folded, 0, folded.length() - 1, 1);
+			} else {
+				wildcards.add(folded);
+			}
+		}
+
+		void compile() {
+			automaton = wildcards.build();
+		}
+
+		boolean match(String text) {
+			if (empty) return false;
+			String folded = fold(text);
+			return exact.contains(folded)
+					|| prefixes.matches(folded, 0, folded.length(), 1)
+					|| suffixes.matches(folded, folded.length() - 1, -1, -1)
+					|| (automaton != null && automaton.matches(folded))
+					|| matchesOthers(text);
+		}
+
+		private boolean matchesOthers(String text) {
+			for (WildcardStringMatcher matcher : others) {
+				if (matcher.match(text)) return true;
+			}
+			return false;
+		}
+	}
+
+	/*
+	 * A node of a trie of folded characters. A terminal node ends a literal.
+	 */
+	private static final class TrieNode {
+		private char[] chars = new char[0];
+		private TrieNode[] children = new TrieNode[0];
+		private boolean terminal;
+
+		/*
+		 * Insert the characters of the string from start (inclusive) to end
+		 * (exclusive) in the given direction
+		 */
+		void insert(String s, int start, int end, int step) {
+			TrieNode node = this;
+			for (int i = start; i != end; i += step) {
+				node = node.getOrCreateChild(s.charAt(i));
+			}
+			node.terminal = true;
+		}
+
+		/*
+		 * Return whether a literal in the trie is a prefix of the characters of the
+		 * text walked from start to end in the given direction
+		 */
+		boolean matches(String text, int start, int end, int step) {
+			TrieNode node = this;
+			for (int i = start; ; i += step) {
+				if (node.terminal) return true;
+				if (i == end) return false;
+				node = node.getChild(text.charAt(i));
+				if (node == null) return false;
+			}
+		}
+
+		private TrieNode getChild(char c) {
+			for (int i = 0; i < chars.length; i++) {
+				if (chars[i] == c) return children[i];
+			}
+			return null;
+		}
+
+		private TrieNode getOrCreateChild(char c) {
+			TrieNode child = getChild(c);
+			if (child == null) {
+				int length = chars.length;
+				char[] newChars = new char[length + 1];
+				TrieNode[] newChildren = new TrieNode[length + 1];
+				System.arraycopy(chars, 0, newChars, 0, length);
+				System.arraycopy(children, 0, newChildren, 0, length);
+				newChars[length] = c;
+				newChildren[length] = child = new TrieNode();
+				chars = newChars;
+				children = newChildren;
+			}
+			return child;
+		}
+	}
+
+	/*
+	 * A non-deterministic automaton for a number of wildcard patterns. Each state
+	 * is a position in one of the patterns and all patterns are followed in a
+	 * single pass over the text.
+	 */
+	private static final class Automaton {
+		private static final byte LITERAL = 0;
+		private static final byte ANY_CHAR = 1;
+		private static final byte ANY_STRING = 2;
+		private static final byte ACCEPT = 3;
+
+		private final byte[] kinds;
+		private final char[] chars;
+		private final BitSet initial;
+
+		static final class Builder {
+			private final StringBuilder chars = new StringBuilder();
+			private final StringBuilder kinds = new StringBuilder();
+			private final BitSet starts = new BitSet();
+
+			void add(String pattern) {
+				starts.set(kinds.length());
+				for (int i = 0; i < pattern.length(); i++) {
+					char c = pattern.charAt(i);
+					if (c == '*') {
+						// consecutive stars are equivalent to one
+						if (i > 0 && pattern.charAt(i - 1) == '*') continue;
+						kinds.append((char) ANY_STRING);
+					} else if (c == '?') {
+						kinds.append((char) ANY_CHAR);
+					} else {
+						kinds.append((char) LITERAL);
+					}
+					chars.append(c);
+				}
+				kinds.append((char) ACCEPT);
+				chars.append('\0');
+			}
+
+			Automaton build() {
+				if (kinds.length() == 0) return null;
+				return new Automaton(this);
+			}
+		}
+
+		private Automaton(Builder builder) {
+			int length = builder.kinds.length();
+			kinds = new byte[length];
+			chars = new char[length];
+			for (int i = 0; i < length; i++) {
+				kinds[i] = (byte) builder.kinds.charAt(i);
+				chars[i] = builder.chars.charAt(i);
+			}
+			initial = (BitSet) builder.starts.clone();
+			close(initial);
+		}
+
+		boolean matches(String text) {
+			BitSet current = (BitSet) initial.clone();
+			BitSet next = new BitSet(kinds.length);
+			for (int t = 0; t < text.length(); t++) {
+				char c = text.charAt(t);
+				next.clear();
+				for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+					switch (kinds[s]) {
+					case ANY_STRING:
+						next.set(s);
+						break;
+					case ANY_CHAR:
+						next.set(s + 1);
+						break;
+					case LITERAL:
+						if (chars[s] == c) next.set(s + 1);
+						break;
+					default:
+						break;
+					}
+				}
+				if (next.isEmpty()) return false;
+				close(next);
+				BitSet swap = current;
+				current = next;
+				next = swap;
+			}
+			for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+				if (kinds[s] == ACCEPT) return true;
+			}
+			return false;
+		}
+
+		/*
+		 * Add the states that are reached by a star matching the empty string
+		 */
+		private void close(BitSet states) {
+			for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+				if (kinds[s] == ANY_STRING) states.set(s + 1);
+			}
+		}
+	}
+
+	private final PatternSet namePatterns = new PatternSet();
+	private final PatternSet pathPatterns = new PatternSet();
+
+	/**
+	 * Compile the given patterns.
+	 * @param patterns the enabled ignore patterns
+	 */
+	public IgnoreMatcher(Collection<String> patterns) {
+		for (String pattern : patterns) {
+			if (pattern.indexOf('/') != -1) {
+				pathPatterns.add(pattern);
+			} else {
+				namePatterns.add(pattern);
+			}
+		}
+		namePatterns.compile();
+		pathPatterns.compile();
+	}
+
+	/**
+	 * Return whether the name or, for patterns that contain a '/', the full
+	 * path of the resource matches one of the patterns.
+	 * @param resource the resource
+	 * @return whether the resource matches one of the patterns
+	 */
+	public boolean match(IResource resource) {
+		return namePatterns.match(resource.getName())
+				|| (!pathPatterns.empty && pathPatterns.match(resource.getFullPath().toString()));
+	}
+
+	private static boolean isAscii(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) > 0x7f) return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Fold the case of each character the same way that case-insensitive
+	 * String#regionMatches compares characters. For ASCII patterns this agrees
+	 * with the case-insensitive comparison of StringMatcher for any text.
+	 */
+	private static String fold(String s) {
+		char[] folded = null;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			char f = Character.toLowerCase(Character.toUpperCase(c));
+			if (f != c) {
+				if (folded == null) folded = s.toCharArray();
+				folded[i] = f;
+			}
+		}
+		return folded == null ? s : new String(folded);
+	}
+}
@@ -20,10 +20,18 @@ public class Messages extends NLS {
 
 	public static String LocalFileHistory_RefreshLocalHistory;
 
+	public static String LocalHistoryService_QueryLocalHistory;
+
+	public static String LocalHistoryService_RestoreLocalHistory;
+
 	public static String MergeContext_5;
 
 	public static String MergeContext_6;
 
+	public static String MergeContext_7;
+
+	public static String MergeContext_8;
+
 	public static String ok;
 	public static String concatStrings;
 
@@ -47,6 +55,9 @@ public class Messages extends NLS {
 	public static String RepositoryProvider_toString;
 
 	public static String SubscriberDiffTreeEventHandler_0;
+	public static String SubscriberDiffTreeEventHandler_1;
+	public static String ContentComparisonDiffFilter_0;
+	public static String ContentComparisonDiffFilter_1;
 
 	public static String Team_readError;
 	public static String PollingInputStream_readTimeout;
@@ -21,6 +21,8 @@ import java.util.TreeMap;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
 import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IRegistryEventListener;
+import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.team.core.Team;
 
@@ -32,13 +34,55 @@ public class PluginStringMappings {
 	private final String fExtensionID;
 	private final String fAttributeName;
 
-	private SortedMap<String, Integer> fMappings;
+	private volatile SortedMap<String, Integer> fMappings;
+
+	private final ListenerList<Runnable> fListeners= new ListenerList<>();
+	private boolean fListeningToRegistry;
+
+	/*
+	 * Reloads the mappings when bundles that contribute to the extension point
+	 * are added or removed
+	 */
+	private final IRegistryEventListener fRegistryListener= new IRegistryEventListener() {
+		@Override
+		public void added(IExtension[] extensions) {
+			mappingsChanged();
+		}
+
+		@Override
+		public void removed(IExtension[] extensions) {
+			mappingsChanged();
+		}
+
+		@Override
+		public void added(IExtensionPoint[] extensionPoints) {
+			mappingsChanged();
+		}
+
+		@Override
+		public void removed(IExtensionPoint[] extensionPoints) {
+			mappingsChanged();
+		}
+	};
 
 	public PluginStringMappings(String extensionID, String stringAttributeName) {
 		fExtensionID= extensionID;
 		fAttributeName= stringAttributeName;
 	}
 
+	/**
+	 * Add a listener that is run whenever the contributed mappings change.
+	 *
+	 * @param listener the listener
+	 */
+	public void addChangeListener(Runnable listener) {
+		fListeners.add(listener);
+	}
+
+	public void removeChangeListener(Runnable listener) {
+		fListeners.remove(listener);
+	}
+
 	/**
 	 * Load all the extension patterns contributed by plugins.
 	 * @return a map with the patterns
@@ -75,10 +119,27 @@ public class PluginStringMappings {
 	}
 
 	public Map<String, Integer> referenceMap() {
-		if (fMappings == null) {
-			fMappings= loadPluginPatterns();
+		SortedMap<String, Integer> mappings= fMappings;
+		if (mappings == null) {
+			listenToRegistry();
+			mappings= loadPluginPatterns();
+			fMappings= mappings;
+		}
+		return mappings;
+	}
+
+	private synchronized void listenToRegistry() {
+		if (!fListeningToRegistry && TeamPlugin.getPlugin() != null) {
+			fListeningToRegistry= true;
+			Platform.getExtensionRegistry().addListener(fRegistryListener, TeamPlugin.ID + '.' + fExtensionID);
+		}
+	}
+
+	private void mappingsChanged() {
+		fMappings= null;
+		for (Runnable listener : fListeners) {
+			listener.run();
 		}
-		return fMappings;
 	}
 
 	public int getType(String filename) {
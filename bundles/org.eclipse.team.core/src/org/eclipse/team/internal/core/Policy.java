@@ -27,6 +27,7 @@ public class Policy {
 	public static boolean DEBUG_REFRESH_JOB = true;
 	public static boolean DEBUG_BACKGROUND_EVENTS = false;
 	public static boolean DEBUG_THREADING = false;
+	public static boolean METRICS = false;
 
 	static final DebugOptionsListener DEBUG_OPTIONS_LISTENER = options -> {
 		DEBUG = options.getBooleanOption(TeamPlugin.ID + "/debug", false); //$NON-NLS-1$
@@ -34,6 +35,7 @@ public class Policy {
 		DEBUG_REFRESH_JOB = DEBUG && options.getBooleanOption(TeamPlugin.ID + "/refreshjob", false); //$NON-NLS-1$
 		DEBUG_BACKGROUND_EVENTS = DEBUG && options.getBooleanOption(TeamPlugin.ID + "/backgroundevents", false); //$NON-NLS-1$
 		DEBUG_THREADING = DEBUG && options.getBooleanOption(TeamPlugin.ID + "/threading", false); //$NON-NLS-1$
+		METRICS = DEBUG && options.getBooleanOption(TeamPlugin.ID + "/metrics", false); //$NON-NLS-1$
 	};
 
 	/**
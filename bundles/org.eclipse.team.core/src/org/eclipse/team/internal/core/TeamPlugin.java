@@ -44,6 +44,9 @@ import org.eclipse.team.core.Team;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.core.mapping.DelegatingStorageMerger;
 import org.eclipse.team.internal.core.mapping.IStreamMergerDelegate;
+import org.eclipse.team.internal.core.metrics.ITeamMetrics;
+import org.eclipse.team.internal.core.metrics.TeamMetrics;
+import org.eclipse.team.internal.core.metrics.TeamMetricsJmx;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 
@@ -88,6 +91,8 @@ final public class TeamPlugin extends Plugin {
 	private static TeamPlugin plugin;
 
 	private ServiceRegistration debugRegistration;
+	private ServiceRegistration<ITeamMetrics> metricsRegistration;
+	private TeamMetricsJmx metricsJmx;
 	private IStreamMergerDelegate mergerDelegate;
 
 	/**
@@ -107,6 +112,19 @@ final public class TeamPlugin extends Plugin {
 		properties.put(DebugOptions.LISTENER_SYMBOLICNAME, ID);
 		debugRegistration = context.registerService(DebugOptionsListener.class, Policy.DEBUG_OPTIONS_LISTENER, properties);
 
+		// register the metrics service and optionally publish it through JMX
+		metricsRegistration = context.registerService(ITeamMetrics.class, TeamMetrics.getDefault(), null);
+		if (Boolean.getBoolean(TeamMetricsJmx.ENABLEMENT_PROPERTY)) {
+			try {
+				metricsJmx = new TeamMetricsJmx(TeamMetrics.getDefault());
+				metricsJmx.register();
+			} catch (LinkageError e) {
+				// JMX is not available
+				metricsJmx = null;
+				log(IStatus.WARNING, e.getMessage(), e);
+			}
+		}
+
 		Team.startup();
 	}
 
@@ -117,8 +135,16 @@ final public class TeamPlugin extends Plugin {
 			debugRegistration.unregister();
 			debugRegistration = null;
 
+			metricsRegistration.unregister();
+			metricsRegistration = null;
+			if (metricsJmx != null) {
+				metricsJmx.unregister();
+				metricsJmx = null;
+			}
+
 			Team.shutdown();
 			ResourceVariantCache.shutdown();
+			ContentDigestCache.shutdown();
 		} finally {
 			super.stop(context);
 		}
@@ -21,6 +21,7 @@ import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
 
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.core.runtime.Preferences;
 import org.eclipse.core.runtime.Preferences.PropertyChangeEvent;
 import org.eclipse.team.core.Team;
@@ -40,12 +41,27 @@ public class UserStringMappings implements Preferences.IPropertyChangeListener {
 
 	private Map<String, Integer> fMap;
 
+	private final ListenerList<Runnable> fListeners= new ListenerList<>();
+
 	public UserStringMappings(String key) {
 		fKey= key;
 		fPreferences= TeamPlugin.getPlugin().getPluginPreferences();
 		fPreferences.addPropertyChangeListener(this);
 	}
 
+	/**
+	 * Add a listener that is run whenever the mappings change.
+	 *
+	 * @param listener the listener
+	 */
+	public void addChangeListener(Runnable listener) {
+		fListeners.add(listener);
+	}
+
+	public void removeChangeListener(Runnable listener) {
+		fListeners.remove(listener);
+	}
+
 	public Map<String, Integer> referenceMap() {
 		if (fMap == null) {
 			fMap= loadMappingsFromPreferences();
@@ -65,6 +81,7 @@ public class UserStringMappings implements Preferences.IPropertyChangeListener {
 			}
 		}
 		save();
+		fireMappingsChanged();
 	}
 
 	public void setStringMappings(String [] names, int [] types) {
@@ -82,8 +99,16 @@ public class UserStringMappings implements Preferences.IPropertyChangeListener {
 
 	@Override
 	public void propertyChange(PropertyChangeEvent event) {
-		if(event.getProperty().equals(fKey))
+		if(event.getProperty().equals(fKey)) {
 			fMap= null;
+			fireMappingsChanged();
+		}
+	}
+
+	private void fireMappingsChanged() {
+		for (Runnable listener : fListeners) {
+			listener.run();
+		}
 	}
 
 	public void save() {
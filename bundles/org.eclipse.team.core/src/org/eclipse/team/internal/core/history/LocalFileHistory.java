@@ -14,6 +14,8 @@
 package org.eclipse.team.internal.core.history;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFileState;
@@ -22,14 +24,22 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.core.history.IFileRevision;
 import org.eclipse.team.core.history.provider.FileHistory;
+import org.eclipse.team.core.history.provider.FileRevisionIndex;
 import org.eclipse.team.internal.core.Messages;
 
 public class LocalFileHistory extends FileHistory {
 
+	private static final IFileRevision[] NO_REVISIONS = new IFileRevision[0];
+
 	protected IFile file;
 	//used to hold all revisions (changes based on filtering)
-	protected IFileRevision[] revisions;
+	//the revisions are created on demand so entries may be null until complete is set
+	private IFileRevision[] revisions;
+	private IFileState[] fileStates;
+	private LocalFileRevision currentRevision;
+	private boolean complete;
 	private final boolean includeCurrent;
+	private FileRevisionIndex index;
 
 	/*
 	 * Creates a new CVSFile history that will fetch remote revisions by default.
@@ -41,25 +51,9 @@ public class LocalFileHistory extends FileHistory {
 
 	@Override
 	public IFileRevision[] getContributors(IFileRevision revision) {
-
-		IFileRevision[] revisions = getFileRevisions();
-
 		//the predecessor is the file with a timestamp that is the largest timestamp
 		//from the set of all timestamps smaller than the root file's timestamp
-		IFileRevision fileRevision = null;
-		for (IFileRevision r : revisions) {
-			if (((LocalFileRevision) r).isPredecessorOf(revision)) {
-				//no revision has been set as of yet
-				if (fileRevision == null) {
-					fileRevision = r;
-				}
-				//this revision is a predecessor - now check to see if it comes
-				//after the current predecessor, if it does make it the current predecessor
-				if (fileRevision != null && r.getTimestamp() > fileRevision.getTimestamp()) {
-					fileRevision = r;
-				}
-			}
-		}
+		IFileRevision fileRevision = getIndex().getPredecessor(revision);
 		if (fileRevision == null)
 			return new IFileRevision[0];
 		return new IFileRevision[] {fileRevision};
@@ -67,34 +61,85 @@ public class LocalFileHistory extends FileHistory {
 
 	@Override
 	public IFileRevision getFileRevision(String id) {
-		if (revisions != null) {
-			for (IFileRevision revision : revisions) {
-				if (revision.getContentIdentifier().equals(id)) {
-					return revision;
-				}
-			}
-		}
-		return null;
+		if (revisions == null)
+			return null;
+		return getIndex().getRevision(id);
 	}
 
 	@Override
-	public IFileRevision[] getFileRevisions() {
+	public synchronized IFileRevision[] getFileRevisions() {
 		if (revisions == null)
-			return new IFileRevision[0];
+			return NO_REVISIONS;
+		if (!complete) {
+			createRevisions(0, revisions.length);
+			complete = true;
+		}
 		return revisions;
 	}
 
 	@Override
-	public IFileRevision[] getTargets(IFileRevision revision) {
-		IFileRevision[] revisions = getFileRevisions();
-		ArrayList<IFileRevision> directDescendents = new ArrayList<>();
+	public synchronized int getFileRevisionCount() {
+		return revisions == null ? 0 : revisions.length;
+	}
+
+	/**
+	 * Return the number of revisions of the states of the local history. These
+	 * revisions come first, from the most recent to the least recent, and are
+	 * followed by the revision of the current contents of the file, if included.
+	 * @return the number of revisions of the states of the local history
+	 */
+	public synchronized int getFileStateCount() {
+		return fileStates == null ? 0 : fileStates.length;
+	}
 
-		for (IFileRevision r : revisions) {
-			if (((LocalFileRevision) r).isDescendentOf(revision)) {
-				directDescendents.add(r);
+	@Override
+	public synchronized IFileRevision[] getFileRevisions(int offset, int count) {
+		if (offset < 0 || count < 0)
+			throw new IndexOutOfBoundsException();
+		if (revisions == null)
+			return NO_REVISIONS;
+		int start = Math.min(offset, revisions.length);
+		int end = (int) Math.min((long) start + count, revisions.length);
+		createRevisions(start, end);
+		return Arrays.copyOfRange(revisions, start, end);
+	}
+
+	@Override
+	public synchronized IFileRevision[] getFileRevisionsBetween(long fromTimestamp, long toTimestamp) {
+		if (revisions == null)
+			return NO_REVISIONS;
+		// Only the revisions in the range are created
+		List<IFileRevision> result = new ArrayList<>();
+		for (int i = 0; i < revisions.length; i++) {
+			long timestamp = i < fileStates.length ? fileStates[i].getModificationTime() : currentRevision.getTimestamp();
+			if (timestamp >= fromTimestamp && timestamp < toTimestamp) {
+				createRevisions(i, i + 1);
+				result.add(revisions[i]);
 			}
 		}
-		return directDescendents.toArray(new IFileRevision[directDescendents.size()]);
+		return result.toArray(new IFileRevision[result.size()]);
+	}
+
+	private void createRevisions(int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (revisions[i] == null)
+				revisions[i] = i < fileStates.length ? new LocalFileRevision(fileStates[i]) : currentRevision;
+		}
+	}
+
+	@Override
+	public IFileRevision[] getTargets(IFileRevision revision) {
+		return getIndex().getDescendants(revision);
+	}
+
+	/*
+	 * Return the index of the current revisions, which are replaced on refresh
+	 */
+	private synchronized FileRevisionIndex getIndex() {
+		IFileRevision[] current = getFileRevisions();
+		if (index == null || index.getRevisions() != current)
+			index = new FileRevisionIndex(current);
+		return index;
 	}
 
 	/**
@@ -111,12 +156,13 @@ public class LocalFileHistory extends FileHistory {
 				(includeRevisionForFile() ? new LocalFileRevision(file) : null);
 			IFileState[] fileStates = file.getHistory(monitor);
 			int numRevisions = fileStates.length + (currentRevision != null ? 1 : 0);
-			revisions = new LocalFileRevision[numRevisions];
-			for (int i = 0; i < fileStates.length; i++) {
-				revisions[i] = new LocalFileRevision(fileStates[i]);
+			// The revisions of the file states are created when they are first requested
+			synchronized (this) {
+				this.fileStates = fileStates;
+				this.currentRevision = currentRevision;
+				revisions = new LocalFileRevision[numRevisions];
+				complete = false;
 			}
-			if (currentRevision != null)
-				revisions[fileStates.length] = currentRevision;
 		} catch (CoreException e) {
 			throw TeamException.asTeamException(e);
 		} finally {
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.history;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFileState;
+
+/**
+ * The local history states of a number of files. The states of all files are
+ * kept in one array, grouped by file and ordered from the most recent to the
+ * least recent state of each file.
+ */
+public final class LocalHistoryIndex {
+
+	private final IFile[] files;
+	private final Map<IFile, Integer> positions;
+	private final int[] offsets; // the position of the first state of each file, and the number of states
+	private final IFileState[] states;
+	private final long[] timestamps;
+
+	LocalHistoryIndex(IFile[] files, IFileState[][] fileStates) {
+		this.files = files;
+		positions = new HashMap<>(files.length * 2);
+		offsets = new int[files.length + 1];
+		int count = 0;
+		for (int i = 0; i < files.length; i++) {
+			positions.put(files[i], Integer.valueOf(i));
+			offsets[i] = count;
+			count += fileStates[i].length;
+		}
+		offsets[files.length] = count;
+		states = new IFileState[count];
+		timestamps = new long[count];
+		for (int i = 0; i < files.length; i++) {
+			IFileState[] sorted = fileStates[i].clone();
+			Arrays.sort(sorted, (s1, s2) -> Long.compare(s2.getModificationTime(), s1.getModificationTime()));
+			for (int j = 0; j < sorted.length; j++) {
+				states[offsets[i] + j] = sorted[j];
+				timestamps[offsets[i] + j] = sorted[j].getModificationTime();
+			}
+		}
+	}
+
+	/**
+	 * Return the files that have states in this index.
+	 * @return the files that have states in this index
+	 */
+	public IFile[] getFiles() {
+		return files.clone();
+	}
+
+	/**
+	 * Return the number of states in this index.
+	 * @return the number of states in this index
+	 */
+	public int getStateCount() {
+		return states.length;
+	}
+
+	/**
+	 * Return the states of the given file, from the most recent to the least
+	 * recent.
+	 * @param file a file
+	 * @return the states of the file or an empty array
+	 */
+	public IFileState[] getStates(IFile file) {
+		Integer position = positions.get(file);
+		if (position == null)
+			return new IFileState[0];
+		int i = position.intValue();
+		return Arrays.copyOfRange(states, offsets[i], offsets[i + 1]);
+	}
+
+	/**
+	 * Return the most recent state of the given file that is not later than
+	 * the given time.
+	 * @param file a file
+	 * @param timestamp the time
+	 * @return the state of the file as of the given time or <code>null</code>
+	 */
+	public IFileState getState(IFile file, long timestamp) {
+		Integer position = positions.get(file);
+		if (position == null)
+			return null;
+		int i = position.intValue();
+		// the timestamps of a file are descending
+		int low = offsets[i];
+		int high = offsets[i + 1];
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (timestamps[mid] > timestamp)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low < offsets[i + 1] ? states[low] : null;
+	}
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.history;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFileState;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.team.internal.core.Messages;
+
+/**
+ * Queries and restores the local history of many files at once.
+ */
+public final class LocalHistoryService {
+
+	private LocalHistoryService() {
+		// Not to be instantiated
+	}
+
+	/**
+	 * Query the local history of the given resources and of all files below
+	 * them, including deleted files that still have local history. Only the
+	 * states whose modification time is at least <code>fromTimestamp</code> and
+	 * less than <code>toTimestamp</code> are included.
+	 * @param resources the resources
+	 * @param fromTimestamp the inclusive lower bound of the modification times
+	 * @param toTimestamp the exclusive upper bound of the modification times
+	 * @param monitor a progress monitor
+	 * @return the index of the matching states
+	 * @throws CoreException if the history could not be read
+	 */
+	public static LocalHistoryIndex query(IResource[] resources, long fromTimestamp, long toTimestamp,
+			IProgressMonitor monitor) throws CoreException {
+		SubMonitor progress = SubMonitor.convert(monitor, Messages.LocalHistoryService_QueryLocalHistory, 100);
+		Set<IFile> candidates = new LinkedHashSet<>();
+		SubMonitor collectProgress = progress.split(20).setWorkRemaining(resources.length);
+		for (IResource resource : resources) {
+			collectFiles(resource, candidates, collectProgress.split(1));
+		}
+
+		List<IFile> files = new ArrayList<>();
+		List<IFileState[]> fileStates = new ArrayList<>();
+		SubMonitor historyProgress = progress.split(80).setWorkRemaining(candidates.size());
+		for (IFile file : candidates) {
+			IFileState[] states = filter(file.getHistory(historyProgress.split(1)), fromTimestamp, toTimestamp);
+			if (states.length > 0) {
+				files.add(file);
+				fileStates.add(states);
+			}
+		}
+		return new LocalHistoryIndex(files.toArray(new IFile[files.size()]),
+				fileStates.toArray(new IFileState[fileStates.size()][]));
+	}
+
+	/**
+	 * Restore the files below the given container to their contents as of the
+	 * given time in a single workspace operation. Files that have been modified
+	 * since then are set to the most recent state that is not later than the
+	 * time. Files without such a state, that is, files that were created later,
+	 * are left untouched.
+	 * <p>
+	 * The local history does not record when a file was deleted. A deleted file
+	 * is only recreated if it has a state that was modified after the time,
+	 * which shows that the file still existed then. Deleted files whose last
+	 * state is not later than the time may have been deleted before it and are
+	 * not recreated.
+	 * </p>
+	 * @param container the container
+	 * @param timestamp the time to restore to
+	 * @param monitor a progress monitor
+	 * @throws CoreException if the history could not be read or a file could not be restored
+	 */
+	public static void restore(final IContainer container, final long timestamp, IProgressMonitor monitor)
+			throws CoreException {
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		IWorkspaceRunnable runnable = pm -> {
+			SubMonitor progress = SubMonitor.convert(pm, Messages.LocalHistoryService_RestoreLocalHistory, 100);
+			LocalHistoryIndex index = query(new IResource[] { container }, Long.MIN_VALUE, Long.MAX_VALUE,
+					progress.split(30));
+			IFile[] files = index.getFiles();
+			SubMonitor restoreProgress = progress.split(70).setWorkRemaining(files.length);
+			for (IFile file : files) {
+				IFileState state = index.getState(file, timestamp);
+				if (state == null) {
+					restoreProgress.worked(1);
+				} else if (file.exists()) {
+					if (file.getLocalTimeStamp() > timestamp) {
+						file.setContents(state, IResource.KEEP_HISTORY, restoreProgress.split(1));
+					} else {
+						restoreProgress.worked(1);
+					}
+				} else if (index.getStates(file)[0].getModificationTime() > timestamp) {
+					createParents(file.getParent());
+					file.create(state.getContents(), false, restoreProgress.split(1));
+				} else {
+					restoreProgress.worked(1);
+				}
+			}
+		};
+		workspace.run(runnable, container, IWorkspace.AVOID_UPDATE, monitor);
+	}
+
+	private static void collectFiles(IResource resource, Set<IFile> files, IProgressMonitor monitor)
+			throws CoreException {
+		if (resource.getType() == IResource.FILE) {
+			files.add((IFile) resource);
+			return;
+		}
+		if (resource.exists()) {
+			resource.accept(proxy -> {
+				if (proxy.getType() == IResource.FILE)
+					files.add((IFile) proxy.requestResource());
+				return true;
+			}, IResource.NONE);
+		}
+		// the container need not exist for its deleted members to be found
+		for (IFile file : ((IContainer) resource).findDeletedMembersWithHistory(IResource.DEPTH_INFINITE, monitor)) {
+			files.add(file);
+		}
+	}
+
+	private static IFileState[] filter(IFileState[] states, long fromTimestamp, long toTimestamp) {
+		int count = 0;
+		for (IFileState state : states) {
+			long time = state.getModificationTime();
+			if (time >= fromTimestamp && time < toTimestamp)
+				count++;
+		}
+		if (count == states.length)
+			return states;
+		IFileState[] result = new IFileState[count];
+		int i = 0;
+		for (IFileState state : states) {
+			long time = state.getModificationTime();
+			if (time >= fromTimestamp && time < toTimestamp)
+				result[i++] = state;
+		}
+		return result;
+	}
+
+	private static void createParents(IContainer container) throws CoreException {
+		if (container.exists() || container.getType() != IResource.FOLDER)
+			return;
+		createParents(container.getParent());
+		((IFolder) container).create(false, true, null);
+	}
+}
@@ -28,9 +28,21 @@ import org.eclipse.team.core.diff.IDiffTree;
 
 /**
  * Implementation of {@link IDiffChangeEvent}
+ * <p>
+ * In addition to the per-path changes, the event provides a summary of the
+ * changes at subtree granularity and indicates whether it describes a bulk
+ * change (see {@link #isBulkChange()}) so listeners whose per-path handling is
+ * expensive can choose to reload their state from the tree instead.
+ * </p>
  */
 public class DiffChangeEvent implements IDiffChangeEvent {
 
+	/**
+	 * The number of changes at or above which an event is considered
+	 * to be a bulk change.
+	 */
+	public static final int BULK_CHANGE_THRESHOLD = 1000;
+
 	private final IDiffTree tree;
 
 	// List that accumulate changes
@@ -43,6 +55,11 @@ public class DiffChangeEvent implements IDiffChangeEvent {
 
 	private List<IStatus> errors = new ArrayList<>();
 
+	// The arrays are cached since every listener usually asks for them
+	private IDiff[] additions;
+	private IPath[] removals;
+	private IDiff[] changes;
+
 	/**
 	 * Create a diff change event
 	 * @param tree the originating tree
@@ -58,20 +75,86 @@ public class DiffChangeEvent implements IDiffChangeEvent {
 
 	@Override
 	public IDiff[] getAdditions() {
-		return addedResources.values().toArray(new IDiff[addedResources.size()]);
+		if (additions == null)
+			additions = addedResources.values().toArray(new IDiff[addedResources.size()]);
+		return additions.clone();
 	}
 
 	@Override
 	public IPath[] getRemovals() {
-		return removedResources.toArray(new IPath[removedResources.size()]);
+		if (removals == null)
+			removals = removedResources.toArray(new IPath[removedResources.size()]);
+		return removals.clone();
 	}
 
 	@Override
 	public IDiff[] getChanges() {
-		return changedResources.values().toArray(new IDiff[changedResources.size()]);
+		if (changes == null)
+			changes = changedResources.values().toArray(new IDiff[changedResources.size()]);
+		return changes.clone();
+	}
+
+	/**
+	 * Return the number of additions, removals and changes described by this event.
+	 * @return the number of changes described by this event
+	 */
+	public int getChangeCount() {
+		return changedResources.size() + removedResources.size() + addedResources.size();
+	}
+
+	/**
+	 * Return whether this event describes a bulk change. That is the case if the
+	 * tree was reset or if the number of changes reaches the
+	 * {@link #BULK_CHANGE_THRESHOLD}. Listeners may prefer to reload their state
+	 * from the tree for such events instead of processing each changed path.
+	 * @return whether this event describes a bulk change
+	 */
+	public boolean isBulkChange() {
+		return reset || getChangeCount() >= BULK_CHANGE_THRESHOLD;
+	}
+
+	/**
+	 * Return a summary of the changes at subtree granularity. The keys of the
+	 * returned map are the roots of the changed subtrees (i.e. the paths of the
+	 * changes truncated to the given number of segments) and the values are
+	 * the number of changes in each subtree.
+	 * @param segmentCount the number of segments of the subtree roots (e.g.
+	 * <code>1</code> to summarize the changes by project)
+	 * @return the number of changes for each changed subtree
+	 */
+	public Map<IPath, Integer> getSubtreeSummary(int segmentCount) {
+		Map<IPath, Integer> summary = new HashMap<>();
+		for (IPath path : addedResources.keySet()) {
+			summary.merge(path.uptoSegment(segmentCount), 1, Integer::sum);
+		}
+		for (IPath path : removedResources) {
+			summary.merge(path.uptoSegment(segmentCount), 1, Integer::sum);
+		}
+		for (IPath path : changedResources.keySet()) {
+			summary.merge(path.uptoSegment(segmentCount), 1, Integer::sum);
+		}
+		return summary;
+	}
+
+	/**
+	 * Return the roots of the subtrees that contain changes.
+	 * @param segmentCount the number of segments of the subtree roots
+	 * @return the roots of the changed subtrees
+	 * @see #getSubtreeSummary(int)
+	 */
+	public IPath[] getChangedSubtrees(int segmentCount) {
+		Set<IPath> roots = getSubtreeSummary(segmentCount).keySet();
+		return roots.toArray(new IPath[roots.size()]);
+	}
+
+	private void changesUpdated() {
+		additions = null;
+		removals = null;
+		changes = null;
 	}
 
 	public void added(IDiff delta) {
+		changesUpdated();
 		if (removedResources.contains(delta.getPath())) {
 			// A removal followed by an addition is treated as a change
 			removedResources.remove(delta.getPath());
@@ -82,6 +165,7 @@ public class DiffChangeEvent implements IDiffChangeEvent {
 	}
 
 	public void removed(IPath path, IDiff delta) {
+		changesUpdated();
 		if (changedResources.containsKey(path)) {
 			// No use in reporting the change since it has subsequently been removed
 			changedResources.remove(path);
@@ -94,6 +178,7 @@ public class DiffChangeEvent implements IDiffChangeEvent {
 	}
 
 	public void changed(IDiff delta) {
+		changesUpdated();
 		if (addedResources.containsKey(delta.getPath())) {
 			// An addition followed by a change is an addition
 			addedResources.put(delta.getPath(), delta);
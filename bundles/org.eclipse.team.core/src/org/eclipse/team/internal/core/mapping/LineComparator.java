@@ -13,13 +13,16 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core.mapping;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
-import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.eclipse.compare.rangedifferencer.IRangeComparator;
 import org.eclipse.core.resources.IEncodedStorage;
@@ -30,71 +33,141 @@ import org.eclipse.core.runtime.CoreException;
  * This implementation of IRangeComparator breaks an input stream into lines.
  * Copied from org.eclipse.compare.internal.merge.LineComparator 1.4 and
  * modified for {@link IStorage}.
+ * <p>
+ * The lines are not materialized as strings. They are kept as ranges of the
+ * contents, either of the raw bytes when the contents are in an ASCII
+ * compatible encoding that is shared by all comparators of a merge, or of the
+ * decoded characters otherwise. Equal lines are interned to the same id in a
+ * {@link LineTable} that is shared by the comparators, so that comparing two
+ * lines is an integer comparison.
+ * </p>
  */
 class LineComparator implements IRangeComparator {
 
-	private String[] fLines;
+	private static final int[] EMPTY = new int[0];
 
 	/*
-	 * An input stream reader that detects a trailing LF in the wrapped stream.
+	 * The contents of a storage and the charset to decode them with
 	 */
-	private static class TrailingLineFeedDetector extends FilterInputStream {
-
-		boolean trailingLF = false;
-
-		protected TrailingLineFeedDetector(InputStream in) {
-			super(in);
-		}
-
-		@Override
-		public int read() throws IOException {
-			int c = super.read();
-			trailingLF = isLineFeed(c);
-			return c;
-		}
-
-		/*
-		 * We don't need to override read(byte[] buffer) as the javadoc of
-		 * FilterInputStream states that it will call read(byte[] buffer, int
-		 * off, int len)
-		 */
-		@Override
-		public int read(byte[] buffer, int off, int len) throws IOException {
-			int length = super.read(buffer, off, len);
-			if (length != -1) {
-				int index = off + length - 1;
-				if (index >= buffer.length)
-					index = buffer.length - 1;
-				trailingLF = isLineFeed(buffer[index]);
-			}
-			return length;
+	static final class Contents {
+		final byte[] bytes;
+		final Charset charset;
+
+		Contents(byte[] bytes, Charset charset) {
+			this.bytes = bytes;
+			this.charset = charset;
 		}
+	}
+
+	/*
+	 * Assigns the same id to all equal lines of the comparators that share it.
+	 */
+	static final class LineTable {
+		private int[] slots = new int[1024]; // id + 1 of the line in each slot, 0 if empty
+		private LineComparator[] owners = new LineComparator[512];
+		private int[] ownerLines = new int[512];
+		private int size;
 
-		private boolean isLineFeed(int c) {
-			return c != -1 && c == '\n';
+		int intern(LineComparator comparator, int line) {
+			int hash = comparator.hashLine(line);
+			int mask = slots.length - 1;
+			for (int i = hash & mask; ; i = (i + 1) & mask) {
+				int slot = slots[i];
+				if (slot == 0) {
+					return add(i, comparator, line);
+				}
+				int id = slot - 1;
+				if (comparator.lineEquals(line, owners[id], ownerLines[id])) {
+					return id;
+				}
+			}
 		}
 
-		public boolean hadTrailingLineFeed() {
-			return trailingLF;
+		private int add(int slot, LineComparator comparator, int line) {
+			int id = size++;
+			if (id == owners.length) {
+				owners = Arrays.copyOf(owners, id * 2);
+				ownerLines = Arrays.copyOf(ownerLines, id * 2);
+			}
+			owners[id] = comparator;
+			ownerLines[id] = line;
+			slots[slot] = id + 1;
+			if (size * 2 > slots.length) {
+				rehash();
+			}
+			return id;
 		}
 
+		private void rehash() {
+			int[] newSlots = new int[slots.length * 2];
+			int mask = newSlots.length - 1;
+			for (int id = 0; id < size; id++) {
+				int i = owners[id].hashLine(ownerLines[id]) & mask;
+				while (newSlots[i] != 0) {
+					i = (i + 1) & mask;
+				}
+				newSlots[i] = id + 1;
+			}
+			slots = newSlots;
+		}
 	}
 
-	public static LineComparator create(IStorage storage, String outputEncoding)
-			throws CoreException, IOException {
-		InputStream is = new BufferedInputStream(storage.getContents());
+	private final Charset fCharset;
+	private final byte[] fBytes; // the contents if lines are byte ranges
+	private final char[] fChars; // the decoded contents if lines are character ranges
+	private int[] fStarts = EMPTY; // the start of each line
+	private int[] fEnds = EMPTY; // the end of each line, excluding the line delimiter
+	private int fCount;
+	private final int[] fIds;
+
+	/**
+	 * Read the contents of the given storage.
+	 * @param storage the storage
+	 * @param outputEncoding the encoding to use if the storage does not specify one
+	 * @return the contents
+	 * @throws UnsupportedEncodingException if the encoding of the storage is not supported
+	 */
+	static Contents read(IStorage storage, String outputEncoding) throws CoreException, IOException {
+		Charset charset;
 		try {
-			String encoding = getEncoding(storage, outputEncoding);
-			return new LineComparator(is, encoding);
-		} finally {
-			try {
-				is.close();
-			} catch (IOException e) {
-				// Ignore
-			}
+			charset = Charset.forName(getEncoding(storage, outputEncoding));
+		} catch (IllegalArgumentException e) {
+			UnsupportedEncodingException uee = new UnsupportedEncodingException(e.getMessage());
+			uee.initCause(e);
+			throw uee;
+		}
+		try (InputStream is = storage.getContents()) {
+			return new Contents(is.readAllBytes(), charset);
 		}
 	}
 
+	/**
+	 * Return whether the lines of the given contents can be compared and copied
+	 * as bytes, that is, whether they are all in the given charset and it
+	 * encodes CR, LF and all other ASCII characters as single bytes that are
+	 * not used in the encodings of other characters.
+	 * @param charset the output charset
+	 * @param contents the contents
+	 * @return whether byte ranges can be used
+	 */
+	static boolean isByteCompatible(Charset charset, Contents... contents) {
+		if (!isAsciiCompatible(charset))
+			return false;
+		for (Contents c : contents) {
+			if (!c.charset.equals(charset))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isAsciiCompatible(Charset charset) {
+		String name = charset.name();
+		return charset.equals(StandardCharsets.UTF_8)
+				|| charset.equals(StandardCharsets.US_ASCII)
+				|| name.startsWith("ISO-8859-") //$NON-NLS-1$
+				|| name.startsWith("windows-125"); //$NON-NLS-1$
+	}
+
 	private static String getEncoding(IStorage storage, String outputEncoding)
 			throws CoreException {
 		if (storage instanceof IEncodedStorage) {
@@ -106,43 +179,185 @@ class LineComparator implements IRangeComparator {
 		return outputEncoding;
 	}
 
-	public LineComparator(InputStream is, String encoding) throws IOException {
+	/**
+	 * Break the given contents into lines and intern them.
+	 * @param contents the contents
+	 * @param asBytes whether lines are ranges of bytes rather than of decoded characters
+	 * @param table the table shared by the comparators of a merge
+	 */
+	LineComparator(Contents contents, boolean asBytes, LineTable table) {
+		fCharset = contents.charset;
+		if (asBytes) {
+			fBytes = contents.bytes;
+			fChars = null;
+			splitBytes(fBytes);
+		} else {
+			fBytes = null;
+			fChars = decode(contents);
+			splitChars(fChars);
+		}
+		// Add a trailing line if the last character of the contents was a line feed.
+		// We do this because a BufferedReader doesn't distinguish the case
+		// where the last line has or doesn't have a trailing line separator.
+		// The decoded characters are checked as the last byte of a line feed
+		// is not a line feed in all encodings, e.g. UTF-16LE
+		int end = asBytes ? fBytes.length : fChars.length;
+		if (end > 0 && (asBytes ? fBytes[end - 1] : fChars[end - 1]) == '\n') {
+			addLine(end, end);
+		}
+		fIds = new int[fCount];
+		for (int i = 0; i < fCount; i++) {
+			fIds[i] = table.intern(this, i);
+		}
+	}
 
-		TrailingLineFeedDetector trailingLineFeedDetector = new TrailingLineFeedDetector(
-				is);
-		try (BufferedReader br = new BufferedReader(new InputStreamReader(
-				trailingLineFeedDetector, encoding))) {
-			String line;
-			ArrayList<String> ar = new ArrayList<>();
-			while ((line = br.readLine()) != null) {
-				ar.add(line);
+	private static char[] decode(Contents contents) {
+		try {
+			CharBuffer chars = contents.charset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE)
+					.decode(ByteBuffer.wrap(contents.bytes));
+			return chars.array().length == chars.limit() ? chars.array() : Arrays.copyOf(chars.array(), chars.limit());
+		} catch (CharacterCodingException e) {
+			// Cannot happen when errors are replaced
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/*
+	 * Split at CR, LF and CR/LF like BufferedReader#readLine
+	 */
+	private void splitBytes(byte[] bytes) {
+		int start = 0;
+		for (int i = 0; i < bytes.length; i++) {
+			byte b = bytes[i];
+			if (b == '\n' || b == '\r') {
+				addLine(start, i);
+				if (b == '\r' && i + 1 < bytes.length && bytes[i + 1] == '\n')
+					i++;
+				start = i + 1;
 			}
-			// Add a trailing line if the last character in the file was a line
-			// feed.
-			// We do this because a BufferedReader doesn't distinguish the case
-			// where the last line has or doesn't have a trailing line separator
-			if (trailingLineFeedDetector.hadTrailingLineFeed()) {
-				ar.add(""); //$NON-NLS-1$
+		}
+		if (start < bytes.length)
+			addLine(start, bytes.length);
+	}
+
+	private void splitChars(char[] chars) {
+		int start = 0;
+		for (int i = 0; i < chars.length; i++) {
+			char c = chars[i];
+			if (c == '\n' || c == '\r') {
+				addLine(start, i);
+				if (c == '\r' && i + 1 < chars.length && chars[i + 1] == '\n')
+					i++;
+				start = i + 1;
 			}
-			fLines = ar.toArray(new String[ar.size()]);
 		}
+		if (start < chars.length)
+			addLine(start, chars.length);
+	}
+
+	private void addLine(int start, int end) {
+		if (fCount == fStarts.length) {
+			int length = Math.max(64, fCount * 2);
+			fStarts = Arrays.copyOf(fStarts, length);
+			fEnds = Arrays.copyOf(fEnds, length);
+		}
+		fStarts[fCount] = start;
+		fEnds[fCount] = end;
+		fCount++;
+	}
+
+	private int hashLine(int line) {
+		int hash = 0;
+		int end = fEnds[line];
+		if (fBytes != null) {
+			for (int i = fStarts[line]; i < end; i++)
+				hash = 31 * hash + fBytes[i];
+		} else {
+			for (int i = fStarts[line]; i < end; i++)
+				hash = 31 * hash + fChars[i];
+		}
+		// spread the bits as the table uses the low bits
+		return hash ^ (hash >>> 16);
+	}
+
+	private boolean lineEquals(int line, LineComparator other, int otherLine) {
+		if (fBytes != null) {
+			return Arrays.equals(fBytes, fStarts[line], fEnds[line],
+					other.fBytes, other.fStarts[otherLine], other.fEnds[otherLine]);
+		}
+		return Arrays.equals(fChars, fStarts[line], fEnds[line],
+				other.fChars, other.fStarts[otherLine], other.fEnds[otherLine]);
+	}
+
+	/**
+	 * Return the contents if lines are ranges of bytes.
+	 * @return the contents or <code>null</code>
+	 */
+	byte[] getBytes() {
+		return fBytes;
+	}
+
+	/**
+	 * Return the decoded contents if lines are ranges of characters.
+	 * @return the decoded contents or <code>null</code>
+	 */
+	char[] getChars() {
+		return fChars;
 	}
 
-	String getLine(int ix) {
-		return fLines[ix];
+	/**
+	 * Return the text of the given line.
+	 * @param ix the line
+	 * @return the text of the line without the line delimiter
+	 */
+	String getLineText(int ix) {
+		int start = fStarts[ix];
+		if (fBytes != null)
+			return new String(fBytes, start, fEnds[ix] - start, fCharset);
+		return new String(fChars, start, fEnds[ix] - start);
+	}
+
+	int getLineStart(int ix) {
+		return fStarts[ix];
+	}
+
+	int getLineEnd(int ix) {
+		return fEnds[ix];
+	}
+
+	/**
+	 * Return whether the given line is followed by another line and the
+	 * delimiter between them is the given one.
+	 * @param ix the line
+	 * @param delimiter the encoded delimiter
+	 * @return whether the line is followed by the delimiter and another line
+	 */
+	boolean isDelimitedBy(int ix, byte[] delimiter) {
+		return ix + 1 < fCount && Arrays.equals(fBytes, fEnds[ix], fStarts[ix + 1], delimiter, 0, delimiter.length);
+	}
+
+	/**
+	 * Return whether the given line is followed by another line and the
+	 * delimiter between them is the given one.
+	 * @param ix the line
+	 * @param delimiter the delimiter
+	 * @return whether the line is followed by the delimiter and another line
+	 */
+	boolean isDelimitedBy(int ix, char[] delimiter) {
+		return ix + 1 < fCount && Arrays.equals(fChars, fEnds[ix], fStarts[ix + 1], delimiter, 0, delimiter.length);
 	}
 
 	@Override
 	public int getRangeCount() {
-		return fLines.length;
+		return fCount;
 	}
 
 	@Override
 	public boolean rangesEqual(int thisIndex, IRangeComparator other,
 			int otherIndex) {
-		String s1 = fLines[thisIndex];
-		String s2 = ((LineComparator) other).fLines[otherIndex];
-		return s1.equals(s2);
+		return fIds[thisIndex] == ((LineComparator) other).fIds[otherIndex];
 	}
 
 	@Override
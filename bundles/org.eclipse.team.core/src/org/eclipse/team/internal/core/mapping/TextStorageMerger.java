@@ -16,6 +16,12 @@ package org.eclipse.team.internal.core.mapping;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 
 import org.eclipse.compare.rangedifferencer.RangeDifference;
 import org.eclipse.compare.rangedifferencer.RangeDifferencer;
@@ -23,24 +29,171 @@ import org.eclipse.core.resources.IStorage;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.team.core.mapping.IStorageMerger;
 import org.eclipse.team.internal.core.Messages;
 import org.eclipse.team.internal.core.TeamPlugin;
 
+/**
+ * Merges text storages line by line. Optionally, blocks of lines that were
+ * changed on both sides are compared again by tokens so that changes to
+ * different parts of the same lines do not conflict.
+ */
 public class TextStorageMerger implements IStorageMerger {
 
+	/**
+	 * Preference of the team core plug-in that enables the token based merge of
+	 * conflicting blocks of lines for the default text merger. Disabled by default.
+	 */
+	public static final String PREF_REFINE_CONFLICTS = "refine_text_merge_conflicts"; //$NON-NLS-1$
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final boolean refineConflicts;
+
+	/**
+	 * Create a merger that refines conflicting blocks of lines if enabled by
+	 * the {@link #PREF_REFINE_CONFLICTS} preference.
+	 */
+	public TextStorageMerger() {
+		this(Platform.getPreferencesService().getBoolean(TeamPlugin.ID, PREF_REFINE_CONFLICTS, false, null));
+	}
+
+	/**
+	 * Create a merger.
+	 * @param refineConflicts whether blocks of lines that were changed on both
+	 *        sides are merged by tokens rather than reported as a conflict
+	 */
+	public TextStorageMerger(boolean refineConflicts) {
+		this.refineConflicts = refineConflicts;
+	}
+
+	/*
+	 * Writes lines of the comparators to the output, separated by the line separator.
+	 * Lines that are ranges of bytes are copied, along with the delimiters between
+	 * them when these match the separator. Lines that are ranges of characters are
+	 * encoded into a reused buffer by a single encoder.
+	 */
+	private static final class LineWriter {
+		private final OutputStream output;
+		private final char[] separator;
+		private final byte[] encodedSeparator;
+		private final CharsetEncoder encoder;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		private boolean firstLine = true;
+
+		LineWriter(OutputStream output, Charset charset, String separator) {
+			this.output = output;
+			this.separator = separator.toCharArray();
+			this.encoder = charset.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			this.encodedSeparator = separator.getBytes(charset);
+		}
+
+		void writeLines(LineComparator comparator, int start, int end) throws IOException {
+			byte[] bytes = comparator.getBytes();
+			char[] chars = comparator.getChars();
+			int line = start;
+			while (line < end) {
+				if (!firstLine)
+					writeSeparator(bytes != null);
+				firstLine = false;
+				// extend the range over the following lines that are delimited by the separator
+				int last = line;
+				if (bytes != null) {
+					while (last + 1 < end && comparator.isDelimitedBy(last, encodedSeparator))
+						last++;
+					flushBuffer();
+					output.write(bytes, comparator.getLineStart(line), comparator.getLineEnd(last) - comparator.getLineStart(line));
+				} else {
+					while (last + 1 < end && comparator.isDelimitedBy(last, separator))
+						last++;
+					encode(CharBuffer.wrap(chars, comparator.getLineStart(line), comparator.getLineEnd(last) - comparator.getLineStart(line)));
+				}
+				line = last + 1;
+			}
+		}
+
+		/*
+		 * Write lines of text, given as a string in which each line is terminated by a LF
+		 */
+		void writeText(String text) throws IOException {
+			int start = 0;
+			int end;
+			while ((end = text.indexOf('\n', start)) != -1) {
+				if (!firstLine)
+					writeSeparator(false);
+				firstLine = false;
+				encode(CharBuffer.wrap(text, start, end));
+				start = end + 1;
+			}
+		}
+
+		private void writeSeparator(boolean asBytes) throws IOException {
+			if (!asBytes) {
+				// the encoder may be stateful, e.g. write a byte order mark only once
+				encode(CharBuffer.wrap(separator));
+				return;
+			}
+			if (buffer.remaining() < encodedSeparator.length)
+				flushBuffer();
+			buffer.put(encodedSeparator);
+		}
+
+		private void encode(CharBuffer chars) throws IOException {
+			while (true) {
+				CoderResult result = encoder.encode(chars, buffer, false);
+				if (result.isUnderflow())
+					return;
+				if (result.isOverflow()) {
+					flushBuffer();
+				} else {
+					result.throwException();
+				}
+			}
+		}
+
+		private void flushBuffer() throws IOException {
+			if (buffer.position() > 0) {
+				output.write(buffer.array(), 0, buffer.position());
+				buffer.clear();
+			}
+		}
+
+		void close() throws IOException {
+			CharBuffer empty = CharBuffer.allocate(0);
+			while (encoder.encode(empty, buffer, true).isOverflow())
+				flushBuffer();
+			while (encoder.flush(buffer).isOverflow())
+				flushBuffer();
+			flushBuffer();
+		}
+	}
+
 	@Override
 	public IStatus merge(OutputStream output, String outputEncoding,
 			IStorage ancestor, IStorage target, IStorage other,
 			IProgressMonitor monitor) throws CoreException {
 
 		LineComparator a, t, o;
+		Charset charset;
 
 		try {
-			a= LineComparator.create(ancestor, outputEncoding);
-			t= LineComparator.create(target, outputEncoding);
-			o= LineComparator.create(other,outputEncoding);
+			LineComparator.Contents ac= LineComparator.read(ancestor, outputEncoding);
+			LineComparator.Contents tc= LineComparator.read(target, outputEncoding);
+			LineComparator.Contents oc= LineComparator.read(other, outputEncoding);
+			try {
+				charset= Charset.forName(outputEncoding);
+			} catch (IllegalArgumentException e) {
+				throw new CoreException (new Status(IStatus.ERROR, TeamPlugin.ID, UNSUPPORTED_ENCODING, Messages.TextAutoMerge_outputEncodingError, e));
+			}
+			boolean asBytes= LineComparator.isByteCompatible(charset, ac, tc, oc);
+			LineComparator.LineTable table= new LineComparator.LineTable();
+			a= new LineComparator(ac, asBytes, table);
+			t= new LineComparator(tc, asBytes, table);
+			o= new LineComparator(oc, asBytes, table);
 		} catch (UnsupportedEncodingException e) {
 			throw new CoreException (new Status(IStatus.ERROR, TeamPlugin.ID, UNSUPPORTED_ENCODING, Messages.TextAutoMerge_inputEncodingError, e));
 		} catch (IOException e) {
@@ -48,47 +201,48 @@ public class TextStorageMerger implements IStorageMerger {
 		}
 
 		try {
-			boolean firstLine = true;
 			String lineSeparator= System.getProperty("line.separator"); //$NON-NLS-1$
 			if (lineSeparator == null)
 				lineSeparator= "\n"; //$NON-NLS-1$
 
 			RangeDifference[] diffs= RangeDifferencer.findRanges(monitor, a, t, o);
 
-			for (RangeDifference rd : diffs) {
+			// Resolve or report conflicts before anything is written
+			String[] refined= new String[diffs.length];
+			for (int i= 0; i < diffs.length; i++) {
+				RangeDifference rd= diffs[i];
+				if (rd.kind() == RangeDifference.CONFLICT) {
+					if (refineConflicts)
+						refined[i]= refine(rd, a, t, o, monitor);
+					if (refined[i] == null)
+						return new Status(IStatus.WARNING, TeamPlugin.ID, CONFLICT, Messages.TextAutoMerge_conflict, null);
+				}
+			}
+
+			LineWriter writer= new LineWriter(output, charset, lineSeparator);
+			for (int i= 0; i < diffs.length; i++) {
+				RangeDifference rd= diffs[i];
 				switch (rd.kind()) {
 				case RangeDifference.ANCESTOR: // pseudo conflict
 				case RangeDifference.NOCHANGE:
 				case RangeDifference.RIGHT:
-					for (int j= rd.rightStart(); j < rd.rightEnd(); j++) {
-						String s= o.getLine(j);
-						if (!firstLine)
-							output.write(lineSeparator.getBytes(outputEncoding));
-						output.write(s.getBytes(outputEncoding));
-						firstLine = false;
-					}
+					writer.writeLines(o, rd.rightStart(), rd.rightEnd());
 					break;
 
 				case RangeDifference.LEFT:
-					for (int j= rd.leftStart(); j < rd.leftEnd(); j++) {
-						String s= t.getLine(j);
-						if (!firstLine)
-							output.write(lineSeparator.getBytes(outputEncoding));
-						output.write(s.getBytes(outputEncoding));
-						firstLine = false;
-					}
+					writer.writeLines(t, rd.leftStart(), rd.leftEnd());
 					break;
 
 				case RangeDifference.CONFLICT:
-					return new Status(IStatus.WARNING, TeamPlugin.ID, CONFLICT, Messages.TextAutoMerge_conflict, null);
+					writer.writeText(refined[i]);
+					break;
 
 				default:
 					break;
 				}
 			}
+			writer.close();
 
-		} catch (UnsupportedEncodingException e) {
-			throw new CoreException (new Status(IStatus.ERROR, TeamPlugin.ID, UNSUPPORTED_ENCODING, Messages.TextAutoMerge_outputEncodingError, e));
 		} catch (IOException e) {
 			return new Status(IStatus.ERROR, TeamPlugin.ID, INTERNAL_ERROR, Messages.TextAutoMerge_outputIOError, e);
 		}
@@ -96,6 +250,50 @@ public class TextStorageMerger implements IStorageMerger {
 		return Status.OK_STATUS;
 	}
 
+	/*
+	 * Merge a block of lines that was changed on both sides by tokens. Return
+	 * the merged lines, each terminated by a LF, or null if the changes overlap.
+	 */
+	private String refine(RangeDifference rd, LineComparator a, LineComparator t, LineComparator o, IProgressMonitor monitor) {
+		TextTokenComparator ancestor= new TextTokenComparator(getText(a, rd.ancestorStart(), rd.ancestorEnd()));
+		TextTokenComparator left= new TextTokenComparator(getText(t, rd.leftStart(), rd.leftEnd()));
+		TextTokenComparator right= new TextTokenComparator(getText(o, rd.rightStart(), rd.rightEnd()));
+		StringBuilder merged= new StringBuilder();
+		for (RangeDifference td : RangeDifferencer.findRanges(monitor, ancestor, left, right)) {
+			switch (td.kind()) {
+			case RangeDifference.ANCESTOR: // identical changes
+			case RangeDifference.NOCHANGE:
+			case RangeDifference.RIGHT:
+				appendTokens(merged, right, td.rightStart(), td.rightEnd());
+				break;
+			case RangeDifference.LEFT:
+				appendTokens(merged, left, td.leftStart(), td.leftEnd());
+				break;
+			case RangeDifference.CONFLICT:
+				return null;
+			default:
+				break;
+			}
+		}
+		// Changes that remove a line terminator but not its line cannot be represented
+		if (merged.length() > 0 && merged.charAt(merged.length() - 1) != '\n')
+			return null;
+		return merged.toString();
+	}
+
+	private static String getText(LineComparator comparator, int start, int end) {
+		StringBuilder text= new StringBuilder();
+		for (int i= start; i < end; i++) {
+			text.append(comparator.getLineText(i)).append('\n');
+		}
+		return text.toString();
+	}
+
+	private static void appendTokens(StringBuilder merged, TextTokenComparator tokens, int start, int end) {
+		if (start < end)
+			merged.append(tokens.getText(), tokens.getTokenStart(start), tokens.getTokenStart(end));
+	}
+
 	@Override
 	public boolean canMergeWithoutAncestor() {
 		return false;
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.mapping;
+
+import java.util.Arrays;
+
+import org.eclipse.compare.rangedifferencer.IRangeComparator;
+
+/**
+ * Breaks a string into tokens for a finer grained comparison than by lines.
+ * A token is a run of letters and digits, a run of whitespace other than line
+ * feeds, a line feed or any other single character, similar to the tokens of
+ * <code>org.eclipse.compare.contentmergeviewer.TokenComparator</code>.
+ */
+class TextTokenComparator implements IRangeComparator {
+
+	private final String fText;
+	private int[] fStarts = new int[64];
+	private int fCount;
+
+	TextTokenComparator(String text) {
+		fText = text;
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			addToken(i);
+			char c = text.charAt(i++);
+			if (Character.isLetterOrDigit(c)) {
+				while (i < length && Character.isLetterOrDigit(text.charAt(i)))
+					i++;
+			} else if (c != '\n' && Character.isWhitespace(c)) {
+				while (i < length && text.charAt(i) != '\n' && Character.isWhitespace(text.charAt(i)))
+					i++;
+			}
+		}
+		addToken(length); // the end of the last token
+		fCount--;
+	}
+
+	private void addToken(int start) {
+		if (fCount == fStarts.length)
+			fStarts = Arrays.copyOf(fStarts, fCount * 2);
+		fStarts[fCount++] = start;
+	}
+
+	int getTokenStart(int index) {
+		return fStarts[index];
+	}
+
+	String getText() {
+		return fText;
+	}
+
+	@Override
+	public int getRangeCount() {
+		return fCount;
+	}
+
+	@Override
+	public boolean rangesEqual(int thisIndex, IRangeComparator other, int otherIndex) {
+		TextTokenComparator tc = (TextTokenComparator) other;
+		int start = fStarts[thisIndex];
+		int length = fStarts[thisIndex + 1] - start;
+		int otherStart = tc.fStarts[otherIndex];
+		int otherLength = tc.fStarts[otherIndex + 1] - otherStart;
+		return length == otherLength && fText.regionMatches(start, tc.fText, otherStart, length);
+	}
+
+	@Override
+	public boolean skipRangeComparison(int length, int maxLength, IRangeComparator other) {
+		return false;
+	}
+}
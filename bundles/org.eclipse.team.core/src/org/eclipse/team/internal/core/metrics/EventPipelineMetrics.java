@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of an event pipeline (i.e. a background event handler). The
+ * metrics of all handlers that share the same name are accumulated in the
+ * same instance. Times are recorded in nanoseconds.
+ */
+public class EventPipelineMetrics {
+
+	private final String name;
+
+	private final LongAdder enqueued = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder processed = new LongAdder();
+	private final LongAdder dispatches = new LongAdder();
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+	private final Histogram queueLatency = new Histogram();
+	private final Histogram processTime = new Histogram();
+	private final Histogram dispatchTime = new Histogram();
+	private final Histogram batchSize = new Histogram();
+
+	private volatile long startTime = System.nanoTime();
+
+	EventPipelineMetrics(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Record that an event was queued.
+	 * @param depth the depth of the queue after the event was queued
+	 */
+	public void eventQueued(int depth) {
+		enqueued.increment();
+		setQueueDepth(depth);
+	}
+
+	/**
+	 * Record that events were made redundant by coalescing.
+	 * @param count the number of events that were dropped or superseded
+	 */
+	public void eventsCoalesced(int count) {
+		if (count > 0)
+			coalesced.add(count);
+	}
+
+	/**
+	 * Record that an event was removed from the queue for processing.
+	 * @param depth the depth of the queue after the event was removed
+	 * @param latency the time the event spent on the queue
+	 */
+	public void eventDequeued(int depth, long latency) {
+		setQueueDepth(depth);
+		queueLatency.record(latency);
+	}
+
+	/**
+	 * Record the time taken to process an event.
+	 * @param time the processing time
+	 */
+	public void eventProcessed(long time) {
+		processed.increment();
+		processTime.record(time);
+	}
+
+	/**
+	 * Record a dispatch of the events accumulated by the pipeline.
+	 * @param time the time taken by the dispatch
+	 * @param events the number of events processed since the previous dispatch
+	 */
+	public void eventsDispatched(long time, int events) {
+		dispatches.increment();
+		dispatchTime.record(time);
+		batchSize.record(events);
+	}
+
+	private void setQueueDepth(int depth) {
+		queueDepth.set(depth);
+		maxQueueDepth.accumulateAndGet(depth, Math::max);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getEnqueuedCount() {
+		return enqueued.sum();
+	}
+
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	public long getProcessedCount() {
+		return processed.sum();
+	}
+
+	public long getDispatchCount() {
+		return dispatches.sum();
+	}
+
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	public int getMaxQueueDepth() {
+		return maxQueueDepth.get();
+	}
+
+	/**
+	 * Return the number of events queued per second since the metrics were
+	 * created or last reset.
+	 * @return the enqueue rate
+	 */
+	public double getEnqueueRate() {
+		return perSecond(getEnqueuedCount());
+	}
+
+	/**
+	 * Return the number of dispatches per second since the metrics were
+	 * created or last reset.
+	 * @return the dispatch rate
+	 */
+	public double getDispatchRate() {
+		return perSecond(getDispatchCount());
+	}
+
+	private double perSecond(long count) {
+		long elapsed = System.nanoTime() - startTime;
+		if (elapsed <= 0)
+			return 0;
+		return count / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	/**
+	 * Return the time events spent on the queue before being processed.
+	 * @return the queue latency histogram
+	 */
+	public Histogram getQueueLatency() {
+		return queueLatency;
+	}
+
+	/**
+	 * Return the time spent in <code>processEvent</code>.
+	 * @return the process time histogram
+	 */
+	public Histogram getProcessTime() {
+		return processTime;
+	}
+
+	/**
+	 * Return the time spent in <code>doDispatchEvents</code>.
+	 * @return the dispatch time histogram
+	 */
+	public Histogram getDispatchTime() {
+		return dispatchTime;
+	}
+
+	/**
+	 * Return the number of events processed between dispatches.
+	 * @return the batch size histogram
+	 */
+	public Histogram getBatchSize() {
+		return batchSize;
+	}
+
+	void reset() {
+		enqueued.reset();
+		coalesced.reset();
+		processed.reset();
+		dispatches.reset();
+		maxQueueDepth.set(queueDepth.get());
+		queueLatency.reset();
+		processTime.reset();
+		dispatchTime.reset();
+		batchSize.reset();
+		startTime = System.nanoTime();
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values. Values are counted in buckets whose
+ * upper bounds are powers of two so recording a value is cheap and safe to
+ * do from multiple threads. Percentiles are therefore approximations that
+ * are accurate to within a factor of two.
+ */
+public class Histogram {
+
+	private static final int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a value. Negative values are recorded as zero.
+	 * @param value the value
+	 */
+	public void record(long value) {
+		if (value < 0)
+			value = 0;
+		// bucket i holds the values in [2^(i-1), 2^i - 1] with zero in bucket 0
+		buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+		count.increment();
+		total.add(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getTotal() {
+		return total.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public long getMean() {
+		long n = getCount();
+		return n == 0 ? 0 : getTotal() / n;
+	}
+
+	/**
+	 * Return an upper bound of the value below which the given percentage of
+	 * the recorded values fall.
+	 * @param percentile the percentile (between 0 and 100)
+	 * @return the approximate percentile value
+	 */
+	public long getPercentile(double percentile) {
+		long n = getCount();
+		if (n == 0)
+			return 0;
+		long rank = (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank && seen > 0) {
+				return Math.min(getMax(), i == 0 ? 0 : (1L << i) - 1);
+			}
+		}
+		return getMax();
+	}
+
+	public long getMedian() {
+		return getPercentile(50);
+	}
+
+	public long get99thPercentile() {
+		return getPercentile(99);
+	}
+
+	/**
+	 * Clear all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		total.reset();
+		max.set(0);
+	}
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.metrics;
+
+/**
+ * Provides access to the metrics gathered by the background event pipelines
+ * of the team plug-ins and by diff tree change notification. An instance is
+ * registered as an OSGi service by the team core plug-in.
+ * <p>
+ * If the <code>org.eclipse.team.core.metrics.jmx</code> system property is
+ * set to <code>true</code>, the metrics are also published as an MXBean named
+ * <code>org.eclipse.team.core:type=Metrics</code>.
+ * </p>
+ */
+public interface ITeamMetrics {
+
+	/**
+	 * Return the metrics of all the event pipelines that have been active.
+	 * @return the metrics of the event pipelines
+	 */
+	EventPipelineMetrics[] getEventPipelines();
+
+	/**
+	 * Return the listener types that have taken the most time, in total,
+	 * to handle change notifications.
+	 * @param limit the maximum number of listener types to return
+	 * @return the slowest listener types ordered by decreasing total time
+	 */
+	ListenerMetrics[] getSlowestListeners(int limit);
+
+	/**
+	 * Reset all the gathered metrics.
+	 */
+	void reset();
+}
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.metrics;
+
+/**
+ * The time spent notifying listeners of a given type. Times are recorded
+ * in nanoseconds.
+ */
+public class ListenerMetrics {
+
+	private final String name;
+	private final Histogram notificationTime = new Histogram();
+
+	ListenerMetrics(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Return the name of the listener type (i.e. the listener class name).
+	 * @return the name of the listener type
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Return the time spent notifying listeners of this type.
+	 * @return the notification time histogram
+	 */
+	public Histogram getNotificationTime() {
+		return notificationTime;
+	}
+}
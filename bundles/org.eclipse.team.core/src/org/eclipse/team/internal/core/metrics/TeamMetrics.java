@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.metrics;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of the metrics gathered by the team plug-ins.
+ */
+public class TeamMetrics implements ITeamMetrics {
+
+	private static final TeamMetrics instance = new TeamMetrics();
+
+	private final Map<String, EventPipelineMetrics> pipelines = new ConcurrentHashMap<>();
+	private final Map<String, ListenerMetrics> listeners = new ConcurrentHashMap<>();
+
+	/**
+	 * Return the metrics registry.
+	 * @return the metrics registry
+	 */
+	public static TeamMetrics getDefault() {
+		return instance;
+	}
+
+	private TeamMetrics() {
+		// Use the shared instance
+	}
+
+	/**
+	 * Return the metrics of the event pipeline with the given name,
+	 * creating them if necessary.
+	 * @param name the name of the pipeline
+	 * @return the metrics of the pipeline
+	 */
+	public EventPipelineMetrics getEventPipeline(String name) {
+		return pipelines.computeIfAbsent(String.valueOf(name), EventPipelineMetrics::new);
+	}
+
+	/**
+	 * Record the time taken by a listener to handle a change notification.
+	 * @param listener the listener
+	 * @param time the time taken in nanoseconds
+	 */
+	public void recordListener(Object listener, long time) {
+		String name = listener.getClass().getName();
+		listeners.computeIfAbsent(name, ListenerMetrics::new).getNotificationTime().record(time);
+	}
+
+	@Override
+	public EventPipelineMetrics[] getEventPipelines() {
+		return pipelines.values().stream()
+				.sorted(Comparator.comparing(EventPipelineMetrics::getName))
+				.toArray(EventPipelineMetrics[]::new);
+	}
+
+	@Override
+	public ListenerMetrics[] getSlowestListeners(int limit) {
+		return listeners.values().stream()
+				.sorted(Comparator.comparingLong((ListenerMetrics l) -> l.getNotificationTime().getTotal()).reversed())
+				.limit(Math.max(0, limit))
+				.toArray(ListenerMetrics[]::new);
+	}
+
+	@Override
+	public void reset() {
+		for (EventPipelineMetrics pipeline : pipelines.values()) {
+			pipeline.reset();
+		}
+		listeners.clear();
+	}
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.team.internal.core.Policy;
+import org.eclipse.team.internal.core.TeamPlugin;
+
+/**
+ * Publishes the team metrics as an MXBean. This class is only loaded when
+ * JMX publishing is enabled so the <code>javax.management</code> package
+ * remains an optional dependency.
+ */
+public class TeamMetricsJmx implements TeamMetricsMXBean {
+
+	/**
+	 * The system property that enables the publishing of the metrics through JMX.
+	 */
+	public static final String ENABLEMENT_PROPERTY = "org.eclipse.team.core.metrics.jmx"; //$NON-NLS-1$
+
+	private static final String OBJECT_NAME = "org.eclipse.team.core:type=Metrics"; //$NON-NLS-1$
+
+	// the number of listener types reported
+	private static final int LISTENER_LIMIT = 20;
+
+	private static final String[] PIPELINE_ITEMS = {
+			"name", "enqueued", "coalesced", "processed", "dispatches", "queueDepth", "maxQueueDepth", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+			"enqueueRate", "dispatchRate", //$NON-NLS-1$ //$NON-NLS-2$
+			"queueLatencyMedian", "queueLatency99", "queueLatencyMax", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"processTimeMedian", "processTime99", "processTimeMax", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"dispatchTimeMedian", "dispatchTime99", "dispatchTimeMax", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"batchSizeMedian", "batchSize99", "batchSizeMax" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private static final String[] LISTENER_ITEMS = {
+			"name", "notifications", "totalTime", "meanTime", "medianTime", "time99", "maxTime" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+
+	private static final CompositeType PIPELINE_TYPE;
+	private static final CompositeType LISTENER_TYPE;
+
+	static {
+		OpenType<?>[] pipelineTypes = new OpenType<?>[PIPELINE_ITEMS.length];
+		pipelineTypes[0] = SimpleType.STRING;
+		for (int i = 1; i < pipelineTypes.length; i++) {
+			pipelineTypes[i] = SimpleType.LONG;
+		}
+		pipelineTypes[5] = SimpleType.INTEGER;
+		pipelineTypes[6] = SimpleType.INTEGER;
+		pipelineTypes[7] = SimpleType.DOUBLE;
+		pipelineTypes[8] = SimpleType.DOUBLE;
+		OpenType<?>[] listenerTypes = new OpenType<?>[LISTENER_ITEMS.length];
+		listenerTypes[0] = SimpleType.STRING;
+		for (int i = 1; i < listenerTypes.length; i++) {
+			listenerTypes[i] = SimpleType.LONG;
+		}
+		try {
+			PIPELINE_TYPE = new CompositeType("EventPipeline", "Metrics of a background event pipeline", //$NON-NLS-1$ //$NON-NLS-2$
+					PIPELINE_ITEMS, PIPELINE_ITEMS, pipelineTypes);
+			LISTENER_TYPE = new CompositeType("Listener", "Metrics of a diff tree listener type", //$NON-NLS-1$ //$NON-NLS-2$
+					LISTENER_ITEMS, LISTENER_ITEMS, listenerTypes);
+		} catch (OpenDataException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private final ITeamMetrics metrics;
+	private ObjectName name;
+
+	public TeamMetricsJmx(ITeamMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return Policy.METRICS;
+	}
+
+	@Override
+	public CompositeData[] getEventPipelines() {
+		EventPipelineMetrics[] pipelines = metrics.getEventPipelines();
+		CompositeData[] result = new CompositeData[pipelines.length];
+		for (int i = 0; i < pipelines.length; i++) {
+			result[i] = toCompositeData(pipelines[i]);
+		}
+		return result;
+	}
+
+	@Override
+	public CompositeData[] getSlowestListeners() {
+		ListenerMetrics[] listeners = metrics.getSlowestListeners(LISTENER_LIMIT);
+		CompositeData[] result = new CompositeData[listeners.length];
+		for (int i = 0; i < listeners.length; i++) {
+			result[i] = toCompositeData(listeners[i]);
+		}
+		return result;
+	}
+
+	private static CompositeData toCompositeData(EventPipelineMetrics pipeline) {
+		Histogram latency = pipeline.getQueueLatency();
+		Histogram process = pipeline.getProcessTime();
+		Histogram dispatch = pipeline.getDispatchTime();
+		Histogram batch = pipeline.getBatchSize();
+		return create(PIPELINE_TYPE, PIPELINE_ITEMS, new Object[] {
+				pipeline.getName(), pipeline.getEnqueuedCount(), pipeline.getCoalescedCount(),
+				pipeline.getProcessedCount(), pipeline.getDispatchCount(), pipeline.getQueueDepth(),
+				pipeline.getMaxQueueDepth(), pipeline.getEnqueueRate(), pipeline.getDispatchRate(),
+				latency.getMedian(), latency.get99thPercentile(), latency.getMax(),
+				process.getMedian(), process.get99thPercentile(), process.getMax(),
+				dispatch.getMedian(), dispatch.get99thPercentile(), dispatch.getMax(),
+				batch.getMedian(), batch.get99thPercentile(), batch.getMax() });
+	}
+
+	private static CompositeData toCompositeData(ListenerMetrics listener) {
+		Histogram time = listener.getNotificationTime();
+		return create(LISTENER_TYPE, LISTENER_ITEMS, new Object[] {
+				listener.getName(), time.getCount(), time.getTotal(), time.getMean(),
+				time.getMedian(), time.get99thPercentile(), time.getMax() });
+	}
+
+	private static CompositeData create(CompositeType type, String[] items, Object[] values) {
+		try {
+			return new CompositeDataSupport(type, items, values);
+		} catch (OpenDataException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public void reset() {
+		metrics.reset();
+	}
+
+	/**
+	 * Register the MXBean with the platform MBean server.
+	 */
+	public void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(objectName)) {
+				server.registerMBean(this, objectName);
+				name = objectName;
+			}
+		} catch (JMException e) {
+			TeamPlugin.log(IStatus.WARNING, e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Unregister the MXBean if it was registered.
+	 */
+	public void unregister() {
+		if (name == null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		} catch (JMException e) {
+			// Ignore since we are shutting down
+		} finally {
+			name = null;
+		}
+	}
+}
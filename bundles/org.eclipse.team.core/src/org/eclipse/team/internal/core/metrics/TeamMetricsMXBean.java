@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.metrics;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * The management interface used to publish the team metrics through JMX.
+ * The metrics are flattened into composite data whose items are all of
+ * simple open types. Times are in nanoseconds.
+ */
+public interface TeamMetricsMXBean {
+
+	/**
+	 * Return whether metrics are being gathered. Metrics are only gathered
+	 * when the <code>org.eclipse.team.core/metrics</code> debug option is set.
+	 * @return whether metrics are being gathered
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Return one entry per event pipeline with the counters of the pipeline
+	 * and the median, 99th percentile and maximum of each of its histograms.
+	 * @return the metrics of the event pipelines
+	 */
+	CompositeData[] getEventPipelines();
+
+	/**
+	 * Return one entry per listener type with the number of notifications and
+	 * the total, mean, median, 99th percentile and maximum notification time.
+	 * @return the metrics of the slowest listener types
+	 */
+	CompositeData[] getSlowestListeners();
+
+	void reset();
+}
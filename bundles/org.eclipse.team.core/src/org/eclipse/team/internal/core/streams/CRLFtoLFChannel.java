@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.streams;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Converts CR/LFs in the underlying channel to LF.
+ *
+ * Bytes are read from the underlying channel a block at a time and converted in
+ * place with {@link LineEndings#crlfToLf(byte[], int, int)}.
+ */
+public class CRLFtoLFChannel implements ReadableByteChannel {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final ReadableByteChannel channel;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position = 0; // points to first converted byte not yet returned
+	private int converted = 0; // points past the last converted byte
+	private int limit = 0; // points past the last byte read, i.e. after a held back CR
+	private boolean eof = false;
+	private boolean open = true;
+
+	/**
+	 * Creates a new filtered channel.
+	 * @param channel the underlying channel
+	 */
+	public CRLFtoLFChannel(ReadableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Wraps the underlying channel's method.
+	 * Translates CR/LF sequences to LFs transparently.
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public int read(ByteBuffer dst) throws IOException {
+		if (!open) throw new ClosedChannelException();
+		if (!dst.hasRemaining()) return 0;
+		while (position == converted) {
+			if (eof) {
+				if (converted == limit) return -1;
+				converted = limit; // the held back CR is an orphan
+				break;
+			}
+			if (!fill()) return 0; // a non-blocking channel has no bytes available
+		}
+		int count = Math.min(dst.remaining(), converted - position);
+		dst.put(buffer, position, count);
+		position += count;
+		return count;
+	}
+
+	/**
+	 * Reads the next block from the underlying channel and converts it.
+	 * @return false if no bytes were available
+	 */
+	private boolean fill() throws IOException {
+		// move a held back CR to the front of the buffer
+		int held = limit - converted;
+		System.arraycopy(buffer, converted, buffer, 0, held);
+		position = converted = 0;
+		limit = held;
+		int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+		if (read == -1) {
+			eof = true;
+			return true;
+		}
+		if (read == 0) return false;
+		limit += read;
+		// hold back a trailing CR in case it is followed by a LF
+		boolean trailingCR = buffer[limit - 1] == '\r';
+		converted = LineEndings.crlfToLf(buffer, 0, trailingCR ? limit - 1 : limit);
+		if (trailingCR) buffer[converted] = '\r';
+		limit = trailingCR ? converted + 1 : converted;
+		return true;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * Wraps the underlying channel's method.
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		open = false;
+		channel.close();
+	}
+}
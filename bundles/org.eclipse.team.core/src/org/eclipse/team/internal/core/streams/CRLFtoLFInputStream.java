@@ -98,25 +98,15 @@ public class CRLFtoLFInputStream extends FilterInputStream {
 			iioe = e;
 		}
 		count += len;
-		// strip out CR's in CR/LF pairs
-		// pendingByte will be true iff previous byte was a CR
-		int j = off;
-		for (int i = off; i < off + count; ++i) { // invariant: j <= i
-			lastByte = buffer[i];
-			if (lastByte == '\r') {
-				if (pendingByte) {
-					buffer[j++] = '\r'; // write out orphan CR
-				} else {
-					pendingByte = true;
-				}
-			} else {
-				if (pendingByte) {
-					if (lastByte != '\n') buffer[j++] = '\r'; // if LF, don't write the CR
-					pendingByte = false;
-				}
-				buffer[j++] = (byte) lastByte;
-			}
+		// hold back a trailing CR in case it is followed by a LF, and
+		// strip out CR's in CR/LF pairs in the rest of the buffer
+		int end = off + count;
+		pendingByte = count > 0 && buffer[end - 1] == '\r';
+		if (pendingByte) {
+			lastByte = '\r';
+			end--;
 		}
+		int j = off + LineEndings.crlfToLf(buffer, off, end - off);
 		if (iioe != null) {
 			iioe.bytesTransferred = j - off;
 			throw iioe;
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.streams;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Converts LFs in the underlying channel to CR/LF.
+ *
+ * Bytes are read from the underlying channel into the back half of a buffer and
+ * expanded to its front with {@link LineEndings#lfToCrlf(byte[], int, int, byte[], int)}.
+ */
+public class LFtoCRLFChannel implements ReadableByteChannel {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final ReadableByteChannel channel;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position = 0; // points to first converted byte not yet returned
+	private int limit = 0; // points past the last converted byte
+	private boolean open = true;
+
+	/**
+	 * Creates a new filtered channel.
+	 * @param channel the underlying channel
+	 */
+	public LFtoCRLFChannel(ReadableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Wraps the underlying channel's method.
+	 * Translates LFs to CR/LF sequences transparently.
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public int read(ByteBuffer dst) throws IOException {
+		if (!open) throw new ClosedChannelException();
+		if (!dst.hasRemaining()) return 0;
+		if (position == limit) {
+			// read into the back half of the buffer, this guarantees that there is always room to expand
+			int half = buffer.length / 2;
+			int read = channel.read(ByteBuffer.wrap(buffer, half, half));
+			if (read <= 0) return read;
+			position = 0;
+			limit = LineEndings.lfToCrlf(buffer, half, read, buffer, 0);
+		}
+		int count = Math.min(dst.remaining(), limit - position);
+		dst.put(buffer, position, count);
+		position += count;
+		return count;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * Wraps the underlying channel's method.
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		open = false;
+		channel.close();
+	}
+}
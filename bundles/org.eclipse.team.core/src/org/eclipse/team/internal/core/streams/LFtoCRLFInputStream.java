@@ -98,16 +98,8 @@ public class LFtoCRLFInputStream extends FilterInputStream {
 			len = e.bytesTransferred;
 			iioe = e;
 		}
-		count += len;
 		// copy bytes from the middle to the front of the array, expanding LF->CR/LF
-		while (len-- > 0) {
-			byte b = buffer[j++];
-			if (b == '\n') {
-				buffer[off++] = '\r';
-				count++;
-			}
-			buffer[off++] = b;
-		}
+		count += LineEndings.lfToCrlf(buffer, j, len, buffer, off);
 		if (iioe != null) {
 			iioe.bytesTransferred = count;
 			throw iioe;
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.streams;
+
+/**
+ * Converts line endings of whole buffers. The buffers are scanned for line
+ * delimiters and the runs of bytes between them are moved with
+ * {@link System#arraycopy}; runs are not moved at all until the first
+ * conversion shifts the remaining bytes.
+ */
+public final class LineEndings {
+
+	private LineEndings() {
+		// Not to be instantiated
+	}
+
+	/**
+	 * Converts CR/LF sequences to LF in place. A CR that is not followed by an
+	 * LF within the given range, including a CR in the last position, is kept.
+	 * @param buffer the buffer
+	 * @param off the offset of the first byte to convert
+	 * @param len the number of bytes to convert
+	 * @return the number of bytes after conversion, starting at <code>off</code>
+	 */
+	public static int crlfToLf(byte[] buffer, int off, int len) {
+		int end = off + len;
+		int cr = indexOf(buffer, (byte) '\r', off, end);
+		int j = cr; // bytes before the first CR stay where they are
+		while (cr != -1) {
+			int i = cr + 1;
+			if (i == end || buffer[i] != '\n') {
+				buffer[j++] = '\r'; // orphan CR
+			}
+			cr = indexOf(buffer, (byte) '\r', i, end);
+			int run = (cr == -1 ? end : cr) - i;
+			System.arraycopy(buffer, i, buffer, j, run);
+			j += run;
+		}
+		return (j == -1 ? end : j) - off;
+	}
+
+	/**
+	 * Converts LFs to CR/LF sequences while copying bytes to a destination. The
+	 * source and destination may be the same array as long as the source range
+	 * does not start before the destination and the destination has room for
+	 * the expanded bytes ahead of every unconverted byte, e.g. when the source
+	 * bytes are in the back half of the array and the destination is the front.
+	 * @param src the source buffer
+	 * @param srcOff the offset of the first byte to convert
+	 * @param len the number of bytes to convert
+	 * @param dst the destination buffer
+	 * @param dstOff the offset in the destination
+	 * @return the number of bytes written to the destination
+	 */
+	public static int lfToCrlf(byte[] src, int srcOff, int len, byte[] dst, int dstOff) {
+		int end = srcOff + len;
+		int i = srcOff;
+		int j = dstOff;
+		while (i < end) {
+			int lf = indexOf(src, (byte) '\n', i, end);
+			int run = (lf == -1 ? end : lf) - i;
+			System.arraycopy(src, i, dst, j, run);
+			j += run;
+			if (lf == -1) break;
+			dst[j++] = '\r';
+			dst[j++] = '\n';
+			i = lf + 1;
+		}
+		return j - dstOff;
+	}
+
+	/**
+	 * Returns the index of the first occurrence of a byte in a range of a buffer.
+	 * @param buffer the buffer
+	 * @param b the byte to search for
+	 * @param from the first index to search
+	 * @param to the index after the last index to search
+	 * @return the index of the byte or -1
+	 */
+	public static int indexOf(byte[] buffer, byte b, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (buffer[i] == b) return i;
+		}
+		return -1;
+	}
+}
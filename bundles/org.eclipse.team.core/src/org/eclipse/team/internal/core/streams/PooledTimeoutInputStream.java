@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.streams;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Future;
+
+/**
+ * Wraps an input stream that blocks indefinitely to simulate timeouts on read(),
+ * skip(), and close(). Unlike {@link TimeoutInputStream}, no thread is dedicated
+ * to the stream: each read of the underlying stream is performed on a thread of a
+ * shared pool while the caller waits for at most the read timeout. A read that
+ * times out keeps running in the background and the next call picks up its result,
+ * so operations that failed due to an InterruptedIOException can be retried, for
+ * instance by a {@link PollingInputStream}. The underlying stream is only read when
+ * the caller asks for more bytes than are buffered, so an idle stream does not occupy
+ * a pooled thread.
+ */
+public class PooledTimeoutInputStream extends FilterInputStream {
+	private final long readTimeout; // read() timeout in millis
+	private final long closeTimeout; // close() timeout in millis, or -1
+
+	private final byte[] iobuffer;
+	private int position = 0; // points to first unread byte
+	private int limit = 0; // points past the last unread byte
+	private boolean eof = false;
+	private Future<Integer> pendingRead; // if non-null, the buffer is being filled
+	private Future<Void> pendingClose; // if non-null, close has been requested
+
+	/**
+	 * Creates a timeout wrapper for an input stream.
+	 * @param in the underlying input stream
+	 * @param bufferSize the buffer size in bytes
+	 * @param readTimeout the number of milliseconds to block for a read() or skip() before
+	 *        throwing an InterruptedIOException; 0 blocks indefinitely
+	 * @param closeTimeout the number of milliseconds to block for a close() before throwing
+	 *        an InterruptedIOException; 0 blocks indefinitely, -1 closes the stream in the background
+	 */
+	public PooledTimeoutInputStream(InputStream in, int bufferSize, long readTimeout, long closeTimeout) {
+		super(in);
+		this.readTimeout = readTimeout;
+		this.closeTimeout = closeTimeout;
+		this.iobuffer = new byte[bufferSize];
+	}
+
+	/**
+	 * Wraps the underlying stream's method. A pending read is interrupted and the
+	 * underlying stream is closed on a pooled thread.
+	 * @throws InterruptedIOException if the timeout expired
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		Future<Void> close;
+		synchronized (this) {
+			if (pendingClose == null) {
+				final Future<Integer> read = pendingRead;
+				if (read != null)
+					read.cancel(true); // alternate quit signal for interruptible streams
+				pendingRead = null;
+				eof = true;
+				position = limit = 0;
+				pendingClose = StreamExecutor.submit(() -> {
+					in.close();
+					return null;
+				});
+			}
+			close = pendingClose;
+		}
+		if (closeTimeout == -1) return;
+		StreamExecutor.await(close, closeTimeout);
+	}
+
+	/**
+	 * Returns the number of unread bytes in the buffer.
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public synchronized int available() throws IOException {
+		return limit - position;
+	}
+
+	/**
+	 * Reads a byte from the stream.
+	 * @throws InterruptedIOException if the timeout expired and no data was received,
+	 *         bytesTransferred will be zero
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public synchronized int read() throws IOException {
+		if (! syncFill()) return -1; // EOF reached
+		return iobuffer[position++] & 255;
+	}
+
+	/**
+	 * Reads multiple bytes from the stream.
+	 * @throws InterruptedIOException if the timeout expired and no data was received,
+	 *         bytesTransferred will be zero
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public synchronized int read(byte[] buffer, int off, int len) throws IOException {
+		if (len == 0) return 0;
+		if (! syncFill()) return -1; // EOF reached
+		int count = Math.min(len, limit - position);
+		System.arraycopy(iobuffer, position, buffer, off, count);
+		position += count;
+		return count;
+	}
+
+	/**
+	 * Skips multiple bytes in the stream.
+	 * @throws InterruptedIOException if the timeout expired before all of the
+	 *         bytes specified have been skipped, bytesTransferred may be non-zero
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public synchronized long skip(long count) throws IOException {
+		long amount = 0;
+		try {
+			while (amount < count) {
+				if (! syncFill()) break; // EOF reached
+				int skip = (int) Math.min(count - amount, limit - position);
+				position += skip;
+				amount += skip;
+			}
+		} catch (InterruptedIOException e) {
+			e.bytesTransferred = (int) amount; // assumes amount < Integer.MAX_INT
+			throw e;
+		}
+		return amount;
+	}
+
+	/**
+	 * Mark is not supported by the wrapper even if the underlying stream does, returns false.
+	 */
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	/**
+	 * Waits for the buffer to fill if it is empty and the stream has not reached EOF.
+	 * @return true if bytes are available, false if EOF has been reached
+	 * @throws InterruptedIOException if EOF not reached but no bytes are available
+	 */
+	private boolean syncFill() throws IOException {
+		if (position < limit) return true;
+		if (eof) return false;
+		if (pendingRead == null) startRead();
+		int count;
+		try {
+			count = StreamExecutor.await(pendingRead, readTimeout);
+		} catch (InterruptedIOException e) {
+			// the read continues in the background so the call can be retried
+			e.bytesTransferred = 0;
+			throw e;
+		} catch (IOException | RuntimeException e) {
+			pendingRead = null;
+			throw e;
+		}
+		pendingRead = null;
+		if (count == -1) {
+			eof = true;
+			return false;
+		}
+		position = 0;
+		limit = count;
+		// an interrupted underlying read may not have transferred anything
+		return count > 0 || syncFill();
+	}
+
+	/**
+	 * Starts filling the buffer on a pooled thread. The buffer must have been consumed.
+	 */
+	private void startRead() {
+		pendingRead = StreamExecutor.submit(() -> {
+			try {
+				// the buffer is not accessed by readers until this read completes
+				return in.read(iobuffer, 0, iobuffer.length);
+			} catch (InterruptedIOException e) {
+				return e.bytesTransferred; // keep partial transfer
+			}
+		});
+	}
+}
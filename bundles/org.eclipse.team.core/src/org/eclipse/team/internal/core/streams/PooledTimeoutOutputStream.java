@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.streams;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.eclipse.team.internal.core.Messages;
+
+/**
+ * Wraps an output stream that blocks indefinitely to simulate timeouts on write(),
+ * flush(), and close(). Unlike {@link TimeoutOutputStream}, no thread is dedicated
+ * to the stream: bytes are collected in one buffer while the previously filled
+ * buffer is written to the underlying stream on a thread of a shared pool. A write
+ * that times out keeps running in the background and the next call waits for it
+ * again, so operations that failed due to an InterruptedIOException can be retried,
+ * for instance by a {@link PollingOutputStream}.
+ *
+ * Supports resuming partially completed operations after an InterruptedIOException
+ * REGARDLESS of whether the underlying stream does unless the underlying stream itself
+ * generates InterruptedIOExceptions in which case it must also support resuming.
+ * Check the bytesTransferred field to determine how much of the operation completed;
+ * conversely, at what point to resume.
+ */
+public class PooledTimeoutOutputStream extends FilterOutputStream {
+	private final long writeTimeout; // write() timeout in millis
+	private final long closeTimeout; // close() timeout in millis, or -1
+
+	private byte[] iobuffer; // buffer being filled by writers
+	private byte[] spare; // buffer being written by the pending write
+	private int length = 0; // number of bytes in iobuffer
+	private Future<Void> pendingWrite; // if non-null, the spare buffer is being written
+	private boolean pendingFlush = false; // if true, the pending write also flushes
+	private Future<Void> pendingClose; // if non-null, close has been requested
+
+	/**
+	 * Creates a timeout wrapper for an output stream.
+	 * @param out the underlying output stream
+	 * @param bufferSize the buffer size in bytes
+	 * @param writeTimeout the number of milliseconds to block for a write() or flush() before
+	 *        throwing an InterruptedIOException; 0 blocks indefinitely
+	 * @param closeTimeout the number of milliseconds to block for a close() before throwing
+	 *        an InterruptedIOException; 0 blocks indefinitely, -1 closes the stream in the background
+	 */
+	public PooledTimeoutOutputStream(OutputStream out, int bufferSize, long writeTimeout, long closeTimeout) {
+		super(out);
+		this.writeTimeout = writeTimeout;
+		this.closeTimeout = closeTimeout;
+		this.iobuffer = new byte[bufferSize];
+		this.spare = new byte[bufferSize];
+	}
+
+	/**
+	 * Wraps the underlying stream's method. The buffered bytes are written, and the
+	 * underlying stream is flushed and closed, on a pooled thread once the pending
+	 * write has completed.
+	 * @throws InterruptedIOException if the timeout expired
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		Future<Void> close;
+		synchronized (this) {
+			if (pendingClose == null) {
+				final Future<Void> previous = pendingWrite;
+				final byte[] buffer = iobuffer;
+				final int count = length;
+				pendingWrite = null;
+				length = 0;
+				pendingClose = StreamExecutor.submit(() -> {
+					try {
+						if (previous != null) {
+							try {
+								previous.get();
+							} catch (ExecutionException e) {
+								if (e.getCause() instanceof IOException)
+									throw (IOException) e.getCause();
+								throw new IOException(e.getCause());
+							}
+						}
+						writeFully(buffer, count);
+						out.flush();
+					} finally {
+						out.close();
+					}
+					return null;
+				});
+			}
+			close = pendingClose;
+		}
+		if (closeTimeout == -1) return;
+		StreamExecutor.await(close, closeTimeout);
+	}
+
+	/**
+	 * Writes a byte to the stream.
+	 * @throws InterruptedIOException if the timeout expired and no data was sent,
+	 *         bytesTransferred will be zero
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public synchronized void write(int b) throws IOException {
+		checkOpen();
+		if (length == iobuffer.length) syncCommit();
+		iobuffer[length++] = (byte) b;
+	}
+
+	/**
+	 * Writes multiple bytes to the stream.
+	 * @throws InterruptedIOException if the timeout expired, bytesTransferred will
+	 *         reflect the number of bytes sent
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public synchronized void write(byte[] buffer, int off, int len) throws IOException {
+		checkOpen();
+		int amount = 0;
+		try {
+			while (amount < len) {
+				if (length == iobuffer.length) syncCommit();
+				int count = Math.min(len - amount, iobuffer.length - length);
+				System.arraycopy(buffer, off + amount, iobuffer, length, count);
+				length += count;
+				amount += count;
+			}
+		} catch (InterruptedIOException e) {
+			e.bytesTransferred = amount;
+			throw e;
+		}
+	}
+
+	/**
+	 * Flushes the stream.
+	 * @throws InterruptedIOException if the timeout expired, bytesTransferred will
+	 *         be zero; the flush continues in the background and may be retried
+	 * @throws IOException if an i/o error occurs
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		checkOpen();
+		try {
+			if (pendingWrite != null && (length > 0 || !pendingFlush))
+				syncWrite();
+			if (pendingWrite == null)
+				startWrite(true);
+			syncWrite();
+		} catch (InterruptedIOException e) {
+			e.bytesTransferred = 0;
+			throw e;
+		}
+	}
+
+	/**
+	 * Waits for the pending write to complete and starts writing the filled buffer.
+	 * @throws InterruptedIOException if the pending write did not complete in time
+	 */
+	private void syncCommit() throws IOException {
+		syncWrite();
+		startWrite(false);
+	}
+
+	/**
+	 * Waits for the pending write, if any, to complete.
+	 * @throws InterruptedIOException if the pending write did not complete in time;
+	 *         it continues in the background
+	 */
+	private void syncWrite() throws IOException {
+		if (pendingWrite == null) return;
+		try {
+			StreamExecutor.await(pendingWrite, writeTimeout);
+		} catch (InterruptedIOException e) {
+			throw e;
+		} catch (IOException | RuntimeException e) {
+			pendingWrite = null;
+			throw e;
+		}
+		pendingWrite = null;
+	}
+
+	/**
+	 * Starts writing the filled buffer, and optionally flushing the underlying stream,
+	 * on a pooled thread. There must be no pending write.
+	 */
+	private void startWrite(final boolean flush) {
+		final byte[] buffer = iobuffer;
+		final int count = length;
+		iobuffer = spare;
+		spare = buffer;
+		length = 0;
+		pendingFlush = flush;
+		pendingWrite = StreamExecutor.submit(() -> {
+			writeFully(buffer, count);
+			if (flush) out.flush();
+			return null;
+		});
+	}
+
+	/**
+	 * Writes the first count bytes of the buffer to the underlying stream,
+	 * resuming partial writes that were interrupted.
+	 */
+	private void writeFully(byte[] buffer, int count) throws IOException {
+		int off = 0;
+		while (off < count) {
+			try {
+				out.write(buffer, off, count - off);
+				off = count;
+			} catch (InterruptedIOException e) {
+				off += e.bytesTransferred;
+			}
+		}
+	}
+
+	private void checkOpen() throws IOException {
+		if (pendingClose != null) throw new IOException(Messages.TimeoutOutputStream_cannotWriteToStream);
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.streams;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The shared pool of daemon threads that perform the blocking operations of
+ * the pooled timeout streams. A thread is only occupied while an operation is
+ * in progress and idle threads are discarded after a while, so the number of
+ * threads follows the number of operations that are blocked at the same time
+ * rather than the number of open streams. The pool is not bounded so that a
+ * close, which is what unblocks a hung read, never waits behind that read.
+ */
+final class StreamExecutor {
+
+	private static final long KEEP_ALIVE_SECONDS = 30;
+
+	private static final ThreadPoolExecutor executor;
+	static {
+		AtomicInteger count = new AtomicInteger();
+		ThreadFactory factory = runnable -> {
+			Thread thread = new Thread(runnable, "Team Stream I/O " + count.incrementAndGet()); //$NON-NLS-1$
+			thread.setDaemon(true);
+			return thread;
+		};
+		executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new SynchronousQueue<>(), factory);
+	}
+
+	private StreamExecutor() {
+		// Not to be instantiated
+	}
+
+	/**
+	 * Start the given blocking operation on a pooled thread.
+	 * @param operation the operation
+	 * @return the future result of the operation
+	 */
+	static <T> Future<T> submit(Callable<T> operation) {
+		return executor.submit(operation);
+	}
+
+	/**
+	 * Wait for the result of an operation.
+	 * @param future the future result of the operation
+	 * @param timeout the number of milliseconds to wait; 0 waits indefinitely
+	 * @return the result of the operation
+	 * @throws InterruptedIOException if the operation did not complete in time;
+	 *         the operation continues in the background
+	 * @throws IOException if the operation failed
+	 */
+	static <T> T await(Future<T> future, long timeout) throws IOException {
+		try {
+			return timeout == 0 ? future.get() : future.get(timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new InterruptedIOException();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt(); // we weren't expecting to be interrupted
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IOException(cause);
+		}
+	}
+}
@@ -14,9 +14,14 @@
 package org.eclipse.team.internal.core.subscribers;
 
 import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.security.MessageDigest;
 
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
@@ -24,8 +29,11 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.core.history.IFileRevision;
 import org.eclipse.team.core.variants.IResourceVariant;
+import org.eclipse.team.internal.core.ContentDigestCache;
 import org.eclipse.team.internal.core.Policy;
 import org.eclipse.team.internal.core.TeamPlugin;
+import org.eclipse.team.internal.core.history.LocalFileRevision;
+import org.eclipse.team.internal.core.mapping.ResourceVariantFileRevision;
 
 /**
  * Compare local and remote contents.
@@ -37,8 +45,95 @@ import org.eclipse.team.internal.core.TeamPlugin;
  * contents is subscriber specific.
  */
 public abstract class AbstractContentComparator {
+	private static final String LOCAL_KEY = "L:"; //$NON-NLS-1$
+	private static final String REMOTE_KEY = "R:"; //$NON-NLS-1$
+
 	private boolean ignoreWhitespace = false;
 
+	/*
+	 * The key under which the digest of the contents of an element is cached
+	 * and the stamps that must match for the digest to be valid
+	 */
+	private static final class DigestKey {
+		final String key;
+		final IFile file;
+		final long stamp;
+		final long timestamp;
+		final long size;
+
+		DigestKey(String key, IFile file, long stamp, long timestamp, long size) {
+			this.key = key;
+			this.file = file;
+			this.stamp = stamp;
+			this.timestamp = timestamp;
+			this.size = size;
+		}
+	}
+
+	/*
+	 * A stream that digests and counts the bytes that are read from it and
+	 * remembers whether it was read to the end
+	 */
+	private static final class DigestingInputStream extends FilterInputStream {
+		private final MessageDigest digest = ContentDigestCache.createMessageDigest();
+		private long length;
+		private boolean complete;
+		private boolean skipped;
+
+		DigestingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b == -1) {
+				complete = true;
+			} else {
+				digest.update((byte) b);
+				length++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read == -1) {
+				complete = true;
+			} else {
+				digest.update(b, off, read);
+				length += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skippedBytes = super.skip(n);
+			if (skippedBytes > 0)
+				skipped = true;
+			return skippedBytes;
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		/*
+		 * Return the digest of the contents or null if they were not read
+		 * to the end (e.g. because the comparison found a difference)
+		 */
+		byte[] getDigest() {
+			return complete && !skipped ? digest.digest() : null;
+		}
+
+		long getLength() {
+			return length;
+		}
+	}
+
 	public AbstractContentComparator(boolean ignoreWhitespace) {
 		this.ignoreWhitespace = ignoreWhitespace;
 	}
@@ -54,11 +149,34 @@ public abstract class AbstractContentComparator {
 	private boolean compareObjects(Object e1, Object e2, IProgressMonitor monitor) {
 		InputStream is1 = null;
 		InputStream is2 = null;
+		DigestKey key1 = null;
+		DigestKey key2 = null;
 		try {
 			monitor.beginTask(null, 100);
+			if (isExactComparison()) {
+				IResource local = (IResource) e1;
+				long length1 = getContentLength(local, e1);
+				long length2 = getContentLength(local, e2);
+				if (length1 >= 0 && length2 >= 0 && length1 != length2)
+					return false;
+				byte[] digest1 = getContentDigest(local, e1);
+				byte[] digest2 = getContentDigest(local, e2);
+				if (digest1 != null && digest2 != null)
+					return MessageDigest.isEqual(digest1, digest2);
+				// Digest the contents that are not cached while they are compared
+				key1 = digest1 == null ? getDigestKey(local, e1) : null;
+				key2 = digest2 == null ? getDigestKey(local, e2) : null;
+			}
 			is1 = getContents(e1, Policy.subMonitorFor(monitor, 30));
 			is2 = getContents(e2, Policy.subMonitorFor(monitor, 30));
-			return contentsEqual(Policy.subMonitorFor(monitor, 40), is1, is2, shouldIgnoreWhitespace());
+			DigestingInputStream digesting1 = key1 == null || is1 == null ? null : new DigestingInputStream(is1);
+			DigestingInputStream digesting2 = key2 == null || is2 == null ? null : new DigestingInputStream(is2);
+			boolean equal = contentsEqual(Policy.subMonitorFor(monitor, 40),
+					digesting1 == null ? is1 : digesting1, digesting2 == null ? is2 : digesting2,
+					shouldIgnoreWhitespace());
+			recordDigest(key1, digesting1);
+			recordDigest(key2, digesting2);
+			return equal;
 		} catch (TeamException e) {
 			TeamPlugin.log(e);
 			return false;
@@ -84,6 +202,152 @@ public abstract class AbstractContentComparator {
 		return ignoreWhitespace;
 	}
 
+	/**
+	 * Return whether this comparator considers contents equal only if they are
+	 * byte for byte identical. Only such comparators can decide the outcome
+	 * from the lengths or digests of the contents without reading them.
+	 * By default, <code>false</code> is returned.
+	 * @return whether contents are compared byte for byte
+	 */
+	protected boolean isExactComparison() {
+		return false;
+	}
+
+	/**
+	 * Return the length of the contents of the given element or
+	 * <code>-1</code> if it is not known without reading the contents.
+	 * <p>
+	 * The default implementation returns the length of local files. The
+	 * length of remote contents is not known until they have been read, so
+	 * it is recorded with their digest in the {@link ContentDigestCache}
+	 * when a comparison reads them to the end and returned from there.
+	 * </p>
+	 * @param local the local resource being compared
+	 * @param element the local resource or the resource variant or file
+	 * revision it is compared to
+	 * @return the length of the contents or <code>-1</code>
+	 */
+	protected long getContentLength(IResource local, Object element) {
+		IFile file = null;
+		if (element instanceof IFile)
+			file = (IFile) element;
+		else if (element instanceof LocalFileRevision)
+			file = ((LocalFileRevision) element).getFile();
+		if (file != null) {
+			IFileInfo info = fetchInfo(file);
+			return info == null ? -1 : info.getLength();
+		}
+		String key = getRemoteDigestKey(local, element);
+		if (key == null)
+			return -1;
+		return ContentDigestCache.getDefault().getSize(key);
+	}
+
+	/**
+	 * Return the cached digest of the contents of the given element or
+	 * <code>null</code> if no valid digest is cached. The contents are never
+	 * read to obtain a digest. Instead, when a comparison reads contents to
+	 * the end, their digest is cached for later comparisons. The contents of
+	 * two elements are considered equal if both provide a digest and the
+	 * digests are equal.
+	 * <p>
+	 * The default implementation looks the digest up in the
+	 * {@link ContentDigestCache}, keying local files by their path and
+	 * validating them against their modification stamp, time stamp and size,
+	 * and keying remote contents by the path of the local resource and their
+	 * content identifier.
+	 * </p>
+	 * @param local the local resource being compared
+	 * @param element the local resource or the resource variant or file
+	 * revision it is compared to
+	 * @return a cached digest of the contents or <code>null</code>
+	 */
+	protected byte[] getContentDigest(IResource local, Object element) {
+		DigestKey key = getDigestKey(local, element);
+		if (key == null)
+			return null;
+		return ContentDigestCache.getDefault().getDigest(key.key, key.stamp, key.timestamp, key.size);
+	}
+
+	/*
+	 * Cache the digest of the contents that were read through the given
+	 * stream if they were read to the end
+	 */
+	private void recordDigest(DigestKey key, DigestingInputStream stream) {
+		if (key == null || stream == null)
+			return;
+		byte[] digest = stream.getDigest();
+		if (digest == null)
+			return;
+		long size = key.size;
+		if (key.file != null) {
+			// Only cache the digest if the file did not change while it was read
+			IFileInfo info = fetchInfo(key.file);
+			if (info == null || key.file.getModificationStamp() != key.stamp
+					|| info.getLastModified() != key.timestamp || info.getLength() != key.size)
+				return;
+		} else {
+			// Remote contents never change, so their size can be used later on
+			size = stream.getLength();
+		}
+		ContentDigestCache.getDefault().putDigest(key.key, key.stamp, key.timestamp, size, digest);
+	}
+
+	private DigestKey getDigestKey(IResource local, Object element) {
+		if (element instanceof IFile)
+			return getLocalDigestKey((IFile) element);
+		if (element instanceof LocalFileRevision && ((LocalFileRevision) element).getFile() != null)
+			return getLocalDigestKey(((LocalFileRevision) element).getFile());
+		String key = getRemoteDigestKey(local, element);
+		if (key == null)
+			return null;
+		return new DigestKey(key, null, -1, -1, -1);
+	}
+
+	private DigestKey getLocalDigestKey(IFile file) {
+		long stamp = file.getModificationStamp();
+		IFileInfo info = fetchInfo(file);
+		if (stamp == IResource.NULL_STAMP || info == null)
+			return null;
+		return new DigestKey(LOCAL_KEY + file.getFullPath(), file, stamp, info.getLastModified(), info.getLength());
+	}
+
+	private String getRemoteDigestKey(IResource local, Object element) {
+		if (element instanceof ResourceVariantFileRevision)
+			element = ((ResourceVariantFileRevision) element).getVariant();
+		String id;
+		if (element instanceof IResourceVariant) {
+			IResourceVariant variant = (IResourceVariant) element;
+			if (variant.isContainer())
+				return null;
+			id = variant.getContentIdentifier();
+		} else if (element instanceof LocalFileRevision && ((LocalFileRevision) element).getState() != null) {
+			// Local history states never change
+			id = String.valueOf(((LocalFileRevision) element).getState().getModificationTime());
+		} else if (element instanceof IFileRevision) {
+			id = ((IFileRevision) element).getContentIdentifier();
+		} else {
+			return null;
+		}
+		if (id == null)
+			return null;
+		return REMOTE_KEY + local.getFullPath() + '\n' + element.getClass().getName() + '\n' + id;
+	}
+
+	private static IFileInfo fetchInfo(IFile file) {
+		URI location = file.getLocationURI();
+		if (location != null) {
+			try {
+				IFileInfo info = EFS.getStore(location).fetchInfo();
+				if (info.exists() && !info.isDirectory())
+					return info;
+			} catch (CoreException e) {
+				// The contents will be compared
+			}
+		}
+		return null;
+	}
+
 	abstract protected boolean contentsEqual(IProgressMonitor monitor, InputStream is1, InputStream is2,
 			boolean ignoreWhitespace);
 
@@ -14,7 +14,10 @@
 package org.eclipse.team.internal.core.subscribers;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.StringTokenizer;
 
 import org.eclipse.core.resources.IResource;
@@ -44,6 +47,9 @@ public class ActiveChangeSet extends DiffChangeSet {
 	private String comment;
 	private boolean userCreated = true;
 
+	// The persisted paths of members that have not been resolved yet
+	private volatile String[] unresolvedPaths;
+
 	/**
 	 * Create a change set with the given title
 	 * @param manager the manager that owns this set
@@ -178,6 +184,94 @@ public class ActiveChangeSet extends DiffChangeSet {
 		userCreated = prefs.getBoolean(CTX_USER_CREATED, true);
 	}
 
+	/**
+	 * Initialize the set from the state recorded in a change set journal. The
+	 * members of the set are not resolved until {@link #resolveMembers()} is
+	 * invoked by the manager.
+	 * @param state the persisted state of the set
+	 */
+	void init(ChangeSetJournal.SetState state) {
+		setName(state.getTitle());
+		comment = state.getComment();
+		userCreated = state.isUserCreated();
+		String[] paths = state.getPaths();
+		unresolvedPaths = paths.length > 0 ? paths : null;
+	}
+
+	/**
+	 * Return whether the set was loaded from a journal and its members have
+	 * not been resolved yet.
+	 * @return whether the set has unresolved members
+	 */
+	boolean hasUnresolvedMembers() {
+		return unresolvedPaths != null;
+	}
+
+	/**
+	 * Add the persisted members of the set that are still out-of-sync. Members
+	 * that were added to other sets in the meantime are skipped. This is
+	 * invoked by the manager from its background job so the contents of
+	 * the set are not accessed from the callers of the set.
+	 */
+	void resolveMembers() {
+		String[] paths = unresolvedPaths;
+		if (paths == null)
+			return;
+		ResourceDiffTree tree = internalGetDiffTree();
+		try {
+			tree.beginInput();
+			IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+			for (String path : paths) {
+				IResource resource = getResource(root, path);
+				// Only include the resource if it is still out-of-sync
+				try {
+					IDiff diff = resource == null || isInOtherSet(resource) ? null : getManager().getDiff(resource);
+					if (diff != null && isValidChange(diff)) {
+						tree.add(diff);
+					}
+				} catch (CoreException e) {
+					TeamPlugin.log(e);
+				}
+			}
+		} finally {
+			// Clear the paths before the listeners are notified so that
+			// they see the resolved contents
+			unresolvedPaths = null;
+			tree.endInput(null);
+		}
+	}
+
+	private boolean isInOtherSet(IResource resource) {
+		if (!getManager().isSingleSetPerResource())
+			return false;
+		for (ChangeSet set : getManager().getSets()) {
+			if (set != this && set.contains(resource))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Return the paths to be persisted for the members of this set. The
+	 * paths of containers end with a separator so that outgoing deletions can
+	 * be restored.
+	 * @return the paths of the members of this set
+	 */
+	String[] getPersistentPaths() {
+		String[] unresolved = unresolvedPaths;
+		IResource[] resources = internalGetDiffTree().getAffectedResources();
+		Set<String> paths = new LinkedHashSet<>();
+		if (unresolved != null)
+			paths.addAll(Arrays.asList(unresolved));
+		for (IResource resource : resources) {
+			String path = resource.getFullPath().toString();
+			if (resource.getType() != IResource.FILE && !path.endsWith("/")) //$NON-NLS-1$
+				path += IPath.SEPARATOR;
+			paths.add(path);
+		}
+		return paths.toArray(new String[paths.size()]);
+	}
+
 	private IResource getResource(IWorkspaceRoot root, String next) {
 		IResource resource = root.findMember(next);
 		if (resource == null) {
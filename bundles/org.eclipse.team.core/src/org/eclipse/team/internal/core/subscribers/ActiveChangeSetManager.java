@@ -14,7 +14,9 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core.subscribers;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -40,6 +42,7 @@ import org.eclipse.team.core.mapping.IResourceDiffTree;
 import org.eclipse.team.internal.core.Messages;
 import org.eclipse.team.internal.core.TeamPlugin;
 import org.eclipse.team.internal.core.mapping.CompoundResourceTraversal;
+import org.eclipse.team.internal.core.mapping.DiffChangeEvent;
 import org.osgi.service.prefs.BackingStoreException;
 import org.osgi.service.prefs.Preferences;
 
@@ -102,7 +105,8 @@ public abstract class ActiveChangeSetManager extends ChangeSetManager implements
 	@Override
 	public void diffsChanged(IDiffChangeEvent event, IProgressMonitor monitor) {
 		IResourceDiffTree tree = (IResourceDiffTree)event.getTree();
-		handleSyncSetChange(tree, event.getAdditions(), getAllResources(event));
+		IDiff[] additions = event.getAdditions();
+		handleSyncSetChange(tree, additions, getAllResources(event, additions));
 	}
 
 	@Override
@@ -209,9 +213,14 @@ public abstract class ActiveChangeSetManager extends ChangeSetManager implements
 		return true;
 	}
 
-	private IPath[] getAllResources(IDiffChangeEvent event) {
-		Set<IPath> allResources = new HashSet<>();
-		IDiff[] addedResources = event.getAdditions();
+	private IPath[] getAllResources(IDiffChangeEvent event, IDiff[] addedResources) {
+		Set<IPath> allResources;
+		if (event instanceof DiffChangeEvent) {
+			// Size the set up front to avoid rehashing for bulk changes
+			allResources = new HashSet<>(((DiffChangeEvent) event).getChangeCount() * 4 / 3 + 1);
+		} else {
+			allResources = new HashSet<>();
+		}
 		for (IDiff diff : addedResources) {
 			allResources.add(diff.getPath());
 		}
@@ -230,7 +239,7 @@ public abstract class ActiveChangeSetManager extends ChangeSetManager implements
 	 * @param diffs the diffs
 	 */
 	protected void handleAddedResources(ChangeSet set, IDiff[] diffs) {
-		if (isSingleSetPerResource() && ((ActiveChangeSet)set).isUserCreated()) {
+		if (diffs.length > 0 && isSingleSetPerResource() && ((ActiveChangeSet)set).isUserCreated()) {
 			IResource[] resources = new IResource[diffs.length];
 			for (int i = 0; i < resources.length; i++) {
 				resources[i] = ((DiffChangeSet)set).getDiffTree().getResource(diffs[i]);
@@ -326,6 +335,11 @@ public abstract class ActiveChangeSetManager extends ChangeSetManager implements
 		// No need to save the sets if the manager has never been initialized
 		if (!isInitialized())
 			return;
+		ChangeSetJournal journal = getJournal();
+		if (journal != null && saveJournal(journal)) {
+			removeLegacyState(prefs);
+			return;
+		}
 		// Clear the persisted state before saving the new state
 		try {
 			String[] oldSetNames = prefs.childrenNames();
@@ -359,6 +373,59 @@ public abstract class ActiveChangeSetManager extends ChangeSetManager implements
 		}
 	}
 
+	private boolean saveJournal(ChangeSetJournal journal) {
+		List<ChangeSetJournal.SetState> states = new ArrayList<>();
+		for (ChangeSet set : getSets()) {
+			if (set instanceof ActiveChangeSet) {
+				ActiveChangeSet activeSet = (ActiveChangeSet) set;
+				String[] paths = activeSet.getPersistentPaths();
+				if (paths.length > 0) {
+					states.add(new ChangeSetJournal.SetState(activeSet.getTitle(),
+							activeSet.hasComment() ? activeSet.getComment() : null,
+							activeSet.isUserCreated(), Arrays.asList(paths)));
+				}
+			}
+		}
+		try {
+			journal.save(states, getDefaultSet() != null ? getDefaultSet().getTitle() : null);
+			return true;
+		} catch (IOException e) {
+			TeamPlugin.log(IStatus.ERROR, NLS.bind(Messages.SubscriberChangeSetCollector_3, new String[] { getName() }), e);
+			return false;
+		}
+	}
+
+	/*
+	 * Remove the state written by releases that persisted the sets in the preferences
+	 */
+	private void removeLegacyState(Preferences prefs) {
+		try {
+			String[] oldSetNames = prefs.childrenNames();
+			if (oldSetNames.length == 0 && prefs.get(CTX_DEFAULT_SET, null) == null)
+				return;
+			for (String string : oldSetNames) {
+				prefs.node(string).removeNode();
+			}
+			prefs.remove(CTX_DEFAULT_SET);
+			prefs.flush();
+		} catch (BackingStoreException e) {
+			TeamPlugin.log(IStatus.ERROR, NLS.bind(Messages.SubscriberChangeSetCollector_5, new String[] { getName() }), e);
+		}
+	}
+
+	/**
+	 * Return the journal in which the sets of this manager are persisted or
+	 * <code>null</code> if the sets are persisted in the preferences passed to
+	 * {@link #save(Preferences)} and {@link #load(Preferences)}. Sets loaded
+	 * from a journal are added without members; subclasses must invoke
+	 * {@link #resolveLoadedSets()} to add the members that are still
+	 * out-of-sync. By default, <code>null</code> is returned.
+	 * @return the journal or <code>null</code>
+	 */
+	protected ChangeSetJournal getJournal() {
+		return null;
+	}
+
 	/**
 	 * Escape the given string for safe use as a preference node name by
 	 * translating / to \s (so it's a single path component) and \ to \\ (to
@@ -393,6 +460,9 @@ public abstract class ActiveChangeSetManager extends ChangeSetManager implements
 	 *            a preferences node
 	 */
 	protected void load(Preferences prefs) {
+		ChangeSetJournal journal = getJournal();
+		if (journal != null && journal.exists() && loadJournal(journal))
+			return;
 		String defaultSetTitle = prefs.get(CTX_DEFAULT_SET, null);
 		try {
 			String[] childNames = prefs.childrenNames();
@@ -411,6 +481,46 @@ public abstract class ActiveChangeSetManager extends ChangeSetManager implements
 		}
 	}
 
+	private boolean loadJournal(ChangeSetJournal journal) {
+		try {
+			journal.load();
+		} catch (IOException e) {
+			TeamPlugin.log(IStatus.ERROR, NLS.bind(Messages.SubscriberChangeSetCollector_4, new String[] { getName() }), e);
+			return false;
+		}
+		String defaultSetTitle = journal.getDefaultSet();
+		for (ChangeSetJournal.SetState state : journal.getSets()) {
+			ActiveChangeSet set = doCreateSet(null);
+			set.init(state);
+			if (set.getPersistentPaths().length > 0) {
+				if (getDefaultSet() == null && defaultSetTitle != null && set.getTitle().equals(defaultSetTitle)) {
+					makeDefault(set);
+				}
+				add(set);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Add the persisted members that are still out-of-sync to the sets that
+	 * were loaded from the journal and remove the sets that end up empty. This
+	 * obtains the diff of each persisted member so it should be invoked from a
+	 * background job rather than when the sets are first accessed.
+	 */
+	protected void resolveLoadedSets() {
+		for (ChangeSet set : getSets()) {
+			if (set instanceof ActiveChangeSet && ((ActiveChangeSet) set).hasUnresolvedMembers()) {
+				ActiveChangeSet activeSet = (ActiveChangeSet) set;
+				activeSet.resolveMembers();
+				if (activeSet.isEmpty()) {
+					// None of the persisted members are out-of-sync any more
+					remove(activeSet);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Return the name of this change set manager.
 	 * @return the name of this change set manager
@@ -0,0 +1,412 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.subscribers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An append-only store for the state of the change sets of an
+ * {@link ActiveChangeSetManager}.
+ * <p>
+ * The journal keeps a copy of the state that was last persisted. Saving the
+ * current state only appends the differences to that copy (i.e. the sets that
+ * were created, changed or removed and the paths that were added to or removed
+ * from each set) so the cost of a save is proportional to what changed rather
+ * than to the total number of members. The records written by one save form a
+ * batch that is terminated by a commit marker; an incomplete batch, as left by a
+ * crash, is ignored when the journal is read. When the journal has grown to
+ * contain mostly obsolete records it is compacted by rewriting the live state
+ * into a new file that replaces the old one.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ */
+public class ChangeSetJournal {
+
+	private static final int MAGIC = 0x54435331; // "TCS1"
+	private static final int VERSION = 1;
+
+	private static final byte OP_SET = 1;
+	private static final byte OP_REMOVE_SET = 2;
+	private static final byte OP_ADD = 3;
+	private static final byte OP_REMOVE = 4;
+	private static final byte OP_DEFAULT = 5;
+	private static final byte OP_COMMIT = 6;
+
+	// The journal is compacted when the number of obsolete entries exceeds both
+	// the number of live entries and this threshold
+	private static final int COMPACTION_THRESHOLD = 1000;
+
+	/**
+	 * The persisted state of a change set.
+	 */
+	public static final class SetState {
+		private final String title;
+		private String comment;
+		private boolean userCreated;
+		private final Set<String> paths;
+
+		/**
+		 * Create the state of a change set.
+		 * @param title the title of the set
+		 * @param comment the comment of the set or <code>null</code>
+		 * @param userCreated whether the set was created by the user
+		 * @param paths the persisted paths of the members of the set
+		 */
+		public SetState(String title, String comment, boolean userCreated, Collection<String> paths) {
+			this.title = title;
+			this.comment = comment;
+			this.userCreated = userCreated;
+			this.paths = new LinkedHashSet<>(paths);
+		}
+
+		public String getTitle() {
+			return title;
+		}
+
+		public String getComment() {
+			return comment;
+		}
+
+		public boolean isUserCreated() {
+			return userCreated;
+		}
+
+		public String[] getPaths() {
+			return paths.toArray(new String[paths.size()]);
+		}
+
+		boolean hasSameProperties(SetState other) {
+			return Objects.equals(comment, other.comment) && userCreated == other.userCreated;
+		}
+	}
+
+	private final File file;
+	private final Map<String, SetState> sets = new LinkedHashMap<>();
+	private String defaultSet;
+
+	// The number of entries in the file and whether the file must be rewritten
+	// before records can be appended to it
+	private int writtenEntries;
+	private boolean needsRewrite = true;
+
+	/**
+	 * Create a journal that is stored in the given file.
+	 * @param file the journal file
+	 */
+	public ChangeSetJournal(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Return whether the journal file exists.
+	 * @return whether the journal file exists
+	 */
+	public boolean exists() {
+		return file.exists();
+	}
+
+	/**
+	 * Read the journal file, replacing any state held by this journal.
+	 * @throws IOException if the file cannot be read or is not a journal
+	 */
+	public void load() throws IOException {
+		sets.clear();
+		defaultSet = null;
+		writtenEntries = 0;
+		needsRewrite = true;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException("Unsupported change set journal format: " + file); //$NON-NLS-1$
+			List<Runnable> batch = new ArrayList<>();
+			int batchEntries = 0;
+			boolean complete = true;
+			try {
+				while (true) {
+					int op = in.read();
+					if (op == -1)
+						break;
+					complete = false;
+					if (op == OP_COMMIT) {
+						batch.forEach(Runnable::run);
+						batch.clear();
+						writtenEntries += batchEntries;
+						batchEntries = 0;
+						complete = true;
+						continue;
+					}
+					batchEntries += readRecord(op, in, batch);
+				}
+			} catch (EOFException e) {
+				// The last batch was truncated
+			}
+			// Appending after a truncated batch would make the new records unreadable
+			needsRewrite = !complete;
+		}
+	}
+
+	private int readRecord(int op, DataInputStream in, List<Runnable> batch) throws IOException {
+		switch (op) {
+		case OP_SET: {
+			String title = readString(in);
+			String comment = in.readBoolean() ? readString(in) : null;
+			boolean userCreated = in.readBoolean();
+			batch.add(() -> {
+				SetState state = sets.get(title);
+				if (state == null) {
+					sets.put(title, new SetState(title, comment, userCreated, Collections.emptySet()));
+				} else {
+					state.comment = comment;
+					state.userCreated = userCreated;
+				}
+			});
+			return 1;
+		}
+		case OP_REMOVE_SET: {
+			String title = readString(in);
+			batch.add(() -> sets.remove(title));
+			return 1;
+		}
+		case OP_ADD:
+		case OP_REMOVE: {
+			String title = readString(in);
+			int count = in.readInt();
+			if (count < 0)
+				throw new IOException("Corrupt change set journal: " + file); //$NON-NLS-1$
+			List<String> paths = new ArrayList<>(Math.min(count, 1024));
+			for (int i = 0; i < count; i++) {
+				paths.add(readString(in));
+			}
+			batch.add(() -> {
+				SetState state = sets.get(title);
+				if (state == null)
+					return;
+				if (op == OP_ADD) {
+					state.paths.addAll(paths);
+				} else {
+					state.paths.removeAll(paths);
+				}
+			});
+			return count;
+		}
+		case OP_DEFAULT: {
+			String title = in.readBoolean() ? readString(in) : null;
+			batch.add(() -> defaultSet = title);
+			return 1;
+		}
+		default:
+			throw new IOException("Corrupt change set journal: " + file); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Return the persisted state of the sets in the order in which they were
+	 * first persisted.
+	 * @return the persisted state of the sets
+	 */
+	public Collection<SetState> getSets() {
+		return Collections.unmodifiableCollection(sets.values());
+	}
+
+	/**
+	 * Return the title of the default set or <code>null</code>.
+	 * @return the title of the default set
+	 */
+	public String getDefaultSet() {
+		return defaultSet;
+	}
+
+	/**
+	 * Persist the given state by appending its differences to the previously
+	 * persisted state to the journal. The journal is compacted if it has grown
+	 * too large.
+	 * @param current the current state of the sets
+	 * @param currentDefault the title of the default set or <code>null</code>
+	 * @throws IOException if the journal could not be written
+	 */
+	public void save(Collection<SetState> current, String currentDefault) throws IOException {
+		Map<String, SetState> target = new LinkedHashMap<>();
+		for (SetState state : current) {
+			target.put(state.title, state);
+		}
+		if (needsRewrite || !file.exists()) {
+			compact(target, currentDefault);
+			return;
+		}
+		// Collect the batch in memory so that it reaches the file with a single write
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		int entries = 0;
+		for (String title : sets.keySet()) {
+			if (!target.containsKey(title)) {
+				out.writeByte(OP_REMOVE_SET);
+				writeString(out, title);
+				entries++;
+			}
+		}
+		for (SetState state : target.values()) {
+			SetState previous = sets.get(state.title);
+			if (previous == null || !previous.hasSameProperties(state)) {
+				writeSet(out, state);
+				entries++;
+			}
+			if (previous == null) {
+				entries += writePaths(out, OP_ADD, state.title, state.paths);
+				continue;
+			}
+			List<String> added = new ArrayList<>();
+			for (String path : state.paths) {
+				if (!previous.paths.contains(path))
+					added.add(path);
+			}
+			List<String> removed = new ArrayList<>();
+			for (String path : previous.paths) {
+				if (!state.paths.contains(path))
+					removed.add(path);
+			}
+			entries += writePaths(out, OP_ADD, state.title, added);
+			entries += writePaths(out, OP_REMOVE, state.title, removed);
+		}
+		if (!Objects.equals(defaultSet, currentDefault)) {
+			writeDefault(out, currentDefault);
+			entries++;
+		}
+		if (entries == 0)
+			return;
+		if (shouldCompact(target, entries)) {
+			compact(target, currentDefault);
+			return;
+		}
+		out.writeByte(OP_COMMIT);
+		out.flush();
+		try (FileOutputStream stream = new FileOutputStream(file, true)) {
+			buffer.writeTo(stream);
+			stream.getFD().sync();
+		}
+		writtenEntries += entries;
+		setState(target, currentDefault);
+	}
+
+	private boolean shouldCompact(Map<String, SetState> target, int appendedEntries) {
+		int liveEntries = 0;
+		for (SetState state : target.values()) {
+			liveEntries += 1 + state.paths.size();
+		}
+		int obsoleteEntries = writtenEntries + appendedEntries - liveEntries;
+		return obsoleteEntries > COMPACTION_THRESHOLD && obsoleteEntries > liveEntries;
+	}
+
+	private void compact(Map<String, SetState> target, String currentDefault) throws IOException {
+		File parent = file.getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs())
+			throw new IOException("Could not create " + parent); //$NON-NLS-1$
+		File temp = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		int entries = 0;
+		try (FileOutputStream stream = new FileOutputStream(temp)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			for (SetState state : target.values()) {
+				writeSet(out, state);
+				entries += 1 + writePaths(out, OP_ADD, state.title, state.paths);
+			}
+			if (currentDefault != null) {
+				writeDefault(out, currentDefault);
+				entries++;
+			}
+			out.writeByte(OP_COMMIT);
+			out.flush();
+			stream.getFD().sync();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		writtenEntries = entries;
+		needsRewrite = false;
+		setState(target, currentDefault);
+	}
+
+	private void setState(Map<String, SetState> target, String currentDefault) {
+		sets.clear();
+		for (SetState state : target.values()) {
+			sets.put(state.title, new SetState(state.title, state.comment, state.userCreated, state.paths));
+		}
+		defaultSet = currentDefault;
+	}
+
+	private static void writeSet(DataOutputStream out, SetState state) throws IOException {
+		out.writeByte(OP_SET);
+		writeString(out, state.title);
+		out.writeBoolean(state.comment != null);
+		if (state.comment != null)
+			writeString(out, state.comment);
+		out.writeBoolean(state.userCreated);
+	}
+
+	private static int writePaths(DataOutputStream out, byte op, String title, Collection<String> paths) throws IOException {
+		if (paths.isEmpty())
+			return 0;
+		out.writeByte(op);
+		writeString(out, title);
+		out.writeInt(paths.size());
+		for (String path : paths) {
+			writeString(out, path);
+		}
+		return paths.size();
+	}
+
+	private static void writeDefault(DataOutputStream out, String title) throws IOException {
+		out.writeByte(OP_DEFAULT);
+		out.writeBoolean(title != null);
+		if (title != null)
+			writeString(out, title);
+	}
+
+	// DataOutput#writeUTF is limited to 64K so lengths are written explicitly
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			throw new IOException("Corrupt change set journal"); //$NON-NLS-1$
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -53,18 +53,7 @@ public class ContentComparator extends AbstractContentComparator{
 			if (is1 == null || is2 == null)
 				return false;
 
-			while (true) {
-				int c1 = is1.read();
-				while (shouldIgnoreWhitespace() && isWhitespace(c1))
-					c1 = is1.read();
-				int c2 = is2.read();
-				while (shouldIgnoreWhitespace() && isWhitespace(c2))
-					c2 = is2.read();
-				if (c1 == -1 && c2 == -1)
-					return true;
-				if (c1 != c2)
-					break;
-			}
+			return StreamComparison.contentsEqual(is1, is2, shouldIgnoreWhitespace());
 		} catch (IOException ex) {
 		} finally {
 			try {
@@ -84,9 +73,8 @@ public class ContentComparator extends AbstractContentComparator{
 		return false;
 	}
 
-	private boolean isWhitespace(int c) {
-		if (c == -1)
-			return false;
-		return Character.isWhitespace((char) c);
+	@Override
+	protected boolean isExactComparison() {
+		return !shouldIgnoreWhitespace();
 	}
 }
@@ -13,17 +13,33 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core.subscribers;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobGroup;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.core.diff.DiffFilter;
 import org.eclipse.team.core.diff.IDiff;
 import org.eclipse.team.core.history.IFileRevision;
 import org.eclipse.team.core.mapping.provider.ResourceDiffTree;
+import org.eclipse.team.internal.core.Messages;
+import org.eclipse.team.internal.core.TeamPlugin;
 import org.eclipse.team.internal.core.mapping.SyncInfoToDiffConverter;
 
 public class ContentComparisonDiffFilter extends DiffFilter {
+
+	// the maximum number of jobs used to compare contents concurrently
+	private static final int MAX_WORKERS = 4;
+
 	ContentComparator criteria = new ContentComparator(false);
 
 	/**
@@ -65,4 +81,87 @@ public class ContentComparisonDiffFilter extends DiffFilter {
 		if (!local.exists()) return false;
 		return compareContents((IFile)local, remote, monitor);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Select the given diffs, comparing contents concurrently. The result for
+	 * each diff is the same as that of {@link #select(IDiff, IProgressMonitor)}
+	 * except that a diff whose selection fails with a runtime exception is
+	 * selected, so that a change is not hidden, and the exception is logged.
+	 * The diffs are claimed in order by up to {@link #getWorkerCount()} worker
+	 * jobs so that the remote contents of several diffs are fetched at once
+	 * while the contents of others are being compared.
+	 * @param diffs the diffs
+	 * @param monitor a progress monitor
+	 * @return whether each diff is selected
+	 * @throws OperationCanceledException if the monitor is canceled
+	 */
+	public boolean[] select(IDiff[] diffs, IProgressMonitor monitor) {
+		boolean[] selected = new boolean[diffs.length];
+		int workerCount = Math.min(getWorkerCount(), diffs.length);
+		if (workerCount <= 1) {
+			SubMonitor progress = SubMonitor.convert(monitor, diffs.length);
+			for (int i = 0; i < diffs.length; i++) {
+				selected[i] = selectOrKeep(diffs[i], progress.split(1));
+			}
+			return selected;
+		}
+		AtomicInteger next = new AtomicInteger();
+		JobGroup group = new JobGroup(Messages.ContentComparisonDiffFilter_0, workerCount, workerCount);
+		for (int w = 0; w < workerCount; w++) {
+			Job worker = new Job(Messages.ContentComparisonDiffFilter_0) {
+				@Override
+				protected IStatus run(IProgressMonitor workerMonitor) {
+					int i;
+					while ((i = next.getAndIncrement()) < diffs.length) {
+						if (workerMonitor.isCanceled())
+							return Status.CANCEL_STATUS;
+						selected[i] = selectOrKeep(diffs[i], new NullProgressMonitor());
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			worker.setSystem(true);
+			worker.setJobGroup(group);
+			worker.schedule();
+		}
+		try {
+			// Joining the group makes the results of the workers visible
+			group.join(0, monitor);
+		} catch (InterruptedException e) {
+			group.cancel();
+			throw new OperationCanceledException();
+		} catch (OperationCanceledException e) {
+			group.cancel();
+			throw e;
+		}
+		if (group.getResult() != null && group.getResult().getSeverity() == IStatus.CANCEL)
+			throw new OperationCanceledException();
+		return selected;
+	}
+
+	/*
+	 * Return whether the diff is selected, keeping it if the selection fails
+	 */
+	boolean selectOrKeep(IDiff diff, IProgressMonitor monitor) {
+		try {
+			return select(diff, monitor);
+		} catch (OperationCanceledException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			// Keep the diff rather than hide a change
+			TeamPlugin.log(IStatus.ERROR, NLS.bind(Messages.ContentComparisonDiffFilter_1, diff.getPath()), e);
+			return true;
+		}
+	}
+
+	/**
+	 * Return the maximum number of jobs that {@link #select(IDiff[], IProgressMonitor)}
+	 * uses to compare contents concurrently. A value of <code>1</code> disables
+	 * concurrent comparison. By default, the number of available processors is used,
+	 * up to a maximum of 4.
+	 * @return the maximum number of workers
+	 */
+	protected int getWorkerCount() {
+		return Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors());
+	}
+}
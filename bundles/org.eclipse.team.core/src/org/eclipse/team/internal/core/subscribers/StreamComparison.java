@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.core.subscribers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Block based comparison of the contents of two streams.
+ * <p>
+ * The streams are read into a pair of buffers that are reused by each thread
+ * and the buffered blocks are compared with {@link Arrays#mismatch}. When
+ * whitespace is ignored, each block is compacted in place to its
+ * non-whitespace bytes before it is compared, so that whitespace is never
+ * skipped one read at a time. Whitespace is determined per byte using
+ * {@link Character#isWhitespace(char)}, as the comparators always did.
+ * </p>
+ */
+public final class StreamComparison {
+
+	private static final int BUFFER_SIZE = 32 * 1024;
+
+	private static final boolean[] WHITESPACE = new boolean[256];
+	static {
+		for (int i = 0; i < WHITESPACE.length; i++) {
+			WHITESPACE[i] = Character.isWhitespace((char) i);
+		}
+	}
+
+	private static final ThreadLocal<byte[][]> BUFFERS = ThreadLocal
+			.withInitial(() -> new byte[][] { new byte[BUFFER_SIZE], new byte[BUFFER_SIZE] });
+
+	/*
+	 * A stream whose contents are consumed a block at a time
+	 */
+	private static final class Block {
+		private final InputStream stream;
+		private final byte[] buffer;
+		private final boolean ignoreWhitespace;
+		private int position;
+		private int limit;
+
+		Block(InputStream stream, byte[] buffer, boolean ignoreWhitespace) {
+			this.stream = stream;
+			this.buffer = buffer;
+			this.ignoreWhitespace = ignoreWhitespace;
+		}
+
+		int remaining() {
+			return limit - position;
+		}
+
+		/*
+		 * Read the next block, returning false at the end of the stream
+		 */
+		boolean fill() throws IOException {
+			position = 0;
+			limit = 0;
+			while (limit == 0) {
+				int read = stream.read(buffer, 0, buffer.length);
+				if (read == -1)
+					return false;
+				limit = ignoreWhitespace ? removeWhitespace(buffer, read) : read;
+			}
+			return true;
+		}
+	}
+
+	private StreamComparison() {
+		// Not to be instantiated
+	}
+
+	/**
+	 * Return whether the two streams have the same contents. The streams are
+	 * read but not closed.
+	 * @param is1 the first stream
+	 * @param is2 the second stream
+	 * @param ignoreWhitespace whether whitespace bytes are to be ignored
+	 * @return whether the contents of the streams are equal
+	 * @throws IOException if either stream could not be read
+	 */
+	public static boolean contentsEqual(InputStream is1, InputStream is2, boolean ignoreWhitespace) throws IOException {
+		byte[][] buffers = BUFFERS.get();
+		Block b1 = new Block(is1, buffers[0], ignoreWhitespace);
+		Block b2 = new Block(is2, buffers[1], ignoreWhitespace);
+		while (true) {
+			boolean more1 = b1.remaining() > 0 || b1.fill();
+			boolean more2 = b2.remaining() > 0 || b2.fill();
+			if (!more1 || !more2)
+				return more1 == more2;
+			int length = Math.min(b1.remaining(), b2.remaining());
+			if (Arrays.mismatch(b1.buffer, b1.position, b1.position + length,
+					b2.buffer, b2.position, b2.position + length) != -1)
+				return false;
+			b1.position += length;
+			b2.position += length;
+		}
+	}
+
+	/*
+	 * Compact the non-whitespace bytes of the first length bytes of the buffer
+	 * to its start and return their number
+	 */
+	private static int removeWhitespace(byte[] buffer, int length) {
+		int count = 0;
+		for (int i = 0; i < length; i++) {
+			byte b = buffer[i];
+			if (!WHITESPACE[b & 0xFF]) {
+				buffer[count++] = b;
+			}
+		}
+		return count;
+	}
+}
@@ -13,6 +13,9 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core.subscribers;
 
+import java.io.File;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -45,9 +48,13 @@ public class SubscriberChangeSetManager extends ActiveChangeSetManager {
 
 	private static final int RESOURCE_REMOVAL = 1;
 	private static final int RESOURCE_CHANGE = 2;
+	private static final int RESOLVE_LOADED_SETS = 3;
+
+	private static final String JOURNAL_EXTENSION = ".journal"; //$NON-NLS-1$
 
 	private EventHandler handler;
 	private ResourceCollector collector;
+	private ChangeSetJournal journal;
 
 	/*
 	 * Background event handler for serializing and batching change set changes
@@ -75,6 +82,13 @@ public class SubscriberChangeSetManager extends ActiveChangeSetManager {
 			}
 			if (isShutdown())
 				throw new OperationCanceledException();
+			for (Event event : dispatchEvents) {
+				if (event.getType() == RESOLVE_LOADED_SETS) {
+					// Resolve the loaded sets before locking any of the trees
+					resolveLoadedSets();
+					break;
+				}
+			}
 			ResourceDiffTree[] locked = null;
 			try {
 				locked = beginDispath();
@@ -269,6 +283,8 @@ public class SubscriberChangeSetManager extends ActiveChangeSetManager {
 	@Override
 	protected void initializeSets() {
 		load(getPreferences());
+		// Sets loaded from the journal get their members in the background
+		handler.queueEvent(new BackgroundEventHandler.Event(RESOLVE_LOADED_SETS), true);
 	}
 
 	public boolean hasMembers(IResource resource) {
@@ -312,6 +328,16 @@ public class SubscriberChangeSetManager extends ActiveChangeSetManager {
 		save(getPreferences());
 	}
 
+	@Override
+	protected synchronized ChangeSetJournal getJournal() {
+		if (journal == null) {
+			String fileName = URLEncoder.encode(getSubscriberIdentifier(), StandardCharsets.UTF_8) + JOURNAL_EXTENSION;
+			File file = TeamPlugin.getPlugin().getStateLocation().append(PREF_CHANGE_SETS).append(fileName).toFile();
+			journal = new ChangeSetJournal(file);
+		}
+		return journal;
+	}
+
 	private Preferences getPreferences() {
 		return getParentPreferences().node(getSubscriberIdentifier());
 	}
@@ -13,12 +13,18 @@
  *******************************************************************************/
 package org.eclipse.team.internal.core.subscribers;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.resources.mapping.ResourceTraversal;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.core.ITeamStatus;
@@ -171,6 +177,16 @@ public class SubscriberDiffTreeEventHandler extends SubscriberEventHandler {
 		}
 	}
 
+	/*
+	 * The subscriber is already queried concurrently by the handlers of other
+	 * sets and handleChange only queues the result, so the partitions can be
+	 * collected concurrently
+	 */
+	@Override
+	protected int getPartitionWorkerCount() {
+		return getDefaultPartitionWorkerCount();
+	}
+
 	private boolean isInScope(IResource resource) {
 		return manager.getScope().contains(resource);
 	}
@@ -204,6 +220,7 @@ public class SubscriberDiffTreeEventHandler extends SubscriberEventHandler {
 	@Override
 	protected void dispatchEvents(SubscriberEvent[] events,
 			IProgressMonitor monitor) {
+		Map<IDiff, Boolean> selections = selectConcurrently(events);
 		try {
 			tree.beginInput();
 			for (SubscriberEvent event : events) {
@@ -215,7 +232,7 @@ public class SubscriberDiffTreeEventHandler extends SubscriberEventHandler {
 							if (changedNode.getKind() == IDiff.NO_CHANGE) {
 								tree.remove(changedNode.getPath());
 							} else {
-								addDiff(changedNode, monitor);
+								addDiff(changedNode, selections, monitor);
 							}
 						}
 						break;
@@ -232,14 +249,64 @@ public class SubscriberDiffTreeEventHandler extends SubscriberEventHandler {
 		}
 	}
 
-	private void addDiff(IDiff diff, IProgressMonitor monitor) {
-		if (filter == null || filter.select(diff, monitor)) {
+	/*
+	 * Evaluate a content comparison filter for all the changed diffs at once
+	 * so that the contents are compared concurrently. Returns null if the
+	 * filter is to be evaluated for each diff as it is added.
+	 */
+	private Map<IDiff, Boolean> selectConcurrently(SubscriberEvent[] events) {
+		if (!(filter instanceof ContentComparisonDiffFilter))
+			return null;
+		List<IDiff> diffs = new ArrayList<>();
+		for (SubscriberEvent event : events) {
+			if (event instanceof SubscriberDiffChangedEvent) {
+				IDiff diff = ((SubscriberDiffChangedEvent) event).getChangedNode();
+				if (diff.getKind() != IDiff.NO_CHANGE)
+					diffs.add(diff);
+			}
+		}
+		if (diffs.size() < 2)
+			return null;
+		// Like the dispatch itself, the comparison cannot be canceled part way
+		boolean[] selected = ((ContentComparisonDiffFilter) filter).select(diffs.toArray(new IDiff[diffs.size()]), new NullProgressMonitor());
+		Map<IDiff, Boolean> selections = new IdentityHashMap<>(diffs.size());
+		for (int i = 0; i < selected.length; i++) {
+			selections.put(diffs.get(i), Boolean.valueOf(selected[i]));
+		}
+		return selections;
+	}
+
+	private void addDiff(IDiff diff, Map<IDiff, Boolean> selections, IProgressMonitor monitor) {
+		Boolean selected = selections == null ? null : selections.get(diff);
+		if (selected == null)
+			selected = Boolean.valueOf(select(diff, monitor));
+		if (selected.booleanValue()) {
 			tree.add(diff);
 		} else {
 			tree.remove(diff.getPath());
 		}
 	}
 
+	/*
+	 * Return whether the filter selects the diff. Like in a concurrent
+	 * comparison, a diff whose selection fails is kept, so that a change is
+	 * not hidden, and the failure is logged.
+	 */
+	private boolean select(IDiff diff, IProgressMonitor monitor) {
+		if (filter == null)
+			return true;
+		if (filter instanceof ContentComparisonDiffFilter)
+			return ((ContentComparisonDiffFilter) filter).selectOrKeep(diff, monitor);
+		try {
+			return filter.select(diff, monitor);
+		} catch (OperationCanceledException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			TeamPlugin.log(IStatus.ERROR, NLS.bind(Messages.SubscriberDiffTreeEventHandler_1, diff.getPath()), e);
+			return true;
+		}
+	}
+
 	/**
 	 * Return the resource diff tree that contains the out-of-sync diffs for the
 	 * subscriber.
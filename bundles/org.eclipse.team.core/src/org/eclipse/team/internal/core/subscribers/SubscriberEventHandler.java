@@ -14,16 +14,26 @@
 package org.eclipse.team.internal.core.subscribers;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.mapping.ResourceTraversal;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
+import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobGroup;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.core.ITeamStatus;
 import org.eclipse.team.core.TeamException;
@@ -40,6 +50,13 @@ import org.eclipse.team.internal.core.Policy;
  *
  * Exceptions that occur when the job is processing the events are collected and
  * returned as part of the Job's status.
+ *
+ * Consecutive change events are partitioned by project (or by top-level folder
+ * when they all belong to the same project). Subclasses may opt in to have the
+ * partitions processed concurrently by worker jobs (see
+ * <code>getPartitionWorkerCount</code>). The
+ * changes of a partition are processed in order by a single worker and the
+ * results are fed to the set in batches by the handler job.
  */
 public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 
@@ -58,6 +75,68 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 
 	private ISynchronizationScopeChangeListener scopeChangeListener;
 
+	private static final int MAX_PARTITION_WORKERS = 4;
+
+	/*
+	 * An error that occurred in a partition worker. Errors are reported from the
+	 * handler job once the workers are done.
+	 */
+	private static class CollectionError {
+		final CoreException exception;
+		final IResource resource;
+		final int code;
+		final String message;
+		CollectionError(CoreException exception, IResource resource, int code, String message) {
+			this.exception = exception;
+			this.resource = resource;
+			this.code = code;
+			this.message = message;
+		}
+	}
+
+	/*
+	 * The progress of the partition workers. The workers report to this object
+	 * from their own threads and the handler job forwards the progress to its
+	 * own monitor.
+	 */
+	private static class WorkerProgress {
+		private final AtomicInteger work = new AtomicInteger();
+		private volatile String subTask;
+		private String reportedSubTask;
+
+		IProgressMonitor createMonitor(IProgressMonitor workerMonitor, IProgressMonitor parent) {
+			return new ProgressMonitorWrapper(workerMonitor) {
+				@Override
+				public void worked(int ticks) {
+					work.addAndGet(ticks);
+				}
+				@Override
+				public void subTask(String name) {
+					subTask = name;
+				}
+				@Override
+				public boolean isCanceled() {
+					return super.isCanceled() || parent.isCanceled();
+				}
+			};
+		}
+
+		/*
+		 * Forward the progress reported since the last call. Must be called from the
+		 * thread that owns the monitor.
+		 */
+		void reportTo(IProgressMonitor monitor) {
+			int ticks = work.getAndSet(0);
+			if (ticks > 0)
+				monitor.worked(ticks);
+			String name = subTask;
+			if (name != null && name != reportedSubTask) {
+				monitor.subTask(name);
+				reportedSubTask = name;
+			}
+		}
+	}
+
 	/**
 	 * Internal resource synchronization event. Can contain a result.
 	 */
@@ -132,6 +211,14 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 			super.queueEvent(event, front);
 		}
 	}
+
+	@Override
+	protected boolean isCoalescable(Event event) {
+		// Recalculating the state of a resource, collecting all the resources below
+		// it and removing it are all idempotent
+		return event instanceof SubscriberEvent;
+	}
+
 	/**
 	 * Schedule the job or process the events now.
 	 */
@@ -180,19 +267,23 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 			new SubscriberEvent(resource, SubscriberEvent.REMOVAL, IResource.DEPTH_INFINITE), false);
 	}
 
-	/**
-	 * Collect the calculated synchronization information for the given resource at the given depth. The
-	 * results are added to the provided list.
+	/*
+	 * Collect the calculated synchronization information for the given resource at the given depth.
+	 * If a list of errors is provided, the collection is being performed by a partition worker
+	 * so errors are accumulated in the list and preemptive events and dispatching are left to
+	 * the handler job.
 	 */
 	private void collect(
 		IResource resource,
 		int depth,
-		IProgressMonitor monitor) {
+		IProgressMonitor monitor,
+		List<CollectionError> workerErrors) {
 
 		Policy.checkCanceled(monitor);
 
 		// handle any preemptive events before continuing
-		handlePreemptiveEvents(monitor);
+		if (workerErrors == null)
+			handlePreemptiveEvents(monitor);
 
 		if (resource.getType() != IResource.FILE
 			&& depth != IResource.DEPTH_ZERO) {
@@ -202,26 +293,184 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 				for (IResource member : members) {
 					collect(member, depth == IResource.DEPTH_INFINITE
 							? IResource.DEPTH_INFINITE
-							: IResource.DEPTH_ZERO, monitor);
+							: IResource.DEPTH_ZERO, monitor, workerErrors);
 				}
 			} catch (TeamException e) {
 				// We only handle the exception if the resource's project is accessible.
 				// The project close delta will clean up.
 				if (resource.getProject().isAccessible())
-					handleException(e, resource, ITeamStatus.SYNC_INFO_SET_ERROR, NLS.bind(Messages.SubscriberEventHandler_8, new String[] { resource.getFullPath().toString(), e.getMessage() }));
+					handleCollectionException(workerErrors, e, resource, ITeamStatus.SYNC_INFO_SET_ERROR, NLS.bind(Messages.SubscriberEventHandler_8, new String[] { resource.getFullPath().toString(), e.getMessage() }));
 			}
 		}
 
 		monitor.subTask(NLS.bind(Messages.SubscriberEventHandler_2, new String[] { resource.getFullPath().toString() }));
 		try {
 			handleChange(resource);
-			handlePendingDispatch(monitor);
+			if (workerErrors == null)
+				handlePendingDispatch(monitor);
 		} catch (CoreException e) {
-			handleException(e, resource, ITeamStatus.RESOURCE_SYNC_INFO_ERROR, NLS.bind(Messages.SubscriberEventHandler_9, new String[] { resource.getFullPath().toString(), e.getMessage() }));
+			handleCollectionException(workerErrors, e, resource, ITeamStatus.RESOURCE_SYNC_INFO_ERROR, NLS.bind(Messages.SubscriberEventHandler_9, new String[] { resource.getFullPath().toString(), e.getMessage() }));
 		}
 		monitor.worked(1);
 	}
 
+	private void handleCollectionException(List<CollectionError> workerErrors, CoreException e, IResource resource, int code, String message) {
+		if (workerErrors == null) {
+			handleException(e, resource, code, message);
+		} else {
+			workerErrors.add(new CollectionError(e, resource, code, message));
+		}
+	}
+
+	/*
+	 * Collect the synchronization state for the change event and for any change events
+	 * that immediately follow it on the queue. If the changes span more than one partition,
+	 * the partitions are collected concurrently.
+	 */
+	private void collectChanges(ResourceEvent event, IProgressMonitor monitor) {
+		List<ResourceEvent> batch = new ArrayList<>();
+		batch.add(event);
+		if (getPartitionWorkerCount() > 1) {
+			synchronized (this) {
+				Event next;
+				while ((next = peek()) instanceof ResourceEvent && next.getType() == SubscriberEvent.CHANGE) {
+					batch.add((ResourceEvent) nextElement());
+				}
+			}
+		}
+		Map<Object, List<ResourceEvent>> partitions = partition(batch);
+		if (partitions.size() < 2) {
+			for (ResourceEvent change : batch) {
+				collectChange(change, monitor, null);
+			}
+		} else {
+			collectConcurrently(partitions.values(), monitor);
+		}
+	}
+
+	/*
+	 * Collect the synchronization state for a single change. Like the failure of
+	 * an event, the failure of a change is reported and the following changes are
+	 * still collected.
+	 */
+	private void collectChange(ResourceEvent change, IProgressMonitor monitor, List<CollectionError> workerErrors) {
+		try {
+			collect(change.getResource(), change.getDepth(), monitor, workerErrors);
+		} catch (OperationCanceledException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			IResource resource = change.getResource();
+			handleCollectionException(workerErrors, new TeamException(Messages.SubscriberEventHandler_10, e), resource, ITeamStatus.SYNC_INFO_SET_ERROR, NLS.bind(Messages.SubscriberEventHandler_11, new String[] { resource.getFullPath().toString(), e.getMessage() }));
+		}
+	}
+
+	/*
+	 * Partition the changes by project. If all the changes are below a single
+	 * project, they are partitioned by top-level folder instead. Changes to the
+	 * workspace root cannot be partitioned.
+	 */
+	private Map<Object, List<ResourceEvent>> partition(List<ResourceEvent> batch) {
+		Map<Object, List<ResourceEvent>> partitions = new LinkedHashMap<>();
+		IProject singleProject = null;
+		boolean byFolder = true;
+		for (ResourceEvent change : batch) {
+			IResource resource = change.getResource();
+			if (resource.getType() == IResource.ROOT) {
+				partitions.put(resource, batch);
+				return partitions;
+			}
+			if (resource.getType() == IResource.PROJECT) {
+				byFolder = false;
+			} else if (singleProject == null) {
+				singleProject = resource.getProject();
+			} else if (!singleProject.equals(resource.getProject())) {
+				byFolder = false;
+			}
+		}
+		for (ResourceEvent change : batch) {
+			IResource resource = change.getResource();
+			Object key = byFolder ? resource.getFullPath().uptoSegment(2) : resource.getProject();
+			partitions.computeIfAbsent(key, k -> new ArrayList<>()).add(change);
+		}
+		return partitions;
+	}
+
+	/*
+	 * Collect each partition in a worker job. The handler job waits for the workers
+	 * to finish, handling preemptive events, dispatching results and reporting the
+	 * progress of the workers as it does.
+	 */
+	private void collectConcurrently(Collection<List<ResourceEvent>> partitions, IProgressMonitor monitor) {
+		JobGroup group = new JobGroup(getName(), getPartitionWorkerCount(), partitions.size());
+		List<CollectionError> workerErrors = Collections.synchronizedList(new ArrayList<>());
+		WorkerProgress progress = new WorkerProgress();
+		for (List<ResourceEvent> changes : partitions) {
+			Job worker = new Job(getName()) {
+				@Override
+				protected IStatus run(IProgressMonitor workerMonitor) {
+					IProgressMonitor collectMonitor = progress.createMonitor(workerMonitor, monitor);
+					try {
+						for (ResourceEvent change : changes) {
+							collectChange(change, collectMonitor, workerErrors);
+						}
+					} catch (OperationCanceledException e) {
+						return Status.CANCEL_STATUS;
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			worker.setSystem(true);
+			worker.setJobGroup(group);
+			worker.schedule();
+		}
+		try {
+			while (!group.join(getDispatchWaitDelay(), monitor)) {
+				progress.reportTo(monitor);
+				handlePreemptiveEvents(monitor);
+				handlePendingDispatch(monitor);
+			}
+		} catch (InterruptedException e) {
+			group.cancel();
+			throw new OperationCanceledException();
+		} catch (OperationCanceledException e) {
+			group.cancel();
+			throw e;
+		} finally {
+			progress.reportTo(monitor);
+			synchronized (workerErrors) {
+				for (CollectionError error : workerErrors) {
+					handleException(error.exception, error.resource, error.code, error.message);
+				}
+			}
+		}
+		if (group.getResult() != null && group.getResult().getSeverity() == IStatus.CANCEL) {
+			throw new OperationCanceledException();
+		}
+		handlePendingDispatch(monitor);
+	}
+
+	/**
+	 * Return the maximum number of worker jobs that may concurrently calculate the
+	 * synchronization state of changed resources. The changes of a partition (a project
+	 * or a top-level folder) are always processed in order by a single worker. A value of
+	 * <code>1</code> disables concurrent processing, which is the default. Subclasses may
+	 * override to opt in if their <code>handleChange</code> method and the subscriber are
+	 * safe to call from multiple threads and do not acquire scheduling rules that the
+	 * handler job could be waiting on.
+	 * @return the maximum number of workers
+	 */
+	protected int getPartitionWorkerCount() {
+		return 1;
+	}
+
+	/*
+	 * The number of workers used by the handlers of this package, which only read
+	 * the synchronization state from the subscriber and queue the results
+	 */
+	static int getDefaultPartitionWorkerCount() {
+		return Math.min(MAX_PARTITION_WORKERS, Runtime.getRuntime().availableProcessors());
+	}
+
 	/**
 	 * Return the subscriber associated with this event handler
 	 * @return the subscriber associated with this event handler
@@ -305,10 +554,7 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 					queueDispatchEvent(event);
 					break;
 				case SubscriberEvent.CHANGE :
-					collect(
-						event.getResource(),
-						((ResourceEvent)event).getDepth(),
-						monitor);
+					collectChanges((ResourceEvent)event, monitor);
 					break;
 				case SubscriberEvent.INITIALIZE :
 					monitor.subTask(NLS.bind(Messages.SubscriberEventHandler_2, new String[] { event.getResource().getFullPath().toString() }));
@@ -333,11 +579,14 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 	}
 
 	/**
-	 * Queue the event to be handle during the dispatch phase.
+	 * Queue the event to be handle during the dispatch phase. This method
+	 * may be called from partition workers.
 	 * @param event the event
 	 */
 	protected void queueDispatchEvent(Event event) {
-		resultCache.add(event);
+		synchronized (resultCache) {
+			resultCache.add(event);
+		}
 	}
 
 	/**
@@ -345,7 +594,9 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 	 * @param e the cancel exception
 	 */
 	protected void handleCancel(OperationCanceledException e) {
-		resultCache.clear();
+		synchronized (resultCache) {
+			resultCache.clear();
+		}
 	}
 
 	/*
@@ -367,12 +618,16 @@ public abstract class SubscriberEventHandler extends BackgroundEventHandler {
 
 	@Override
 	protected boolean  doDispatchEvents(IProgressMonitor monitor) {
-		if (!resultCache.isEmpty()) {
-			dispatchEvents(resultCache.toArray(new SubscriberEvent[resultCache.size()]), monitor);
+		SubscriberEvent[] events;
+		synchronized (resultCache) {
+			if (resultCache.isEmpty()) {
+				return false;
+			}
+			events = resultCache.toArray(new SubscriberEvent[resultCache.size()]);
 			resultCache.clear();
-			return true;
 		}
-		return false;
+		dispatchEvents(events, monitor);
+		return true;
 	}
 
 	/**
@@ -103,6 +103,16 @@ public class SubscriberSyncInfoEventHandler extends SubscriberEventHandler {
 		}
 	}
 
+	/*
+	 * The subscriber is already queried concurrently by the handlers of other
+	 * sets and handleChange only queues the result, so the partitions can be
+	 * collected concurrently
+	 */
+	@Override
+	protected int getPartitionWorkerCount() {
+		return getDefaultPartitionWorkerCount();
+	}
+
 	@Override
 	protected void collectAll(
 			IResource resource,
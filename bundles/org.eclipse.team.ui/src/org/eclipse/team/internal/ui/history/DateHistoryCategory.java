@@ -15,10 +15,13 @@ package org.eclipse.team.internal.ui.history;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.TimeZone;
 
 import org.eclipse.team.core.history.IFileRevision;
 
 public class DateHistoryCategory extends AbstractHistoryCategory {
+	private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
 	private String name;
 	private Calendar fromDate;
 	private Calendar toDate;
@@ -45,60 +48,68 @@ public class DateHistoryCategory extends AbstractHistoryCategory {
 
 	@Override
 	public boolean collectFileRevisions(IFileRevision[] fileRevisions, boolean shouldRemove) {
-		ArrayList<IFileRevision> pertinentRevisions = new ArrayList<>();
-		ArrayList<IFileRevision> nonPertinentRevisions = new ArrayList<>();
+		collectFileRevisions(new DateHistoryCategory[] { this }, fileRevisions);
+		return hasRevisions();
+	}
 
-		for (IFileRevision fileRevision : fileRevisions) {
-			//get the current file revision's date
-			Calendar fileRevDate = Calendar.getInstance();
-			fileRevDate.setTimeInMillis(fileRevision.getTimestamp());
-			int fileRevDay = fileRevDate.get(Calendar.DAY_OF_YEAR);
-			int fileRevYear = fileRevDate.get(Calendar.YEAR);
-			if (fromDate == null) {
-				//check to see if this revision is within the toDate range
-				if (((fileRevDay<toDate.get(Calendar.DAY_OF_YEAR)) && (fileRevYear == toDate.get(Calendar.YEAR))) ||
-						(fileRevYear < toDate.get(Calendar.YEAR))) {
-					pertinentRevisions.add(fileRevision);
-				} else {
-					//revision is equal or later then the to date, add to rejects list
-					nonPertinentRevisions.add(fileRevision);
-				}
-			} else if (toDate == null) {
-				//check to see if this revision falls on the same day as the fromDate
-				if ((fileRevDay == fromDate.get(Calendar.DAY_OF_YEAR)) &&
-						(fileRevYear == fromDate.get(Calendar.YEAR))) {
-					pertinentRevisions.add(fileRevision);
-				} else {
-					nonPertinentRevisions.add(fileRevision);
-				}
+	/**
+	 * Assigns the given revisions to all of the given categories in a single
+	 * pass. The day of each revision is computed once and compared against the
+	 * day range of each category.
+	 *
+	 * @param categories the categories to fill
+	 * @param fileRevisions the revisions to assign
+	 */
+	public static void collectFileRevisions(DateHistoryCategory[] categories, IFileRevision[] fileRevisions) {
+		int count = categories.length;
+		long[] fromDays = new long[count];
+		long[] toDays = new long[count];
+		for (int i = 0; i < count; i++) {
+			DateHistoryCategory category = categories[i];
+			if (category.fromDate == null) {
+				//everything before the to date
+				fromDays[i] = Long.MIN_VALUE;
+				toDays[i] = toEpochDay(category.toDate);
+			} else if (category.toDate == null) {
+				//the same day as the from date
+				fromDays[i] = toEpochDay(category.fromDate);
+				toDays[i] = fromDays[i] + 1;
 			} else {
-				//check the range
-				if ((fileRevYear >= fromDate.get(Calendar.YEAR)) &&
-						(fileRevYear <= toDate.get(Calendar.YEAR)) &&
-						(fileRevDay >= fromDate.get(Calendar.DAY_OF_YEAR)) &&
-						(fileRevDay < toDate.get(Calendar.DAY_OF_YEAR))) {
-					pertinentRevisions.add(fileRevision);
-				} else {
-					nonPertinentRevisions.add(fileRevision);
-				}
+				fromDays[i] = toEpochDay(category.fromDate);
+				toDays[i] = toEpochDay(category.toDate);
 			}
 		}
 
-		//check mode
-		if (shouldRemove){
-			//TODO: pass in an object containing the file revision arrays and modify the contents
-			/*IFileRevision[] tempRevision = (IFileRevision[]) nonPertinentRevisions.toArray(new IFileRevision[nonPertinentRevisions.size()]);
-			System.arraycopy(tempRevision, 0, fileRevisions, 0, tempRevision.length);*/
+		@SuppressWarnings("unchecked")
+		ArrayList<IFileRevision>[] pertinentRevisions = new ArrayList[count];
+		TimeZone timeZone = TimeZone.getDefault();
+		for (IFileRevision fileRevision : fileRevisions) {
+			long fileRevDay = toEpochDay(fileRevision.getTimestamp(), timeZone);
+			for (int i = 0; i < count; i++) {
+				if (fileRevDay >= fromDays[i] && fileRevDay < toDays[i]) {
+					if (pertinentRevisions[i] == null)
+						pertinentRevisions[i] = new ArrayList<>();
+					pertinentRevisions[i].add(fileRevision);
+				}
+			}
 		}
 
-		if (pertinentRevisions.size() > 0){
-			IFileRevision[] tempRevision = pertinentRevisions.toArray(new IFileRevision[pertinentRevisions.size()]);
-			revisions = new IFileRevision[tempRevision.length];
-			System.arraycopy(tempRevision, 0, revisions, 0, tempRevision.length);
-			return true;
+		for (int i = 0; i < count; i++) {
+			categories[i].revisions = pertinentRevisions[i] == null ? null
+					: pertinentRevisions[i].toArray(new IFileRevision[pertinentRevisions[i].size()]);
 		}
+	}
+
+	private static long toEpochDay(Calendar calendar) {
+		return toEpochDay(calendar.getTimeInMillis(), calendar.getTimeZone());
+	}
 
-		return false;
+	/*
+	 * Returns the number of days since the epoch of the day that contains the
+	 * given time in the given time zone
+	 */
+	private static long toEpochDay(long time, TimeZone timeZone) {
+		return Math.floorDiv(time + timeZone.getOffset(time), MILLIS_PER_DAY);
 	}
 
 	@Override
@@ -163,17 +163,22 @@ public class EditionHistoryPage extends LocalHistoryPage {
 			return null;
 		LocalFileHistory history = new LocalFileHistory(file, false);
 		history.refresh(new NullProgressMonitor());
-		IFileRevision[] revisions = history.getFileRevisions();
-		if (revisions.length == 0)
+		int count = history.getFileRevisionCount();
+		if (count == 0)
 			return null;
-		sortDescending(revisions);
 		ITypedElement localEdition = null;
 		try {
 			localEdition = createLocalEdition(structureCreator, localFileElement, element);
-			for (IFileRevision revision : revisions) {
-				ITypedElement edition = createEdition(structureCreator, element, new FileRevisionTypedElement(revision));
-				if (edition != null && !contentsEqual(structureCreator, localEdition, edition)) {
-					return edition;
+			// The states come from the most recent to the least recent, so only the
+			// pages up to the first edition that differs are loaded
+			for (int offset = 0; offset < count; offset += PAGE_SIZE) {
+				IFileRevision[] revisions = history.getFileRevisions(offset, PAGE_SIZE);
+				sortDescending(revisions);
+				for (IFileRevision revision : revisions) {
+					ITypedElement edition = createEdition(structureCreator, element, new FileRevisionTypedElement(revision));
+					if (edition != null && !contentsEqual(structureCreator, localEdition, edition)) {
+						return edition;
+					}
 				}
 			}
 		} finally {
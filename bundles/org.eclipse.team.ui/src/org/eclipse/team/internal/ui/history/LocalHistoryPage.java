@@ -17,9 +17,11 @@ import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 
 import org.eclipse.compare.CompareConfiguration;
 import org.eclipse.compare.ITypedElement;
@@ -100,6 +102,9 @@ public class LocalHistoryPage extends HistoryPage implements IHistoryCompareAdap
 	public static final int OFF = 2;
 	public static final int ALWAYS = 4;
 
+	// the number of revisions that are loaded at a time
+	static final int PAGE_SIZE = 500;
+
 	/* private */ IFile file;
 	/* private */ IFileRevision currentFileRevision;
 
@@ -246,7 +251,8 @@ public class LocalHistoryPage extends HistoryPage implements IHistoryCompareAdap
 					status = new TeamStatus(ex.getStatus().getSeverity(), TeamUIPlugin.ID, ex.getStatus().getCode(), ex.getMessage(), ex, file);
 				}
 
-				update(fileHistory.getFileRevisions(), Policy.subMonitorFor(monitor, 50));
+				if (!updateInPages(fileHistory, Policy.subMonitorFor(monitor, 50)))
+					return Status.CANCEL_STATUS;
 
 				if (status != Status.OK_STATUS ) {
 					this.setProperty(IProgressConstants.KEEP_PROPERTY, Boolean.TRUE);
@@ -265,6 +271,40 @@ public class LocalHistoryPage extends HistoryPage implements IHistoryCompareAdap
 		}
 	}
 
+	/*
+	 * Load the revisions a page at a time and update the viewer with them. The viewer
+	 * is also updated once the first page has been loaded if there are more, so that
+	 * the most recent revisions of a long history are shown right away. Return false
+	 * if the monitor was canceled before all revisions were loaded.
+	 */
+	private boolean updateInPages(LocalFileHistory fileHistory, IProgressMonitor monitor) {
+		try {
+			monitor.beginTask(null, 100);
+			int count = fileHistory.getFileRevisionCount();
+			int stateCount = fileHistory.getFileStateCount();
+			List<IFileRevision> revisions = new ArrayList<>(count);
+			// The revision of the current contents comes after the states, which come
+			// from the most recent to the least recent
+			revisions.addAll(Arrays.asList(fileHistory.getFileRevisions(stateCount, count - stateCount)));
+			IProgressMonitor loadMonitor = Policy.subMonitorFor(monitor, 50);
+			loadMonitor.beginTask(null, stateCount);
+			for (int offset = 0; offset < stateCount; offset += PAGE_SIZE) {
+				if (monitor.isCanceled())
+					return false;
+				IFileRevision[] page = fileHistory.getFileRevisions(offset, PAGE_SIZE);
+				revisions.addAll(Arrays.asList(page));
+				loadMonitor.worked(page.length);
+				if (offset == 0 && stateCount > PAGE_SIZE)
+					update(revisions.toArray(new IFileRevision[revisions.size()]), Policy.subMonitorFor(monitor, 10));
+			}
+			loadMonitor.done();
+			update(revisions.toArray(new IFileRevision[revisions.size()]), Policy.subMonitorFor(monitor, 40));
+			return true;
+		} finally {
+			monitor.done();
+		}
+	}
+
 	private class HistoryResourceListener implements IResourceChangeListener {
 		@Override
 		public void resourceChanged(IResourceChangeEvent event) {
@@ -878,8 +918,8 @@ public class LocalHistoryPage extends HistoryPage implements IHistoryCompareAdap
 			tempCategories[3] = new DateHistoryCategory(TeamUIMessages.HistoryPage_Previous, null, monthCal);
 
 			ArrayList<AbstractHistoryCategory> finalCategories = new ArrayList<>();
+			DateHistoryCategory.collectFileRevisions(tempCategories, revisions);
 			for (DateHistoryCategory tempCategory : tempCategories) {
-				tempCategory.collectFileRevisions(revisions, false);
 				if (tempCategory.hasRevisions()) {
 					finalCategories.add(tempCategory);
 				}
@@ -44,6 +44,7 @@ import org.eclipse.team.core.mapping.IResourceDiffTree;
 import org.eclipse.team.core.mapping.ISynchronizationContext;
 import org.eclipse.team.core.mapping.ISynchronizationScope;
 import org.eclipse.team.core.mapping.provider.ResourceDiffTree;
+import org.eclipse.team.internal.core.mapping.DiffChangeEvent;
 import org.eclipse.team.internal.ui.IPreferenceIds;
 import org.eclipse.team.internal.ui.TeamUIPlugin;
 import org.eclipse.team.internal.ui.Utils;
@@ -410,6 +411,11 @@ public class ResourceModelContentProvider extends SynchronizationContentProvider
 		List<IResource> additions = new ArrayList<>();
 		List<IResource> removals = new ArrayList<>();
 		if (isFlatPresentation()) {
+			if (event instanceof DiffChangeEvent && ((DiffChangeEvent) event).isBulkChange()) {
+				// Refreshing the whole viewer is cheaper than handling each change
+				((TreeViewer)getViewer()).refresh();
+				return;
+			}
 			Set existingResources = getVisibleResources();
 			IResource[] changedResources = getChangedResources(event, existingResources);
 			for (IResource resource : changedResources) {
@@ -480,6 +486,16 @@ public class ResourceModelContentProvider extends SynchronizationContentProvider
 
 	private IProject[] getChangedProjects(IDiffChangeEvent event) {
 		Set<IResource> result = new HashSet<>();
+		if (event instanceof DiffChangeEvent) {
+			// Use the summary of the changes by project
+			IPath[] projectPaths = ((DiffChangeEvent) event).getChangedSubtrees(1);
+			for (IPath path : projectPaths) {
+				if (path.segmentCount() > 0) {
+					result.add(ResourcesPlugin.getWorkspace().getRoot().getProject(path.segment(0)));
+				}
+			}
+			return result.toArray(new IProject[result.size()]);
+		}
 		IDiff[] changes = event.getChanges();
 		for (IDiff diff : changes) {
 			IResource resource = ResourceDiffTree.getResourceFor(diff);
@@ -33,6 +33,7 @@ import org.eclipse.team.core.synchronize.ISyncInfoSetChangeEvent;
 import org.eclipse.team.core.synchronize.SyncInfo;
 import org.eclipse.team.core.synchronize.SyncInfoSet;
 import org.eclipse.team.core.synchronize.SyncInfoTree;
+import org.eclipse.team.internal.core.mapping.DiffChangeEvent;
 import org.eclipse.team.internal.core.subscribers.ActiveChangeSetManager;
 import org.eclipse.team.internal.core.subscribers.ChangeSet;
 import org.eclipse.team.internal.core.subscribers.DiffChangeSet;
@@ -453,9 +454,20 @@ public class ActiveChangeSetCollector implements IDiffChangeListener {
 			if (changeSet != null) {
 				SyncInfoSet targetSet = getSyncInfoSet(changeSet);
 				if (targetSet != null) {
-					targetSet.removeAll(getResources(targetSet, event.getRemovals()));
-					targetSet.addAll(asSyncInfoSet(event.getAdditions()));
-					targetSet.addAll(asSyncInfoSet(event.getChanges()));
+					if (event instanceof DiffChangeEvent && ((DiffChangeEvent) event).isBulkChange()) {
+						// Reloading the set from the tree is cheaper than handling each change
+						try {
+							targetSet.beginInput();
+							targetSet.clear();
+							targetSet.addAll(asSyncInfoSet(((IResourceDiffTree)event.getTree()).getDiffs()));
+						} finally {
+							targetSet.endInput(monitor1);
+						}
+					} else {
+						targetSet.removeAll(getResources(targetSet, event.getRemovals()));
+						targetSet.addAll(asSyncInfoSet(event.getAdditions()));
+						targetSet.addAll(asSyncInfoSet(event.getChanges()));
+					}
 					rootSet.removeAll(((IResourceDiffTree)event.getTree()).getAffectedResources());
 				}
 			}
@@ -242,6 +242,14 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 		}
 	}
 
+	@Override
+	protected int getPriority(Event event) {
+		// Marker propagation only affects decorations so let model changes go first
+		if (event.getType() == MARKERS_CHANGED)
+			return PRIORITY_LOW;
+		return super.getPriority(event);
+	}
+
 	private ISynchronizeModelElement[] getChangedElements(Event event) {
 		if (event.getType() == MARKERS_CHANGED) {
 			return ((MarkerChangeEvent)event).getElements();
@@ -17,7 +17,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
-@Suite.SuiteClasses({ NetTest.class, PreferenceModifyListenerTest.class })
+@Suite.SuiteClasses({ NetTest.class, PreferenceModifyListenerTest.class, PacProxyProviderTest.class })
 public class AllNetTests {
 
 }
@@ -359,6 +359,60 @@ public class NetTest {
 		this.getProxyManager().setNonProxiedHosts(oldHosts);
 	}
 
+	@Test
+	public void testHostPatternCidr() throws CoreException {
+		setDataTest(IProxyData.HTTP_PROXY_TYPE);
+		setDataTest(IProxyData.HTTPS_PROXY_TYPE);
+		setDataTest(IProxyData.SOCKS_PROXY_TYPE);
+
+		String[] oldHosts = this.getProxyManager().getNonProxiedHosts();
+		this.getProxyManager().setNonProxiedHosts(new String[] { "10.0.0.0/8", "192.168.1.128/25" });
+
+		IProxyData[] allData = this.getProxyManager().getProxyDataForHost("10.1.2.3");
+		assertEquals(0, allData.length);
+
+		allData = this.getProxyManager().getProxyDataForHost("192.168.1.200");
+		assertEquals(0, allData.length);
+
+		allData = this.getProxyManager().getProxyDataForHost("192.168.1.5");
+		assertEquals(3, allData.length);
+
+		allData = this.getProxyManager().getProxyDataForHost("www.randomhot.com");
+		assertEquals(3, allData.length);
+
+		// the cached decisions must not survive a change of the filters
+		this.getProxyManager().setNonProxiedHosts(new String[] { "192.168.1.0/24" });
+		allData = this.getProxyManager().getProxyDataForHost("192.168.1.5");
+		assertEquals(0, allData.length);
+
+		allData = this.getProxyManager().getProxyDataForHost("10.1.2.3");
+		assertEquals(3, allData.length);
+
+		this.getProxyManager().setNonProxiedHosts(oldHosts);
+	}
+
+	@Test
+	public void testHostPatternCidrIPv6() throws CoreException {
+		setDataTest(IProxyData.HTTP_PROXY_TYPE);
+		setDataTest(IProxyData.HTTPS_PROXY_TYPE);
+		setDataTest(IProxyData.SOCKS_PROXY_TYPE);
+
+		String[] oldHosts = this.getProxyManager().getNonProxiedHosts();
+		// the entry with a port is not an address range and is not resolved as a host name
+		this.getProxyManager().setNonProxiedHosts(new String[] { "fe80::/10", "host:8080/x" });
+
+		IProxyData[] allData = this.getProxyManager().getProxyDataForHost("http://[fe80::1]");
+		assertEquals(0, allData.length);
+
+		allData = this.getProxyManager().getProxyDataForHost("http://[2001:db8::1]");
+		assertEquals(3, allData.length);
+
+		allData = this.getProxyManager().getProxyDataForHost("www.randomhot.com");
+		assertEquals(3, allData.length);
+
+		this.getProxyManager().setNonProxiedHosts(oldHosts);
+	}
+
 	@Test
 	public void testBug238796() throws CoreException {
 		setDataTest(IProxyData.HTTP_PROXY_TYPE);
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.core.internal.net.PacProxyProvider;
+import org.eclipse.core.internal.net.PacScript;
+import org.eclipse.core.internal.net.ProxyData;
+import org.eclipse.core.net.proxy.IProxyData;
+import org.junit.Test;
+
+public class PacProxyProviderTest {
+
+	private static final String SCRIPT = "function FindProxyForURL(url, host) {\n"
+			+ "  if (isPlainHostName(host) || dnsDomainIs(host, \".internal.example.com\"))\n"
+			+ "    return \"DIRECT\";\n"
+			+ "  if (shExpMatch(url, \"https://secure.*\"))\n"
+			+ "    return \"SOCKS socks.example.com; DIRECT\";\n"
+			+ "  if (isInNet(host, \"127.0.0.0\", \"255.0.0.0\"))\n"
+			+ "    return \"DIRECT\";\n"
+			+ "  return \"PROXY proxy.example.com:8080; PROXY backup.example.com; DIRECT\";\n"
+			+ "}\n";
+
+	@Test
+	public void testParseResult() {
+		ProxyData[] proxies = PacProxyProvider.parseResult("PROXY proxy.example.com:8080; SOCKS socks.example.com",
+				"http");
+		assertEquals(2, proxies.length);
+		assertProxy(IProxyData.HTTP_PROXY_TYPE, "proxy.example.com", 8080, proxies[0]);
+		assertProxy(IProxyData.SOCKS_PROXY_TYPE, "socks.example.com", 1080, proxies[1]);
+
+		proxies = PacProxyProvider.parseResult("proxy proxy.example.com ; HTTPS secure.example.com:8443", "https");
+		assertEquals(2, proxies.length);
+		assertProxy(IProxyData.HTTPS_PROXY_TYPE, "proxy.example.com", 80, proxies[0]);
+		assertProxy(IProxyData.HTTPS_PROXY_TYPE, "secure.example.com", 8443, proxies[1]);
+	}
+
+	@Test
+	public void testParseResultDirect() {
+		assertEquals(0, PacProxyProvider.parseResult("DIRECT", "http").length);
+		assertEquals(0, PacProxyProvider.parseResult("", "http").length);
+		assertEquals(0, PacProxyProvider.parseResult(null, "http").length);
+		// proxies after DIRECT are not used
+		assertEquals(0, PacProxyProvider.parseResult("DIRECT; PROXY proxy.example.com:8080", "http").length);
+		assertEquals(1, PacProxyProvider.parseResult("PROXY proxy.example.com:8080; DIRECT", "http").length);
+	}
+
+	@Test
+	public void testParseResultInvalid() {
+		ProxyData[] proxies = PacProxyProvider.parseResult("UNKNOWN x:1; PROXY; PROXY host:port; SOCKS5 s:9050",
+				"http");
+		assertEquals(1, proxies.length);
+		assertProxy(IProxyData.SOCKS_PROXY_TYPE, "s", 9050, proxies[0]);
+	}
+
+	@Test
+	public void testSelect() throws IOException {
+		assumeTrue(PacScript.isSupported());
+		File script = File.createTempFile("proxy", ".pac");
+		try {
+			Files.write(script.toPath(), SCRIPT.getBytes(StandardCharsets.UTF_8));
+			PacProxyProvider provider = new PacProxyProvider(script.getAbsolutePath());
+
+			IProxyData[] proxies = provider.select(URI.create("http://www.example.org/index.html"));
+			assertEquals(2, proxies.length);
+			assertProxy(IProxyData.HTTP_PROXY_TYPE, "proxy.example.com", 8080, proxies[0]);
+			assertProxy(IProxyData.HTTP_PROXY_TYPE, "backup.example.com", 80, proxies[1]);
+
+			assertEquals(0, provider.select(URI.create("http://intranet/")).length);
+			assertEquals(0, provider.select(URI.create("http://wiki.internal.example.com/")).length);
+			assertEquals(0, provider.select(URI.create("http://127.0.0.1/")).length);
+
+			proxies = provider.select(URI.create("https://secure.example.org/login?user=name"));
+			assertEquals(1, proxies.length);
+			assertProxy(IProxyData.SOCKS_PROXY_TYPE, "socks.example.com", 1080, proxies[0]);
+
+			proxies = provider.select(URI.create("https://www.example.org/"));
+			assertEquals(2, proxies.length);
+			assertProxy(IProxyData.HTTPS_PROXY_TYPE, "proxy.example.com", 8080, proxies[0]);
+			assertProxy(IProxyData.HTTPS_PROXY_TYPE, "backup.example.com", 80, proxies[1]);
+		} finally {
+			script.delete();
+		}
+	}
+
+	@Test
+	public void testSelectCached() throws IOException {
+		assumeTrue(PacScript.isSupported());
+		File script = File.createTempFile("proxy", ".pac");
+		try {
+			Files.write(script.toPath(), SCRIPT.getBytes(StandardCharsets.UTF_8));
+			PacProxyProvider provider = new PacProxyProvider(script.getAbsolutePath(), 60000);
+			URI uri = URI.create("http://www.example.org/");
+			assertEquals(2, provider.select(uri).length);
+
+			// the result is cached until the cache is cleared
+			Files.write(script.toPath(),
+					"function FindProxyForURL(url, host) { return \"DIRECT\"; }".getBytes(StandardCharsets.UTF_8));
+			IProxyData[] proxies = provider.select(uri);
+			assertEquals(2, proxies.length);
+			// the returned data is a copy
+			proxies[0].setHost("changed.example.com");
+			assertEquals("proxy.example.com", provider.select(uri)[0].getHost());
+
+			provider.clearCache();
+			assertEquals(0, provider.select(uri).length);
+		} finally {
+			script.delete();
+		}
+	}
+
+	@Test
+	public void testFailedLoadCached() throws IOException {
+		assumeTrue(PacScript.isSupported());
+		File script = File.createTempFile("proxy", ".pac");
+		script.delete();
+		try {
+			PacProxyProvider provider = new PacProxyProvider(script.getAbsolutePath(), 60000);
+			URI uri = URI.create("http://www.example.org/");
+			assertEquals(0, provider.select(uri).length);
+
+			// the script is not loaded again until the failure expires
+			Files.write(script.toPath(), SCRIPT.getBytes(StandardCharsets.UTF_8));
+			assertEquals(0, provider.select(URI.create("http://other.example.org/")).length);
+
+			provider.clearCache();
+			assertEquals(2, provider.select(uri).length);
+		} finally {
+			script.delete();
+		}
+	}
+
+	private static void assertProxy(String type, String host, int port, IProxyData proxy) {
+		assertEquals(type, proxy.getType());
+		assertEquals(host, proxy.getHost());
+		assertEquals(port, proxy.getPort());
+	}
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jsch.internal.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.jcraft.jsch.HostKey;
+import com.jcraft.jsch.HostKeyRepository;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.KeyPair;
+
+/**
+ * Tests that the index of the known hosts file answers the lookups of sessions
+ * like the repository of JSch that it wraps.
+ */
+public class KnownHostsIndexTest {
+
+	private static final byte[] KEY = createKey();
+	private static final byte[] OTHER_KEY = createKey();
+
+	private final String hashKnownHosts = JSch.getConfig("HashKnownHosts");
+	private File file;
+
+	@After
+	public void tearDown() {
+		JSch.setConfig("HashKnownHosts", hashKnownHosts);
+		if (file != null) {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testPlainEntries() throws Exception {
+		KnownHostsIndex index = createIndex("host.example.com,10.0.0.1 ssh-rsa " + encode(KEY));
+		assertCheck(index, "host.example.com", KEY, HostKeyRepository.OK);
+		assertCheck(index, "10.0.0.1", KEY, HostKeyRepository.OK);
+		assertCheck(index, "host.example.com", OTHER_KEY, HostKeyRepository.CHANGED);
+		assertCheck(index, "other.example.com", KEY, HostKeyRepository.NOT_INCLUDED);
+		assertCheck(index, "host.example", KEY, HostKeyRepository.NOT_INCLUDED);
+		assertEquals(1, index.getHostKey("host.example.com", null).length);
+		assertEquals(1, index.getHostKey("10.0.0.1", "ssh-rsa").length);
+		assertEquals(0, index.getHostKey("host.example.com", "ssh-ed25519").length);
+	}
+
+	@Test
+	public void testMixedCaseEntries() throws Exception {
+		KnownHostsIndex index = createIndex("Host.Example.COM ssh-rsa " + encode(KEY));
+		assertCheck(index, "host.example.com", KEY, HostKeyRepository.OK);
+		assertCheck(index, "HOST.EXAMPLE.COM", KEY, HostKeyRepository.OK);
+		assertCheck(index, "host.EXAMPLE.com", OTHER_KEY, HostKeyRepository.CHANGED);
+	}
+
+	@Test
+	public void testHashedEntries() throws Exception {
+		KnownHostsIndex index = createIndex(hash("hashed.example.com") + " ssh-rsa " + encode(KEY));
+		assertCheck(index, "hashed.example.com", KEY, HostKeyRepository.OK);
+		assertCheck(index, "hashed.example.com", OTHER_KEY, HostKeyRepository.CHANGED);
+		// hashed names are compared exactly
+		assertCheck(index, "HASHED.example.com", KEY, HostKeyRepository.NOT_INCLUDED);
+		assertCheck(index, "other.example.com", KEY, HostKeyRepository.NOT_INCLUDED);
+		// the cached lookups give the same answers
+		assertCheck(index, "hashed.example.com", KEY, HostKeyRepository.OK);
+		assertCheck(index, "other.example.com", KEY, HostKeyRepository.NOT_INCLUDED);
+	}
+
+	@Test
+	public void testPortEntries() throws Exception {
+		KnownHostsIndex index = createIndex("[ported.example.com]:2222 ssh-rsa " + encode(KEY),
+				hash("[hashed.example.com]:2222") + " ssh-rsa " + encode(KEY),
+				"host.example.com ssh-rsa " + encode(OTHER_KEY));
+		assertCheck(index, "[ported.example.com]:2222", KEY, HostKeyRepository.OK);
+		assertCheck(index, "[ported.example.com]:2222", OTHER_KEY, HostKeyRepository.CHANGED);
+		assertCheck(index, "[ported.example.com]:22", KEY, HostKeyRepository.NOT_INCLUDED);
+		assertCheck(index, "ported.example.com", KEY, HostKeyRepository.NOT_INCLUDED);
+		assertCheck(index, "[hashed.example.com]:2222", KEY, HostKeyRepository.OK);
+		assertCheck(index, "hashed.example.com", KEY, HostKeyRepository.NOT_INCLUDED);
+		// a host on another port falls back to the entries without a port
+		assertCheck(index, "[host.example.com]:2222", OTHER_KEY, HostKeyRepository.OK);
+		assertCheck(index, "[host.example.com]:2222", KEY, HostKeyRepository.CHANGED);
+	}
+
+	@Test
+	public void testAdd() throws Exception {
+		JSch.setConfig("HashKnownHosts", "no");
+		KnownHostsIndex index = createIndex("host.example.com ssh-rsa " + encode(KEY));
+		assertCheck(index, "new.example.com", KEY, HostKeyRepository.NOT_INCLUDED);
+		index.add(new HostKey("new.example.com", KEY), null);
+		assertTrue(index.isCurrent());
+		assertCheck(index, "new.example.com", KEY, HostKeyRepository.OK);
+		assertTrue(read().contains("new.example.com ssh-rsa"));
+	}
+
+	@Test
+	public void testAddHashed() throws Exception {
+		JSch.setConfig("HashKnownHosts", "yes");
+		KnownHostsIndex index = createIndex("host.example.com ssh-rsa " + encode(KEY));
+		index.add(new HostKey("new.example.com", KEY), null);
+		assertTrue(index.isCurrent());
+		assertCheck(index, "new.example.com", KEY, HostKeyRepository.OK);
+		assertCheck(index, "new.example.com", OTHER_KEY, HostKeyRepository.CHANGED);
+		String contents = read();
+		assertFalse(contents, contents.contains("new.example.com"));
+		assertTrue(contents, contents.contains("\n|1|"));
+		// the hashed entry is found once the file is read again
+		JSch jsch = new JSch();
+		jsch.setKnownHosts(file.getPath());
+		assertEquals(HostKeyRepository.OK, jsch.getHostKeyRepository().check("new.example.com", KEY));
+	}
+
+	@Test
+	public void testRemove() throws Exception {
+		KnownHostsIndex index = createIndex("host.example.com ssh-rsa " + encode(KEY),
+				"other.example.com ssh-rsa " + encode(KEY));
+		assertCheck(index, "host.example.com", KEY, HostKeyRepository.OK);
+		index.remove("host.example.com", "ssh-rsa");
+		assertTrue(index.isCurrent());
+		assertCheck(index, "host.example.com", KEY, HostKeyRepository.NOT_INCLUDED);
+		assertCheck(index, "other.example.com", KEY, HostKeyRepository.OK);
+	}
+
+	@Test
+	public void testChangedFile() throws Exception {
+		KnownHostsIndex index = createIndex("host.example.com ssh-rsa " + encode(KEY));
+		assertTrue(index.isCurrent());
+		Files.write(file.toPath(), Arrays.asList("host.example.com ssh-rsa " + encode(OTHER_KEY),
+				"other.example.com ssh-rsa " + encode(KEY)));
+		assertFalse(index.isCurrent());
+	}
+
+	/*
+	 * Check the host with the index and with a repository of JSch that has read
+	 * the same file
+	 */
+	private void assertCheck(KnownHostsIndex index, String host, byte[] key, int expected) throws Exception {
+		JSch jsch = new JSch();
+		jsch.setKnownHosts(file.getPath());
+		assertEquals(host, expected, jsch.getHostKeyRepository().check(host, key));
+		assertEquals(host, expected, index.check(host, key));
+	}
+
+	private KnownHostsIndex createIndex(String... lines) throws Exception {
+		file = File.createTempFile("known_hosts", null);
+		Files.write(file.toPath(), Arrays.asList(lines));
+		FileStamp stamp = new FileStamp(file);
+		JSch jsch = new JSch();
+		jsch.setKnownHosts(file.getPath());
+		return new KnownHostsIndex(jsch.getHostKeyRepository(), stamp);
+	}
+
+	private String read() throws IOException {
+		List<String> lines = Files.readAllLines(file.toPath());
+		return "\n" + String.join("\n", lines);
+	}
+
+	private static String hash(String host) throws Exception {
+		byte[] salt = new byte[20];
+		Arrays.fill(salt, (byte) host.length());
+		Mac mac = Mac.getInstance("HmacSHA1");
+		mac.init(new SecretKeySpec(salt, "HmacSHA1"));
+		byte[] hash = mac.doFinal(host.getBytes(StandardCharsets.UTF_8));
+		return "|1|" + encode(salt) + "|" + encode(hash);
+	}
+
+	private static String encode(byte[] bytes) {
+		return Base64.getEncoder().encodeToString(bytes);
+	}
+
+	private static byte[] createKey() {
+		try {
+			KeyPair pair = KeyPair.genKeyPair(new JSch(), KeyPair.RSA, 1024);
+			return pair.getPublicKeyBlob();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
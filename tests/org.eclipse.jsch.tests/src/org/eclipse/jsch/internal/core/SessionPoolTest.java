@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jsch.internal.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jsch.core.IJSchLocation;
+import org.junit.After;
+import org.junit.Test;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.jcraft.jsch.UserInfo;
+
+/**
+ * Tests the leasing of pooled sessions. The sessions are not connected to a
+ * server; the pool is told which of them are connected and reusable.
+ */
+public class SessionPoolTest {
+
+	private static class TestPool extends SessionPool {
+		final List<Session> connected = new ArrayList<>();
+		final List<Session> disconnected = new ArrayList<>();
+		final Set<Session> closed = Collections.newSetFromMap(new IdentityHashMap<>());
+		final Set<Session> broken = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		TestPool(int maxLeases, long idleTimeout) {
+			super(null, maxLeases, idleTimeout);
+		}
+
+		@Override
+		Session connect(IJSchLocation location, UserInfo uinfo, int timeout, IProgressMonitor monitor)
+				throws JSchException {
+			Session session = new JSch().getSession(location.getUsername(), location.getHost(), location.getPort());
+			connected.add(session);
+			return session;
+		}
+
+		@Override
+		boolean isConnected(Session session) {
+			return !closed.contains(session) && !disconnected.contains(session);
+		}
+
+		@Override
+		boolean isReusable(Session session) {
+			return isConnected(session) && !broken.contains(session);
+		}
+
+		@Override
+		void disconnect(Session session) {
+			disconnected.add(session);
+		}
+	}
+
+	private static final IJSchLocation LOCATION = new JSchLocation("user", "host.example.com", 22);
+
+	private TestPool pool;
+
+	@After
+	public void tearDown() {
+		if (pool != null)
+			pool.shutdown();
+	}
+
+	@Test
+	public void testSessionIsShared() throws JSchException {
+		pool = new TestPool(2, 60000);
+		Session session = acquire(LOCATION);
+		assertSame(session, acquire(LOCATION));
+		// the session has as many leases as allowed
+		Session other = acquire(LOCATION);
+		assertNotSame(session, other);
+		assertEquals(2, pool.connected.size());
+		assertSame(other, acquire(LOCATION));
+	}
+
+	@Test
+	public void testLeastLeasedSession() throws JSchException {
+		pool = new TestPool(2, 60000);
+		Session first = acquire(LOCATION);
+		acquire(LOCATION);
+		Session second = acquire(LOCATION);
+		pool.release(first);
+		pool.release(first);
+		// the session without leases comes before the one with a lease
+		assertSame(first, acquire(LOCATION));
+		assertSame(first, acquire(LOCATION));
+		assertSame(second, acquire(LOCATION));
+		assertEquals(2, pool.connected.size());
+	}
+
+	@Test
+	public void testSessionsByServerAndUser() throws JSchException {
+		pool = new TestPool(8, 60000);
+		Session session = acquire(LOCATION);
+		assertSame(session, acquire(new JSchLocation("user", "HOST.example.com", 22)));
+		assertSame(session, acquire(new JSchLocation("user", "host.example.com", -1)));
+		assertNotSame(session, acquire(new JSchLocation("other", "host.example.com", 22)));
+		assertNotSame(session, acquire(new JSchLocation("user", "host.example.com", 2222)));
+		assertNotSame(session, acquire(new JSchLocation("user", "other.example.com", 22)));
+		assertEquals(4, pool.connected.size());
+	}
+
+	@Test
+	public void testBrokenSessionIsReplaced() throws JSchException {
+		pool = new TestPool(8, 60000);
+		Session session = acquire(LOCATION);
+		pool.release(session);
+		pool.broken.add(session);
+		Session replacement = acquire(LOCATION);
+		assertNotSame(session, replacement);
+		assertTrue(pool.disconnected.contains(session));
+		assertSame(replacement, acquire(LOCATION));
+	}
+
+	@Test
+	public void testReleaseClosedSession() throws JSchException {
+		pool = new TestPool(8, 60000);
+		Session session = acquire(LOCATION);
+		acquire(LOCATION);
+		pool.closed.add(session);
+		pool.release(session);
+		assertTrue(pool.disconnected.contains(session));
+		assertNotSame(session, acquire(LOCATION));
+	}
+
+	@Test
+	public void testReleaseSessionThatIsNotPooled() throws JSchException {
+		pool = new TestPool(8, 60000);
+		Session session = new JSch().getSession("user", "host.example.com", 22);
+		pool.release(session);
+		assertEquals(Collections.singletonList(session), pool.disconnected);
+	}
+
+	@Test
+	public void testReleasedSessionIsReused() throws JSchException {
+		pool = new TestPool(8, 60000);
+		Session session = acquire(LOCATION);
+		pool.release(session);
+		pool.evictIdleSessions();
+		assertFalse(pool.disconnected.contains(session));
+		assertSame(session, acquire(LOCATION));
+	}
+
+	@Test
+	public void testIdleSessionIsEvicted() throws JSchException {
+		pool = new TestPool(8, 0);
+		Session idle = acquire(LOCATION);
+		Session leased = acquire(new JSchLocation("other", "host.example.com", 22));
+		pool.release(idle);
+		pool.evictIdleSessions();
+		assertTrue(pool.disconnected.contains(idle));
+		assertFalse(pool.disconnected.contains(leased));
+		assertNotSame(idle, acquire(LOCATION));
+	}
+
+	@Test
+	public void testShutdown() throws JSchException {
+		pool = new TestPool(8, 60000);
+		Session session = acquire(LOCATION);
+		Session other = acquire(new JSchLocation("other", "host.example.com", 22));
+		pool.release(other);
+		pool.shutdown();
+		assertTrue(pool.disconnected.contains(session));
+		assertTrue(pool.disconnected.contains(other));
+		assertNotSame(session, acquire(LOCATION));
+	}
+
+	private Session acquire(IJSchLocation location) throws JSchException {
+		return pool.acquire(location, null, 0, null);
+	}
+}
@@ -39,8 +39,20 @@ public class AllTeamTests extends ResourceTest {
 		TestSuite suite = new TestSuite();
 		suite.addTest(RepositoryProviderTests.suite());
 		suite.addTest(StreamTests.suite());
+		suite.addTest(BackgroundEventQueueTests.suite());
 		suite.addTest(StorageMergerTests.suite());
+		suite.addTest(IgnoreMatcherTests.suite());
+		suite.addTest(TeamMetricsTests.suite());
+		suite.addTest(DiffChangeEventTests.suite());
+		suite.addTest(ChangeSetJournalTests.suite());
+		suite.addTest(ContentDigestCacheTests.suite());
+		suite.addTest(ContentComparatorTests.suite());
+		suite.addTest(SubscriberEventHandlerTests.suite());
+		suite.addTest(ContentComparisonDiffFilterTests.suite());
+		suite.addTest(MergeContextTests.suite());
+		suite.addTest(FileContentManagerTests.suite());
 		suite.addTest(org.eclipse.team.tests.core.regression.AllTests.suite());
+		suite.addTest(org.eclipse.team.tests.core.history.AllTests.suite());
 		return suite;
 	}
 }
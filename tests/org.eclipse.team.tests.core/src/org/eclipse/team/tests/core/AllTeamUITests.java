@@ -18,6 +18,7 @@ import junit.framework.TestSuite;
 
 import org.eclipse.core.tests.resources.ResourceTest;
 import org.eclipse.team.tests.core.mapping.ScopeTests;
+import org.eclipse.team.tests.ui.DateHistoryCategoryTest;
 import org.eclipse.team.tests.ui.SaveableCompareEditorInputTest;
 
 public class AllTeamUITests extends ResourceTest {
@@ -34,6 +35,7 @@ public class AllTeamUITests extends ResourceTest {
 		TestSuite suite = new TestSuite();
 		suite.addTest(ScopeTests.suite());
 		suite.addTest(SaveableCompareEditorInputTest.suite());
+		suite.addTest(DateHistoryCategoryTest.suite());
 		return suite;
 	}
 }
@@ -0,0 +1,349 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.internal.core.BackgroundEventHandler;
+import org.eclipse.team.internal.core.BackgroundEventHandler.Event;
+import org.eclipse.team.internal.core.BackgroundEventHandler.ResourceEvent;
+import org.eclipse.team.internal.core.BackgroundEventQueue;
+
+public class BackgroundEventQueueTests extends TestCase {
+
+	private static final int CHANGE = 1;
+	private static final int REMOVAL = 2;
+	// the type of the marker events that the synchronize model update handler demotes
+	private static final int MARKERS_CHANGED = 3;
+
+	private static final int HIGH = BackgroundEventHandler.PRIORITY_HIGH;
+	private static final int NORMAL = BackgroundEventHandler.PRIORITY_NORMAL;
+	private static final int LOW = BackgroundEventHandler.PRIORITY_LOW;
+
+	private BackgroundEventQueue queue;
+
+	public BackgroundEventQueueTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(BackgroundEventQueueTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		queue = new BackgroundEventQueue();
+	}
+
+	public void testOrderWithinPriority() {
+		Event e1 = change("/p/a", IResource.DEPTH_ZERO);
+		Event e2 = new Event(MARKERS_CHANGED);
+		Event e3 = change("/p/a", IResource.DEPTH_ZERO);
+		add(e1, NORMAL, false);
+		add(e2, NORMAL, false);
+		add(e3, NORMAL, false);
+		assertEquals(3, queue.size());
+		assertSame(e1, queue.peek());
+		assertPolled(e1, e2, e3);
+	}
+
+	public void testOrderAcrossPriorities() {
+		Event low1 = new Event(MARKERS_CHANGED);
+		Event normal1 = change("/p/a", IResource.DEPTH_ZERO);
+		Event low2 = new Event(MARKERS_CHANGED);
+		Event high1 = change("/p/b", IResource.DEPTH_ZERO);
+		Event normal2 = change("/p/c", IResource.DEPTH_ZERO);
+		Event high2 = change("/p/d", IResource.DEPTH_ZERO);
+		add(low1, LOW, false);
+		add(normal1, NORMAL, false);
+		add(low2, LOW, false);
+		add(high1, HIGH, false);
+		add(normal2, NORMAL, false);
+		add(high2, HIGH, false);
+		assertPolled(high1, high2, normal1, normal2, low1, low2);
+	}
+
+	public void testFrontEvents() {
+		Event normal = change("/p/a", IResource.DEPTH_ZERO);
+		Event front1 = change("/p/b", IResource.DEPTH_ZERO);
+		Event front2 = change("/p/c", IResource.DEPTH_ZERO);
+		Event high = change("/p/d", IResource.DEPTH_ZERO);
+		add(normal, NORMAL, false);
+		addFront(front1);
+		add(high, HIGH, false);
+		addFront(front2);
+		assertPolled(front2, front1, high, normal);
+	}
+
+	public void testMarkerChangesAreDemoted() {
+		// The synchronize model update handler queues marker changes with low
+		// priority so that model changes queued after them are processed first
+		List<Event> markers = new ArrayList<>();
+		List<Event> changes = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Event marker = new Event(MARKERS_CHANGED);
+			markers.add(marker);
+			add(marker, LOW, false);
+			Event change = change("/p/f" + i, IResource.DEPTH_ZERO);
+			changes.add(change);
+			add(change, NORMAL, false);
+		}
+		List<Event> expected = new ArrayList<>(changes);
+		expected.addAll(markers);
+		assertPolled(expected.toArray(new Event[expected.size()]));
+
+		// a marker change is processed as soon as no model changes are waiting
+		Event marker = new Event(MARKERS_CHANGED);
+		add(marker, LOW, false);
+		assertSame(marker, queue.poll());
+		assertTrue(queue.isEmpty());
+	}
+
+	public void testCoalesceSameResource() {
+		Event e1 = change("/p/a", IResource.DEPTH_ZERO);
+		add(e1, NORMAL, true);
+		assertFalse("A covered event is not queued", queue.add(change("/p/a", IResource.DEPTH_ZERO), NORMAL, false, true));
+		assertEquals(1, queue.size());
+		assertEquals(1, queue.getCoalescedCount());
+
+		// a deeper event supersedes the queued one
+		Event e2 = change("/p/a", IResource.DEPTH_INFINITE);
+		add(e2, NORMAL, true);
+		assertEquals(1, queue.size());
+		assertEquals(2, queue.getCoalescedCount());
+		assertPolled(e2);
+	}
+
+	public void testDeepEventSupersedesDescendants() {
+		Event a = change("/p/f/a", IResource.DEPTH_ZERO);
+		Event b = change("/p/f/g/b", IResource.DEPTH_INFINITE);
+		Event sibling = change("/p/fx/c", IResource.DEPTH_ZERO);
+		add(a, NORMAL, true);
+		add(b, NORMAL, true);
+		add(sibling, NORMAL, true);
+		Event folder = change("/p/f", IResource.DEPTH_INFINITE);
+		add(folder, NORMAL, true);
+		assertEquals(2, queue.size());
+		assertFalse(queue.add(change("/p/f/g/h/d", IResource.DEPTH_ONE), NORMAL, false, true));
+		// the superseded events are dropped and the folder event is queued last
+		assertPolled(sibling, folder);
+	}
+
+	public void testDepthOneCoversChildrenOnly() {
+		Event folder = change("/p/f", IResource.DEPTH_ONE);
+		add(folder, NORMAL, true);
+		assertFalse(queue.add(change("/p/f/a", IResource.DEPTH_ZERO), NORMAL, false, true));
+		Event folderChild = change("/p/f/g", IResource.DEPTH_ONE);
+		Event grandChild = change("/p/f/g/b", IResource.DEPTH_ZERO);
+		add(folderChild, NORMAL, true);
+		assertFalse(queue.add(grandChild, NORMAL, false, true));
+		Event deep = change("/p/f/h/b", IResource.DEPTH_ZERO);
+		add(deep, NORMAL, true);
+		assertPolled(folder, folderChild, deep);
+	}
+
+	public void testCoalesceOnlyWithinRunOfSameType() {
+		Event c1 = change("/p/a", IResource.DEPTH_ZERO);
+		Event r = removal("/p/b", IResource.DEPTH_ZERO);
+		Event c2 = change("/p/a", IResource.DEPTH_ZERO);
+		Event c3 = change("/p", IResource.DEPTH_INFINITE);
+		add(c1, NORMAL, true);
+		add(r, NORMAL, true);
+		add(c2, NORMAL, true);
+		add(c3, NORMAL, true);
+		// c3 supersedes c2 but not c1, which precedes the removal
+		assertPolled(c1, r, c3);
+	}
+
+	public void testNonResourceEventIsBarrier() {
+		Event c1 = change("/p/a", IResource.DEPTH_ZERO);
+		Event marker = new Event(MARKERS_CHANGED);
+		Event c2 = change("/p/a", IResource.DEPTH_ZERO);
+		add(c1, NORMAL, true);
+		add(marker, NORMAL, true);
+		add(c2, NORMAL, true);
+		assertPolled(c1, marker, c2);
+	}
+
+	public void testNoCoalescingUnlessRequested() {
+		Event c1 = change("/p/a", IResource.DEPTH_ZERO);
+		Event c2 = change("/p/a", IResource.DEPTH_ZERO);
+		Event c3 = change("/p", IResource.DEPTH_INFINITE);
+		add(c1, NORMAL, false);
+		add(c2, NORMAL, false);
+		add(c3, NORMAL, false);
+		assertEquals(0, queue.getCoalescedCount());
+		assertPolled(c1, c2, c3);
+	}
+
+	public void testNoCoalescingOfHighPriorityEvents() {
+		Event c1 = change("/p/a", IResource.DEPTH_ZERO);
+		Event c2 = change("/p/a", IResource.DEPTH_ZERO);
+		add(c1, HIGH, true);
+		add(c2, HIGH, true);
+		assertPolled(c1, c2);
+	}
+
+	public void testNoCoalescingAcrossPriorities() {
+		Event normal = change("/p/a", IResource.DEPTH_ZERO);
+		Event low = change("/p", IResource.DEPTH_INFINITE);
+		add(normal, NORMAL, true);
+		add(low, LOW, true);
+		assertPolled(normal, low);
+	}
+
+	public void testCoalescingAfterPoll() {
+		Event c1 = change("/p/a", IResource.DEPTH_ZERO);
+		add(c1, NORMAL, true);
+		assertSame(c1, queue.poll());
+		// the polled event no longer covers new events
+		Event c2 = change("/p/a", IResource.DEPTH_ZERO);
+		add(c2, NORMAL, true);
+		assertPolled(c2);
+	}
+
+	public void testClear() {
+		add(change("/p/a", IResource.DEPTH_ZERO), NORMAL, true);
+		add(new Event(MARKERS_CHANGED), LOW, false);
+		add(change("/p/b", IResource.DEPTH_ZERO), HIGH, true);
+		queue.clear();
+		assertTrue(queue.isEmpty());
+		assertEquals(0, queue.size());
+		assertNull(queue.peek());
+		assertNull(queue.poll());
+		Event c = change("/p/a", IResource.DEPTH_ZERO);
+		add(c, NORMAL, true);
+		assertPolled(c);
+	}
+
+	public void testHandlerDoesNotCoalesceByDefault() throws Exception {
+		TestHandler handler = new TestHandler(false);
+		try {
+			List<Event> events = Arrays.asList(change("/p/a", IResource.DEPTH_ZERO), change("/p/a", IResource.DEPTH_ZERO), change("/p", IResource.DEPTH_INFINITE));
+			assertEquals(events, handler.process(events));
+		} finally {
+			handler.shutdown();
+		}
+	}
+
+	public void testHandlerCoalescesWhenEnabled() throws Exception {
+		TestHandler handler = new TestHandler(true);
+		try {
+			Event deep = change("/p", IResource.DEPTH_INFINITE);
+			List<Event> events = Arrays.asList(change("/p/a", IResource.DEPTH_ZERO), change("/p/a", IResource.DEPTH_ZERO), deep);
+			assertEquals(Collections.singletonList(deep), handler.process(events));
+		} finally {
+			handler.shutdown();
+		}
+	}
+
+	/*
+	 * A handler that holds its job on a first event until the events under test are queued
+	 */
+	private static class TestHandler extends BackgroundEventHandler {
+		private static final int GATE = 99;
+		private final boolean coalesce;
+		private final List<Event> processed = Collections.synchronizedList(new ArrayList<>());
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		TestHandler(boolean coalesce) {
+			super("Test Handler", "Errors"); //$NON-NLS-1$ //$NON-NLS-2$
+			this.coalesce = coalesce;
+		}
+
+		List<Event> process(List<Event> events) throws InterruptedException {
+			queueEvent(new Event(GATE), false);
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			for (Event event : events) {
+				queueEvent(event, false);
+			}
+			release.countDown();
+			getEventHandlerJob().join();
+			return new ArrayList<>(processed);
+		}
+
+		@Override
+		protected boolean isCoalescable(Event event) {
+			return coalesce && event instanceof ResourceEvent;
+		}
+
+		@Override
+		protected void processEvent(Event event, IProgressMonitor monitor) {
+			if (event.getType() == GATE) {
+				started.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return;
+			}
+			processed.add(event);
+		}
+
+		@Override
+		protected boolean doDispatchEvents(IProgressMonitor monitor) {
+			return false;
+		}
+	}
+
+	private void add(Event event, int priority, boolean coalesce) {
+		assertTrue(queue.add(event, priority, false, coalesce));
+	}
+
+	private void addFront(Event event) {
+		assertTrue(queue.add(event, HIGH, true, false));
+	}
+
+	private void assertPolled(Event... expected) {
+		List<Event> polled = new ArrayList<>();
+		Event event;
+		while ((event = queue.poll()) != null) {
+			polled.add(event);
+		}
+		assertEquals(Arrays.asList(expected), polled);
+		assertTrue(queue.isEmpty());
+		assertEquals(0, queue.size());
+	}
+
+	private static ResourceEvent change(String path, int depth) {
+		return new ResourceEvent(getResource(path), CHANGE, depth);
+	}
+
+	private static ResourceEvent removal(String path, int depth) {
+		return new ResourceEvent(getResource(path), REMOVAL, depth);
+	}
+
+	private static IResource getResource(String path) {
+		Path p = new Path(path);
+		if (p.segmentCount() == 1)
+			return ResourcesPlugin.getWorkspace().getRoot().getProject(p.segment(0));
+		return ResourcesPlugin.getWorkspace().getRoot().getFolder(p);
+	}
+}
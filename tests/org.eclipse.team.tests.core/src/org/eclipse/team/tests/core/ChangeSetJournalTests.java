@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.internal.core.subscribers.ChangeSetJournal;
+import org.eclipse.team.internal.core.subscribers.ChangeSetJournal.SetState;
+
+public class ChangeSetJournalTests extends TestCase {
+
+	private File directory;
+	private File file;
+
+	public ChangeSetJournalTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ChangeSetJournalTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		directory = Files.createTempDirectory("journal").toFile();
+		file = new File(new File(directory, "changeSets"), "sets.journal");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] children = file.getParentFile().listFiles();
+		if (children != null) {
+			for (File child : children) {
+				child.delete();
+			}
+		}
+		file.getParentFile().delete();
+		directory.delete();
+		super.tearDown();
+	}
+
+	public void testRoundTrip() throws IOException {
+		ChangeSetJournal journal = new ChangeSetJournal(file);
+		assertFalse(journal.exists());
+		List<SetState> sets = Arrays.asList(
+				new SetState("first", "A comment", true, Arrays.asList("/p/a.txt", "/p/folder/")),
+				new SetState("second", null, false, Arrays.asList("/q/b.txt")));
+		journal.save(sets, "second");
+		assertTrue(journal.exists());
+
+		ChangeSetJournal loaded = load();
+		assertEquals(sets, loaded.getSets());
+		assertEquals("second", loaded.getDefaultSet());
+	}
+
+	public void testFormat() throws IOException {
+		new ChangeSetJournal(file).save(Collections.singletonList(
+				new SetState("set", null, true, Collections.singletonList("/p/a.txt"))), null);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			assertEquals("Magic number", 0x54435331, in.readInt());
+			assertEquals("Version", 1, in.readInt());
+		}
+		assertEquals("Commit marker", 6, bytes[bytes.length - 1]);
+	}
+
+	public void testLongStrings() throws IOException {
+		char[] chars = new char[100000];
+		Arrays.fill(chars, '\u00e9');
+		String comment = new String(chars);
+		List<SetState> sets = Collections.singletonList(
+				new SetState("set \u20ac", comment, true, Collections.singletonList("/p/\u00fc.txt")));
+		new ChangeSetJournal(file).save(sets, null);
+		assertEquals(sets, load().getSets());
+	}
+
+	public void testIncrementalSaves() throws IOException {
+		ChangeSetJournal journal = new ChangeSetJournal(file);
+		journal.save(Arrays.asList(
+				new SetState("first", null, true, Arrays.asList("/p/a.txt", "/p/b.txt")),
+				new SetState("second", null, true, Arrays.asList("/p/c.txt"))), "first");
+		long length = file.length();
+
+		// Saving the same state does not append anything
+		journal.save(Arrays.asList(
+				new SetState("first", null, true, Arrays.asList("/p/a.txt", "/p/b.txt")),
+				new SetState("second", null, true, Arrays.asList("/p/c.txt"))), "first");
+		assertEquals(length, file.length());
+
+		List<SetState> sets = Arrays.asList(
+				new SetState("first", "Comment", true, Arrays.asList("/p/b.txt", "/p/d.txt")),
+				new SetState("third", null, false, Arrays.asList("/p/e.txt")));
+		journal.save(sets, "third");
+		assertTrue(file.length() > length);
+
+		ChangeSetJournal loaded = load();
+		assertEquals(sets, loaded.getSets());
+		assertEquals("third", loaded.getDefaultSet());
+
+		// A loaded journal continues to append to the file
+		List<SetState> next = Collections.singletonList(new SetState("first", "Comment", true, Arrays.asList("/p/b.txt")));
+		loaded.save(next, null);
+		ChangeSetJournal reloaded = load();
+		assertEquals(next, reloaded.getSets());
+		assertNull(reloaded.getDefaultSet());
+	}
+
+	public void testTruncatedBatchIsIgnored() throws IOException {
+		ChangeSetJournal journal = new ChangeSetJournal(file);
+		List<SetState> sets = Collections.singletonList(new SetState("set", null, true, Arrays.asList("/p/a.txt")));
+		journal.save(sets, "set");
+		long length = file.length();
+		journal.save(Collections.singletonList(new SetState("set", null, true, Arrays.asList("/p/a.txt", "/p/b.txt"))), null);
+		for (long truncated = file.length() - 1; truncated > length; truncated--) {
+			truncate(truncated);
+			ChangeSetJournal loaded = load();
+			assertEquals("Truncated to " + truncated, sets, loaded.getSets());
+			assertEquals("set", loaded.getDefaultSet());
+		}
+	}
+
+	public void testSaveAfterTruncatedBatch() throws IOException {
+		ChangeSetJournal journal = new ChangeSetJournal(file);
+		journal.save(Collections.singletonList(new SetState("set", null, true, Arrays.asList("/p/a.txt"))), null);
+		journal.save(Collections.singletonList(new SetState("set", null, true, Arrays.asList("/p/a.txt", "/p/b.txt"))), null);
+		truncate(file.length() - 3);
+
+		// The file is rewritten since records appended after the truncated
+		// batch could not be read
+		ChangeSetJournal loaded = load();
+		List<SetState> sets = Collections.singletonList(new SetState("set", null, true, Arrays.asList("/p/c.txt")));
+		loaded.save(sets, null);
+		assertEquals(sets, load().getSets());
+	}
+
+	public void testCorruptFile() throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+		try {
+			load();
+			fail("Expected an exception for a file that is not a journal");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+	public void testCompaction() throws IOException {
+		ChangeSetJournal journal = new ChangeSetJournal(file);
+		List<SetState> sets = null;
+		int compactions = 0;
+		for (int i = 0; i < 200; i++) {
+			List<String> paths = new ArrayList<>();
+			for (int j = 0; j < 10; j++) {
+				paths.add("/project/folder/file" + i + "_" + j + ".txt");
+			}
+			sets = Collections.singletonList(new SetState("set", null, true, paths));
+			long length = file.length();
+			journal.save(sets, null);
+			// Each save replaces all ten paths of the set so the file only
+			// shrinks when it is compacted
+			if (file.length() < length)
+				compactions++;
+		}
+		assertTrue("The journal was not compacted", compactions > 1);
+		assertFalse(new File(file.getPath() + ".tmp").exists());
+		assertEquals(sets, load().getSets());
+	}
+
+	private ChangeSetJournal load() throws IOException {
+		ChangeSetJournal journal = new ChangeSetJournal(file);
+		journal.load();
+		return journal;
+	}
+
+	private void truncate(long length) throws IOException {
+		try (RandomAccessFile access = new RandomAccessFile(file, "rw")) {
+			access.setLength(length);
+		}
+	}
+
+	private static void assertEquals(Collection<SetState> expected, Collection<SetState> actual) {
+		assertEquals(null, expected, actual);
+	}
+
+	private static void assertEquals(String message, Collection<SetState> expected, Collection<SetState> actual) {
+		assertEquals(message, expected.size(), actual.size());
+		List<SetState> actualList = new ArrayList<>(actual);
+		int i = 0;
+		for (SetState state : expected) {
+			SetState other = actualList.get(i++);
+			assertEquals(message, state.getTitle(), other.getTitle());
+			assertEquals(message, state.getComment(), other.getComment());
+			assertEquals(message, state.isUserCreated(), other.isUserCreated());
+			assertEquals(message, Arrays.asList(state.getPaths()), Arrays.asList(other.getPaths()));
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.team.core.variants.IResourceVariant;
+import org.eclipse.team.internal.core.subscribers.ContentComparator;
+
+/**
+ * Tests that the content comparator decides from the sizes and digests of the
+ * contents, when they are known, without reading the contents.
+ */
+public class ContentComparatorTests extends TeamTest {
+
+	/*
+	 * A remote file that counts how often its contents are read
+	 */
+	private static class TestVariant implements IResourceVariant {
+		private final String id;
+		private final byte[] contents;
+		final AtomicInteger reads = new AtomicInteger();
+
+		TestVariant(String id, String contents) {
+			this.id = id;
+			this.contents = contents.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String getName() {
+			return "file.txt";
+		}
+
+		@Override
+		public boolean isContainer() {
+			return false;
+		}
+
+		@Override
+		public IStorage getStorage(IProgressMonitor monitor) {
+			return new IStorage() {
+				@Override
+				public InputStream getContents() {
+					reads.incrementAndGet();
+					return new ByteArrayInputStream(contents);
+				}
+
+				@Override
+				public IPath getFullPath() {
+					return null;
+				}
+
+				@Override
+				public String getName() {
+					return TestVariant.this.getName();
+				}
+
+				@Override
+				public boolean isReadOnly() {
+					return true;
+				}
+
+				@Override
+				public <T> T getAdapter(Class<T> adapter) {
+					return null;
+				}
+			};
+		}
+
+		@Override
+		public String getContentIdentifier() {
+			return id;
+		}
+
+		@Override
+		public byte[] asBytes() {
+			return id.getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	private IFile file;
+
+	public ContentComparatorTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return suite(ContentComparatorTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		file = getUniqueTestProject(getName()).getFile("file.txt");
+		file.create(new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8)), true, null);
+	}
+
+	public void testSizeMismatchSkipsContents() throws CoreException {
+		TestVariant remote = new TestVariant("1", "abc");
+		assertTrue(compare(remote));
+		assertEquals(1, remote.reads.get());
+		setContents("abcd");
+		// The size of the remote contents was recorded when they were read
+		assertFalse(compare(remote));
+		assertEquals(1, remote.reads.get());
+		assertFalse(compare(new TestVariant("1", "abc")));
+	}
+
+	public void testDigestsSkipContents() throws CoreException {
+		TestVariant remote = new TestVariant("1", "abc");
+		assertTrue(compare(remote));
+		assertTrue(compare(remote));
+		assertEquals(1, remote.reads.get());
+	}
+
+	public void testSameSizeReadsContents() throws CoreException {
+		TestVariant remote = new TestVariant("1", "abc");
+		assertTrue(compare(remote));
+		setContents("abd");
+		assertFalse(compare(remote));
+		assertEquals(2, remote.reads.get());
+	}
+
+	public void testUnknownSizeReadsContents() throws CoreException {
+		TestVariant remote = new TestVariant("2", "abcd");
+		assertFalse(compare(remote));
+		assertEquals(1, remote.reads.get());
+		// Once read to the end, the size is known
+		setContents("abcd");
+		assertTrue(compare(remote));
+		setContents("abcde");
+		assertFalse(compare(remote));
+		assertEquals(2, remote.reads.get());
+	}
+
+	public void testIgnoreWhitespaceReadsContents() throws CoreException {
+		TestVariant remote = new TestVariant("3", "a b c");
+		ContentComparator comparator = new ContentComparator(true);
+		assertTrue(comparator.compare(file, remote, new NullProgressMonitor()));
+		assertTrue(comparator.compare(file, remote, new NullProgressMonitor()));
+		assertEquals(2, remote.reads.get());
+	}
+
+	private boolean compare(TestVariant remote) {
+		return new ContentComparator(false).compare(file, remote, new NullProgressMonitor());
+	}
+
+	private void setContents(String contents) throws CoreException {
+		file.setContents(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)), true, false, null);
+	}
+}
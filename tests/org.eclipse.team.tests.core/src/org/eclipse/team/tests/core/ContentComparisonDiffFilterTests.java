@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.ILogListener;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.diff.provider.TwoWayDiff;
+import org.eclipse.team.internal.core.subscribers.ContentComparisonDiffFilter;
+
+/**
+ * Tests the concurrent selection of {@link ContentComparisonDiffFilter}. The
+ * comparison of the contents is replaced by a selection based on the name of
+ * each diff.
+ */
+public class ContentComparisonDiffFilterTests extends TestCase {
+
+	private static class TestFilter extends ContentComparisonDiffFilter {
+		private final int workers;
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger maxActive = new AtomicInteger();
+		CountDownLatch overlap;
+		CountDownLatch release;
+
+		TestFilter(int workers) {
+			this.workers = workers;
+		}
+
+		@Override
+		public boolean select(IDiff diff, IProgressMonitor monitor) {
+			maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+			try {
+				if (overlap != null) {
+					// Wait for another worker to select a diff at the same time
+					overlap.countDown();
+					overlap.await(10, TimeUnit.SECONDS);
+				}
+				if (release != null)
+					release.await(10, TimeUnit.SECONDS);
+				String name = diff.getPath().lastSegment();
+				if (name.startsWith("fail"))
+					throw new IllegalStateException(name);
+				return name.startsWith("changed");
+			} catch (InterruptedException e) {
+				throw new OperationCanceledException();
+			} finally {
+				active.decrementAndGet();
+			}
+		}
+
+		@Override
+		protected int getWorkerCount() {
+			return workers;
+		}
+	}
+
+	public ContentComparisonDiffFilterTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ContentComparisonDiffFilterTests.class);
+	}
+
+	public void testSerialSelection() {
+		assertSelection(new TestFilter(1), 50);
+	}
+
+	public void testConcurrentSelection() {
+		assertSelection(new TestFilter(4), 500);
+	}
+
+	public void testSingleDiff() {
+		TestFilter filter = new TestFilter(4);
+		boolean[] selected = filter.select(new IDiff[] { diff("changed") }, new NullProgressMonitor());
+		assertEquals(1, selected.length);
+		assertTrue(selected[0]);
+		assertEquals(0, filter.select(new IDiff[0], new NullProgressMonitor()).length);
+	}
+
+	public void testWorkersRunConcurrently() {
+		TestFilter filter = new TestFilter(2);
+		filter.overlap = new CountDownLatch(2);
+		filter.select(new IDiff[] { diff("changed1"), diff("changed2") }, new NullProgressMonitor());
+		assertEquals(0, filter.overlap.getCount());
+		assertEquals(2, filter.maxActive.get());
+	}
+
+	public void testWorkerCountIsBounded() {
+		TestFilter filter = new TestFilter(3);
+		assertSelection(filter, 200);
+		assertTrue(String.valueOf(filter.maxActive.get()), filter.maxActive.get() <= 3);
+	}
+
+	public void testFailuresAreKeptAndLogged() {
+		List<IStatus> logged = Collections.synchronizedList(new ArrayList<>());
+		ILogListener listener = (status, plugin) -> logged.add(status);
+		Platform.addLogListener(listener);
+		try {
+			for (int workers : new int[] { 1, 4 }) {
+				logged.clear();
+				IDiff[] diffs = { diff("same"), diff("fail1"), diff("changed"), diff("fail2") };
+				boolean[] selected = new TestFilter(workers).select(diffs, new NullProgressMonitor());
+				assertFalse(selected[0]);
+				assertTrue("A failed comparison keeps the diff", selected[1]);
+				assertTrue(selected[2]);
+				assertTrue("A failed comparison keeps the diff", selected[3]);
+				assertEquals(2, logged.size());
+				for (IStatus status : logged) {
+					assertEquals(IStatus.ERROR, status.getSeverity());
+					assertTrue(status.getException() instanceof IllegalStateException);
+					assertTrue(status.getMessage(), status.getMessage().contains("fail"));
+				}
+			}
+		} finally {
+			Platform.removeLogListener(listener);
+		}
+	}
+
+	public void testCancellation() throws InterruptedException {
+		TestFilter filter = new TestFilter(4);
+		filter.release = new CountDownLatch(1);
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		Thread canceler = new Thread(() -> {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				// Cancel right away
+			}
+			monitor.setCanceled(true);
+		});
+		canceler.start();
+		try {
+			filter.select(createDiffs(100), monitor);
+			fail("Expected the selection to be canceled");
+		} catch (OperationCanceledException e) {
+			// Expected
+		} finally {
+			filter.release.countDown();
+			canceler.join();
+		}
+	}
+
+	private void assertSelection(TestFilter filter, int count) {
+		IDiff[] diffs = createDiffs(count);
+		boolean[] selected = filter.select(diffs, new NullProgressMonitor());
+		assertEquals(count, selected.length);
+		for (int i = 0; i < count; i++) {
+			assertEquals(diffs[i].getPath().toString(), filter.select(diffs[i], new NullProgressMonitor()), selected[i]);
+		}
+	}
+
+	private IDiff[] createDiffs(int count) {
+		IDiff[] diffs = new IDiff[count];
+		for (int i = 0; i < count; i++) {
+			diffs[i] = diff((i % 3 == 0 ? "changed" : "same") + i);
+		}
+		return diffs;
+	}
+
+	private IDiff diff(String name) {
+		return new TwoWayDiff(new Path("/project/" + name), IDiff.CHANGE, 0);
+	}
+}
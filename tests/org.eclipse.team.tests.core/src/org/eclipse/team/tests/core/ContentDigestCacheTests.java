@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.internal.core.ContentDigestCache;
+
+public class ContentDigestCacheTests extends TestCase {
+
+	private File directory;
+	private File file;
+
+	public ContentDigestCacheTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ContentDigestCacheTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		directory = Files.createTempDirectory("digests").toFile();
+		file = new File(directory, ".contentDigests");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] children = directory.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				child.delete();
+			}
+		}
+		directory.delete();
+		super.tearDown();
+	}
+
+	public void testStampValidation() {
+		ContentDigestCache cache = new ContentDigestCache(null, 10);
+		byte[] digest = digest(1);
+		cache.putDigest("L:/p/a.txt", 5, 1000, 42, digest);
+		assertTrue(Arrays.equals(digest, cache.getDigest("L:/p/a.txt", 5, 1000, 42)));
+		assertNull(cache.getDigest("L:/p/b.txt", 5, 1000, 42));
+		assertNull("Modification stamp changed", cache.getDigest("L:/p/a.txt", 6, 1000, 42));
+		// The stale entry was dropped
+		assertNull(cache.getDigest("L:/p/a.txt", 5, 1000, 42));
+
+		cache.putDigest("L:/p/a.txt", 5, 1000, 42, digest);
+		assertNull("Time stamp changed", cache.getDigest("L:/p/a.txt", 5, 1001, 42));
+		cache.putDigest("L:/p/a.txt", 5, 1000, 42, digest);
+		assertNull("Size changed", cache.getDigest("L:/p/a.txt", 5, 1000, 43));
+	}
+
+	public void testImmutableContents() {
+		ContentDigestCache cache = new ContentDigestCache(null, 10);
+		byte[] digest = digest(2);
+		cache.putDigest("R:/p/a.txt\nVariant\n1.2", -1, -1, -1, digest);
+		assertTrue(Arrays.equals(digest, cache.getDigest("R:/p/a.txt\nVariant\n1.2", -1, -1, -1)));
+		assertNull(cache.getDigest("R:/p/a.txt\nVariant\n1.3", -1, -1, -1));
+		assertEquals(-1, cache.getSize("R:/p/a.txt\nVariant\n1.2"));
+	}
+
+	public void testImmutableContentsSize() {
+		ContentDigestCache cache = new ContentDigestCache(null, 10);
+		byte[] digest = digest(3);
+		cache.putDigest("R:/p/a.txt\nVariant\n1.2", -1, -1, 42, digest);
+		assertEquals(42, cache.getSize("R:/p/a.txt\nVariant\n1.2"));
+		assertEquals(-1, cache.getSize("R:/p/a.txt\nVariant\n1.3"));
+		// The size is not known when the digest is looked up
+		assertTrue(Arrays.equals(digest, cache.getDigest("R:/p/a.txt\nVariant\n1.2", -1, -1, -1)));
+	}
+
+	public void testLeastRecentlyUsedEviction() {
+		ContentDigestCache cache = new ContentDigestCache(null, 3);
+		cache.putDigest("a", 1, 1, 1, digest(1));
+		cache.putDigest("b", 1, 1, 1, digest(2));
+		cache.putDigest("c", 1, 1, 1, digest(3));
+		// Using an entry makes it the most recently used
+		assertNotNull(cache.getDigest("a", 1, 1, 1));
+		cache.putDigest("d", 1, 1, 1, digest(4));
+		assertNull(cache.getDigest("b", 1, 1, 1));
+		assertNotNull(cache.getDigest("a", 1, 1, 1));
+		assertNotNull(cache.getDigest("c", 1, 1, 1));
+		assertNotNull(cache.getDigest("d", 1, 1, 1));
+	}
+
+	public void testPersistence() {
+		ContentDigestCache cache = new ContentDigestCache(file, 10);
+		cache.putDigest("L:/p/a.txt", 5, 1000, 42, digest(1));
+		cache.putDigest("R:/p/a.txt\nVariant\n1.2", -1, -1, -1, digest(2));
+		cache.save();
+		assertTrue(file.exists());
+
+		ContentDigestCache loaded = new ContentDigestCache(file, 10);
+		loaded.load();
+		assertTrue(Arrays.equals(digest(1), loaded.getDigest("L:/p/a.txt", 5, 1000, 42)));
+		assertTrue(Arrays.equals(digest(2), loaded.getDigest("R:/p/a.txt\nVariant\n1.2", -1, -1, -1)));
+		assertNull(loaded.getDigest("L:/p/a.txt", 6, 1000, 42));
+	}
+
+	public void testPersistenceKeepsAccessOrder() {
+		ContentDigestCache cache = new ContentDigestCache(file, 3);
+		cache.putDigest("a", 1, 1, 1, digest(1));
+		cache.putDigest("b", 1, 1, 1, digest(2));
+		cache.putDigest("c", 1, 1, 1, digest(3));
+		assertNotNull(cache.getDigest("a", 1, 1, 1));
+		cache.save();
+
+		ContentDigestCache loaded = new ContentDigestCache(file, 3);
+		loaded.load();
+		loaded.putDigest("d", 1, 1, 1, digest(4));
+		assertNull(loaded.getDigest("b", 1, 1, 1));
+		assertNotNull(loaded.getDigest("a", 1, 1, 1));
+	}
+
+	public void testUnchangedCacheIsNotSaved() {
+		ContentDigestCache cache = new ContentDigestCache(file, 10);
+		cache.load();
+		assertNull(cache.getDigest("a", 1, 1, 1));
+		cache.save();
+		assertFalse(file.exists());
+	}
+
+	public void testLongKeysAreNotCached() {
+		char[] chars = new char[0x10000];
+		Arrays.fill(chars, 'x');
+		String key = new String(chars);
+		ContentDigestCache cache = new ContentDigestCache(file, 10);
+		cache.putDigest(key, 1, 1, 1, digest(1));
+		assertNull(cache.getDigest(key, 1, 1, 1));
+		cache.putDigest("a", 1, 1, 1, digest(2));
+		cache.save();
+		ContentDigestCache loaded = new ContentDigestCache(file, 10);
+		loaded.load();
+		assertNotNull(loaded.getDigest("a", 1, 1, 1));
+	}
+
+	public void testCorruptFile() throws IOException {
+		Files.write(file.toPath(), new byte[] { 0x54, 0x43, 0x44, 0x43, 0, 0, 0, 1, 0, 0, 0, 5, 0 });
+		ContentDigestCache cache = new ContentDigestCache(file, 10);
+		cache.load();
+		assertNull(cache.getDigest("a", 1, 1, 1));
+		// The cache remains usable
+		cache.putDigest("a", 1, 1, 1, digest(1));
+		assertNotNull(cache.getDigest("a", 1, 1, 1));
+	}
+
+	private byte[] digest(int seed) {
+		byte[] digest = new byte[32];
+		Arrays.fill(digest, (byte) seed);
+		return digest;
+	}
+}
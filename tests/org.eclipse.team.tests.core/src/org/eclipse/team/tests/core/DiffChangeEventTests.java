@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.diff.IDiffChangeEvent;
+import org.eclipse.team.core.diff.IDiffChangeListener;
+import org.eclipse.team.core.diff.IDiffTree;
+import org.eclipse.team.core.diff.provider.DiffTree;
+import org.eclipse.team.core.diff.provider.TwoWayDiff;
+import org.eclipse.team.internal.core.mapping.DiffChangeEvent;
+
+public class DiffChangeEventTests extends TestCase {
+
+	public DiffChangeEventTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(DiffChangeEventTests.class);
+	}
+
+	public void testChangeCount() {
+		DiffChangeEvent event = new DiffChangeEvent(new DiffTree());
+		assertTrue(event.isEmpty());
+		assertEquals(0, event.getChangeCount());
+		event.added(diff("/p1/a.txt", IDiff.ADD));
+		event.changed(diff("/p1/b.txt", IDiff.CHANGE));
+		event.removed(new Path("/p2/c.txt"), null);
+		assertEquals(3, event.getChangeCount());
+		// An addition followed by a removal is dropped
+		event.added(diff("/p2/d.txt", IDiff.ADD));
+		event.removed(new Path("/p2/d.txt"), null);
+		assertEquals(3, event.getChangeCount());
+		// A removal followed by an addition is a change
+		event.added(diff("/p2/c.txt", IDiff.ADD));
+		assertEquals(3, event.getChangeCount());
+		assertEquals(2, event.getChanges().length);
+		assertEquals(0, event.getRemovals().length);
+	}
+
+	public void testArraysAreCopied() {
+		DiffChangeEvent event = new DiffChangeEvent(new DiffTree());
+		event.added(diff("/p1/a.txt", IDiff.ADD));
+		IDiff[] additions = event.getAdditions();
+		additions[0] = null;
+		assertNotNull(event.getAdditions()[0]);
+		assertNotSame(event.getAdditions(), event.getAdditions());
+		// Later changes are reflected by the arrays
+		event.added(diff("/p1/b.txt", IDiff.ADD));
+		assertEquals(2, event.getAdditions().length);
+		event.removed(new Path("/p1/c.txt"), null);
+		assertEquals(1, event.getRemovals().length);
+	}
+
+	public void testBulkChange() {
+		DiffChangeEvent event = new DiffChangeEvent(new DiffTree());
+		for (int i = 0; i < DiffChangeEvent.BULK_CHANGE_THRESHOLD - 1; i++) {
+			event.added(diff("/p1/file" + i, IDiff.ADD));
+		}
+		assertFalse(event.isBulkChange());
+		event.changed(diff("/p1/other", IDiff.CHANGE));
+		assertTrue(event.isBulkChange());
+	}
+
+	public void testResetIsBulkChange() {
+		DiffChangeEvent event = new DiffChangeEvent(new DiffTree());
+		assertFalse(event.isBulkChange());
+		event.reset();
+		assertTrue(event.isBulkChange());
+		assertTrue(event.isEmpty());
+	}
+
+	public void testSubtreeSummary() {
+		DiffChangeEvent event = new DiffChangeEvent(new DiffTree());
+		event.added(diff("/p1/folder/a.txt", IDiff.ADD));
+		event.changed(diff("/p1/folder/b.txt", IDiff.CHANGE));
+		event.changed(diff("/p1/c.txt", IDiff.CHANGE));
+		event.removed(new Path("/p2/folder/d.txt"), null);
+
+		Map<IPath, Integer> projects = event.getSubtreeSummary(1);
+		assertEquals(2, projects.size());
+		assertEquals(Integer.valueOf(3), projects.get(new Path("/p1")));
+		assertEquals(Integer.valueOf(1), projects.get(new Path("/p2")));
+
+		Map<IPath, Integer> folders = event.getSubtreeSummary(2);
+		assertEquals(3, folders.size());
+		assertEquals(Integer.valueOf(2), folders.get(new Path("/p1/folder")));
+		assertEquals(Integer.valueOf(1), folders.get(new Path("/p1/c.txt")));
+		assertEquals(Integer.valueOf(1), folders.get(new Path("/p2/folder")));
+
+		Map<IPath, Integer> root = event.getSubtreeSummary(0);
+		assertEquals(1, root.size());
+		assertEquals(Integer.valueOf(4), root.get(Path.ROOT));
+	}
+
+	public void testChangedSubtrees() {
+		DiffChangeEvent event = new DiffChangeEvent(new DiffTree());
+		assertEquals(0, event.getChangedSubtrees(1).length);
+		event.added(diff("/p1/a.txt", IDiff.ADD));
+		event.added(diff("/p1/b.txt", IDiff.ADD));
+		event.removed(new Path("/p2/c.txt"), null);
+		event.changed(diff("/p3/d.txt", IDiff.CHANGE));
+		assertEquals(new HashSet<>(Arrays.asList(new Path("/p1"), new Path("/p2"), new Path("/p3"))),
+				new HashSet<>(Arrays.asList(event.getChangedSubtrees(1))));
+	}
+
+	public void testTreeFiresBulkChange() {
+		DiffTree tree = new DiffTree();
+		DiffChangeEvent[] fired = new DiffChangeEvent[1];
+		tree.addDiffChangeListener(new IDiffChangeListener() {
+			@Override
+			public void diffsChanged(IDiffChangeEvent event, IProgressMonitor monitor) {
+				fired[0] = (DiffChangeEvent) event;
+			}
+			@Override
+			public void propertyChanged(IDiffTree tree, int property, IPath[] paths) {
+				// Not used
+			}
+		});
+		tree.add(diff("/p1/a.txt", IDiff.ADD));
+		assertNotNull(fired[0]);
+		assertFalse(fired[0].isBulkChange());
+
+		fired[0] = null;
+		tree.beginInput();
+		try {
+			for (int i = 0; i < DiffChangeEvent.BULK_CHANGE_THRESHOLD; i++) {
+				tree.add(diff("/p2/file" + i, IDiff.ADD));
+			}
+		} finally {
+			tree.endInput(null);
+		}
+		assertNotNull(fired[0]);
+		assertTrue(fired[0].isBulkChange());
+		assertEquals(DiffChangeEvent.BULK_CHANGE_THRESHOLD, fired[0].getChangeCount());
+		assertEquals(1, fired[0].getChangedSubtrees(1).length);
+	}
+
+	private IDiff diff(String path, int kind) {
+		return new TwoWayDiff(new Path(path), kind, 0);
+	}
+}
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.internal.registry.ExtensionRegistry;
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.runtime.ContributorFactoryOSGi;
+import org.eclipse.core.runtime.IContributor;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Preferences;
+import org.eclipse.team.core.IFileContentManager;
+import org.eclipse.team.core.Team;
+import org.eclipse.team.internal.core.TeamPlugin;
+import org.osgi.framework.FrameworkUtil;
+
+public class FileContentManagerTests extends TestCase {
+
+	private static final String EXTENSION_TYPES = "file_types";
+	private static final String NAME_TYPES = "cvs_mode_for_file_without_extensions";
+
+	private static final String EXTENSION = "fcmtestext";
+
+	private String extensionTypes;
+	private String nameTypes;
+
+	private static class TestStorage implements IStorage {
+		private final String name;
+
+		TestStorage(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public <T> T getAdapter(Class<T> adapter) {
+			return null;
+		}
+
+		@Override
+		public InputStream getContents() {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		@Override
+		public IPath getFullPath() {
+			return new Path(name);
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public boolean isReadOnly() {
+			return true;
+		}
+	}
+
+	public FileContentManagerTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(FileContentManagerTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		Preferences preferences = TeamPlugin.getPlugin().getPluginPreferences();
+		extensionTypes = preferences.contains(EXTENSION_TYPES) ? preferences.getString(EXTENSION_TYPES) : null;
+		nameTypes = preferences.contains(NAME_TYPES) ? preferences.getString(NAME_TYPES) : null;
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		restore(EXTENSION_TYPES, extensionTypes);
+		restore(NAME_TYPES, nameTypes);
+		super.tearDown();
+	}
+
+	private void restore(String key, String value) {
+		Preferences preferences = TeamPlugin.getPlugin().getPluginPreferences();
+		if (value == null) {
+			preferences.setToDefault(key);
+		} else {
+			preferences.setValue(key, value);
+		}
+	}
+
+	public void testExtensionMappingChanges() {
+		IFileContentManager manager = Team.getFileContentManager();
+		String name = "file." + EXTENSION;
+		assertEquals(Team.UNKNOWN, manager.getType(new TestStorage(name)));
+		manager.addExtensionMappings(new String[] { EXTENSION }, new int[] { Team.BINARY });
+		assertEquals(Team.BINARY, manager.getType(new TestStorage(name)));
+		assertEquals(Team.BINARY, manager.getTypeForExtension(EXTENSION));
+		manager.addExtensionMappings(new String[] { EXTENSION }, new int[] { Team.TEXT });
+		assertEquals(Team.TEXT, manager.getType(new TestStorage(name)));
+		assertEquals(Team.TEXT, manager.getTypeForExtension(EXTENSION));
+		manager.setExtensionMappings(new String[0], new int[0]);
+		assertEquals(Team.UNKNOWN, manager.getType(new TestStorage(name)));
+	}
+
+	public void testNameMappingTakesPrecedence() {
+		IFileContentManager manager = Team.getFileContentManager();
+		manager.addExtensionMappings(new String[] { EXTENSION }, new int[] { Team.TEXT });
+		String name = "special." + EXTENSION;
+		assertEquals(Team.TEXT, manager.getType(new TestStorage(name)));
+		manager.addNameMappings(new String[] { name }, new int[] { Team.BINARY });
+		assertEquals(Team.BINARY, manager.getType(new TestStorage(name)));
+		assertEquals(Team.TEXT, manager.getType(new TestStorage("other." + EXTENSION)));
+		manager.setNameMappings(new String[0], new int[0]);
+		assertEquals(Team.TEXT, manager.getType(new TestStorage(name)));
+	}
+
+	public void testPreferenceChanges() {
+		IFileContentManager manager = Team.getFileContentManager();
+		String name = "file." + EXTENSION;
+		assertEquals(Team.UNKNOWN, manager.getType(new TestStorage(name)));
+		TeamPlugin.getPlugin().getPluginPreferences().setValue(EXTENSION_TYPES, EXTENSION + "\n" + Team.BINARY + "\n");
+		assertEquals(Team.BINARY, manager.getType(new TestStorage(name)));
+	}
+
+	public void testPluginMappings() {
+		IFileContentManager manager = Team.getFileContentManager();
+		// Contributed by org.eclipse.team.core
+		assertEquals(Team.TEXT, manager.getType(new TestStorage("file.properties")));
+		assertTrue(manager.isKnownExtension("properties"));
+		// User mappings take precedence
+		manager.addExtensionMappings(new String[] { "properties" }, new int[] { Team.BINARY });
+		assertEquals(Team.BINARY, manager.getType(new TestStorage("file.properties")));
+	}
+
+	public void testDynamicPluginMappings() throws Exception {
+		IFileContentManager manager = Team.getFileContentManager();
+		String name = "file." + EXTENSION;
+		assertEquals(Team.UNKNOWN, manager.getType(new TestStorage(name)));
+
+		IExtensionRegistry registry = Platform.getExtensionRegistry();
+		Object token = ((ExtensionRegistry) registry).getTemporaryUserToken();
+		IContributor contributor = ContributorFactoryOSGi.createContributor(FrameworkUtil.getBundle(getClass()));
+		String id = "fileContentManagerTests";
+		String contribution = "<plugin><extension id=\"" + id + "\" point=\"org.eclipse.team.core.fileTypes\">"
+				+ "<fileTypes type=\"binary\" extension=\"" + EXTENSION + "\"/></extension></plugin>";
+		assertTrue(registry.addContribution(new ByteArrayInputStream(contribution.getBytes(StandardCharsets.UTF_8)),
+				contributor, false, id, null, token));
+		try {
+			waitForType(manager, name, Team.BINARY);
+			assertTrue(manager.isKnownExtension(EXTENSION));
+		} finally {
+			IExtension extension = registry.getExtension(contributor.getName() + '.' + id);
+			if (extension != null)
+				registry.removeExtension(extension, token);
+		}
+		waitForType(manager, name, Team.UNKNOWN);
+	}
+
+	public void testConcurrentResolution() throws Exception {
+		IFileContentManager manager = Team.getFileContentManager();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int offset = t;
+			Thread thread = new Thread(() -> {
+				try {
+					// More names than the cache holds so that it is cleared while used
+					for (int i = 0; i < 30000; i++) {
+						manager.getType(new TestStorage("file" + (i * 4 + offset) + "." + EXTENSION));
+					}
+				} catch (Throwable e) {
+					failure.set(e);
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (int i = 0; i < 20; i++) {
+			manager.addExtensionMappings(new String[] { EXTENSION }, new int[] { i % 2 == 0 ? Team.TEXT : Team.BINARY });
+			Thread.sleep(5);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertNull(failure.get());
+		// Types resolved before the last change must not be returned
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(Team.BINARY, manager.getType(new TestStorage("file" + i + "." + EXTENSION)));
+		}
+	}
+
+	private void waitForType(IFileContentManager manager, String name, int type) throws InterruptedException {
+		// Registry events are delivered asynchronously
+		long end = System.currentTimeMillis() + 10000;
+		while (manager.getType(new TestStorage(name)) != type && System.currentTimeMillis() < end) {
+			Thread.sleep(20);
+		}
+		assertEquals(type, manager.getType(new TestStorage(name)));
+	}
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.text.StringMatcher;
+import org.eclipse.team.internal.core.IgnoreMatcher;
+
+/**
+ * Tests that the compiled ignore matcher gives the same answers as matching
+ * each pattern with a case-insensitive {@link StringMatcher}.
+ */
+public class IgnoreMatcherTests extends TestCase {
+
+	private static final String[] PATTERNS = {
+			// exact
+			"CVS", ".DS_Store", "Thumbs.db", "a",
+			// prefix
+			"core*", "~*", "Ab*",
+			// suffix
+			"*.class", "*~", "*.CLASS", "*.tar.gz",
+			// single characters
+			"?", "?.o", "a?c", "??",
+			// mixes
+			"*", "**", "*.*", "a*b*c", "**x", "*a?", "a*c*", "*a*", "?*?", "a**b", "*.?", "x?*z",
+			// escapes
+			"\\*.txt", "a\\?", "\\*", "a\\b", "\\?*",
+			// case folding
+			"\u0130*", "*\u03c3", "\u212a",
+			// paths
+			"*/bin/*", "/project/*/build", "*/CVS", "/project/folder/?", "*/*.class" };
+
+	private static final String[] NAMES = {
+			"CVS", "cvs", "CVSx", "xCVS", ".ds_store", ".DS_Store", "thumbs.DB", "a", "A", "b", "ab", "abc", "aXc",
+			"Abc", "core", "core.jar", "CORE", "cor", "~", "~backup", "file~", "Foo.class", "foo.CLASS", "Foo.clas",
+			".class", "x.tar.gz", "x.tar", "1.o", "12.o", "a.b.c", "axbyc", "ac", "xx", "x", "xyz", "xz", "xaz",
+			"*.txt", "a.txt", "*", "a?", "ab?", "?", "?x", "i", "I", "\u0130", "\u0131x", "is\u03c3", "is\u03c2",
+			"IS\u03a3", "k", "K", "\u212a", "ab.o" };
+
+	private static final String[] PATHS = {
+			"/project/bin/Foo.class", "/project/src/bin/x", "/project/BIN/x", "/project/x/build", "/project/x/y/build",
+			"/project/CVS", "/project/folder/cvs", "/project/folder/a", "/project/folder/ab", "/project/folder/Foo.class" };
+
+	public IgnoreMatcherTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(IgnoreMatcherTests.class);
+	}
+
+	public void testEmpty() {
+		IgnoreMatcher matcher = new IgnoreMatcher(Collections.emptyList());
+		for (IResource resource : getResources()) {
+			assertFalse(resource.getFullPath().toString(), matcher.match(resource));
+		}
+	}
+
+	public void testExactPatterns() {
+		IgnoreMatcher matcher = new IgnoreMatcher(Arrays.asList("CVS", ".DS_Store"));
+		assertTrue(matcher.match(getFile("CVS")));
+		assertTrue(matcher.match(getFile("cvs")));
+		assertTrue(matcher.match(getFile(".ds_store")));
+		assertFalse(matcher.match(getFile("CVSx")));
+		assertFalse(matcher.match(getFile("xCVS")));
+	}
+
+	public void testPrefixAndSuffixPatterns() {
+		IgnoreMatcher matcher = new IgnoreMatcher(Arrays.asList("core*", "*.class", "*~"));
+		assertTrue(matcher.match(getFile("core")));
+		assertTrue(matcher.match(getFile("Core.jar")));
+		assertTrue(matcher.match(getFile("Foo.CLASS")));
+		assertTrue(matcher.match(getFile(".class")));
+		assertTrue(matcher.match(getFile("file~")));
+		assertFalse(matcher.match(getFile("cor")));
+		assertFalse(matcher.match(getFile("Foo.clas")));
+		assertFalse(matcher.match(getFile("~file")));
+	}
+
+	public void testWildcardPatterns() {
+		IgnoreMatcher matcher = new IgnoreMatcher(Arrays.asList("a?c", "x*y*z"));
+		assertTrue(matcher.match(getFile("abc")));
+		assertTrue(matcher.match(getFile("AXC")));
+		assertTrue(matcher.match(getFile("xyz")));
+		assertTrue(matcher.match(getFile("x-y-y-z")));
+		assertFalse(matcher.match(getFile("ac")));
+		assertFalse(matcher.match(getFile("abbc")));
+		assertFalse(matcher.match(getFile("xz")));
+	}
+
+	public void testEscapedPatterns() {
+		IgnoreMatcher matcher = new IgnoreMatcher(Arrays.asList("\\*.txt", "a\\?"));
+		assertTrue(matcher.match(getFile("*.txt")));
+		assertTrue(matcher.match(getFile("A?")));
+		assertFalse(matcher.match(getFile("a.txt")));
+		assertFalse(matcher.match(getFile("ab")));
+	}
+
+	public void testPathPatterns() {
+		IgnoreMatcher matcher = new IgnoreMatcher(Arrays.asList("*/bin/*", "bin"));
+		assertTrue(matcher.match(getResource("/project/bin/Foo.class")));
+		assertTrue(matcher.match(getResource("/project/BIN/x")));
+		assertTrue(matcher.match(getResource("/project/x/bin")));
+		assertFalse(matcher.match(getResource("/project/binary/x")));
+	}
+
+	public void testEachPatternMatchesLikeStringMatcher() {
+		List<IResource> resources = getResources();
+		for (String pattern : PATTERNS) {
+			assertEquivalent(Collections.singletonList(pattern), resources);
+		}
+	}
+
+	public void testAllPatternsMatchLikeStringMatcher() {
+		assertEquivalent(Arrays.asList(PATTERNS), getResources());
+	}
+
+	public void testPatternMixesMatchLikeStringMatcher() {
+		List<IResource> resources = getResources();
+		Random random = new Random(42);
+		for (int i = 0; i < 200; i++) {
+			List<String> patterns = new ArrayList<>();
+			for (String pattern : PATTERNS) {
+				if (random.nextInt(8) == 0) {
+					patterns.add(pattern);
+				}
+			}
+			assertEquivalent(patterns, resources);
+		}
+	}
+
+	private void assertEquivalent(List<String> patterns, List<IResource> resources) {
+		IgnoreMatcher matcher = new IgnoreMatcher(patterns);
+		for (IResource resource : resources) {
+			boolean expected = false;
+			for (String pattern : patterns) {
+				String text = pattern.indexOf('/') != -1 ? resource.getFullPath().toString() : resource.getName();
+				expected |= new StringMatcher(pattern, true, false).match(text);
+			}
+			assertEquals(patterns + " " + resource.getFullPath(), expected, matcher.match(resource));
+		}
+	}
+
+	private List<IResource> getResources() {
+		List<IResource> resources = new ArrayList<>();
+		for (String name : NAMES) {
+			resources.add(getFile(name));
+		}
+		for (String path : PATHS) {
+			resources.add(getResource(path));
+		}
+		return resources;
+	}
+
+	private IResource getFile(String name) {
+		return getResource("/project/folder/" + name);
+	}
+
+	private IResource getResource(String path) {
+		return ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(path));
+	}
+}
@@ -0,0 +1,410 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.resources.mapping.ResourceTraversal;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.diff.provider.ThreeWayDiff;
+import org.eclipse.team.core.history.IFileRevision;
+import org.eclipse.team.core.history.provider.FileRevision;
+import org.eclipse.team.core.mapping.IStorageMerger;
+import org.eclipse.team.core.mapping.provider.MergeContext;
+import org.eclipse.team.core.mapping.provider.ResourceDiff;
+import org.eclipse.team.core.mapping.provider.ResourceDiffTree;
+
+/**
+ * Tests the merges of the contents of files with conflicting changes by
+ * {@link MergeContext#merge(IDiff[], boolean, IProgressMonitor)}, one at a
+ * time and by concurrent workers.
+ */
+public class MergeContextTests extends TeamTest {
+
+	/*
+	 * A remote file revision with fixed contents, which optionally takes
+	 * the rule of the file while its contents are fetched
+	 */
+	private static class TestRevision extends FileRevision {
+		private final IFile file;
+		private final String contents;
+		private final boolean useRule;
+
+		TestRevision(IFile file, String contents, boolean useRule) {
+			this.file = file;
+			this.contents = contents;
+			this.useRule = useRule;
+		}
+
+		@Override
+		public IStorage getStorage(IProgressMonitor monitor) {
+			if (useRule) {
+				Job.getJobManager().beginRule(file, monitor);
+				Job.getJobManager().endRule(file);
+			}
+			return new IStorage() {
+				@Override
+				public InputStream getContents() {
+					return new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+				}
+
+				@Override
+				public IPath getFullPath() {
+					return null;
+				}
+
+				@Override
+				public String getName() {
+					return TestRevision.this.getName();
+				}
+
+				@Override
+				public boolean isReadOnly() {
+					return true;
+				}
+
+				@Override
+				public <T> T getAdapter(Class<T> adapter) {
+					return null;
+				}
+			};
+		}
+
+		@Override
+		public String getName() {
+			return file.getName();
+		}
+
+		@Override
+		public boolean isPropertyMissing() {
+			return false;
+		}
+
+		@Override
+		public IFileRevision withAllProperties(IProgressMonitor monitor) {
+			return this;
+		}
+	}
+
+	/*
+	 * Appends the remote contents to the local contents
+	 */
+	private static class TestMerger implements IStorageMerger {
+		final Set<String> threads = ConcurrentHashMap.newKeySet();
+		final List<String> merged = new ArrayList<>();
+
+		@Override
+		public boolean canMergeWithoutAncestor() {
+			return false;
+		}
+
+		@Override
+		public IStatus merge(OutputStream output, String outputEncoding, IStorage ancestor, IStorage target,
+				IStorage other, IProgressMonitor monitor) throws CoreException {
+			threads.add(Thread.currentThread().getName());
+			synchronized (merged) {
+				merged.add(target.getName());
+			}
+			merged((IFile) target, monitor);
+			try {
+				try (InputStream in = target.getContents()) {
+					in.transferTo(output);
+				}
+				try (InputStream in = other.getContents()) {
+					in.transferTo(output);
+				}
+			} catch (IOException e) {
+				throw new CoreException(new Status(IStatus.ERROR, "org.eclipse.team.tests.core", e.getMessage(), e));
+			}
+			return Status.OK_STATUS;
+		}
+
+		/*
+		 * Called before the contents of a file are merged
+		 */
+		void merged(IFile file, IProgressMonitor monitor) throws CoreException {
+			// Subclasses may override
+		}
+
+		int getMergeCount(String name) {
+			synchronized (merged) {
+				return (int) merged.stream().filter(name::equals).count();
+			}
+		}
+	}
+
+	private static class TestMergeContext extends MergeContext {
+		private final int workers;
+		private final IStorageMerger merger;
+		final Set<IDiff> mergedDiffs = ConcurrentHashMap.newKeySet();
+
+		TestMergeContext(ResourceDiffTree tree, int workers, IStorageMerger merger) {
+			super(null, THREE_WAY, tree);
+			this.workers = workers;
+			this.merger = merger;
+		}
+
+		@Override
+		protected int getMergeWorkerCount() {
+			return workers;
+		}
+
+		@Override
+		protected void makeInSync(IDiff diff, IProgressMonitor monitor) {
+			mergedDiffs.add(diff);
+		}
+
+		@Override
+		public void markAsMerged(IDiff node, boolean inSyncHint, IProgressMonitor monitor) {
+			mergedDiffs.add(node);
+		}
+
+		@Override
+		public void reject(IDiff diff, IProgressMonitor monitor) {
+			// Not used
+		}
+
+		@Override
+		public void refresh(ResourceTraversal[] traversals, int flags, IProgressMonitor monitor) {
+			// Not used
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T getAdapter(Class<T> adapter) {
+			if (adapter == IStorageMerger.class)
+				return (T) merger;
+			return super.getAdapter(adapter);
+		}
+	}
+
+	private static final int FILE_COUNT = 8;
+
+	private IProject project;
+	private IFile[] files;
+	private ResourceDiffTree tree;
+
+	public MergeContextTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return suite(MergeContextTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = getUniqueTestProject(getName());
+		files = new IFile[FILE_COUNT];
+		for (int i = 0; i < FILE_COUNT; i++) {
+			files[i] = project.getFile("file" + i + ".txt");
+			files[i].create(new ByteArrayInputStream(("local" + i + "\n").getBytes(StandardCharsets.UTF_8)), true, null);
+		}
+	}
+
+	public void testSerialMerge() throws CoreException {
+		TestMerger merger = new TestMerger();
+		TestMergeContext context = createContext(1, merger, false);
+		assertTrue(context.merge(getDiffs(), false, new NullProgressMonitor()).isOK());
+		assertMerged(context);
+		assertEquals(1, merger.threads.size());
+		assertTrue(merger.threads.contains(Thread.currentThread().getName()));
+	}
+
+	public void testConcurrentMerge() throws CoreException {
+		final CountDownLatch overlap = new CountDownLatch(2);
+		final AtomicBoolean overlapped = new AtomicBoolean();
+		TestMerger merger = new TestMerger() {
+			@Override
+			void merged(IFile file, IProgressMonitor monitor) {
+				overlap.countDown();
+				try {
+					if (overlap.await(5, TimeUnit.SECONDS))
+						overlapped.set(true);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		TestMergeContext context = createContext(4, merger, false);
+		assertTrue(context.merge(getDiffs(), false, new NullProgressMonitor()).isOK());
+		assertMerged(context);
+		assertTrue("Merges should have overlapped", overlapped.get());
+		assertFalse("Merges should have been performed by the workers", merger.threads.contains(Thread.currentThread().getName()));
+		for (IFile file : files) {
+			assertEquals(1, merger.getMergeCount(file.getName()));
+		}
+	}
+
+	public void testWorkersUseRules() throws Exception {
+		final TestMergeContext context = createContext(4, new TestMerger(), true);
+		final Exception[] failure = new Exception[1];
+		Thread thread = new Thread(() -> {
+			try {
+				context.merge(getDiffs(), false, new NullProgressMonitor());
+			} catch (CoreException | RuntimeException e) {
+				failure[0] = e;
+			}
+		});
+		thread.start();
+		thread.join(30000);
+		assertFalse("The merge should not block on the rules of the workers", thread.isAlive());
+		if (failure[0] != null)
+			throw failure[0];
+		assertMerged(context);
+	}
+
+	public void testFileModifiedAfterMerge() throws CoreException {
+		final IFile modified = files[3];
+		TestMerger merger = new TestMerger() {
+			@Override
+			void merged(IFile file, IProgressMonitor monitor) throws CoreException {
+				if (file.equals(modified) && getMergeCount(file.getName()) == 1)
+					file.setContents(new ByteArrayInputStream("changed\n".getBytes(StandardCharsets.UTF_8)), true, false, null);
+			}
+		};
+		TestMergeContext context = createContext(4, merger, false);
+		assertTrue(context.merge(getDiffs(), false, new NullProgressMonitor()).isOK());
+		// The file is merged again as it was modified after its merge was prepared
+		assertEquals(2, merger.getMergeCount(modified.getName()));
+		assertEquals("changed\nremote3\n", getContents(modified));
+	}
+
+	public void testSerialMergeFailure() throws CoreException {
+		assertMergeFailure(1);
+	}
+
+	public void testConcurrentMergeFailure() throws CoreException {
+		assertMergeFailure(4);
+	}
+
+	public void testSerialMergeCancel() throws CoreException {
+		TestMerger merger = assertMergeCanceled(1);
+		// The merge stops after the first file
+		assertEquals(1, merger.merged.size());
+	}
+
+	public void testConcurrentMergeCancel() throws CoreException {
+		assertMergeCanceled(4);
+		// No file is modified before the workers are done
+		for (int i = 0; i < FILE_COUNT; i++) {
+			assertEquals("local" + i + "\n", getContents(files[i]));
+		}
+	}
+
+	private void assertMergeFailure(int workers) throws CoreException {
+		final IFile failing = files[5];
+		TestMerger merger = new TestMerger() {
+			@Override
+			void merged(IFile file, IProgressMonitor monitor) throws CoreException {
+				if (file.equals(failing))
+					throw new CoreException(new Status(IStatus.ERROR, "org.eclipse.team.tests.core", "merge failed"));
+			}
+		};
+		TestMergeContext context = createContext(workers, merger, false);
+		try {
+			context.merge(getDiffs(), false, new NullProgressMonitor());
+			fail("The merge should have failed");
+		} catch (CoreException e) {
+			assertEquals("merge failed", e.getStatus().getMessage());
+		}
+		// The files before the failing one are merged, as for a serial merge
+		for (int i = 0; i < 5; i++) {
+			assertEquals("local" + i + "\nremote" + i + "\n", getContents(files[i]));
+		}
+		for (int i = 5; i < FILE_COUNT; i++) {
+			assertEquals("local" + i + "\n", getContents(files[i]));
+		}
+	}
+
+	private TestMerger assertMergeCanceled(int workers) throws CoreException {
+		final IProgressMonitor monitor = new NullProgressMonitor();
+		TestMerger merger = new TestMerger() {
+			@Override
+			void merged(IFile file, IProgressMonitor m) {
+				monitor.setCanceled(true);
+			}
+		};
+		TestMergeContext context = createContext(workers, merger, false);
+		try {
+			context.merge(getDiffs(), false, monitor);
+			fail("The merge should have been canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		return merger;
+	}
+
+	private TestMergeContext createContext(int workers, IStorageMerger merger, boolean useRules) {
+		tree = new ResourceDiffTree();
+		for (int i = 0; i < FILE_COUNT; i++) {
+			IFile file = files[i];
+			IFileRevision ancestor = new TestRevision(file, "ancestor" + i + "\n", useRules);
+			IFileRevision local = new TestRevision(file, "local" + i + "\n", useRules);
+			IFileRevision remote = new TestRevision(file, "remote" + i + "\n", useRules);
+			tree.add(new ThreeWayDiff(new ResourceDiff(file, IDiff.CHANGE, 0, ancestor, local),
+					new ResourceDiff(file, IDiff.CHANGE, 0, ancestor, remote)));
+		}
+		return new TestMergeContext(tree, workers, merger);
+	}
+
+	private IDiff[] getDiffs() {
+		IDiff[] diffs = new IDiff[FILE_COUNT];
+		for (int i = 0; i < FILE_COUNT; i++) {
+			diffs[i] = tree.getDiff(files[i]);
+		}
+		return diffs;
+	}
+
+	private void assertMerged(TestMergeContext context) throws CoreException {
+		for (int i = 0; i < FILE_COUNT; i++) {
+			assertEquals("local" + i + "\nremote" + i + "\n", getContents(files[i]));
+			assertTrue(context.mergedDiffs.contains(tree.getDiff(files[i])));
+		}
+	}
+
+	private String getContents(IFile file) throws CoreException {
+		try (InputStream in = file.getContents()) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			fail(e.getMessage());
+			return null;
+		}
+	}
+}
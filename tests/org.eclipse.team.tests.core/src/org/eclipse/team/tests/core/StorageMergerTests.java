@@ -13,11 +13,25 @@
  *******************************************************************************/
 package org.eclipse.team.tests.core;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 import junit.framework.Test;
 
+import org.eclipse.core.resources.IEncodedStorage;
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.team.core.Team;
 import org.eclipse.team.core.mapping.IStorageMerger;
+import org.eclipse.team.internal.core.mapping.TextStorageMerger;
 
 public class StorageMergerTests extends TeamTest {
 
@@ -42,4 +56,179 @@ public class StorageMergerTests extends TeamTest {
 		IStorageMerger merger = new Team().createStorageMerger(Platform.getContentTypeManager().getContentType("org.eclipse.team.tests.core.content-type1"));
 		assertNotNull("Merger for extension is missing", merger);
 	}
+
+	public void testTextMerge() throws CoreException {
+		String separator = System.getProperty("line.separator");
+		assertMerge("a\nb\nc\n", "a\nB\nc\n", "a\nb\nC\n", "a" + separator + "B" + separator + "C" + separator);
+		assertMerge("a\r\nb", "x\r\na\r\nb", "a\r\nb\r\ny", "x" + separator + "a" + separator + "b" + separator + "y");
+		assertMerge("\u00e9\n", "\u00e9\nt\n", "o\n\u00e9\n", "o" + separator + "\u00e9" + separator + "t" + separator);
+	}
+
+	public void testTextMergeConflict() throws CoreException {
+		IStatus status = merge("a\n", "b\n", "c\n", new ByteArrayOutputStream());
+		assertEquals(IStorageMerger.CONFLICT, status.getCode());
+	}
+
+	public void testRefinedTextMerge() throws CoreException {
+		String separator = System.getProperty("line.separator");
+		assertEquals(IStorageMerger.CONFLICT, merge(false, "a b c\n", "A b c\n", "a b C\n", new ByteArrayOutputStream()).getCode());
+		assertMerge(true, "a b c\n", "A b c\n", "a b C\n", "A b C" + separator);
+		assertMerge(true, "x\na b c\ny\n", "x\nA b c\nz\ny\n", "x\na b C\ny\n",
+				"x" + separator + "A b C" + separator + "z" + separator + "y" + separator);
+		IStatus status = merge(true, "a b c\n", "A b c\n", "X b c\n", new ByteArrayOutputStream());
+		assertEquals(IStorageMerger.CONFLICT, status.getCode());
+	}
+
+	public void testTextMergeUTF16() throws Exception {
+		String separator = System.getProperty("line.separator");
+		// Each input starts with a byte order mark, the output has a single one
+		assertMerge("UTF-16", "a\nb\nc\n", "a\nB\nc\n", "a\nb\nC\n", "a" + separator + "B" + separator + "C" + separator);
+		assertMerge("UTF-16", "a\r\nb", "x\r\na\r\nb", "a\r\nb\r\ny", "x" + separator + "a" + separator + "b" + separator + "y");
+		assertMerge("UTF-16", "\u00e9\n", "\u00e9\nt\n", "o\n\u00e9\n", "o" + separator + "\u00e9" + separator + "t" + separator);
+	}
+
+	public void testTextMergeUTF16TrailingLineFeed() throws Exception {
+		String separator = System.getProperty("line.separator");
+		// The last byte of a line feed is 0 in UTF-16LE
+		assertMerge("UTF-16LE", "a\nb\nc\n", "a\nB\nc\n", "a\nb\nC\n", "a" + separator + "B" + separator + "C" + separator);
+		assertMerge("UTF-16LE", "a\nb", "a\nB", "x\na\nb", "x" + separator + "a" + separator + "B");
+		// The last byte of \u010a is a line feed in UTF-16BE
+		assertMerge("UTF-16BE", "a\n\u010a", "a\nb\n\u010a", "a\n\u010a", "a" + separator + "b" + separator + "\u010a");
+	}
+
+	public void testTextMergeCharacterDelimiters() throws Exception {
+		String separator = System.getProperty("line.separator");
+		// Runs of lines are copied along with delimiters that match the separator, others are replaced
+		assertMerge("UTF-16", "a\r\nb\nc\rd\n", "a\r\nB\nc\rd\n", "a\r\nb\nc\rD\n",
+				"a" + separator + "B" + separator + "c" + separator + "D" + separator);
+		assertMerge("UTF-16", "a\nb\n", "a\nb\n\n", "x\na\nb\n", "x" + separator + "a" + separator + "b" + separator + separator);
+	}
+
+	public void testTextMergeMixedEncodings() throws Exception {
+		String separator = System.getProperty("line.separator");
+		String expected = "o" + separator + "\u00e9" + separator + "t" + separator;
+		IStatus status;
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		status = merge(false, "UTF-8", createStorage("\u00e9\n", "ISO-8859-1"), createStorage("\u00e9\nt\n", "UTF-16"),
+				createStorage("o\n\u00e9\n", "UTF-8"), output);
+		assertTrue(status.isOK());
+		assertBytes(expected, "UTF-8", output);
+
+		output = new ByteArrayOutputStream();
+		status = merge(false, "UTF-16", createStorage("\u00e9\n", "UTF-8"), createStorage("\u00e9\nt\n", "UTF-8"),
+				createStorage("o\n\u00e9\n", "UTF-16LE"), output);
+		assertTrue(status.isOK());
+		assertBytes(expected, "UTF-16", output);
+	}
+
+	public void testRefinedTextMergeUTF16() throws Exception {
+		String separator = System.getProperty("line.separator");
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		IStatus status = merge(true, "UTF-16", createStorage("x\na b c\ny\n", "UTF-16"), createStorage("x\nA b c\nz\ny\n", "UTF-16"),
+				createStorage("x\na b C\ny\n", "UTF-16"), output);
+		assertTrue(status.isOK());
+		assertBytes("x" + separator + "A b C" + separator + "z" + separator + "y" + separator, "UTF-16", output);
+	}
+
+	private void assertMerge(String encoding, String ancestor, String target, String other, String expected) throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		IStatus status = merge(false, encoding, createStorage(ancestor, encoding), createStorage(target, encoding),
+				createStorage(other, encoding), output);
+		assertTrue(status.isOK());
+		assertBytes(expected, encoding, output);
+	}
+
+	private void assertBytes(String expected, String encoding, ByteArrayOutputStream output) throws UnsupportedEncodingException {
+		assertEquals(Arrays.toString(expected.getBytes(encoding)), Arrays.toString(output.toByteArray()));
+	}
+
+	private void assertMerge(String ancestor, String target, String other, String expected) throws CoreException {
+		assertMerge(false, ancestor, target, other, expected);
+	}
+
+	private void assertMerge(boolean refine, String ancestor, String target, String other, String expected) throws CoreException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		IStatus status = merge(refine, ancestor, target, other, output);
+		assertTrue(status.isOK());
+		assertEquals(expected, new String(output.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	private IStatus merge(String ancestor, String target, String other, ByteArrayOutputStream output) throws CoreException {
+		return merge(false, ancestor, target, other, output);
+	}
+
+	private IStatus merge(boolean refine, String ancestor, String target, String other, ByteArrayOutputStream output) throws CoreException {
+		return merge(refine, "UTF-8", createStorage(ancestor), createStorage(target), createStorage(other), output);
+	}
+
+	private IStatus merge(boolean refine, String outputEncoding, IStorage ancestor, IStorage target, IStorage other, ByteArrayOutputStream output) throws CoreException {
+		return new TextStorageMerger(refine).merge(output, outputEncoding, ancestor, target, other, new NullProgressMonitor());
+	}
+
+	private IStorage createStorage(final String contents, final String charset) {
+		return new IEncodedStorage() {
+			@Override
+			public InputStream getContents() {
+				try {
+					return new ByteArrayInputStream(contents.getBytes(charset));
+				} catch (UnsupportedEncodingException e) {
+					throw new IllegalArgumentException(e);
+				}
+			}
+
+			@Override
+			public String getCharset() {
+				return charset;
+			}
+
+			@Override
+			public IPath getFullPath() {
+				return null;
+			}
+
+			@Override
+			public String getName() {
+				return "test.txt";
+			}
+
+			@Override
+			public boolean isReadOnly() {
+				return true;
+			}
+
+			@Override
+			public <T> T getAdapter(Class<T> adapter) {
+				return null;
+			}
+		};
+	}
+
+	private IStorage createStorage(final String contents) {
+		return new IStorage() {
+			@Override
+			public InputStream getContents() {
+				return new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8));
+			}
+
+			@Override
+			public IPath getFullPath() {
+				return null;
+			}
+
+			@Override
+			public String getName() {
+				return "test.txt";
+			}
+
+			@Override
+			public boolean isReadOnly() {
+				return true;
+			}
+
+			@Override
+			public <T> T getAdapter(Class<T> adapter) {
+				return null;
+			}
+		};
+	}
 }
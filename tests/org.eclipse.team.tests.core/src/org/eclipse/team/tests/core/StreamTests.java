@@ -14,14 +14,30 @@
 package org.eclipse.team.tests.core;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.team.internal.core.streams.CRLFtoLFChannel;
 import org.eclipse.team.internal.core.streams.CRLFtoLFInputStream;
+import org.eclipse.team.internal.core.streams.LFtoCRLFChannel;
 import org.eclipse.team.internal.core.streams.LFtoCRLFInputStream;
+import org.eclipse.team.internal.core.streams.PollingInputStream;
+import org.eclipse.team.internal.core.streams.PooledTimeoutInputStream;
+import org.eclipse.team.internal.core.streams.PooledTimeoutOutputStream;
 
 public class StreamTests extends TestCase {
 
@@ -50,6 +66,14 @@ public class StreamTests extends TestCase {
 		InputStream in = new CRLFtoLFInputStream(bin);
 		InputStream inExpected = new ByteArrayInputStream(post.getBytes());
 		assertStreamEquals(inExpected, in);
+		for (int size = 1; size <= 5; size++) {
+			in = new CRLFtoLFInputStream(new ByteArrayInputStream(pre.getBytes()));
+			assertEquals(post, readBlocks(in, size));
+		}
+		for (int size = 1; size <= 5; size++) {
+			ReadableByteChannel channel = new CRLFtoLFChannel(Channels.newChannel(new ByteArrayInputStream(pre.getBytes())));
+			assertEquals(post, readBlocks(channel, size));
+		}
 	}
 
 	public void testLFtoCRLFInputStream() throws IOException {
@@ -69,6 +93,229 @@ public class StreamTests extends TestCase {
 		InputStream in = new LFtoCRLFInputStream(bin);
 		InputStream inExpected = new ByteArrayInputStream(post.getBytes());
 		assertStreamEquals(inExpected, in);
+		for (int size = 1; size <= 5; size++) {
+			in = new LFtoCRLFInputStream(new ByteArrayInputStream(pre.getBytes()));
+			assertEquals(post, readBlocks(in, size));
+		}
+		for (int size = 1; size <= 5; size++) {
+			ReadableByteChannel channel = new LFtoCRLFChannel(Channels.newChannel(new ByteArrayInputStream(pre.getBytes())));
+			assertEquals(post, readBlocks(channel, size));
+		}
+	}
+
+	public void testLineEndingChannelsWithLargeContents() throws IOException {
+		StringBuilder crlf = new StringBuilder();
+		StringBuilder lf = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			crlf.append("line ").append(i).append(i % 7 == 0 ? "\r\r\n" : "\r\n");
+			lf.append("line ").append(i).append(i % 7 == 0 ? "\r\n" : "\n");
+		}
+		ReadableByteChannel channel = new CRLFtoLFChannel(Channels.newChannel(new ByteArrayInputStream(crlf.toString().getBytes())));
+		assertEquals(lf.toString(), readBlocks(channel, 1000));
+		channel = new LFtoCRLFChannel(Channels.newChannel(new ByteArrayInputStream(lf.toString().getBytes())));
+		assertEquals(lf.toString().replace("\n", "\r\n"), readBlocks(channel, 1000));
+	}
+
+	private String readBlocks(InputStream in, int size) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[size];
+		try (in) {
+			int read;
+			while ((read = in.read(buffer, 0, size)) != -1) {
+				out.write(buffer, 0, read);
+			}
+		}
+		return out.toString();
+	}
+
+	private String readBlocks(ReadableByteChannel channel, int size) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		try (channel) {
+			while (channel.read(buffer) != -1) {
+				out.write(buffer.array(), 0, buffer.position());
+				buffer.clear();
+			}
+		}
+		return out.toString();
+	}
+
+	public void testPooledTimeoutInputStream() throws IOException {
+		byte[] contents = createContents(10000);
+		InputStream in = new PooledTimeoutInputStream(new ByteArrayInputStream(contents), 128, 1000, 1000);
+		assertStreamEquals(new ByteArrayInputStream(contents), in);
+	}
+
+	public void testPooledTimeoutInputStreamResumesAfterTimeout() throws Exception {
+		BlockingInputStream blocking = new BlockingInputStream("abc".getBytes());
+		InputStream in = new PooledTimeoutInputStream(blocking, 16, 50, 1000);
+		try {
+			in.read();
+			fail("Expected read to time out");
+		} catch (InterruptedIOException e) {
+			assertEquals(0, e.bytesTransferred);
+		}
+		blocking.release.countDown();
+		assertStreamEquals(new ByteArrayInputStream("abc".getBytes()), in);
+		assertEquals("The timed out read should have been resumed", 2, blocking.reads.get());
+	}
+
+	public void testPooledTimeoutInputStreamPolling() throws Exception {
+		BlockingInputStream blocking = new BlockingInputStream("abc".getBytes());
+		InputStream in = new PollingInputStream(new PooledTimeoutInputStream(blocking, 16, 20, 1000), 0, new NullProgressMonitor());
+		Thread releaser = new Thread(() -> {
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException e) {
+				// release early
+			}
+			blocking.release.countDown();
+		});
+		releaser.start();
+		byte[] buffer = new byte[16];
+		assertEquals(3, in.read(buffer, 0, buffer.length));
+		assertEquals("abc", new String(buffer, 0, 3));
+		assertEquals(-1, in.read());
+		in.close();
+		releaser.join();
+	}
+
+	public void testPooledTimeoutInputStreamCancel() throws Exception {
+		BlockingInputStream blocking = new BlockingInputStream("abc".getBytes());
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		InputStream in = new PollingInputStream(new PooledTimeoutInputStream(blocking, 16, 20, 1000), 0, monitor);
+		Thread canceller = new Thread(() -> {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				// cancel early
+			}
+			monitor.setCanceled(true);
+		});
+		canceller.start();
+		try {
+			in.read();
+			fail("Expected the read to be canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		canceller.join();
+		// closing interrupts the read that is still blocked
+		in.close();
+		assertTrue("The blocked read should have been interrupted", blocking.interrupted.await(1, TimeUnit.SECONDS));
+		assertTrue(blocking.closed);
+	}
+
+	public void testPooledTimeoutInputStreamReadsOnDemand() throws Exception {
+		BlockingInputStream blocking = new BlockingInputStream(createContents(100));
+		blocking.release.countDown();
+		InputStream in = new PooledTimeoutInputStream(blocking, 16, 1000, 1000);
+		byte[] buffer = new byte[16];
+		assertEquals(16, in.read(buffer, 0, buffer.length));
+		Thread.sleep(100);
+		assertEquals("An idle stream should not read ahead", 1, blocking.reads.get());
+		assertEquals(0, in.available());
+		in.close();
+	}
+
+	public void testPooledTimeoutOutputStream() throws IOException {
+		byte[] contents = createContents(10000);
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		OutputStream out = new PooledTimeoutOutputStream(bout, 128, 1000, 1000);
+		out.write(contents, 0, 5000);
+		for (int i = 5000; i < 6000; i++) {
+			out.write(contents[i]);
+		}
+		out.flush();
+		assertEquals(6000, bout.size());
+		out.write(contents, 6000, 4000);
+		out.close();
+		assertStreamEquals(new ByteArrayInputStream(contents), new ByteArrayInputStream(bout.toByteArray()));
+		try {
+			out.write(0);
+			fail("Expected write after close to fail");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testPooledTimeoutOutputStreamResumesAfterTimeout() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		ByteArrayOutputStream bout = new ByteArrayOutputStream() {
+			@Override
+			public synchronized void write(byte[] b, int off, int len) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.write(b, off, len);
+			}
+		};
+		OutputStream out = new PooledTimeoutOutputStream(bout, 4, 50, 1000);
+		byte[] contents = createContents(12);
+		try {
+			out.write(contents, 0, contents.length);
+			fail("Expected write to time out");
+		} catch (InterruptedIOException e) {
+			// the first buffer is being written, the second one has been filled
+			assertEquals(8, e.bytesTransferred);
+		}
+		try {
+			out.flush();
+			fail("Expected flush to time out");
+		} catch (InterruptedIOException e) {
+			assertEquals(0, e.bytesTransferred);
+		}
+		release.countDown();
+		out.write(contents, 8, 4);
+		out.flush();
+		assertEquals(12, bout.size());
+		out.close();
+		assertStreamEquals(new ByteArrayInputStream(contents), new ByteArrayInputStream(bout.toByteArray()));
+	}
+
+	private byte[] createContents(int size) {
+		byte[] contents = new byte[size];
+		for (int i = 0; i < size; i++) {
+			contents[i] = (byte) (i * 31);
+		}
+		return contents;
+	}
+
+	/**
+	 * An input stream whose reads block until released and
+	 * that counts the reads of the underlying contents.
+	 */
+	private static class BlockingInputStream extends ByteArrayInputStream {
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		final AtomicInteger reads = new AtomicInteger();
+		volatile boolean closed;
+
+		BlockingInputStream(byte[] contents) {
+			super(contents);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			reads.incrementAndGet();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+				return 0;
+			}
+			synchronized (this) {
+				return super.read(b, off, len);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+			super.close();
+		}
 	}
 
 	private void assertStreamEquals(InputStream in1, InputStream in2) throws IOException {
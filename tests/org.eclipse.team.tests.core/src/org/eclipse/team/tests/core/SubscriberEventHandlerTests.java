@@ -0,0 +1,406 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.team.core.ITeamStatus;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.subscribers.Subscriber;
+import org.eclipse.team.core.synchronize.SyncInfo;
+import org.eclipse.team.core.synchronize.SyncInfoSet;
+import org.eclipse.team.core.variants.IResourceVariant;
+import org.eclipse.team.core.variants.IResourceVariantComparator;
+import org.eclipse.team.internal.core.subscribers.SubscriberSyncInfoEventHandler;
+
+/**
+ * Tests that the changes of different projects or top-level folders are
+ * collected concurrently by the subscriber event handler. The subscriber
+ * reports an incoming addition for every resource, fails for some names and
+ * records the order and the threads of the queries.
+ */
+public class SubscriberEventHandlerTests extends TestCase {
+
+	private static class TestVariant implements IResourceVariant {
+		private final String name;
+
+		TestVariant(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public boolean isContainer() {
+			return false;
+		}
+
+		@Override
+		public IStorage getStorage(IProgressMonitor monitor) throws TeamException {
+			return null;
+		}
+
+		@Override
+		public String getContentIdentifier() {
+			return name;
+		}
+
+		@Override
+		public byte[] asBytes() {
+			return name.getBytes();
+		}
+	}
+
+	private static class TestSubscriber extends Subscriber {
+		final List<IResource> queried = Collections.synchronizedList(new ArrayList<>());
+		final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		CountDownLatch overlap;
+		final CountDownLatch blocked = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public String getName() {
+			return "Subscriber Event Handler Tests";
+		}
+
+		@Override
+		public boolean isSupervised(IResource resource) {
+			return true;
+		}
+
+		@Override
+		public IResource[] members(IResource resource) {
+			return new IResource[0];
+		}
+
+		@Override
+		public IResource[] roots() {
+			return new IResource[0];
+		}
+
+		@Override
+		public SyncInfo getSyncInfo(IResource resource) throws TeamException {
+			queried.add(resource);
+			threads.add(Thread.currentThread());
+			String name = resource.getName();
+			try {
+				if (overlap != null) {
+					// Wait for another worker to query a resource at the same time
+					overlap.countDown();
+					overlap.await(10, TimeUnit.SECONDS);
+				}
+				if (name.startsWith("block")) {
+					blocked.countDown();
+					release.await(10, TimeUnit.SECONDS);
+				}
+			} catch (InterruptedException e) {
+				throw new OperationCanceledException();
+			}
+			if (name.startsWith("fail"))
+				throw new TeamException(name);
+			if (name.startsWith("crash"))
+				throw new IllegalStateException(name);
+			SyncInfo info = new SyncInfo(resource, null, new TestVariant(name), getResourceComparator());
+			info.init();
+			return info;
+		}
+
+		@Override
+		public IResourceVariantComparator getResourceComparator() {
+			return new IResourceVariantComparator() {
+				@Override
+				public boolean compare(IResource local, IResourceVariant remote) {
+					return false;
+				}
+
+				@Override
+				public boolean compare(IResourceVariant base, IResourceVariant remote) {
+					return false;
+				}
+
+				@Override
+				public boolean isThreeWay() {
+					return true;
+				}
+			};
+		}
+
+		@Override
+		public void refresh(IResource[] resources, int depth, IProgressMonitor monitor) {
+			// Nothing to refresh
+		}
+
+		List<IResource> getQueried(IPath prefix) {
+			List<IResource> result = new ArrayList<>();
+			synchronized (queried) {
+				for (IResource resource : queried) {
+					if (prefix.isPrefixOf(resource.getFullPath()))
+						result.add(resource);
+				}
+			}
+			return result;
+		}
+	}
+
+	private static class TestHandler extends SubscriberSyncInfoEventHandler {
+		private final int workers;
+
+		TestHandler(Subscriber subscriber, int workers) {
+			super(subscriber, new IResource[0]);
+			this.workers = workers;
+		}
+
+		@Override
+		protected int getPartitionWorkerCount() {
+			return workers == 0 ? super.getPartitionWorkerCount() : workers;
+		}
+
+		@Override
+		protected Object getJobFamiliy() {
+			return this;
+		}
+	}
+
+	private final List<TestHandler> handlers = new ArrayList<>();
+
+	public SubscriberEventHandlerTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(SubscriberEventHandlerTests.class);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (TestHandler handler : handlers) {
+			handler.shutdown();
+		}
+		super.tearDown();
+	}
+
+	public void testConcurrentByDefault() throws InterruptedException {
+		TestSubscriber subscriber = new TestSubscriber();
+		boolean concurrent = Runtime.getRuntime().availableProcessors() > 1;
+		if (concurrent)
+			subscriber.overlap = new CountDownLatch(2);
+		TestHandler handler = createHandler(subscriber, 0);
+		List<IResource> changes = createChanges("p1", "p2", "p3");
+		collect(handler, changes);
+		assertCollected(handler, changes);
+		assertEquals(concurrent, subscriber.threads.size() > 1);
+	}
+
+	public void testSerial() throws InterruptedException {
+		TestSubscriber subscriber = new TestSubscriber();
+		TestHandler handler = createHandler(subscriber, 1);
+		List<IResource> changes = createChanges("p1", "p2", "p3");
+		collect(handler, changes);
+		assertCollected(handler, changes);
+		assertEquals(changes, subscriber.queried);
+		assertEquals(1, subscriber.threads.size());
+	}
+
+	public void testPartitionsByProject() throws InterruptedException {
+		TestSubscriber subscriber = new TestSubscriber();
+		subscriber.overlap = new CountDownLatch(2);
+		TestHandler handler = createHandler(subscriber, 4);
+		List<IResource> changes = createChanges("p1", "p2", "p3");
+		collect(handler, changes);
+		assertCollected(handler, changes);
+		assertEquals(0, subscriber.overlap.getCount());
+		assertTrue(subscriber.threads.toString(), subscriber.threads.size() > 1);
+		for (String project : new String[] { "p1", "p2", "p3" }) {
+			assertOrdered(subscriber, changes, "/" + project);
+		}
+	}
+
+	public void testPartitionsByFolder() throws InterruptedException {
+		TestSubscriber subscriber = new TestSubscriber();
+		subscriber.overlap = new CountDownLatch(2);
+		TestHandler handler = createHandler(subscriber, 4);
+		List<IResource> changes = createChanges("p1/a", "p1/b");
+		collect(handler, changes);
+		assertCollected(handler, changes);
+		assertEquals(0, subscriber.overlap.getCount());
+		assertOrdered(subscriber, changes, "/p1/a");
+		assertOrdered(subscriber, changes, "/p1/b");
+	}
+
+	public void testFailingPartition() throws InterruptedException {
+		for (int workers : new int[] { 1, 4 }) {
+			TestSubscriber subscriber = new TestSubscriber();
+			TestHandler handler = createHandler(subscriber, workers);
+			IProject p1 = getProject("p1");
+			IProject p2 = getProject("p2");
+			List<IResource> changes = Arrays.asList(p1.getFile("a"), p2.getFile("c"), p1.getFile("crash"),
+					p2.getFile("fail"), p1.getFile("b"), p2.getFile("d"));
+			collect(handler, changes);
+			SyncInfoSet set = handler.getSyncSetInput().getSyncSet();
+			assertEquals(4, set.size());
+			for (String name : new String[] { "p1/a", "p1/b", "p2/c", "p2/d" }) {
+				assertNotNull(name, set.getSyncInfo(getFile(name)));
+			}
+			ITeamStatus[] errors = set.getErrors();
+			assertEquals(2, errors.length);
+			for (ITeamStatus error : errors) {
+				String name = error.getResource().getName();
+				assertTrue(name, name.equals("crash") || name.equals("fail"));
+				assertEquals(ITeamStatus.RESOURCE_SYNC_INFO_ERROR == error.getCode(), name.equals("fail"));
+			}
+			assertEquals(changes.size(), subscriber.queried.size());
+		}
+	}
+
+	public void testCancellation() throws InterruptedException {
+		TestSubscriber subscriber = new TestSubscriber();
+		TestHandler handler = createHandler(subscriber, 4);
+		IProject p1 = getProject("p1");
+		List<IResource> changes = new ArrayList<>();
+		changes.add(p1.getFile("block"));
+		for (int i = 0; i < 10; i++) {
+			changes.add(p1.getFile("file" + i));
+			changes.add(getProject("p2").getFile("file" + i));
+		}
+		CountDownLatch queued = new CountDownLatch(1);
+		handler.run(monitor -> await(queued), false);
+		for (IResource change : changes) {
+			handler.change(change, IResource.DEPTH_ZERO);
+		}
+		queued.countDown();
+		try {
+			assertTrue(subscriber.blocked.await(10, TimeUnit.SECONDS));
+			Job.getJobManager().cancel(handler);
+			SyncInfoSet set = handler.getSyncSetInput().getSyncSet();
+			long end = System.currentTimeMillis() + 10000;
+			while (!isCanceled(set) && System.currentTimeMillis() < end) {
+				Thread.sleep(10);
+			}
+			assertTrue("The handler should report the cancellation", isCanceled(set));
+		} finally {
+			subscriber.release.countDown();
+		}
+		Job.getJobManager().join(handler, null);
+		assertEquals(Collections.singletonList(p1.getFile("block")), subscriber.getQueried(p1.getFullPath()));
+	}
+
+	private boolean isCanceled(SyncInfoSet set) {
+		for (ITeamStatus error : set.getErrors()) {
+			if (error.getCode() == ITeamStatus.SYNC_INFO_SET_CANCELLATION)
+				return true;
+		}
+		return false;
+	}
+
+	private TestHandler createHandler(TestSubscriber subscriber, int workers) {
+		TestHandler handler = new TestHandler(subscriber, workers);
+		handlers.add(handler);
+		handler.start();
+		return handler;
+	}
+
+	/*
+	 * Queue the changes while the handler job is held, so that they are
+	 * collected together, and wait until the results have been dispatched
+	 */
+	private void collect(TestHandler handler, List<IResource> changes) throws InterruptedException {
+		CountDownLatch queued = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		handler.run(monitor -> await(queued), false);
+		for (IResource change : changes) {
+			handler.change(change, IResource.DEPTH_ZERO);
+		}
+		handler.run(monitor -> done.countDown(), false);
+		queued.countDown();
+		assertTrue("The changes were not collected", done.await(30, TimeUnit.SECONDS));
+	}
+
+	private void assertCollected(TestHandler handler, List<IResource> changes) {
+		SyncInfoSet set = handler.getSyncSetInput().getSyncSet();
+		assertEquals(0, set.getErrors().length);
+		assertEquals(changes.size(), set.size());
+		for (IResource change : changes) {
+			SyncInfo info = set.getSyncInfo(change);
+			assertNotNull(change.getFullPath().toString(), info);
+			assertEquals(change.getName(), info.getRemote().getName());
+		}
+	}
+
+	/*
+	 * The changes of a partition are queried in the order in which they were
+	 * queued
+	 */
+	private void assertOrdered(TestSubscriber subscriber, List<IResource> changes, String partition) {
+		IPath prefix = new Path(partition);
+		List<IResource> expected = new ArrayList<>();
+		for (IResource change : changes) {
+			if (prefix.isPrefixOf(change.getFullPath()))
+				expected.add(change);
+		}
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, subscriber.getQueried(prefix));
+	}
+
+	/*
+	 * Interleave the changes of the given partitions
+	 */
+	private List<IResource> createChanges(String... partitions) {
+		List<IResource> changes = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			for (String partition : partitions) {
+				changes.add(getFile(partition + "/file" + i + ".txt"));
+			}
+		}
+		return changes;
+	}
+
+	private IResource getFile(String path) {
+		return ResourcesPlugin.getWorkspace().getRoot().getFile(new Path("/" + path));
+	}
+
+	private IProject getProject(String name) {
+		return ResourcesPlugin.getWorkspace().getRoot().getProject(name);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		}
+	}
+}
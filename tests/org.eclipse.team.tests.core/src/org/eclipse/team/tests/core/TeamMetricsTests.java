@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.SimpleType;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.diff.IDiffChangeEvent;
+import org.eclipse.team.core.diff.IDiffChangeListener;
+import org.eclipse.team.core.diff.IDiffTree;
+import org.eclipse.team.core.diff.provider.DiffTree;
+import org.eclipse.team.core.diff.provider.TwoWayDiff;
+import org.eclipse.team.internal.core.BackgroundEventHandler;
+import org.eclipse.team.internal.core.Policy;
+import org.eclipse.team.internal.core.metrics.EventPipelineMetrics;
+import org.eclipse.team.internal.core.metrics.Histogram;
+import org.eclipse.team.internal.core.metrics.ListenerMetrics;
+import org.eclipse.team.internal.core.metrics.TeamMetrics;
+import org.eclipse.team.internal.core.metrics.TeamMetricsJmx;
+
+public class TeamMetricsTests extends TestCase {
+
+	private boolean metricsEnabled;
+
+	public TeamMetricsTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(TeamMetricsTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		metricsEnabled = Policy.METRICS;
+		TeamMetrics.getDefault().reset();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		Policy.METRICS = metricsEnabled;
+		TeamMetrics.getDefault().reset();
+		super.tearDown();
+	}
+
+	public void testHistogram() {
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMedian());
+		assertEquals(0, histogram.getMean());
+		long[] values = { 0, 1, 2, 3, 4, 5, 6, 100, 1000, -5 };
+		for (long value : values) {
+			histogram.record(value);
+		}
+		assertEquals(values.length, histogram.getCount());
+		assertEquals("Negative values are recorded as zero", 1121, histogram.getTotal());
+		assertEquals(1000, histogram.getMax());
+		assertEquals(112, histogram.getMean());
+		// percentiles are upper bounds of power of two buckets
+		long median = histogram.getMedian();
+		assertTrue("median " + median, median >= 3 && median < 8);
+		assertEquals(1000, histogram.getPercentile(100));
+		assertEquals(1000, histogram.get99thPercentile());
+		assertEquals(0, histogram.getPercentile(0));
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getTotal());
+		assertEquals(0, histogram.getMax());
+	}
+
+	public void testEventPipelineMetrics() {
+		EventPipelineMetrics pipeline = TeamMetrics.getDefault().getEventPipeline(getName());
+		assertSame(pipeline, TeamMetrics.getDefault().getEventPipeline(getName()));
+		pipeline.eventQueued(3);
+		pipeline.eventQueued(5);
+		pipeline.eventsCoalesced(2);
+		pipeline.eventsCoalesced(0);
+		pipeline.eventDequeued(1, 200);
+		pipeline.eventProcessed(50);
+		pipeline.eventsDispatched(70, 4);
+		assertEquals(2, pipeline.getEnqueuedCount());
+		assertEquals(2, pipeline.getCoalescedCount());
+		assertEquals(1, pipeline.getProcessedCount());
+		assertEquals(1, pipeline.getDispatchCount());
+		assertEquals(1, pipeline.getQueueDepth());
+		assertEquals(5, pipeline.getMaxQueueDepth());
+		assertEquals(200, pipeline.getQueueLatency().getMax());
+		assertEquals(50, pipeline.getProcessTime().getMax());
+		assertEquals(70, pipeline.getDispatchTime().getMax());
+		assertEquals(4, pipeline.getBatchSize().getMax());
+
+		TeamMetrics.getDefault().reset();
+		assertEquals(0, pipeline.getEnqueuedCount());
+		assertEquals("The maximum depth restarts at the current depth", 1, pipeline.getMaxQueueDepth());
+		assertEquals(0, pipeline.getQueueLatency().getCount());
+	}
+
+	public void testSlowestListeners() {
+		TeamMetrics metrics = TeamMetrics.getDefault();
+		for (int i = 0; i < 10; i++) {
+			metrics.recordListener(new FastListener(), 1000);
+		}
+		metrics.recordListener(new SlowListener(), 1000000);
+		ListenerMetrics[] slowest = metrics.getSlowestListeners(10);
+		assertEquals(2, slowest.length);
+		assertEquals(SlowListener.class.getName(), slowest[0].getName());
+		assertEquals(FastListener.class.getName(), slowest[1].getName());
+		assertEquals(10, slowest[1].getNotificationTime().getCount());
+		assertEquals(1, metrics.getSlowestListeners(1).length);
+		assertEquals(0, metrics.getSlowestListeners(0).length);
+	}
+
+	public void testJmxDataIsFlat() {
+		EventPipelineMetrics pipeline = TeamMetrics.getDefault().getEventPipeline(getName());
+		pipeline.eventQueued(2);
+		pipeline.eventProcessed(50);
+		TeamMetrics.getDefault().recordListener(new SlowListener(), 1000);
+		TeamMetricsJmx jmx = new TeamMetricsJmx(TeamMetrics.getDefault());
+
+		CompositeData data = null;
+		for (CompositeData candidate : jmx.getEventPipelines()) {
+			if (getName().equals(candidate.get("name"))) {
+				data = candidate;
+			}
+		}
+		assertNotNull(data);
+		assertSimple(data.getCompositeType());
+		assertEquals(Long.valueOf(1), data.get("enqueued"));
+		assertEquals(Integer.valueOf(2), data.get("maxQueueDepth"));
+		assertEquals(Long.valueOf(50), data.get("processTimeMax"));
+
+		CompositeData[] listeners = jmx.getSlowestListeners();
+		assertEquals(1, listeners.length);
+		assertSimple(listeners[0].getCompositeType());
+		assertEquals(SlowListener.class.getName(), listeners[0].get("name"));
+		assertEquals(Long.valueOf(1), listeners[0].get("notifications"));
+		assertEquals(Long.valueOf(1000), listeners[0].get("totalTime"));
+	}
+
+	public void testHandlerMetricsAreDisabledByDefault() throws Exception {
+		Policy.METRICS = false;
+		runHandler(getName(), 5);
+		for (EventPipelineMetrics pipeline : TeamMetrics.getDefault().getEventPipelines()) {
+			assertFalse(getName().equals(pipeline.getName()));
+		}
+	}
+
+	public void testHandlerMetrics() throws Exception {
+		Policy.METRICS = true;
+		runHandler(getName(), 5);
+		EventPipelineMetrics pipeline = TeamMetrics.getDefault().getEventPipeline(getName());
+		assertEquals(5, pipeline.getEnqueuedCount());
+		assertEquals(5, pipeline.getProcessedCount());
+		assertEquals(5, pipeline.getProcessTime().getCount());
+		assertEquals(5, pipeline.getQueueLatency().getCount());
+		assertEquals(0, pipeline.getQueueDepth());
+	}
+
+	public void testDiffTreeListenerMetricsAreDisabledByDefault() {
+		Policy.METRICS = false;
+		fireChange();
+		assertEquals(0, TeamMetrics.getDefault().getSlowestListeners(10).length);
+	}
+
+	public void testDiffTreeListenerMetrics() {
+		Policy.METRICS = true;
+		fireChange();
+		ListenerMetrics[] listeners = TeamMetrics.getDefault().getSlowestListeners(10);
+		assertEquals(1, listeners.length);
+		assertEquals(SlowListener.class.getName(), listeners[0].getName());
+		assertEquals(1, listeners[0].getNotificationTime().getCount());
+	}
+
+	private void assertSimple(CompositeType type) {
+		for (String key : type.keySet()) {
+			assertTrue(key, type.getType(key) instanceof SimpleType);
+		}
+	}
+
+	private void fireChange() {
+		DiffTree tree = new DiffTree();
+		SlowListener listener = new SlowListener();
+		tree.addDiffChangeListener(listener);
+		IPath path = new Path("/project/file.txt");
+		tree.add(new TwoWayDiff(path, IDiff.ADD, 0));
+		assertEquals(1, listener.changes);
+	}
+
+	private void runHandler(String name, int count) throws InterruptedException {
+		CountDownLatch processed = new CountDownLatch(count);
+		BackgroundEventHandler handler = new BackgroundEventHandler(name, name) {
+			{
+				for (int i = 0; i < count; i++) {
+					queueEvent(new Event(1), false);
+				}
+			}
+			@Override
+			protected void processEvent(Event event, IProgressMonitor monitor) {
+				processed.countDown();
+			}
+			@Override
+			protected boolean doDispatchEvents(IProgressMonitor monitor) {
+				return false;
+			}
+		};
+		try {
+			assertTrue(processed.await(10, TimeUnit.SECONDS));
+			handler.getEventHandlerJob().join();
+		} finally {
+			handler.shutdown();
+		}
+	}
+
+	private static class FastListener {
+		// Only the class name is recorded
+	}
+
+	private static class SlowListener implements IDiffChangeListener {
+		int changes;
+		@Override
+		public void diffsChanged(IDiffChangeEvent event, IProgressMonitor monitor) {
+			changes++;
+		}
+		@Override
+		public void propertyChanged(IDiffTree tree, int property, IPath[] paths) {
+			// Not used
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core.history;
+
+import junit.framework.*;
+
+public class AllTests extends TestCase {
+	public AllTests() {
+		super(null);
+	}
+
+	public AllTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(AllTests.class.getName());
+		suite.addTest(FileRevisionIndexTests.suite());
+		suite.addTest(FileHistoryTests.suite());
+		suite.addTest(LocalFileHistoryTests.suite());
+		suite.addTest(LocalHistoryServiceTests.suite());
+		return suite;
+	}
+}
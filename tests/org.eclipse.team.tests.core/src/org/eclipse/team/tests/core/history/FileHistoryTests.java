@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core.history;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.core.history.IFileHistory;
+import org.eclipse.team.core.history.IFileRevision;
+import org.eclipse.team.core.history.provider.FileHistory;
+
+/**
+ * Tests the default paged and time range queries of {@link IFileHistory}.
+ */
+public class FileHistoryTests extends TestCase {
+
+	private static class TestFileHistory extends FileHistory {
+		private final IFileRevision[] revisions;
+
+		TestFileHistory(IFileRevision... revisions) {
+			this.revisions = revisions;
+		}
+
+		@Override
+		public IFileRevision[] getFileRevisions() {
+			return revisions;
+		}
+
+		@Override
+		public IFileRevision getFileRevision(String id) {
+			return null;
+		}
+
+		@Override
+		public IFileRevision[] getContributors(IFileRevision revision) {
+			return new IFileRevision[0];
+		}
+
+		@Override
+		public IFileRevision[] getTargets(IFileRevision revision) {
+			return new IFileRevision[0];
+		}
+	}
+
+	private final IFileRevision r40 = new TestFileRevision("d", 40);
+	private final IFileRevision r30 = new TestFileRevision("c", 30);
+	private final IFileRevision r20 = new TestFileRevision("b", 20);
+	private final IFileRevision r10 = new TestFileRevision("a", 10);
+
+	public FileHistoryTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(FileHistoryTests.class);
+	}
+
+	public void testEmptyHistory() {
+		IFileHistory history = new TestFileHistory();
+		assertEquals(0, history.getFileRevisionCount());
+		assertEquals(0, history.getFileRevisions(0, 10).length);
+		assertEquals(0, history.getFileRevisions(5, 10).length);
+		assertEquals(0, history.getFileRevisionsBetween(Long.MIN_VALUE, Long.MAX_VALUE).length);
+	}
+
+	public void testCount() {
+		assertEquals(4, new TestFileHistory(r40, r30, r20, r10).getFileRevisionCount());
+	}
+
+	public void testPages() {
+		IFileHistory history = new TestFileHistory(r40, r30, r20, r10);
+		assertRevisions(history.getFileRevisions(0, 2), r40, r30);
+		assertRevisions(history.getFileRevisions(2, 2), r20, r10);
+		assertRevisions(history.getFileRevisions(3, 2), r10);
+		assertRevisions(history.getFileRevisions(4, 2));
+		assertRevisions(history.getFileRevisions(10, 2));
+		assertRevisions(history.getFileRevisions(1, 0));
+		assertRevisions(history.getFileRevisions(1, Integer.MAX_VALUE), r30, r20, r10);
+	}
+
+	public void testPageReturnsCopy() {
+		IFileRevision[] revisions = { r40, r30 };
+		IFileHistory history = new TestFileHistory(revisions);
+		history.getFileRevisions(0, 2)[0] = r10;
+		assertSame(r40, revisions[0]);
+	}
+
+	public void testInvalidPages() {
+		IFileHistory history = new TestFileHistory(r40, r30);
+		try {
+			history.getFileRevisions(-1, 2);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+		try {
+			history.getFileRevisions(0, -1);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	public void testTimeRange() {
+		IFileHistory history = new TestFileHistory(r40, r30, r20, r10);
+		assertRevisions(history.getFileRevisionsBetween(20, 40), r30, r20);
+		assertRevisions(history.getFileRevisionsBetween(20, 41), r40, r30, r20);
+		assertRevisions(history.getFileRevisionsBetween(11, 20));
+		assertRevisions(history.getFileRevisionsBetween(30, 20));
+		assertRevisions(history.getFileRevisionsBetween(Long.MIN_VALUE, Long.MAX_VALUE), r40, r30, r20, r10);
+	}
+
+	public void testTimeRangeKeepsHistoryOrder() {
+		IFileRevision r20b = new TestFileRevision("e", 20);
+		IFileHistory history = new TestFileHistory(r20, r40, r10, r20b);
+		assertRevisions(history.getFileRevisionsBetween(10, 30), r20, r10, r20b);
+	}
+
+	private void assertRevisions(IFileRevision[] actual, IFileRevision... expected) {
+		assertEquals(Arrays.asList(expected), Arrays.asList(actual));
+	}
+}
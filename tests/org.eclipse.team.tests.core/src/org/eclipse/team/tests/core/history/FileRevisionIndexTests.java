@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core.history;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.core.history.IFileRevision;
+import org.eclipse.team.core.history.provider.FileRevisionIndex;
+
+public class FileRevisionIndexTests extends TestCase {
+
+	public FileRevisionIndexTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(FileRevisionIndexTests.class);
+	}
+
+	public void testEmptyIndex() {
+		FileRevisionIndex index = new FileRevisionIndex(new IFileRevision[0]);
+		IFileRevision revision = new TestFileRevision("a", 10);
+		assertNull(index.getPredecessor(revision));
+		assertEquals(0, index.getDescendants(revision).length);
+		assertNull(index.getRevision("a"));
+	}
+
+	public void testPredecessor() {
+		// revisions are in history order, newest first
+		IFileRevision r30 = new TestFileRevision("c", 30);
+		IFileRevision r20 = new TestFileRevision("b", 20);
+		IFileRevision r10 = new TestFileRevision("a", 10);
+		FileRevisionIndex index = new FileRevisionIndex(new IFileRevision[] { r30, r20, r10 });
+		assertSame(r20, index.getPredecessor(r30));
+		assertSame(r10, index.getPredecessor(r20));
+		assertNull("The oldest revision has no predecessor", index.getPredecessor(r10));
+		// a revision that is not in the index is placed by its timestamp
+		assertSame(r20, index.getPredecessor(new TestFileRevision("x", 25)));
+		assertNull(index.getPredecessor(new TestFileRevision("x", 5)));
+		assertSame(r30, index.getPredecessor(new TestFileRevision("x", 40)));
+	}
+
+	public void testPredecessorWithTies() {
+		IFileRevision r30 = new TestFileRevision("d", 30);
+		IFileRevision r20a = new TestFileRevision("c", 20);
+		IFileRevision r20b = new TestFileRevision("b", 20);
+		IFileRevision r10 = new TestFileRevision("a", 10);
+		FileRevisionIndex index = new FileRevisionIndex(new IFileRevision[] { r30, r20a, r20b, r10 });
+		assertSame("Ties resolve to the first revision in history order", r20a, index.getPredecessor(r30));
+		// revisions with the same timestamp are not predecessors of each other
+		assertSame(r10, index.getPredecessor(r20a));
+		assertSame(r10, index.getPredecessor(r20b));
+		assertNull(index.getPredecessor(r10));
+	}
+
+	public void testPredecessorMatchesScan() {
+		IFileRevision[] revisions = new IFileRevision[50];
+		for (int i = 0; i < revisions.length; i++) {
+			// unordered timestamps with many ties
+			revisions[i] = new TestFileRevision("r" + i, (i * 7) % 13);
+		}
+		FileRevisionIndex index = new FileRevisionIndex(revisions);
+		for (IFileRevision revision : revisions) {
+			assertSame(revision.toString(), scanPredecessor(revisions, revision), index.getPredecessor(revision));
+			assertEquals(revision.toString(), Arrays.asList(scanDescendants(revisions, revision)), Arrays.asList(index.getDescendants(revision)));
+		}
+	}
+
+	public void testDescendantOrder() {
+		IFileRevision r10 = new TestFileRevision("a", 10);
+		IFileRevision r40 = new TestFileRevision("d", 40);
+		IFileRevision r20 = new TestFileRevision("b", 20);
+		IFileRevision r30 = new TestFileRevision("c", 30);
+		IFileRevision r20b = new TestFileRevision("e", 20);
+		IFileRevision[] revisions = new IFileRevision[] { r10, r40, r20, r30, r20b };
+		FileRevisionIndex index = new FileRevisionIndex(revisions);
+		assertEquals("Descendants keep the order of the history", Arrays.asList(r40, r20, r30, r20b), Arrays.asList(index.getDescendants(r10)));
+		assertEquals(Arrays.asList(r40, r30), Arrays.asList(index.getDescendants(r20)));
+		assertEquals(Arrays.asList(r40, r30), Arrays.asList(index.getDescendants(r20b)));
+		assertEquals(0, index.getDescendants(r40).length);
+	}
+
+	public void testIdentifierLookup() {
+		IFileRevision first = new TestFileRevision("a", 30);
+		IFileRevision second = new TestFileRevision("a", 20);
+		IFileRevision other = new TestFileRevision("b", 10);
+		IFileRevision unnamed = new TestFileRevision(null, 5);
+		FileRevisionIndex index = new FileRevisionIndex(new IFileRevision[] { first, second, other, unnamed });
+		assertSame("The first revision with an identifier wins", first, index.getRevision("a"));
+		assertSame(other, index.getRevision("b"));
+		assertNull(index.getRevision("c"));
+		assertNull(index.getRevision(null));
+		assertEquals(4, index.getRevisions().length);
+	}
+
+	/*
+	 * The scan that LocalFileHistory used before the index
+	 */
+	private IFileRevision scanPredecessor(IFileRevision[] revisions, IFileRevision revision) {
+		IFileRevision predecessor = null;
+		for (IFileRevision candidate : revisions) {
+			if (candidate.getTimestamp() < revision.getTimestamp()
+					&& (predecessor == null || candidate.getTimestamp() > predecessor.getTimestamp())) {
+				predecessor = candidate;
+			}
+		}
+		return predecessor;
+	}
+
+	private IFileRevision[] scanDescendants(IFileRevision[] revisions, IFileRevision revision) {
+		return Arrays.stream(revisions).filter(candidate -> candidate.getTimestamp() > revision.getTimestamp()).toArray(IFileRevision[]::new);
+	}
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core.history;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.team.core.history.IFileRevision;
+import org.eclipse.team.internal.core.history.LocalFileHistory;
+import org.eclipse.team.tests.core.TeamTest;
+
+/**
+ * Tests that the local history of a file creates its revisions on demand
+ * and answers paged and time range queries like {@link LocalFileHistory#getFileRevisions()}.
+ */
+public class LocalFileHistoryTests extends TeamTest {
+
+	private static final long BASE = 1_500_000_000_000L;
+
+	private IFile file;
+	private long[] stateTimes;
+
+	public LocalFileHistoryTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return suite(LocalFileHistoryTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		IProject project = getUniqueTestProject(getName());
+		file = project.getFile("file.txt");
+		file.create(new ByteArrayInputStream("0".getBytes()), true, null);
+		// Each change keeps the previous contents, with their timestamp, in the local history
+		stateTimes = new long[3];
+		for (int i = 0; i < stateTimes.length; i++) {
+			stateTimes[i] = file.setLocalTimeStamp(BASE + i * 10000);
+			file.setContents(new ByteArrayInputStream(String.valueOf(i + 1).getBytes()), true, true, null);
+		}
+	}
+
+	private LocalFileHistory getHistory(boolean includeCurrent) throws CoreException {
+		LocalFileHistory history = new LocalFileHistory(file, includeCurrent);
+		history.refresh(new NullProgressMonitor());
+		return history;
+	}
+
+	public void testNotRefreshed() {
+		LocalFileHistory history = new LocalFileHistory(file, true);
+		assertEquals(0, history.getFileRevisionCount());
+		assertEquals(0, history.getFileStateCount());
+		assertEquals(0, history.getFileRevisions().length);
+		assertEquals(0, history.getFileRevisions(0, 10).length);
+		assertEquals(0, history.getFileRevisionsBetween(Long.MIN_VALUE, Long.MAX_VALUE).length);
+	}
+
+	public void testCount() throws CoreException {
+		assertEquals(4, getHistory(true).getFileRevisionCount());
+		assertEquals(3, getHistory(false).getFileRevisionCount());
+		assertEquals(3, getHistory(true).getFileStateCount());
+		assertEquals(3, getHistory(false).getFileStateCount());
+	}
+
+	public void testRevisionOrder() throws CoreException {
+		IFileRevision[] revisions = getHistory(true).getFileRevisions();
+		assertEquals(4, revisions.length);
+		// The states come newest first, followed by the current contents of the file
+		assertEquals(stateTimes[2], revisions[0].getTimestamp());
+		assertEquals(stateTimes[1], revisions[1].getTimestamp());
+		assertEquals(stateTimes[0], revisions[2].getTimestamp());
+		assertEquals(file.getLocalTimeStamp(), revisions[3].getTimestamp());
+	}
+
+	public void testPagesMatchAllRevisions() throws CoreException {
+		LocalFileHistory history = getHistory(true);
+		IFileRevision[] first = history.getFileRevisions(0, 2);
+		IFileRevision[] last = history.getFileRevisions(2, 10);
+		IFileRevision[] all = history.getFileRevisions();
+		// Revisions created for a page are reused
+		assertSame(all[0], first[0]);
+		assertSame(all[1], first[1]);
+		assertEquals(2, last.length);
+		assertSame(all[2], last[0]);
+		assertSame(all[3], last[1]);
+		assertEquals(Arrays.asList(all), Arrays.asList(history.getFileRevisions(0, all.length)));
+		assertEquals(0, history.getFileRevisions(all.length, 1).length);
+	}
+
+	public void testCurrentRevisionIsLastPage() throws CoreException {
+		LocalFileHistory history = getHistory(true);
+		IFileRevision[] page = history.getFileRevisions(history.getFileStateCount(), 10);
+		assertEquals(1, page.length);
+		assertEquals(file.getLocalTimeStamp(), page[0].getTimestamp());
+		assertTrue(page[0].exists());
+	}
+
+	public void testInvalidPage() throws CoreException {
+		try {
+			getHistory(true).getFileRevisions(-1, 1);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	public void testTimeRange() throws CoreException {
+		LocalFileHistory history = getHistory(true);
+		IFileRevision[] revisions = history.getFileRevisionsBetween(stateTimes[0], stateTimes[2]);
+		assertEquals(2, revisions.length);
+		assertEquals(stateTimes[1], revisions[0].getTimestamp());
+		assertEquals(stateTimes[0], revisions[1].getTimestamp());
+		assertEquals(0, history.getFileRevisionsBetween(stateTimes[0] + 1, stateTimes[1]).length);
+		revisions = history.getFileRevisionsBetween(stateTimes[2] + 1, Long.MAX_VALUE);
+		assertEquals(1, revisions.length);
+		assertEquals(file.getLocalTimeStamp(), revisions[0].getTimestamp());
+		// The revisions of a time range are the ones of the whole history
+		IFileRevision[] all = history.getFileRevisions();
+		assertSame(all[3], revisions[0]);
+	}
+
+	public void testRefresh() throws CoreException {
+		LocalFileHistory history = getHistory(true);
+		history.getFileRevisions(0, 1);
+		file.setContents(new ByteArrayInputStream("4".getBytes()), true, true, null);
+		history.refresh(new NullProgressMonitor());
+		assertEquals(5, history.getFileRevisionCount());
+		assertEquals(5, history.getFileRevisions().length);
+	}
+}
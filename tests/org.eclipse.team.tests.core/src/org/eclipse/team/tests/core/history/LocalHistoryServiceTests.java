@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFileState;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.team.internal.core.history.LocalHistoryIndex;
+import org.eclipse.team.internal.core.history.LocalHistoryService;
+import org.eclipse.team.tests.core.TeamTest;
+
+/**
+ * Tests querying and restoring the local history of a project. The
+ * timestamps of the files are set explicitly, relative to the restore time,
+ * so that the local history states have known modification times.
+ */
+public class LocalHistoryServiceTests extends TeamTest {
+
+	private static final long BASE = 1_500_000_000_000L;
+	private static final long BEFORE = BASE + 10000;
+	private static final long RESTORE_TIME = BASE + 50000;
+	private static final long AFTER = BASE + 60000;
+
+	private IProject project;
+
+	public LocalHistoryServiceTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return suite(LocalHistoryServiceTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		project = getUniqueTestProject(getName());
+	}
+
+	public void testModifiedAfterTime() throws Exception {
+		IFile file = createFile("modified.txt", "before", BEFORE);
+		// The new contents get the current time, which is after the restore time
+		setContents(file, "after");
+		IFile unmodified = createFile("unmodified.txt", "before", BEFORE);
+		LocalHistoryService.restore(project, RESTORE_TIME, null);
+		assertContents("before", file);
+		assertContents("before", unmodified);
+		assertEquals(BEFORE, unmodified.getLocalTimeStamp());
+		// The replaced contents are kept in the history
+		assertEquals(2, file.getHistory(null).length);
+	}
+
+	public void testDeletedAfterTime() throws Exception {
+		IFile file = createFile("deleted.txt", "before", BEFORE);
+		setContents(file, "after");
+		file.setLocalTimeStamp(AFTER);
+		file.delete(true, true, null);
+		LocalHistoryService.restore(project, RESTORE_TIME, null);
+		assertTrue(file.exists());
+		assertContents("before", file);
+	}
+
+	public void testDeletedAfterTimeInDeletedFolder() throws Exception {
+		IFolder folder = project.getFolder("folder");
+		folder.create(false, true, null);
+		IFile file = createFile("folder/deleted.txt", "before", BEFORE);
+		setContents(file, "after");
+		file.setLocalTimeStamp(AFTER);
+		folder.delete(true, true, null);
+		LocalHistoryService.restore(project, RESTORE_TIME, null);
+		assertTrue(folder.exists());
+		assertContents("before", file);
+	}
+
+	public void testDeletedBeforeTime() throws Exception {
+		// Nothing shows that the file still existed at the restore time
+		IFile file = createFile("deleted.txt", "before", BEFORE);
+		file.delete(true, true, null);
+		LocalHistoryService.restore(project, RESTORE_TIME, null);
+		assertFalse(file.exists());
+	}
+
+	public void testCreatedAfterTime() throws Exception {
+		IFile file = createFile("created.txt", "first", AFTER);
+		setContents(file, "second");
+		LocalHistoryService.restore(project, RESTORE_TIME, null);
+		assertContents("second", file);
+	}
+
+	public void testQueryTimeWindow() throws Exception {
+		IFile modified = createFile("modified.txt", "before", BEFORE);
+		setContents(modified, "after");
+		IFile deleted = createFile("deleted.txt", "before", BEFORE);
+		setContents(deleted, "after");
+		deleted.setLocalTimeStamp(AFTER);
+		deleted.delete(true, true, null);
+		IFile created = createFile("created.txt", "first", AFTER);
+		setContents(created, "second");
+		createFile("unmodified.txt", "before", BEFORE);
+
+		LocalHistoryIndex index = LocalHistoryService.query(new IResource[] { project }, BEFORE, AFTER, null);
+		assertEquals(2, index.getStateCount());
+		assertEquals(1, index.getStates(modified).length);
+		assertEquals(1, index.getStates(deleted).length);
+		assertEquals(0, index.getStates(created).length);
+		assertEquals(BEFORE, index.getState(deleted, RESTORE_TIME).getModificationTime());
+		assertNull(index.getState(deleted, BEFORE - 1));
+
+		// The upper bound is exclusive
+		index = LocalHistoryService.query(new IResource[] { project }, BEFORE, AFTER + 1, null);
+		assertEquals(4, index.getStateCount());
+		IFileState[] states = index.getStates(deleted);
+		assertEquals(2, states.length);
+		assertEquals(AFTER, states[0].getModificationTime());
+		assertEquals(BEFORE, states[1].getModificationTime());
+		assertEquals(AFTER, index.getState(deleted, AFTER).getModificationTime());
+
+		// The lower bound is inclusive
+		index = LocalHistoryService.query(new IResource[] { project }, BEFORE + 1, AFTER + 1, null);
+		assertEquals(2, index.getStateCount());
+	}
+
+	private IFile createFile(String path, String contents, long timestamp) throws CoreException {
+		IFile file = project.getFile(path);
+		file.create(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)), false, null);
+		file.setLocalTimeStamp(timestamp);
+		return file;
+	}
+
+	private void setContents(IFile file, String contents) throws CoreException {
+		file.setContents(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)), false, true, null);
+	}
+
+	private void assertContents(String expected, IFile file) throws CoreException, IOException {
+		try (InputStream in = file.getContents()) {
+			assertEquals(expected, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core.history;
+
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.team.core.history.IFileRevision;
+import org.eclipse.team.core.history.provider.FileRevision;
+
+/**
+ * A file revision with a fixed timestamp and content identifier.
+ */
+public class TestFileRevision extends FileRevision {
+
+	private final String identifier;
+	private final long timestamp;
+
+	public TestFileRevision(String identifier, long timestamp) {
+		this.identifier = identifier;
+		this.timestamp = timestamp;
+	}
+
+	@Override
+	public IStorage getStorage(IProgressMonitor monitor) {
+		return null;
+	}
+
+	@Override
+	public String getName() {
+		return "file.txt";
+	}
+
+	@Override
+	public String getContentIdentifier() {
+		return identifier;
+	}
+
+	@Override
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	@Override
+	public boolean isPropertyMissing() {
+		return false;
+	}
+
+	@Override
+	public IFileRevision withAllProperties(IProgressMonitor monitor) {
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return identifier + "@" + timestamp;
+	}
+}
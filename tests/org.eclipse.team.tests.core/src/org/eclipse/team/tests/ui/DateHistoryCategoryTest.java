@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2022 IBM Corporation and others.
+ *
+ * This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License 2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.core.history.IFileRevision;
+import org.eclipse.team.internal.ui.history.DateHistoryCategory;
+import org.eclipse.team.tests.core.history.TestFileRevision;
+
+public class DateHistoryCategoryTest extends TestCase {
+
+	private static final int TODAY = 0;
+	private static final int YESTERDAY = 1;
+	private static final int THIS_MONTH = 2;
+	private static final int PREVIOUS = 3;
+
+	private TimeZone defaultTimeZone;
+
+	public DateHistoryCategoryTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(DateHistoryCategoryTest.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		defaultTimeZone = TimeZone.getDefault();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		TimeZone.setDefault(defaultTimeZone);
+		super.tearDown();
+	}
+
+	public void testDayBoundaries() {
+		TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+		DateHistoryCategory[] categories = createCategories(at(2021, 6, 15, 10, 0));
+		assertCategory(categories, TODAY, at(2021, 6, 15, 0, 0));
+		assertCategory(categories, TODAY, at(2021, 6, 15, 23, 59) + 59999);
+		assertCategory(categories, -1, at(2021, 6, 16, 0, 0));
+		assertCategory(categories, YESTERDAY, at(2021, 6, 14, 23, 59) + 59999);
+		assertCategory(categories, YESTERDAY, at(2021, 6, 14, 0, 0));
+		assertCategory(categories, THIS_MONTH, at(2021, 6, 13, 23, 59) + 59999);
+		assertCategory(categories, THIS_MONTH, at(2021, 6, 1, 0, 0));
+		assertCategory(categories, PREVIOUS, at(2021, 5, 31, 23, 59) + 59999);
+		assertCategory(categories, PREVIOUS, at(2020, 12, 31, 12, 0));
+	}
+
+	public void testAllCategoriesInOnePass() {
+		TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+		DateHistoryCategory[] categories = createCategories(at(2021, 6, 15, 10, 0));
+		IFileRevision today = new TestFileRevision("today", at(2021, 6, 15, 8, 0));
+		IFileRevision yesterday = new TestFileRevision("yesterday", at(2021, 6, 14, 8, 0));
+		IFileRevision month1 = new TestFileRevision("month1", at(2021, 6, 10, 8, 0));
+		IFileRevision month2 = new TestFileRevision("month2", at(2021, 6, 2, 8, 0));
+		IFileRevision previous = new TestFileRevision("previous", at(2021, 1, 2, 8, 0));
+		DateHistoryCategory.collectFileRevisions(categories,
+				new IFileRevision[] { today, yesterday, month1, month2, previous });
+		assertEquals(Arrays.asList(today), Arrays.asList(categories[TODAY].getRevisions()));
+		assertEquals(Arrays.asList(yesterday), Arrays.asList(categories[YESTERDAY].getRevisions()));
+		assertEquals("Revisions keep their order", Arrays.asList(month1, month2), Arrays.asList(categories[THIS_MONTH].getRevisions()));
+		assertEquals(Arrays.asList(previous), Arrays.asList(categories[PREVIOUS].getRevisions()));
+
+		DateHistoryCategory.collectFileRevisions(categories, new IFileRevision[] { previous });
+		assertFalse("Collecting again replaces the revisions", categories[TODAY].hasRevisions());
+		assertNull(categories[TODAY].getRevisions());
+		assertTrue(categories[PREVIOUS].hasRevisions());
+	}
+
+	public void testTimeZoneOffsets() {
+		String[] zones = { "Pacific/Kiritimati", "Pacific/Pago_Pago", "Asia/Kolkata", "Asia/Kathmandu", "UTC" };
+		for (String zone : zones) {
+			TimeZone.setDefault(TimeZone.getTimeZone(zone));
+			DateHistoryCategory[] categories = createCategories(at(2021, 6, 15, 12, 0));
+			assertCategory(zone, categories, TODAY, at(2021, 6, 15, 0, 0));
+			assertCategory(zone, categories, TODAY, at(2021, 6, 15, 23, 59) + 59999);
+			assertCategory(zone, categories, YESTERDAY, at(2021, 6, 15, 0, 0) - 1);
+			assertCategory(zone, categories, -1, at(2021, 6, 16, 0, 0));
+		}
+
+		// the same instant falls on different days depending on the time zone
+		long instant = ZonedDateTime.of(2021, 6, 14, 10, 30, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+		TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Kiritimati"));
+		assertCategory(createCategories(at(2021, 6, 15, 12, 0)), TODAY, instant);
+		TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Pago_Pago"));
+		assertCategory(createCategories(at(2021, 6, 15, 12, 0)), THIS_MONTH, instant);
+		assertCategory(createCategories(at(2021, 6, 14, 12, 0)), YESTERDAY, instant);
+		assertCategory(createCategories(at(2021, 6, 13, 12, 0)), TODAY, instant);
+	}
+
+	public void testDaylightSavingTimeStart() {
+		TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+		// March 14, 2021 has 23 hours in New York
+		DateHistoryCategory[] categories = createCategories(at(2021, 3, 14, 12, 0));
+		assertCategory(categories, TODAY, at(2021, 3, 14, 0, 0));
+		assertCategory(categories, TODAY, at(2021, 3, 14, 3, 0));
+		assertCategory(categories, TODAY, at(2021, 3, 14, 23, 59) + 59999);
+		assertCategory(categories, -1, at(2021, 3, 15, 0, 0));
+		assertCategory(categories, YESTERDAY, at(2021, 3, 14, 0, 0) - 1);
+
+		categories = createCategories(at(2021, 3, 15, 12, 0));
+		assertCategory(categories, YESTERDAY, at(2021, 3, 14, 23, 30));
+		assertCategory(categories, TODAY, at(2021, 3, 15, 0, 0));
+	}
+
+	public void testDaylightSavingTimeEnd() {
+		TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+		// November 7, 2021 has 25 hours in New York and 1:30 occurs twice
+		DateHistoryCategory[] categories = createCategories(at(2021, 11, 7, 12, 0));
+		long firstHalfPastOne = ZonedDateTime.of(2021, 11, 7, 5, 30, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+		long secondHalfPastOne = ZonedDateTime.of(2021, 11, 7, 6, 30, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+		assertCategory(categories, TODAY, at(2021, 11, 7, 0, 0));
+		assertCategory(categories, TODAY, firstHalfPastOne);
+		assertCategory(categories, TODAY, secondHalfPastOne);
+		assertCategory(categories, TODAY, at(2021, 11, 7, 23, 59) + 59999);
+		assertCategory(categories, -1, at(2021, 11, 8, 0, 0));
+		assertCategory(categories, YESTERDAY, at(2021, 11, 7, 0, 0) - 1);
+	}
+
+	/*
+	 * Create the categories the way the local history page does
+	 */
+	private DateHistoryCategory[] createCategories(long now) {
+		Calendar currentCal = Calendar.getInstance();
+		currentCal.setTimeInMillis(now);
+		Calendar yesterdayCal = Calendar.getInstance();
+		yesterdayCal.setTimeInMillis(now);
+		yesterdayCal.roll(Calendar.DAY_OF_YEAR, -1);
+		Calendar monthCal = Calendar.getInstance();
+		monthCal.setTimeInMillis(now);
+		monthCal.set(Calendar.DAY_OF_MONTH, 1);
+		return new DateHistoryCategory[] {
+				new DateHistoryCategory("today", currentCal, null),
+				new DateHistoryCategory("yesterday", yesterdayCal, null),
+				new DateHistoryCategory("month", monthCal, yesterdayCal),
+				new DateHistoryCategory("previous", null, monthCal) };
+	}
+
+	private void assertCategory(DateHistoryCategory[] categories, int expected, long timestamp) {
+		assertCategory(null, categories, expected, timestamp);
+	}
+
+	/*
+	 * Assert that the revision with the given timestamp belongs to the category
+	 * at the expected index only, or to none if the index is -1
+	 */
+	private void assertCategory(String message, DateHistoryCategory[] categories, int expected, long timestamp) {
+		IFileRevision revision = new TestFileRevision("r", timestamp);
+		DateHistoryCategory.collectFileRevisions(categories, new IFileRevision[] { revision });
+		for (int i = 0; i < categories.length; i++) {
+			String description = (message == null ? "" : message + ": ") + categories[i].getName() + " "
+					+ LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+			assertEquals(description, i == expected, categories[i].hasRevisions());
+		}
+	}
+
+	/*
+	 * Return the time of the given local date and time in the default time zone
+	 */
+	private static long at(int year, int month, int day, int hour, int minute) {
+		return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+}